@@ -49,6 +49,20 @@ public class ScopedJobConfiguration
 		return v;
 	}
 
+	public boolean getBoolean(
+			final Enum<?> property,
+			final boolean defaultValue ) {
+		final String propName = GeoWaveConfiguratorBase.enumToConfKey(
+				scope,
+				property);
+		if (jobConfiguration.getRaw(propName) == null) {
+			logger.warn("Using default for property " + propName);
+		}
+		return jobConfiguration.getBoolean(
+				propName,
+				defaultValue);
+	}
+
 	public String getString(
 			final Enum<?> property,
 			final String defaultValue ) {
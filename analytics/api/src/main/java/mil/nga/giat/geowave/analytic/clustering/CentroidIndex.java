@@ -0,0 +1,241 @@
+package mil.nga.giat.geowave.analytic.clustering;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import mil.nga.giat.geowave.analytic.AnalyticItemWrapper;
+import mil.nga.giat.geowave.analytic.distance.CoordinateCircleDistanceFn;
+import mil.nga.giat.geowave.analytic.distance.CoordinateEuclideanDistanceFn;
+import mil.nga.giat.geowave.analytic.distance.DistanceFn;
+import mil.nga.giat.geowave.analytic.distance.FeatureCentroidDistanceFn;
+import mil.nga.giat.geowave.analytic.kmeans.AssociationNotification;
+
+import org.opengis.feature.simple.SimpleFeature;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+/**
+ * Finds the closest centroid of a fixed set of centroids to an item.
+ *
+ * When the distance function is a {@link FeatureCentroidDistanceFn}, the
+ * centroid coordinates are extracted once and kept in primitive arrays sorted
+ * along one axis. A search starts at the item's position along that axis and
+ * walks outward in both directions, stopping once the separation along the
+ * axis alone exceeds the best distance found. The separation bounds the
+ * distance for Euclidean distance (x axis) and for orthodromic distance
+ * (latitude, since no path between two parallels is shorter than a meridian
+ * arc). Other coordinate distance functions scan all of the extracted
+ * coordinates. Any other distance function is measured against each centroid
+ * item, as in {@link mil.nga.giat.geowave.analytic.kmeans.CentroidAssociationFn}.
+ *
+ * Ties are resolved in favor of the centroid appearing first in the provided
+ * list.
+ *
+ * Intended to run in a single thread. Not Thread Safe.
+ *
+ * @param <T>
+ */
+public class CentroidIndex<T>
+{
+	/**
+	 * Lower bound of the length of one degree of a meridian (at the equator)
+	 * on the WGS84 ellipsoid, rounded down.
+	 */
+	private static final double MIN_METERS_PER_DEGREE_LATITUDE = 110500.0;
+
+	private final DistanceFn<T> distanceFunction;
+	private final List<AnalyticItemWrapper<T>> centroids;
+	private FeatureCentroidDistanceFn featureDistanceFunction = null;
+
+	// indices of centroids, sorted by the search axis
+	private int[] order;
+	private double[] xs;
+	private double[] ys;
+	private double[] zs;
+	private boolean byLatitude = false;
+	private boolean pruning = false;
+	private final Coordinate probe = new Coordinate();
+	private final Coordinate candidate = new Coordinate();
+
+	public CentroidIndex(
+			final List<AnalyticItemWrapper<T>> centroids,
+			final DistanceFn<T> distanceFunction ) {
+		this.centroids = centroids;
+		this.distanceFunction = distanceFunction;
+		if ((distanceFunction instanceof FeatureCentroidDistanceFn) && !centroids.isEmpty()
+				&& (centroids.get(
+						0).getWrappedItem() instanceof SimpleFeature)) {
+			featureDistanceFunction = (FeatureCentroidDistanceFn) distanceFunction;
+			final Class<?> coordinateFnClass = featureDistanceFunction.getCoordinateDistanceFunction().getClass();
+			byLatitude = coordinateFnClass == CoordinateCircleDistanceFn.class;
+			pruning = byLatitude || (coordinateFnClass == CoordinateEuclideanDistanceFn.class);
+			build();
+		}
+	}
+
+	public List<AnalyticItemWrapper<T>> getCentroids() {
+		return centroids;
+	}
+
+	public DistanceFn<T> getDistanceFunction() {
+		return distanceFunction;
+	}
+
+	private void build() {
+		final int size = centroids.size();
+		final double[] x = new double[size];
+		final double[] y = new double[size];
+		final double[] z = new double[size];
+		final Integer[] sorted = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			final Coordinate c = featureDistanceFunction.getCentroidCoordinate((SimpleFeature) centroids.get(
+					i).getWrappedItem());
+			x[i] = c.x;
+			y[i] = c.y;
+			z[i] = c.z;
+			sorted[i] = i;
+		}
+		final double[] keys = byLatitude ? y : x;
+		if (pruning) {
+			// stable, so equal keys retain list order
+			Arrays.sort(
+					sorted,
+					new Comparator<Integer>() {
+						@Override
+						public int compare(
+								final Integer o1,
+								final Integer o2 ) {
+							return Double.compare(
+									keys[o1],
+									keys[o2]);
+						}
+					});
+		}
+		order = new int[size];
+		xs = new double[size];
+		ys = new double[size];
+		zs = new double[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = sorted[i];
+			xs[i] = x[sorted[i]];
+			ys[i] = y[sorted[i]];
+			zs[i] = z[sorted[i]];
+		}
+	}
+
+	/**
+	 * Find the closest centroid to the item, notify the pairing and return the
+	 * distance to the closest centroid.
+	 */
+	public double compute(
+			final AnalyticItemWrapper<T> point,
+			final AssociationNotification<T> associationNotification ) {
+		final CentroidPairing<T> pairing = new CentroidPairing<T>(
+				null,
+				point,
+				Double.POSITIVE_INFINITY);
+		if (featureDistanceFunction == null) {
+			for (final AnalyticItemWrapper<T> y : centroids) {
+				final double distance = distanceFunction.measure(
+						point.getWrappedItem(),
+						y.getWrappedItem());
+				if (distance < pairing.getDistance()) {
+					pairing.setDistance(distance);
+					pairing.setCentroid(y);
+				}
+			}
+		}
+		else {
+			final Coordinate c = featureDistanceFunction.getCentroidCoordinate((SimpleFeature) point.getWrappedItem());
+			probe.x = c.x;
+			probe.y = c.y;
+			probe.z = c.z;
+			final int best = pruning ? search() : scan(
+					0,
+					order.length);
+			if (best >= 0) {
+				pairing.setDistance(measure(best));
+				pairing.setCentroid(centroids.get(order[best]));
+			}
+		}
+		associationNotification.notify(pairing);
+		return pairing.getDistance();
+	}
+
+	private double measure(
+			final int i ) {
+		candidate.x = xs[i];
+		candidate.y = ys[i];
+		candidate.z = zs[i];
+		return featureDistanceFunction.getCoordinateDistanceFunction().measure(
+				probe,
+				candidate);
+	}
+
+	private double lowerBound(
+			final double separation ) {
+		return byLatitude ? separation * MIN_METERS_PER_DEGREE_LATITUDE : separation;
+	}
+
+	private boolean closer(
+			final double distance,
+			final int i,
+			final double bestDistance,
+			final int best ) {
+		return (distance < bestDistance) || ((distance == bestDistance) && (best >= 0) && (order[i] < order[best]));
+	}
+
+	private int scan(
+			final int from,
+			final int to ) {
+		int best = -1;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			final double distance = measure(i);
+			if (closer(
+					distance,
+					i,
+					bestDistance,
+					best)) {
+				best = i;
+				bestDistance = distance;
+			}
+		}
+		return best;
+	}
+
+	private int search() {
+		final double[] keys = byLatitude ? ys : xs;
+		final double key = byLatitude ? probe.y : probe.x;
+		int high = Arrays.binarySearch(
+				keys,
+				key);
+		if (high < 0) {
+			high = -(high + 1);
+		}
+		int low = high - 1;
+		int best = -1;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		while ((low >= 0) || (high < keys.length)) {
+			final double lowSeparation = low >= 0 ? key - keys[low] : Double.POSITIVE_INFINITY;
+			final double highSeparation = high < keys.length ? keys[high] - key : Double.POSITIVE_INFINITY;
+			final boolean takeLow = lowSeparation <= highSeparation;
+			// the remaining centroids in both directions are at least this far
+			if (lowerBound(takeLow ? lowSeparation : highSeparation) > bestDistance) {
+				break;
+			}
+			final int i = takeLow ? low-- : high++;
+			final double distance = measure(i);
+			if (closer(
+					distance,
+					i,
+					bestDistance,
+					best)) {
+				best = i;
+				bestDistance = distance;
+			}
+		}
+		return best;
+	}
+}
@@ -449,11 +449,30 @@ public class CentroidManagerGeoWave<T> implements
 		return null;
 	}
 
-	@SuppressWarnings("unchecked")
 	protected CloseableIterator<T> getRawCentroids(
 			final String batchId,
 			final String groupID )
 			throws IOException {
+		return getRawCentroids(
+				batchId,
+				groupID,
+				level);
+	}
+
+	/**
+	 * 
+	 * @param batchId
+	 * @param groupID
+	 *            if null, all groups of the batch at the given level
+	 * @param level
+	 *            if not positive, all levels
+	 */
+	@SuppressWarnings("unchecked")
+	protected CloseableIterator<T> getRawCentroids(
+			final String batchId,
+			final String groupID,
+			final int level )
+			throws IOException {
 
 		final FilterFactoryImpl factory = new FilterFactoryImpl();
 		final Expression expB1 = factory.property(ClusterFeatureAttribute.BATCH_ID.attrName());
@@ -575,6 +594,14 @@ public class CentroidManagerGeoWave<T> implements
 		return this.batchId;
 	}
 
+	public int getLevel() {
+		return level;
+	}
+
+	public AnalyticItemWrapperFactory<T> getCentroidFactory() {
+		return centroidFactory;
+	}
+
 	private DataAdapter<?> getAdapter() {
 		return adapterStore.getAdapter(getDataTypeId());
 	}
@@ -0,0 +1,583 @@
+package mil.nga.giat.geowave.analytic.clustering;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.opengis.feature.simple.SimpleFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import mil.nga.giat.geowave.adapter.vector.FeatureWritable;
+import mil.nga.giat.geowave.analytic.AnalyticItemWrapper;
+import mil.nga.giat.geowave.analytic.AnalyticItemWrapperFactory;
+import mil.nga.giat.geowave.analytic.ScopedJobConfiguration;
+import mil.nga.giat.geowave.analytic.clustering.exception.MatchingCentroidNotFoundException;
+import mil.nga.giat.geowave.analytic.distance.DistanceFn;
+import mil.nga.giat.geowave.analytic.param.CentroidParameters;
+import mil.nga.giat.geowave.analytic.param.GlobalParameters;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.mapreduce.GeoWaveConfiguratorBase;
+
+/**
+ *
+ * Manages a fixed generation of centroids held in memory. The centroids of one
+ * or more batches are loaded once, rather than queried from the data store per
+ * group, and nearest centroid searches use a {@link CentroidIndex} per group.
+ *
+ * Within a map reduce job, the driver writes a snapshot of the centroids of
+ * the current and parent batches to the file system and adds it to the
+ * distributed cache (see {@link #distribute(Job, Class)}). Each task then
+ * loads the snapshot from its local copy (see
+ * {@link #fromJobContext(JobContext, Class, Logger)}). This mode is enabled by
+ * "Centroid.InMemory" and is intended for processes, such as the k-means
+ * mapper, that only read a generation of centroids.
+ *
+ * Deletes only affect the in-memory copy.
+ *
+ * @param <T>
+ *            The item type used to represent a centroid.
+ */
+public class CentroidManagerInMemory<T> implements
+		CentroidManager<T>
+{
+	final static Logger LOGGER = LoggerFactory.getLogger(CentroidManagerInMemory.class);
+
+	/**
+	 * Name of the snapshot link in the working directory of a task
+	 */
+	public static final String SNAPSHOT_NAME = "geowave-centroids.snapshot";
+
+	private final AnalyticItemWrapperFactory<T> centroidFactory;
+	private final ByteArrayId dataTypeId;
+	private final ByteArrayId indexId;
+	private final String batchId;
+	private final int level;
+
+	// batch ID -> group ID -> centroids
+	private final Map<String, Map<String, List<AnalyticItemWrapper<T>>>> batches = new LinkedHashMap<String, Map<String, List<AnalyticItemWrapper<T>>>>();
+	// batch ID -> centroids of the current level, for lookups without a group
+	private final Map<String, List<AnalyticItemWrapper<T>>> levelCentroids = new LinkedHashMap<String, List<AnalyticItemWrapper<T>>>();
+	private final Map<Pair<String, String>, CentroidIndex<T>> indices = new LinkedHashMap<Pair<String, String>, CentroidIndex<T>>();
+
+	public CentroidManagerInMemory(
+			final AnalyticItemWrapperFactory<T> centroidFactory,
+			final ByteArrayId dataTypeId,
+			final ByteArrayId indexId,
+			final String batchId,
+			final int level ) {
+		this.centroidFactory = centroidFactory;
+		this.dataTypeId = dataTypeId;
+		this.indexId = indexId;
+		this.batchId = batchId;
+		this.level = level;
+	}
+
+	/**
+	 * Add a centroid to its batch and group.
+	 */
+	public void add(
+			final T centroid ) {
+		final AnalyticItemWrapper<T> item = centroidFactory.create(centroid);
+		Map<String, List<AnalyticItemWrapper<T>>> groups = batches.get(item.getBatchID());
+		if (groups == null) {
+			groups = new LinkedHashMap<String, List<AnalyticItemWrapper<T>>>();
+			batches.put(
+					item.getBatchID(),
+					groups);
+		}
+		List<AnalyticItemWrapper<T>> centroids = groups.get(item.getGroupID());
+		if (centroids == null) {
+			centroids = new ArrayList<AnalyticItemWrapper<T>>();
+			groups.put(
+					item.getGroupID(),
+					centroids);
+		}
+		centroids.add(item);
+		invalidate(item.getBatchID());
+	}
+
+	private void invalidate(
+			final String batchID ) {
+		levelCentroids.remove(batchID);
+		final Iterator<Pair<String, String>> it = indices.keySet().iterator();
+		while (it.hasNext()) {
+			if (it.next().getLeft().equals(
+					batchID)) {
+				it.remove();
+			}
+		}
+	}
+
+	@Override
+	public AnalyticItemWrapper<T> createNextCentroid(
+			final T feature,
+			final String groupID,
+			final Coordinate coordinate,
+			final String[] extraNames,
+			final double[] extraValues ) {
+		return centroidFactory.createNextItem(
+				feature,
+				groupID,
+				coordinate,
+				extraNames,
+				extraValues);
+	}
+
+	@Override
+	public AnalyticItemWrapper<T> getCentroidById(
+			final String id,
+			final String groupID )
+			throws IOException,
+			MatchingCentroidNotFoundException {
+		for (final AnalyticItemWrapper<T> centroid : getCentroidsForGroup(groupID)) {
+			if (centroid.getID().equals(
+					id)) {
+				return centroid;
+			}
+		}
+		throw new MatchingCentroidNotFoundException(
+				id);
+	}
+
+	@Override
+	public void delete(
+			final String[] dataIds )
+			throws IOException {
+		final Set<String> ids = new LinkedHashSet<String>(
+				Arrays.asList(dataIds));
+		for (final Map.Entry<String, Map<String, List<AnalyticItemWrapper<T>>>> batch : batches.entrySet()) {
+			boolean changed = false;
+			for (final List<AnalyticItemWrapper<T>> centroids : batch.getValue().values()) {
+				final Iterator<AnalyticItemWrapper<T>> it = centroids.iterator();
+				while (it.hasNext()) {
+					if (ids.contains(it.next().getID())) {
+						it.remove();
+						changed = true;
+					}
+				}
+			}
+			if (changed) {
+				invalidate(batch.getKey());
+			}
+		}
+	}
+
+	@Override
+	public List<String> getAllCentroidGroups()
+			throws IOException {
+		final List<String> groups = new ArrayList<String>();
+		for (final AnalyticItemWrapper<T> centroid : getCentroidsForGroup(null)) {
+			if (!groups.contains(centroid.getGroupID())) {
+				groups.add(centroid.getGroupID());
+			}
+		}
+		return groups;
+	}
+
+	@Override
+	public List<AnalyticItemWrapper<T>> getCentroidsForGroup(
+			final String groupID )
+			throws IOException {
+		return getCentroidsForGroup(
+				batchId,
+				groupID);
+	}
+
+	/**
+	 * As with {@link CentroidManagerGeoWave}, levels are ignored when a group
+	 * is provided. Otherwise, the centroids of the manager's level are
+	 * returned.
+	 */
+	@Override
+	public List<AnalyticItemWrapper<T>> getCentroidsForGroup(
+			final String batchID,
+			final String groupID )
+			throws IOException {
+		final Map<String, List<AnalyticItemWrapper<T>>> groups = batches.get(batchID);
+		if (groups == null) {
+			return new ArrayList<AnalyticItemWrapper<T>>();
+		}
+		if (groupID != null) {
+			final List<AnalyticItemWrapper<T>> centroids = groups.get(groupID);
+			return centroids == null ? new ArrayList<AnalyticItemWrapper<T>>() : centroids;
+		}
+		List<AnalyticItemWrapper<T>> centroids = levelCentroids.get(batchID);
+		if (centroids == null) {
+			centroids = new ArrayList<AnalyticItemWrapper<T>>();
+			for (final List<AnalyticItemWrapper<T>> groupCentroids : groups.values()) {
+				for (final AnalyticItemWrapper<T> centroid : groupCentroids) {
+					if ((level <= 0) || (centroid.getZoomLevel() == level)) {
+						centroids.add(centroid);
+					}
+				}
+			}
+			levelCentroids.put(
+					batchID,
+					centroids);
+		}
+		return centroids;
+	}
+
+	/**
+	 *
+	 * @return an index over the centroids of the group for the given distance
+	 *         function, built once per group.
+	 */
+	public CentroidIndex<T> getCentroidIndex(
+			final String batchID,
+			final String groupID,
+			final DistanceFn<T> distanceFunction )
+			throws IOException {
+		final Pair<String, String> key = Pair.of(
+				batchID,
+				groupID);
+		CentroidIndex<T> index = indices.get(key);
+		if ((index == null) || (index.getDistanceFunction() != distanceFunction)) {
+			index = new CentroidIndex<T>(
+					getCentroidsForGroup(
+							batchID,
+							groupID),
+					distanceFunction);
+			indices.put(
+					key,
+					index);
+		}
+		return index;
+	}
+
+	@Override
+	public int processForAllGroups(
+			final CentroidProcessingFn<T> fn )
+			throws IOException {
+		int status = 0;
+		for (final String groupID : getAllCentroidGroups()) {
+			status = fn.processGroup(
+					groupID,
+					getCentroidsForGroup(groupID));
+			if (status != 0) {
+				break;
+			}
+		}
+		return status;
+	}
+
+	@Override
+	public AnalyticItemWrapper<T> getCentroid(
+			final String id ) {
+		AnalyticItemWrapper<T> found = null;
+		for (final Map.Entry<String, Map<String, List<AnalyticItemWrapper<T>>>> batch : batches.entrySet()) {
+			for (final List<AnalyticItemWrapper<T>> centroids : batch.getValue().values()) {
+				for (final AnalyticItemWrapper<T> centroid : centroids) {
+					if (centroid.getID().equals(
+							id)) {
+						// prefer the current batch
+						if (batch.getKey().equals(
+								batchId)) {
+							return centroid;
+						}
+						if (found == null) {
+							found = centroid;
+						}
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Drops the nearest centroid indices. The centroids themselves are
+	 * retained, since there is no store to reload them from.
+	 */
+	@Override
+	public void clear() {
+		indices.clear();
+	}
+
+	@Override
+	public ByteArrayId getDataTypeId() {
+		return dataTypeId;
+	}
+
+	@Override
+	public ByteArrayId getIndexId() {
+		return indexId;
+	}
+
+	public String getBatchId() {
+		return batchId;
+	}
+
+	/**
+	 * Load all centroids, at all levels, of the given batches from the store.
+	 */
+	public static <T> CentroidManagerInMemory<T> load(
+			final CentroidManagerGeoWave<T> source,
+			final String... batchIds )
+			throws IOException {
+		final CentroidManagerInMemory<T> manager = new CentroidManagerInMemory<T>(
+				source.getCentroidFactory(),
+				source.getDataTypeId(),
+				source.getIndexId(),
+				source.getBatchId(),
+				source.getLevel());
+		for (final String batchID : new LinkedHashSet<String>(
+				Arrays.asList(batchIds))) {
+			try (CloseableIterator<T> it = source.getRawCentroids(
+					batchID,
+					null,
+					0)) {
+				while (it.hasNext()) {
+					manager.add(it.next());
+				}
+			}
+		}
+		return manager;
+	}
+
+	/**
+	 * Write all centroids of the given batches from the store to the output.
+	 * Centroids must be simple features.
+	 */
+	public static void writeSnapshot(
+			final CentroidManagerGeoWave<?> source,
+			final DataOutput output,
+			final String... batchIds )
+			throws IOException {
+		final Set<String> uniqueBatchIds = new LinkedHashSet<String>(
+				Arrays.asList(batchIds));
+		output.writeUTF(source.getDataTypeId().getString());
+		output.writeUTF(source.getIndexId().getString());
+		output.writeInt(uniqueBatchIds.size());
+		for (final String batchID : uniqueBatchIds) {
+			final List<SimpleFeature> centroids = new ArrayList<SimpleFeature>();
+			try (CloseableIterator<?> it = source.getRawCentroids(
+					batchID,
+					null,
+					0)) {
+				while (it.hasNext()) {
+					final Object centroid = it.next();
+					if (!(centroid instanceof SimpleFeature)) {
+						throw new IOException(
+								"Cannot write a snapshot of centroids of type " + centroid.getClass().getName());
+					}
+					centroids.add((SimpleFeature) centroid);
+				}
+			}
+			output.writeUTF(batchID);
+			output.writeInt(centroids.size());
+			for (final SimpleFeature centroid : centroids) {
+				new FeatureWritable(
+						centroid.getFeatureType(),
+						centroid).write(output);
+			}
+			LOGGER.info("Snapshot " + centroids.size() + " centroids of batch " + batchID);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <T> CentroidManagerInMemory<T> readSnapshot(
+			final DataInput input,
+			final AnalyticItemWrapperFactory<T> centroidFactory,
+			final String batchId,
+			final int level )
+			throws IOException {
+		final CentroidManagerInMemory<T> manager = new CentroidManagerInMemory<T>(
+				centroidFactory,
+				new ByteArrayId(
+						input.readUTF()),
+				new ByteArrayId(
+						input.readUTF()),
+				batchId,
+				level);
+		final int batchCount = input.readInt();
+		final FeatureWritable writable = new FeatureWritable();
+		for (int b = 0; b < batchCount; b++) {
+			input.readUTF();
+			final int count = input.readInt();
+			for (int i = 0; i < count; i++) {
+				writable.readFields(input);
+				manager.add((T) writable.getFeature());
+			}
+		}
+		return manager;
+	}
+
+	private static String[] getBatchIds(
+			final ScopedJobConfiguration config ) {
+		final String batchId = config.getString(
+				GlobalParameters.Global.BATCH_ID,
+				null);
+		return new String[] {
+			batchId,
+			config.getString(
+					GlobalParameters.Global.PARENT_BATCH_ID,
+					batchId)
+		};
+	}
+
+	public static boolean isEnabled(
+			final Configuration configuration,
+			final Class<?> scope ) {
+		return new ScopedJobConfiguration(
+				configuration,
+				scope).getBoolean(
+				CentroidParameters.Centroid.IN_MEMORY,
+				false);
+	}
+
+	/**
+	 * If enabled, write a snapshot of the centroids of the current and parent
+	 * batches and add it to the distributed cache of the job. Called by the
+	 * driver prior to submitting the job.
+	 *
+	 * @return the snapshot file, removed when the file system is closed, or
+	 *         null if not enabled.
+	 */
+	public static Path distribute(
+			final Job job,
+			final Class<?> scope )
+			throws IOException {
+		final Configuration configuration = job.getConfiguration();
+		if (!isEnabled(
+				configuration,
+				scope)) {
+			return null;
+		}
+		final CentroidManagerGeoWave<Object> source = new CentroidManagerGeoWave<Object>(
+				job,
+				scope);
+		final FileSystem fs = FileSystem.get(configuration);
+		final Path snapshot = fs.makeQualified(new Path(
+				new Path(
+						fs.getHomeDirectory(),
+						".geowave-centroids"),
+				source.getBatchId() + "-" + UUID.randomUUID().toString()));
+		try (FSDataOutputStream output = fs.create(snapshot)) {
+			writeSnapshot(
+					source,
+					output,
+					getBatchIds(new ScopedJobConfiguration(
+							configuration,
+							scope,
+							LOGGER)));
+		}
+		fs.deleteOnExit(snapshot);
+		job.addCacheFile(URI.create(snapshot.toUri().toString() + "#" + SNAPSHOT_NAME));
+		return snapshot;
+	}
+
+	/**
+	 * Load the snapshot distributed with the job. If the job was not
+	 * configured with a snapshot, the centroids are loaded from the store.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> CentroidManagerInMemory<T> fromJobContext(
+			final JobContext context,
+			final Class<?> scope,
+			final Logger logger )
+			throws IOException {
+		final ScopedJobConfiguration config = new ScopedJobConfiguration(
+				context.getConfiguration(),
+				scope,
+				logger);
+		final AnalyticItemWrapperFactory<T> centroidFactory;
+		try {
+			centroidFactory = (AnalyticItemWrapperFactory<T>) CentroidParameters.Centroid.WRAPPER_FACTORY_CLASS
+					.getHelper()
+					.getValue(
+							context,
+							scope,
+							CentroidItemWrapperFactory.class);
+			centroidFactory.initialize(
+					context,
+					scope,
+					logger);
+		}
+		catch (final Exception e) {
+			LOGGER.error("Cannot instantiate " + GeoWaveConfiguratorBase.enumToConfKey(
+					CentroidManagerInMemory.class,
+					CentroidParameters.Centroid.WRAPPER_FACTORY_CLASS));
+			throw new IOException(
+					e);
+		}
+		final String batchId = config.getString(
+				GlobalParameters.Global.BATCH_ID,
+				null);
+		final int level = config.getInt(
+				CentroidParameters.Centroid.ZOOM_LEVEL,
+				1);
+
+		final URI[] cacheFiles = context.getCacheFiles();
+		if (cacheFiles != null) {
+			for (final URI cacheFile : cacheFiles) {
+				if (SNAPSHOT_NAME.equals(cacheFile.getFragment())) {
+					try (DataInputStream input = new DataInputStream(
+							new BufferedInputStream(
+									openSnapshot(
+											context.getConfiguration(),
+											cacheFile)))) {
+						return readSnapshot(
+								input,
+								centroidFactory,
+								batchId,
+								level);
+					}
+				}
+			}
+		}
+		LOGGER.warn("Centroid snapshot not found in the distributed cache; loading centroids from the store");
+		return load(
+				new CentroidManagerGeoWave<T>(
+						context,
+						scope,
+						logger),
+				getBatchIds(config));
+	}
+
+	private static InputStream openSnapshot(
+			final Configuration configuration,
+			final URI cacheFile )
+			throws IOException {
+		// prefer the local copy linked into the working directory
+		final File local = new File(
+				SNAPSHOT_NAME);
+		if (local.isFile()) {
+			return new FileInputStream(
+					local);
+		}
+		final Path path = new Path(
+				cacheFile.getScheme(),
+				cacheFile.getAuthority(),
+				cacheFile.getPath());
+		return path.getFileSystem(
+				configuration).open(
+				path);
+	}
+}
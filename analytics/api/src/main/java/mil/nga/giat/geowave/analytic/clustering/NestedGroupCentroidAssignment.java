@@ -55,7 +55,12 @@ import org.slf4j.Logger;
  *                -> distance function used for association of data points to
  *                centroid.
  * 
+ *                "NestedGroupCentroidAssignment.Centroid.InMemory" -> load the
+ *                centroids once from a snapshot distributed with the job
+ *                rather than querying them per group.
+ * 
  * @see mil.nga.giat.geowave.analytic.clustering.CentroidManagerGeoWave
+ * @see mil.nga.giat.geowave.analytic.clustering.CentroidManagerInMemory
  * @formatter:on
  * 
  * @param <T>
@@ -104,7 +109,12 @@ public class NestedGroupCentroidAssignment<T>
 				DistanceFn.class,
 				FeatureCentroidDistanceFn.class);
 		this.associationdFunction.setDistanceFunction(distanceFunction);
-		centroidManager = new CentroidManagerGeoWave<T>(
+		centroidManager = CentroidManagerInMemory.isEnabled(
+				context.getConfiguration(),
+				scope) ? CentroidManagerInMemory.<T> fromJobContext(
+				context,
+				scope,
+				logger) : new CentroidManagerGeoWave<T>(
 				context,
 				scope);
 
@@ -150,6 +160,7 @@ public class NestedGroupCentroidAssignment<T>
 
 		params.addAll(Arrays.asList(new ParameterEnum<?>[] {
 			CentroidParameters.Centroid.ZOOM_LEVEL,
+			CentroidParameters.Centroid.IN_MEMORY,
 			GlobalParameters.Global.PARENT_BATCH_ID,
 			CommonParameters.Common.DISTANCE_FUNCTION_CLASS
 		}));
@@ -180,9 +191,11 @@ public class NestedGroupCentroidAssignment<T>
 				throw new IOException(
 						"Cannot find group " + group.getGroupID());
 			}
-			associationdFunction.compute(
-					item,
+			associate(
+					parentBatchID,
+					group.getGroupID(),
 					centroids,
+					item,
 					new AssociationNotification<T>() {
 						@Override
 						public void notify(
@@ -213,7 +226,8 @@ public class NestedGroupCentroidAssignment<T>
 
 			// only use the parent batch ID for upper levels, otherwise use the
 			// current batch ID.
-			final List<AnalyticItemWrapper<T>> centroids = (currentLevel == endZoomLevel) ? centroidManager
+			final String batchID = reachedEndLevel ? null : parentBatchID;
+			final List<AnalyticItemWrapper<T>> centroids = reachedEndLevel ? centroidManager
 					.getCentroidsForGroup(group.getGroupID()) : centroidManager.getCentroidsForGroup(
 					parentBatchID,
 					group.getGroupID());
@@ -222,9 +236,11 @@ public class NestedGroupCentroidAssignment<T>
 						"Cannot find group " + group.getGroupID());
 			}
 
-			currentDistance = associationdFunction.compute(
-					item,
+			currentDistance = associate(
+					batchID,
+					group.getGroupID(),
 					centroids,
+					item,
 					new AssociationNotification<T>() {
 						@Override
 						public void notify(
@@ -243,6 +259,35 @@ public class NestedGroupCentroidAssignment<T>
 		return currentDistance;
 	}
 
+	/**
+	 * Use the nearest centroid index of an in-memory centroid manager, if
+	 * available.
+	 * 
+	 * @param batchID
+	 *            null for the current batch
+	 */
+	private double associate(
+			final String batchID,
+			final String groupID,
+			final List<AnalyticItemWrapper<T>> centroids,
+			final AnalyticItemWrapper<T> item,
+			final AssociationNotification<T> associationNotification )
+			throws IOException {
+		if (centroidManager instanceof CentroidManagerInMemory) {
+			final CentroidManagerInMemory<T> inMemoryManager = (CentroidManagerInMemory<T>) centroidManager;
+			return inMemoryManager.getCentroidIndex(
+					batchID == null ? inMemoryManager.getBatchId() : batchID,
+					groupID,
+					associationdFunction.getDistanceFunction()).compute(
+					item,
+					associationNotification);
+		}
+		return associationdFunction.compute(
+				item,
+				centroids,
+				associationNotification);
+	}
+
 	public static void setParameters(
 			final Configuration config,
 			final Class<?> scope,
@@ -256,6 +301,7 @@ public class NestedGroupCentroidAssignment<T>
 				new ParameterEnum[] {
 					CommonParameters.Common.DISTANCE_FUNCTION_CLASS,
 					CentroidParameters.Centroid.ZOOM_LEVEL,
+					CentroidParameters.Centroid.IN_MEMORY,
 					GlobalParameters.Global.BATCH_ID,
 					GlobalParameters.Global.PARENT_BATCH_ID
 				},
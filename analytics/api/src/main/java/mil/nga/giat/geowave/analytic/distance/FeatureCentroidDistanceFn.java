@@ -45,15 +45,22 @@ public class FeatureCentroidDistanceFn implements
 		return (Geometry) x.getDefaultGeometry();
 	}
 
+	/**
+	 * The coordinate of the feature used for measurement.
+	 */
+	public Coordinate getCentroidCoordinate(
+			final SimpleFeature x ) {
+		return getGeometry(
+				x).getCentroid().getCoordinate();
+	}
+
 	@Override
 	public double measure(
 			final SimpleFeature x,
 			final SimpleFeature y ) {
 
 		return coordinateDistanceFunction.measure(
-				getGeometry(
-						x).getCentroid().getCoordinate(),
-				getGeometry(
-						y).getCentroid().getCoordinate());
+				getCentroidCoordinate(x),
+				getCentroidCoordinate(y));
 	}
 }
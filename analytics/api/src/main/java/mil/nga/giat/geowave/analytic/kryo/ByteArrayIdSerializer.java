@@ -0,0 +1,64 @@
+package mil.nga.giat.geowave.analytic.kryo;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+public class ByteArrayIdSerializer extends
+		Serializer<ByteArrayId>
+{
+	public ByteArrayIdSerializer() {
+		setImmutable(true);
+	}
+
+	@Override
+	public void write(
+			final Kryo kryo,
+			final Output output,
+			final ByteArrayId id ) {
+		writeId(
+				output,
+				id);
+	}
+
+	@Override
+	public ByteArrayId read(
+			final Kryo kryo,
+			final Input input,
+			final Class<ByteArrayId> type ) {
+		return readId(input);
+	}
+
+	/**
+	 * Write an ID that may be null
+	 */
+	public static void writeId(
+			final Output output,
+			final ByteArrayId id ) {
+		if (id == null) {
+			output.writeInt(
+					0,
+					true);
+		}
+		else {
+			final byte[] bytes = id.getBytes();
+			output.writeInt(
+					bytes.length + 1,
+					true);
+			output.writeBytes(bytes);
+		}
+	}
+
+	public static ByteArrayId readId(
+			final Input input ) {
+		final int length = input.readInt(true);
+		if (length == 0) {
+			return null;
+		}
+		return new ByteArrayId(
+				input.readBytes(length - 1));
+	}
+}
@@ -0,0 +1,51 @@
+package mil.nga.giat.geowave.analytic.kryo;
+
+import mil.nga.giat.geowave.adapter.vector.FeatureWritable;
+
+import org.opengis.feature.simple.SimpleFeature;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Serializes the wrapped feature with a {@link SimpleFeatureSerializer}
+ */
+public class FeatureWritableSerializer extends
+		Serializer<FeatureWritable>
+{
+	private final SimpleFeatureSerializer featureSerializer = new SimpleFeatureSerializer();
+
+	@Override
+	public void write(
+			final Kryo kryo,
+			final Output output,
+			final FeatureWritable writable ) {
+		final SimpleFeature feature = writable.getFeature();
+		output.writeBoolean(feature != null);
+		if (feature != null) {
+			featureSerializer.write(
+					kryo,
+					output,
+					feature);
+		}
+	}
+
+	@Override
+	public FeatureWritable read(
+			final Kryo kryo,
+			final Input input,
+			final Class<FeatureWritable> type ) {
+		if (!input.readBoolean()) {
+			return new FeatureWritable();
+		}
+		final SimpleFeature feature = featureSerializer.read(
+				kryo,
+				input,
+				SimpleFeature.class);
+		return new FeatureWritable(
+				feature.getFeatureType(),
+				feature);
+	}
+}
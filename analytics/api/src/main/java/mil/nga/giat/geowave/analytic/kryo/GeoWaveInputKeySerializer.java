@@ -0,0 +1,39 @@
+package mil.nga.giat.geowave.analytic.kryo;
+
+import mil.nga.giat.geowave.mapreduce.input.GeoWaveInputKey;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Serializes the adapter and data IDs of the key. As with Java serialization,
+ * the transient insertion ID is not retained.
+ */
+public class GeoWaveInputKeySerializer extends
+		Serializer<GeoWaveInputKey>
+{
+	@Override
+	public void write(
+			final Kryo kryo,
+			final Output output,
+			final GeoWaveInputKey key ) {
+		ByteArrayIdSerializer.writeId(
+				output,
+				key.getAdapterId());
+		ByteArrayIdSerializer.writeId(
+				output,
+				key.getDataId());
+	}
+
+	@Override
+	public GeoWaveInputKey read(
+			final Kryo kryo,
+			final Input input,
+			final Class<GeoWaveInputKey> type ) {
+		return new GeoWaveInputKey(
+				ByteArrayIdSerializer.readId(input),
+				ByteArrayIdSerializer.readId(input));
+	}
+}
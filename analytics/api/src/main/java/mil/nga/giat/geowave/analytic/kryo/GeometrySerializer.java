@@ -0,0 +1,221 @@
+package mil.nga.giat.geowave.analytic.kryo;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * Serializes two dimensional geometries as a type byte, the SRID and the raw
+ * ordinates, avoiding the per-geometry header and count overhead of WKB.
+ * 
+ * As with WKB written by FeatureWritable, any third dimension is dropped.
+ */
+public class GeometrySerializer extends
+		Serializer<Geometry>
+{
+	private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+	private static final byte POINT = 0;
+	private static final byte LINE_STRING = 1;
+	private static final byte LINEAR_RING = 2;
+	private static final byte POLYGON = 3;
+	private static final byte MULTI_POINT = 4;
+	private static final byte MULTI_LINE_STRING = 5;
+	private static final byte MULTI_POLYGON = 6;
+	private static final byte GEOMETRY_COLLECTION = 7;
+
+	@Override
+	public void write(
+			final Kryo kryo,
+			final Output output,
+			final Geometry geometry ) {
+		writeGeometry(
+				output,
+				geometry);
+	}
+
+	@Override
+	public Geometry read(
+			final Kryo kryo,
+			final Input input,
+			final Class<Geometry> type ) {
+		return readGeometry(input);
+	}
+
+	public static void writeGeometry(
+			final Output output,
+			final Geometry geometry ) {
+		output.writeInt(
+				geometry.getSRID(),
+				true);
+		writeBody(
+				output,
+				geometry);
+	}
+
+	public static Geometry readGeometry(
+			final Input input ) {
+		final int srid = input.readInt(true);
+		final Geometry geometry = readBody(input);
+		geometry.setSRID(srid);
+		return geometry;
+	}
+
+	private static void writeBody(
+			final Output output,
+			final Geometry geometry ) {
+		if (geometry instanceof Point) {
+			output.writeByte(POINT);
+			writeCoordinates(
+					output,
+					((Point) geometry).getCoordinateSequence());
+		}
+		else if (geometry instanceof LinearRing) {
+			output.writeByte(LINEAR_RING);
+			writeCoordinates(
+					output,
+					((LinearRing) geometry).getCoordinateSequence());
+		}
+		else if (geometry instanceof LineString) {
+			output.writeByte(LINE_STRING);
+			writeCoordinates(
+					output,
+					((LineString) geometry).getCoordinateSequence());
+		}
+		else if (geometry instanceof Polygon) {
+			output.writeByte(POLYGON);
+			final Polygon polygon = (Polygon) geometry;
+			writeCoordinates(
+					output,
+					polygon.getExteriorRing().getCoordinateSequence());
+			output.writeInt(
+					polygon.getNumInteriorRing(),
+					true);
+			for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+				writeCoordinates(
+						output,
+						polygon.getInteriorRingN(
+								i).getCoordinateSequence());
+			}
+		}
+		else if (geometry instanceof GeometryCollection) {
+			if (geometry instanceof MultiPoint) {
+				output.writeByte(MULTI_POINT);
+			}
+			else if (geometry instanceof MultiLineString) {
+				output.writeByte(MULTI_LINE_STRING);
+			}
+			else if (geometry instanceof MultiPolygon) {
+				output.writeByte(MULTI_POLYGON);
+			}
+			else {
+				output.writeByte(GEOMETRY_COLLECTION);
+			}
+			output.writeInt(
+					geometry.getNumGeometries(),
+					true);
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				writeBody(
+						output,
+						geometry.getGeometryN(i));
+			}
+		}
+		else {
+			throw new KryoException(
+					"Unsupported geometry type " + geometry.getGeometryType());
+		}
+	}
+
+	private static Geometry readBody(
+			final Input input ) {
+		final byte type = input.readByte();
+		switch (type) {
+			case POINT: {
+				final Coordinate[] coordinates = readCoordinates(input);
+				return GEOMETRY_FACTORY.createPoint(coordinates.length == 0 ? null : coordinates[0]);
+			}
+			case LINE_STRING:
+				return GEOMETRY_FACTORY.createLineString(readCoordinates(input));
+			case LINEAR_RING:
+				return GEOMETRY_FACTORY.createLinearRing(readCoordinates(input));
+			case POLYGON: {
+				final LinearRing shell = GEOMETRY_FACTORY.createLinearRing(readCoordinates(input));
+				final LinearRing[] holes = new LinearRing[input.readInt(true)];
+				for (int i = 0; i < holes.length; i++) {
+					holes[i] = GEOMETRY_FACTORY.createLinearRing(readCoordinates(input));
+				}
+				return GEOMETRY_FACTORY.createPolygon(
+						shell,
+						holes);
+			}
+			case MULTI_POINT: {
+				final Point[] points = new Point[input.readInt(true)];
+				for (int i = 0; i < points.length; i++) {
+					points[i] = (Point) readBody(input);
+				}
+				return GEOMETRY_FACTORY.createMultiPoint(points);
+			}
+			case MULTI_LINE_STRING: {
+				final LineString[] lines = new LineString[input.readInt(true)];
+				for (int i = 0; i < lines.length; i++) {
+					lines[i] = (LineString) readBody(input);
+				}
+				return GEOMETRY_FACTORY.createMultiLineString(lines);
+			}
+			case MULTI_POLYGON: {
+				final Polygon[] polygons = new Polygon[input.readInt(true)];
+				for (int i = 0; i < polygons.length; i++) {
+					polygons[i] = (Polygon) readBody(input);
+				}
+				return GEOMETRY_FACTORY.createMultiPolygon(polygons);
+			}
+			case GEOMETRY_COLLECTION: {
+				final Geometry[] geometries = new Geometry[input.readInt(true)];
+				for (int i = 0; i < geometries.length; i++) {
+					geometries[i] = readBody(input);
+				}
+				return GEOMETRY_FACTORY.createGeometryCollection(geometries);
+			}
+			default:
+				throw new KryoException(
+						"Unknown geometry type " + type);
+		}
+	}
+
+	private static void writeCoordinates(
+			final Output output,
+			final CoordinateSequence sequence ) {
+		output.writeInt(
+				sequence.size(),
+				true);
+		for (int i = 0; i < sequence.size(); i++) {
+			output.writeDouble(sequence.getX(i));
+			output.writeDouble(sequence.getY(i));
+		}
+	}
+
+	private static Coordinate[] readCoordinates(
+			final Input input ) {
+		final Coordinate[] coordinates = new Coordinate[input.readInt(true)];
+		for (int i = 0; i < coordinates.length; i++) {
+			coordinates[i] = new Coordinate(
+					input.readDouble(),
+					input.readDouble());
+		}
+		return coordinates;
+	}
+}
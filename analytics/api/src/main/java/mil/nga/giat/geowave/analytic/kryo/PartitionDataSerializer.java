@@ -0,0 +1,41 @@
+package mil.nga.giat.geowave.analytic.kryo;
+
+import mil.nga.giat.geowave.analytic.partitioner.Partitioner.PartitionData;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+public class PartitionDataSerializer extends
+		Serializer<PartitionData>
+{
+	@Override
+	public void write(
+			final Kryo kryo,
+			final Output output,
+			final PartitionData partitionData ) {
+		ByteArrayIdSerializer.writeId(
+				output,
+				partitionData.getId());
+		ByteArrayIdSerializer.writeId(
+				output,
+				partitionData.getGroupId());
+		output.writeBoolean(partitionData.isPrimary());
+	}
+
+	@Override
+	public PartitionData read(
+			final Kryo kryo,
+			final Input input,
+			final Class<PartitionData> type ) {
+		final ByteArrayId id = ByteArrayIdSerializer.readId(input);
+		final ByteArrayId groupId = ByteArrayIdSerializer.readId(input);
+		final PartitionData partitionData = new PartitionData(
+				id,
+				input.readBoolean());
+		partitionData.setGroupId(groupId);
+		return partitionData;
+	}
+}
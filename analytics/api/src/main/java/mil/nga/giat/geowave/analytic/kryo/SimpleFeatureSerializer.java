@@ -0,0 +1,316 @@
+package mil.nga.giat.geowave.analytic.kryo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import mil.nga.giat.geowave.adapter.vector.util.FeatureDataUtils;
+import mil.nga.giat.geowave.core.index.ByteArrayUtils;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.SchemaException;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * A compact Kryo serializer for SimpleFeatures.
+ * 
+ * Feature types registered with {@link #registerFeatureType} on both the
+ * writing and reading side are written by name only; other feature types are
+ * written with each feature, as {@link FeatureSerializer} does, and decoded
+ * once per serializer. Attribute values are written without type information,
+ * using variable length integers, and geometries are written with
+ * {@link GeometrySerializer}.
+ * 
+ * A serializer instance belongs to a single Kryo instance and is therefore
+ * used by one thread at a time.
+ */
+public class SimpleFeatureSerializer extends
+		Serializer<SimpleFeature>
+{
+	private static final Map<String, SimpleFeatureType> REGISTERED_TYPES = new ConcurrentHashMap<String, SimpleFeatureType>();
+
+	// whether a feature type written by this serializer is registered
+	private final Map<SimpleFeatureType, Boolean> writtenTypes = new IdentityHashMap<SimpleFeatureType, Boolean>();
+	// feature types decoded by this serializer, by encoding
+	private final Map<List<String>, SimpleFeatureType> decodedTypes = new HashMap<List<String>, SimpleFeatureType>();
+
+	public static void registerFeatureType(
+			final SimpleFeatureType featureType ) {
+		REGISTERED_TYPES.put(
+				getTypeKey(featureType),
+				featureType);
+	}
+
+	/**
+	 * 
+	 * @return the feature types in a form suitable for a configuration
+	 *         property, to be registered with {@link #registerFeatureTypes}
+	 */
+	public static String encodeFeatureTypes(
+			final Collection<SimpleFeatureType> featureTypes ) {
+		final Output output = new Output(
+				1024,
+				-1);
+		output.writeInt(
+				featureTypes.size(),
+				true);
+		for (final SimpleFeatureType featureType : featureTypes) {
+			for (final String part : encodeType(featureType)) {
+				output.writeString(part);
+			}
+		}
+		return ByteArrayUtils.byteArrayToString(output.toBytes());
+	}
+
+	public static void registerFeatureTypes(
+			final String encodedFeatureTypes ) {
+		final Input input = new Input(
+				ByteArrayUtils.byteArrayFromString(encodedFeatureTypes));
+		final int count = input.readInt(true);
+		for (int i = 0; i < count; i++) {
+			registerFeatureType(decodeType(readTypeEncoding(input)));
+		}
+	}
+
+	@Override
+	public void write(
+			final Kryo kryo,
+			final Output output,
+			final SimpleFeature feature ) {
+		final SimpleFeatureType featureType = feature.getFeatureType();
+		if (isRegistered(featureType)) {
+			output.writeBoolean(true);
+			output.writeString(getTypeKey(featureType));
+		}
+		else {
+			output.writeBoolean(false);
+			for (final String part : encodeType(featureType)) {
+				output.writeString(part);
+			}
+		}
+		output.writeString(feature.getID());
+		final List<AttributeDescriptor> descriptors = featureType.getAttributeDescriptors();
+		for (int i = 0; i < descriptors.size(); i++) {
+			writeAttribute(
+					kryo,
+					output,
+					descriptors.get(
+							i).getType().getBinding(),
+					feature.getAttribute(i));
+		}
+	}
+
+	@Override
+	public SimpleFeature read(
+			final Kryo kryo,
+			final Input input,
+			final Class<SimpleFeature> type ) {
+		final SimpleFeatureType featureType;
+		if (input.readBoolean()) {
+			final String typeKey = input.readString();
+			featureType = REGISTERED_TYPES.get(typeKey);
+			if (featureType == null) {
+				throw new KryoException(
+						"Feature type '" + typeKey + "' is not registered");
+			}
+		}
+		else {
+			final List<String> encoding = readTypeEncoding(input);
+			SimpleFeatureType decoded = decodedTypes.get(encoding);
+			if (decoded == null) {
+				decoded = decodeType(encoding);
+				decodedTypes.put(
+						encoding,
+						decoded);
+			}
+			featureType = decoded;
+		}
+		final String fid = input.readString();
+		final SimpleFeatureBuilder builder = new SimpleFeatureBuilder(
+				featureType);
+		for (final AttributeDescriptor descriptor : featureType.getAttributeDescriptors()) {
+			builder.add(readAttribute(
+					kryo,
+					input,
+					descriptor.getType().getBinding()));
+		}
+		return builder.buildFeature(fid);
+	}
+
+	private boolean isRegistered(
+			final SimpleFeatureType featureType ) {
+		Boolean registered = writtenTypes.get(featureType);
+		if (registered == null) {
+			registered = featureType.equals(REGISTERED_TYPES.get(getTypeKey(featureType)));
+			writtenTypes.put(
+					featureType,
+					registered);
+		}
+		return registered;
+	}
+
+	private static String getTypeKey(
+			final SimpleFeatureType featureType ) {
+		return featureType.getName().getURI();
+	}
+
+	private static List<String> encodeType(
+			final SimpleFeatureType featureType ) {
+		final List<String> encoding = new ArrayList<String>(
+				4);
+		encoding.add(featureType.getName().getNamespaceURI() == null ? "" : featureType.getName().getNamespaceURI());
+		encoding.add(featureType.getTypeName());
+		encoding.add(DataUtilities.encodeType(featureType));
+		encoding.add(FeatureDataUtils.getAxis(featureType.getCoordinateReferenceSystem()));
+		return encoding;
+	}
+
+	private static List<String> readTypeEncoding(
+			final Input input ) {
+		final List<String> encoding = new ArrayList<String>(
+				4);
+		for (int i = 0; i < 4; i++) {
+			encoding.add(input.readString());
+		}
+		return encoding;
+	}
+
+	private static SimpleFeatureType decodeType(
+			final List<String> encoding ) {
+		try {
+			return FeatureDataUtils.decodeType(
+					encoding.get(0),
+					encoding.get(1),
+					encoding.get(2),
+					encoding.get(3));
+		}
+		catch (final SchemaException e) {
+			throw new KryoException(
+					"Failed to parse the encoded feature type",
+					e);
+		}
+	}
+
+	private static void writeAttribute(
+			final Kryo kryo,
+			final Output output,
+			final Class<?> binding,
+			final Object value ) {
+		if (value == null) {
+			output.writeBoolean(true);
+			return;
+		}
+		output.writeBoolean(false);
+		// as with FeatureWritable, only exact bindings are written without
+		// type information
+		if (binding == Boolean.class) {
+			output.writeBoolean((Boolean) value);
+		}
+		else if (binding == Byte.class) {
+			output.writeByte((Byte) value);
+		}
+		else if (binding == Short.class) {
+			output.writeShort((Short) value);
+		}
+		else if (binding == Integer.class) {
+			output.writeInt(
+					(Integer) value,
+					false);
+		}
+		else if (binding == Long.class) {
+			output.writeLong(
+					(Long) value,
+					false);
+		}
+		else if (binding == Float.class) {
+			output.writeFloat((Float) value);
+		}
+		else if (binding == Double.class) {
+			output.writeDouble((Double) value);
+		}
+		else if (binding == String.class) {
+			output.writeString((String) value);
+		}
+		else if ((binding == java.sql.Date.class) || (binding == java.sql.Time.class)
+				|| (binding == java.sql.Timestamp.class) || (binding == java.util.Date.class)) {
+			output.writeLong(((java.util.Date) value).getTime());
+		}
+		else if (Geometry.class.isAssignableFrom(binding)) {
+			GeometrySerializer.writeGeometry(
+					output,
+					(Geometry) value);
+		}
+		else {
+			kryo.writeClassAndObject(
+					output,
+					value);
+		}
+	}
+
+	private static Object readAttribute(
+			final Kryo kryo,
+			final Input input,
+			final Class<?> binding ) {
+		if (input.readBoolean()) {
+			return null;
+		}
+		if (binding == Boolean.class) {
+			return input.readBoolean();
+		}
+		else if (binding == Byte.class) {
+			return input.readByte();
+		}
+		else if (binding == Short.class) {
+			return input.readShort();
+		}
+		else if (binding == Integer.class) {
+			return input.readInt(false);
+		}
+		else if (binding == Long.class) {
+			return input.readLong(false);
+		}
+		else if (binding == Float.class) {
+			return input.readFloat();
+		}
+		else if (binding == Double.class) {
+			return input.readDouble();
+		}
+		else if (binding == String.class) {
+			return input.readString();
+		}
+		else if (binding == java.sql.Date.class) {
+			return new java.sql.Date(
+					input.readLong());
+		}
+		else if (binding == java.sql.Time.class) {
+			return new java.sql.Time(
+					input.readLong());
+		}
+		else if (binding == java.sql.Timestamp.class) {
+			return new java.sql.Timestamp(
+					input.readLong());
+		}
+		else if (binding == java.util.Date.class) {
+			return new java.util.Date(
+					input.readLong());
+		}
+		else if (Geometry.class.isAssignableFrom(binding)) {
+			return GeometrySerializer.readGeometry(input);
+		}
+		return kryo.readClassAndObject(input);
+	}
+}
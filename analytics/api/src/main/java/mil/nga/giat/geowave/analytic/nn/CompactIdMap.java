@@ -0,0 +1,335 @@
+package mil.nga.giat.geowave.analytic.nn;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+
+/**
+ * A map keyed by {@link ByteArrayId} using open addressing over parallel
+ * arrays. Unlike {@link java.util.HashMap}, no node object is allocated per
+ * entry and the hash code of each key (which is computed over the key's bytes
+ * on every call) is computed once and retained in a primitive array.
+ *
+ * Clearing the map retains its capacity, so a cleared map can be reused
+ * without reallocating.
+ *
+ * Use {@link java.util.Collections#newSetFromMap(Map)} for a set of IDs.
+ *
+ * Intended to run in a single thread. Not Thread Safe.
+ *
+ * @param <V>
+ */
+public class CompactIdMap<V> extends
+		AbstractMap<ByteArrayId, V>
+{
+	private static final Object TOMBSTONE = new Object();
+	private static final int MIN_CAPACITY = 8;
+
+	private Object[] keys;
+	private Object[] values;
+	private int[] hashes;
+	private int size = 0;
+	// entries plus tombstones
+	private int used = 0;
+
+	public CompactIdMap() {
+		this(
+				MIN_CAPACITY);
+	}
+
+	public CompactIdMap(
+			final int expectedSize ) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	private static int capacityFor(
+			final int expectedSize ) {
+		int capacity = MIN_CAPACITY;
+		while ((capacity * 3) / 4 < expectedSize) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private void allocate(
+			final int capacity ) {
+		keys = new Object[capacity];
+		values = new Object[capacity];
+		hashes = new int[capacity];
+	}
+
+	private static int spread(
+			final int hash ) {
+		return hash ^ (hash >>> 16);
+	}
+
+	private int indexOf(
+			final Object key,
+			final int hash ) {
+		final int mask = keys.length - 1;
+		int i = spread(hash) & mask;
+		Object k;
+		while ((k = keys[i]) != null) {
+			if ((k != TOMBSTONE) && (hashes[i] == hash) && k.equals(key)) {
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void rehash(
+			final int capacity ) {
+		final Object[] oldKeys = keys;
+		final Object[] oldValues = values;
+		final int[] oldHashes = hashes;
+		allocate(capacity);
+		used = 0;
+		final int mask = keys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			final Object k = oldKeys[j];
+			if ((k != null) && (k != TOMBSTONE)) {
+				int i = spread(oldHashes[j]) & mask;
+				while (keys[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = k;
+				values[i] = oldValues[j];
+				hashes[i] = oldHashes[j];
+				used++;
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean containsKey(
+			final Object key ) {
+		return (key instanceof ByteArrayId) && (indexOf(
+				key,
+				key.hashCode()) >= 0);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(
+			final Object key ) {
+		if (!(key instanceof ByteArrayId)) {
+			return null;
+		}
+		final int i = indexOf(
+				key,
+				key.hashCode());
+		return i < 0 ? null : (V) values[i];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V put(
+			final ByteArrayId key,
+			final V value ) {
+		final int hash = key.hashCode();
+		final int existing = indexOf(
+				key,
+				hash);
+		if (existing >= 0) {
+			final V old = (V) values[existing];
+			values[existing] = value;
+			return old;
+		}
+		if (((used + 1) * 4) > (keys.length * 3)) {
+			// grow if mostly entries, otherwise just purge tombstones
+			rehash(capacityFor(Math.max(
+					size + 1,
+					size * 2)));
+		}
+		final int mask = keys.length - 1;
+		int i = spread(hash) & mask;
+		while ((keys[i] != null) && (keys[i] != TOMBSTONE)) {
+			i = (i + 1) & mask;
+		}
+		if (keys[i] == null) {
+			used++;
+		}
+		keys[i] = key;
+		values[i] = value;
+		hashes[i] = hash;
+		size++;
+		return null;
+	}
+
+	@Override
+	public V remove(
+			final Object key ) {
+		if (!(key instanceof ByteArrayId)) {
+			return null;
+		}
+		final int i = indexOf(
+				key,
+				key.hashCode());
+		return i < 0 ? null : removeAt(i);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V removeAt(
+			final int i ) {
+		final V old = (V) values[i];
+		keys[i] = TOMBSTONE;
+		values[i] = null;
+		size--;
+		return old;
+	}
+
+	/**
+	 * Remove all entries, retaining the capacity.
+	 */
+	@Override
+	public void clear() {
+		if (used > 0) {
+			Arrays.fill(
+					keys,
+					null);
+			Arrays.fill(
+					values,
+					null);
+		}
+		size = 0;
+		used = 0;
+	}
+
+	@Override
+	public Set<Map.Entry<ByteArrayId, V>> entrySet() {
+		return new AbstractSet<Map.Entry<ByteArrayId, V>>() {
+			@Override
+			public Iterator<Map.Entry<ByteArrayId, V>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+
+			@Override
+			public void clear() {
+				CompactIdMap.this.clear();
+			}
+		};
+	}
+
+	private class EntryIterator implements
+			Iterator<Map.Entry<ByteArrayId, V>>
+	{
+		private int next = -1;
+		private int current = -1;
+
+		private EntryIterator() {
+			advance();
+		}
+
+		private void advance() {
+			next++;
+			while ((next < keys.length) && ((keys[next] == null) || (keys[next] == TOMBSTONE))) {
+				next++;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < keys.length;
+		}
+
+		@Override
+		public Map.Entry<ByteArrayId, V> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			current = next;
+			advance();
+			return new IdEntry(
+					current);
+		}
+
+		@Override
+		public void remove() {
+			if ((current < 0) || (keys[current] == TOMBSTONE)) {
+				throw new IllegalStateException();
+			}
+			removeAt(current);
+		}
+	}
+
+	private class IdEntry implements
+			Map.Entry<ByteArrayId, V>
+	{
+		private final int index;
+		private final ByteArrayId key;
+
+		private IdEntry(
+				final int index ) {
+			this.index = index;
+			key = (ByteArrayId) keys[index];
+		}
+
+		@Override
+		public ByteArrayId getKey() {
+			return key;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public V getValue() {
+			return keys[index] == key ? (V) values[index] : null;
+		}
+
+		@Override
+		public V setValue(
+				final V value ) {
+			if (keys[index] != key) {
+				throw new IllegalStateException(
+						"Entry has been removed");
+			}
+			final V old = getValue();
+			values[index] = value;
+			return old;
+		}
+
+		@Override
+		public int hashCode() {
+			final V value = getValue();
+			return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (!(obj instanceof Map.Entry)) {
+				return false;
+			}
+			final Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+			final V value = getValue();
+			return key.equals(other.getKey())
+					&& (value == null ? other.getValue() == null : value.equals(other.getValue()));
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + getValue();
+		}
+	}
+}
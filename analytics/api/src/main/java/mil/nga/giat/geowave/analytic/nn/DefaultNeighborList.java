@@ -1,8 +1,8 @@
 package mil.nga.giat.geowave.analytic.nn;
 
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Map.Entry;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
@@ -10,7 +10,7 @@ import mil.nga.giat.geowave.core.index.ByteArrayId;
 public class DefaultNeighborList<NNTYPE> implements
 		NeighborList<NNTYPE>
 {
-	private final Map<ByteArrayId, NNTYPE> list = new HashMap<ByteArrayId, NNTYPE>();
+	private final CompactIdMap<NNTYPE> list = new CompactIdMap<NNTYPE>();
 
 	@Override
 	public boolean add(
@@ -54,14 +54,32 @@ public class DefaultNeighborList<NNTYPE> implements
 		return list.size();
 	}
 
+	/**
+	 * Pools released lists, retaining their capacity, so that processing a
+	 * partition does not allocate a new list (and table) per item.
+	 */
 	public static class DefaultNeighborListFactory<NNTYPE> implements
-			NeighborListFactory<NNTYPE>
+			ReusableNeighborListFactory<NNTYPE>
 	{
+		private static final int MAX_POOL_SIZE = 64;
+		private final Deque<DefaultNeighborList<NNTYPE>> pool = new ArrayDeque<DefaultNeighborList<NNTYPE>>();
+
 		@Override
 		public NeighborList<NNTYPE> buildNeighborList(
 				final ByteArrayId centerId,
 				final NNTYPE center ) {
-			return new DefaultNeighborList<NNTYPE>();
+			final DefaultNeighborList<NNTYPE> list = pool.poll();
+			return list == null ? new DefaultNeighborList<NNTYPE>() : list;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void release(
+				final NeighborList<NNTYPE> list ) {
+			if ((list instanceof DefaultNeighborList) && (pool.size() < MAX_POOL_SIZE)) {
+				list.clear();
+				pool.push((DefaultNeighborList<NNTYPE>) list);
+			}
 		}
 	}
 
@@ -1,9 +1,13 @@
 package mil.nga.giat.geowave.analytic.nn;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -16,6 +20,9 @@ import mil.nga.giat.geowave.core.index.ByteArrayId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
 /**
  * 
  * This class is designed to support secondary partitioning.
@@ -23,7 +30,9 @@ import org.slf4j.LoggerFactory;
  * (1) Partition added data using a partitioner.
  * 
  * (2) Process data, perform the O(N^2) (e.g. ~ n^2/2) comparisons within those
- * partitions.
+ * partitions. If a {@link NeighborEnvelopeFn} is provided, the items are
+ * indexed and each primary is only compared to the items within its search
+ * envelope.
  * 
  * Custom plug-ins include (1) A factory for the neighbor list to track those
  * pairings of data whose distance feel under the provided minimum. (2) A
@@ -56,9 +65,9 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 
 	final Map<PartitionData, PartitionData> uniqueSetOfPartitions = new HashMap<PartitionData, PartitionData>();
 	final Map<PartitionData, Set<ByteArrayId>> partitionsToIds = new HashMap<PartitionData, Set<ByteArrayId>>();
-	final Map<ByteArrayId, Set<PartitionData>> idsToPartition = new HashMap<ByteArrayId, Set<PartitionData>>();
-	final Map<ByteArrayId, STORE_VALUE> primaries = new HashMap<ByteArrayId, STORE_VALUE>();
-	final Map<ByteArrayId, STORE_VALUE> others = new HashMap<ByteArrayId, STORE_VALUE>();
+	final Map<ByteArrayId, Set<PartitionData>> idsToPartition = new CompactIdMap<Set<PartitionData>>();
+	final Map<ByteArrayId, STORE_VALUE> primaries = new CompactIdMap<STORE_VALUE>();
+	final Map<ByteArrayId, STORE_VALUE> others = new CompactIdMap<STORE_VALUE>();
 
 	protected final Partitioner<Object> partitioner;
 	protected final TypeConverter<STORE_VALUE> typeConverter;
@@ -67,6 +76,7 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 	protected final double maxDistance;
 	protected final PartitionData parentPartition;
 	private int upperBoundPerPartition = DEFAULT_UPPER_BOUND_PARTIION_SIZE;
+	private NeighborEnvelopeFn<STORE_VALUE> envelopeFn = null;
 
 	public static final int DEFAULT_UPPER_BOUND_PARTIION_SIZE = 75000;
 
@@ -103,7 +113,7 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 
 		Set<ByteArrayId> idsSet = partitionsToIds.get(singleton);
 		if (idsSet == null) {
-			idsSet = new HashSet<ByteArrayId>();
+			idsSet = Collections.newSetFromMap(new CompactIdMap<Boolean>());
 			partitionsToIds.put(
 					singleton,
 					idsSet);
@@ -118,7 +128,8 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 
 		Set<PartitionData> partitionSet = idsToPartition.get(itemId);
 		if (partitionSet == null) {
-			partitionSet = new HashSet<PartitionData>();
+			partitionSet = new HashSet<PartitionData>(
+					2);
 			idsToPartition.put(
 					itemId,
 					partitionSet);
@@ -245,11 +256,13 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 
 		index = new NeighborIndex<STORE_VALUE>(
 				listFactory);
+		final STRtree spatialIndex = buildSpatialIndex();
 
 		double farthestDistance = 0;
 		ByteArrayId farthestNeighbor = null;
 		ByteArrayId nextStart = startingPoint;
-		final Set<ByteArrayId> inspectionSet = new HashSet<ByteArrayId>();
+		final Set<ByteArrayId> inspectionSet = Collections.newSetFromMap(new CompactIdMap<Boolean>(
+				primaries.size()));
 		inspectionSet.addAll(primaries.keySet());
 
 		if (inspectionSet.size() > 0 && nextStart == null) {
@@ -275,8 +288,11 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 					primaryId,
 					primary);
 
-			for (PartitionData pd : partition) {
-				for (ByteArrayId neighborId : partitionsToIds.get(pd)) {
+			for (Collection<ByteArrayId> candidates : getCandidates(
+					spatialIndex,
+					primary,
+					partition)) {
+				for (ByteArrayId neighborId : candidates) {
 					if (neighborId.equals(primaryId)) continue;
 					boolean isAPrimary = true;
 					STORE_VALUE neighbor = primaries.get(neighborId);
@@ -331,6 +347,95 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 
 	}
 
+	/**
+	 * Index the envelopes of all items, if an envelope function is provided
+	 * and all items have an envelope.
+	 * 
+	 * @return the index or null if neighbors are to be found by inspecting all
+	 *         items in the partitions
+	 */
+	private STRtree buildSpatialIndex() {
+		if (envelopeFn == null) {
+			return null;
+		}
+		final STRtree spatialIndex = new STRtree();
+		for (Map.Entry<ByteArrayId, STORE_VALUE> entry : primaries.entrySet()) {
+			final Envelope envelope = envelopeFn.getEnvelope(entry.getValue());
+			if (envelope == null) {
+				return null;
+			}
+			spatialIndex.insert(
+					envelope,
+					entry.getKey());
+		}
+		for (Map.Entry<ByteArrayId, STORE_VALUE> entry : others.entrySet()) {
+			if (primaries.containsKey(entry.getKey())) continue;
+			final Envelope envelope = envelopeFn.getEnvelope(entry.getValue());
+			if (envelope == null) {
+				return null;
+			}
+			spatialIndex.insert(
+					envelope,
+					entry.getKey());
+		}
+		spatialIndex.build();
+		return spatialIndex;
+	}
+
+	/**
+	 * 
+	 * @return the items to compare to the primary. Without an index, these are
+	 *         all items in the partitions of the primary. With an index, these
+	 *         are the items within the search envelope of the primary that
+	 *         share a partition with the primary.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<Collection<ByteArrayId>> getCandidates(
+			final STRtree spatialIndex,
+			final STORE_VALUE primary,
+			final Set<PartitionData> partition ) {
+		if (spatialIndex == null) {
+			final List<Collection<ByteArrayId>> candidates = new ArrayList<Collection<ByteArrayId>>(
+					partition.size());
+			for (PartitionData pd : partition) {
+				candidates.add(partitionsToIds.get(pd));
+			}
+			return candidates;
+		}
+		final List<ByteArrayId> candidates = new ArrayList<ByteArrayId>();
+		for (ByteArrayId neighborId : (List<ByteArrayId>) spatialIndex.query(envelopeFn.getSearchEnvelope(
+				envelopeFn.getEnvelope(primary),
+				maxDistance))) {
+			final Set<PartitionData> neighborPartition = idsToPartition.get(neighborId);
+			if ((neighborPartition != null) && !Collections.disjoint(
+					partition,
+					neighborPartition)) {
+				candidates.add(neighborId);
+			}
+		}
+		return Collections.<Collection<ByteArrayId>> singletonList(candidates);
+	}
+
+	public NeighborEnvelopeFn<STORE_VALUE> getEnvelopeFn() {
+		return envelopeFn;
+	}
+
+	/**
+	 * Provide envelopes for the items so that neighbors are found using a
+	 * spatial index over each partition, rather than comparing each primary
+	 * to all items in its partitions. Only items whose envelopes intersect
+	 * the search envelope (see
+	 * {@link NeighborEnvelopeFn#getSearchEnvelope(Envelope, double)}) of a
+	 * primary are compared to that primary.
+	 * 
+	 * @param envelopeFn
+	 *            the envelope function, or null to compare all items
+	 */
+	public void setEnvelopeFn(
+			NeighborEnvelopeFn<STORE_VALUE> envelopeFn ) {
+		this.envelopeFn = envelopeFn;
+	}
+
 	public int getUpperBoundPerPartition() {
 		return upperBoundPerPartition;
 	}
@@ -0,0 +1,29 @@
+package mil.nga.giat.geowave.analytic.nn;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Provide bounding envelopes so that {@link NNProcessor} can index the items
+ * of a partition and find neighbor candidates with a range lookup rather than
+ * comparing every pair of items.
+ * 
+ * @param <ITEM>
+ */
+public interface NeighborEnvelopeFn<ITEM>
+{
+	/**
+	 * 
+	 * @return the envelope of the item, or null if the item cannot be indexed
+	 */
+	public Envelope getEnvelope(
+			ITEM item );
+
+	/**
+	 * 
+	 * @return an envelope that intersects the envelope of every item within
+	 *         the given distance of an item with the provided envelope
+	 */
+	public Envelope getSearchEnvelope(
+			Envelope envelope,
+			double distance );
+}
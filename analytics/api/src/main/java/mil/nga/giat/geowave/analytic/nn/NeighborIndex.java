@@ -1,8 +1,5 @@
 package mil.nga.giat.geowave.analytic.nn;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 
 /**
@@ -15,7 +12,7 @@ import mil.nga.giat.geowave.core.index.ByteArrayId;
  */
 public class NeighborIndex<NNTYPE>
 {
-	private final Map<ByteArrayId, NeighborList<NNTYPE>> index = new HashMap<ByteArrayId, NeighborList<NNTYPE>>();
+	private final CompactIdMap<NeighborList<NNTYPE>> index = new CompactIdMap<NeighborList<NNTYPE>>();
 	private final NeighborListFactory<NNTYPE> listFactory;
 
 	private final NullList<NNTYPE> nullList = new NullList<NNTYPE>();
@@ -77,11 +74,21 @@ public class NeighborIndex<NNTYPE>
 		}
 	}
 
+	/**
+	 * Invoked when the provided node has been processed or removed. If the
+	 * list factory reuses lists, the node's list is released to the factory.
+	 * 
+	 * @param id
+	 */
+	@SuppressWarnings("unchecked")
 	public void empty(
 			final ByteArrayId id ) {
-		index.put(
+		final NeighborList<NNTYPE> neighbors = index.put(
 				id,
 				nullList);
+		if ((neighbors != null) && (neighbors != nullList) && (listFactory instanceof ReusableNeighborListFactory)) {
+			((ReusableNeighborListFactory<NNTYPE>) listFactory).release(neighbors);
+		}
 	}
 
 	private void addToList(
@@ -0,0 +1,63 @@
+package mil.nga.giat.geowave.analytic.nn;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Envelopes for items with geometries in EPSG:4326, where distance is measured
+ * in meters along the surface of the earth (e.g.
+ * {@link mil.nga.giat.geowave.analytic.distance.CoordinateCircleDistanceFn}).
+ * 
+ * The search envelope is expanded conservatively: a degree is assumed to be
+ * slightly shorter than it is anywhere on the ellipsoid, longitude is
+ * expanded using the highest latitude of the search envelope, and the search
+ * spans all longitudes near the poles or across the anti-meridian.
+ * 
+ * @param <ITEM>
+ */
+public abstract class OrthodromicNeighborEnvelopeFn<ITEM> implements
+		NeighborEnvelopeFn<ITEM>
+{
+	private static final double MIN_METERS_PER_DEGREE = 110000.0;
+
+	protected abstract Geometry getGeometry(
+			ITEM item );
+
+	@Override
+	public Envelope getEnvelope(
+			final ITEM item ) {
+		final Geometry geometry = getGeometry(item);
+		return (geometry == null) || geometry.isEmpty() ? null : geometry.getEnvelopeInternal();
+	}
+
+	@Override
+	public Envelope getSearchEnvelope(
+			final Envelope envelope,
+			final double distance ) {
+		final double latDelta = distance / MIN_METERS_PER_DEGREE;
+		final double minY = Math.max(
+				-90.0,
+				envelope.getMinY() - latDelta);
+		final double maxY = Math.min(
+				90.0,
+				envelope.getMaxY() + latDelta);
+		final double maxLatitude = Math.max(
+				Math.abs(minY),
+				Math.abs(maxY));
+		final double cos = Math.cos(Math.toRadians(maxLatitude));
+		double minX = -180.0;
+		double maxX = 180.0;
+		if (cos > 1e-6) {
+			final double lonDelta = distance / (MIN_METERS_PER_DEGREE * cos);
+			if (((envelope.getMinX() - lonDelta) >= -180.0) && ((envelope.getMaxX() + lonDelta) <= 180.0)) {
+				minX = envelope.getMinX() - lonDelta;
+				maxX = envelope.getMaxX() + lonDelta;
+			}
+		}
+		return new Envelope(
+				minX,
+				maxX,
+				minY,
+				maxY);
+	}
+}
@@ -0,0 +1,16 @@
+package mil.nga.giat.geowave.analytic.nn;
+
+/**
+ * A factory that reuses neighbor lists. {@link NeighborIndex} releases a list
+ * back to the factory once the list's item has been processed or removed, so
+ * a list must not be retained beyond the
+ * {@link NNProcessor.CompleteNotifier#complete} callback that receives it.
+ * 
+ * @param <NNTYPE>
+ */
+public interface ReusableNeighborListFactory<NNTYPE> extends
+		NeighborListFactory<NNTYPE>
+{
+	public void release(
+			NeighborList<NNTYPE> list );
+}
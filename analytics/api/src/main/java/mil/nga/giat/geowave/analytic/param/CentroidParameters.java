@@ -49,7 +49,13 @@ public class CentroidParameters
 				"czl",
 				"Zoom Level Number",
 				true,
-				true);
+				true),
+		IN_MEMORY(
+				Boolean.class,
+				"cim",
+				"Load a snapshot of the centroids into memory once per task, distributed with the job",
+				false,
+				false);
 		private final ParameterHelper helper;
 
 		private Centroid(
@@ -0,0 +1,317 @@
+package mil.nga.giat.geowave.analytic.clustering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.geotools.feature.type.BasicFeatureTypes;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
+import mil.nga.giat.geowave.analytic.AnalyticFeature;
+import mil.nga.giat.geowave.analytic.AnalyticItemWrapper;
+import mil.nga.giat.geowave.analytic.SimpleFeatureItemWrapperFactory;
+import mil.nga.giat.geowave.analytic.distance.CoordinateCircleDistanceFn;
+import mil.nga.giat.geowave.analytic.distance.DistanceFn;
+import mil.nga.giat.geowave.analytic.distance.FeatureCentroidDistanceFn;
+import mil.nga.giat.geowave.analytic.kmeans.AssociationNotification;
+import mil.nga.giat.geowave.analytic.kmeans.CentroidAssociationFn;
+import mil.nga.giat.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.StoreFactoryFamilySpi;
+import mil.nga.giat.geowave.core.store.StoreFactoryOptions;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.core.store.index.IndexStore;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.memory.MemoryStoreFactoryFamily;
+
+public class CentroidManagerInMemoryTest
+{
+	private final GeometryFactory factory = new GeometryFactory();
+	private final SimpleFeatureItemWrapperFactory wrapperFactory = new SimpleFeatureItemWrapperFactory();
+	private final SimpleFeatureType ftype = AnalyticFeature.createGeometryFeatureAdapter(
+			"centroid",
+			new String[] {
+				"extra1"
+			},
+			BasicFeatureTypes.DEFAULT_NAMESPACE,
+			ClusteringUtils.CLUSTERING_CRS).getFeatureType();
+
+	private SimpleFeature create(
+			final String batchId,
+			final String id,
+			final String groupId,
+			final int level,
+			final double x,
+			final double y ) {
+		return AnalyticFeature.createGeometryFeature(
+				ftype,
+				batchId,
+				id,
+				id,
+				groupId,
+				0.0,
+				factory.createPoint(new Coordinate(
+						x,
+						y)),
+				new String[] {
+					"extra1"
+				},
+				new double[] {
+					0.0
+				},
+				level,
+				1,
+				0);
+	}
+
+	@Test
+	public void testSnapshot()
+			throws IOException {
+		final PrimaryIndex index = new SpatialDimensionalityTypeProvider().createPrimaryIndex();
+		final FeatureDataAdapter adapter = new FeatureDataAdapter(
+				ftype);
+		final StoreFactoryFamilySpi storeFamily = new MemoryStoreFactoryFamily();
+		final StoreFactoryOptions opts = storeFamily.getDataStoreFactory().createOptionsInstance();
+		opts.setGeowaveNamespace("test_" + getClass().getName());
+		final DataStore dataStore = storeFamily.getDataStoreFactory().createStore(
+				opts);
+		final IndexStore indexStore = storeFamily.getIndexStoreFactory().createStore(
+				opts);
+		final AdapterStore adapterStore = storeFamily.getAdapterStoreFactory().createStore(
+				opts);
+
+		final SimpleFeature level1G1 = create(
+				"b1",
+				"level1G1",
+				"g1",
+				1,
+				2.5,
+				0.25);
+		final SimpleFeature level1G2 = create(
+				"b1",
+				"level1G2",
+				"g1",
+				1,
+				-20.0,
+				-10.0);
+		try (IndexWriter writer = dataStore.createWriter(
+				adapter,
+				index)) {
+			writer.write(level1G1);
+			writer.write(level1G2);
+			writer.write(create(
+					"b1",
+					"level2G1a",
+					level1G1.getID(),
+					2,
+					2.0,
+					0.2));
+			writer.write(create(
+					"b1",
+					"level2G2a",
+					level1G2.getID(),
+					2,
+					-21.0,
+					-11.0));
+			writer.write(create(
+					"b2",
+					"level2G1b",
+					level1G1.getID(),
+					2,
+					3.0,
+					0.3));
+			writer.write(create(
+					"b2",
+					"level2G1c",
+					level1G1.getID(),
+					2,
+					10.0,
+					5.0));
+			writer.write(create(
+					"b3",
+					"unrelated",
+					level1G1.getID(),
+					2,
+					3.0,
+					0.3));
+		}
+
+		final CentroidManagerGeoWave<SimpleFeature> source = new CentroidManagerGeoWave<SimpleFeature>(
+				dataStore,
+				indexStore,
+				adapterStore,
+				wrapperFactory,
+				StringUtils.stringFromBinary(adapter.getAdapterId().getBytes()),
+				StringUtils.stringFromBinary(index.getId().getBytes()),
+				"b2",
+				2);
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream output = new DataOutputStream(
+				bytes)) {
+			CentroidManagerInMemory.writeSnapshot(
+					source,
+					output,
+					"b2",
+					"b1");
+		}
+		final CentroidManagerInMemory<SimpleFeature> manager = CentroidManagerInMemory.readSnapshot(
+				new DataInputStream(
+						new ByteArrayInputStream(
+								bytes.toByteArray())),
+				wrapperFactory,
+				"b2",
+				2);
+
+		assertEquals(
+				adapter.getAdapterId(),
+				manager.getDataTypeId());
+		assertEquals(
+				2,
+				manager.getCentroidsForGroup(
+						level1G1.getID()).size());
+		assertEquals(
+				2,
+				manager.getCentroidsForGroup(
+						"b1",
+						"g1").size());
+		assertEquals(
+				1,
+				manager.getAllCentroidGroups().size());
+		assertNotNull(manager.getCentroid("level2G2a"));
+		assertEquals(
+				null,
+				manager.getCentroid("unrelated"));
+
+		final List<CentroidPairing<SimpleFeature>> pairings = new ArrayList<CentroidPairing<SimpleFeature>>();
+		final AssociationNotification<SimpleFeature> assoc = new AssociationNotification<SimpleFeature>() {
+			@Override
+			public void notify(
+					final CentroidPairing<SimpleFeature> pairing ) {
+				pairings.add(pairing);
+			}
+		};
+		final FeatureCentroidDistanceFn distanceFn = new FeatureCentroidDistanceFn();
+		final NestedGroupCentroidAssignment<SimpleFeature> inMemory = new NestedGroupCentroidAssignment<SimpleFeature>(
+				manager,
+				2,
+				"b1",
+				distanceFn);
+		final NestedGroupCentroidAssignment<SimpleFeature> fromStore = new NestedGroupCentroidAssignment<SimpleFeature>(
+				source,
+				2,
+				"b1",
+				distanceFn);
+		final SimpleFeature[] points = new SimpleFeature[] {
+			create(
+					"b0",
+					"p1",
+					"g1",
+					1,
+					2.9,
+					0.29),
+			create(
+					"b0",
+					"p2",
+					"g1",
+					1,
+					9.0,
+					4.0)
+		};
+		for (final SimpleFeature point : points) {
+			inMemory.findCentroidForLevel(
+					wrapperFactory.create(point),
+					assoc);
+			fromStore.findCentroidForLevel(
+					wrapperFactory.create(point),
+					assoc);
+			assertEquals(
+					2,
+					pairings.size());
+			assertEquals(
+					pairings.get(
+							1).getCentroid().getID(),
+					pairings.get(
+							0).getCentroid().getID());
+			assertEquals(
+					pairings.get(
+							1).getDistance(),
+					pairings.get(
+							0).getDistance(),
+					0.0);
+			pairings.clear();
+		}
+	}
+
+	@Test
+	public void testIndexMatchesExhaustiveSearch() {
+		final Random random = new Random(
+				3331);
+		final List<AnalyticItemWrapper<SimpleFeature>> centroids = new ArrayList<AnalyticItemWrapper<SimpleFeature>>();
+		for (int i = 0; i < 200; i++) {
+			centroids.add(wrapperFactory.create(create(
+					"b1",
+					"c" + i,
+					"g1",
+					1,
+					(random.nextDouble() * 120.0) - 60.0,
+					(random.nextDouble() * 120.0) - 60.0)));
+		}
+		final List<DistanceFn<SimpleFeature>> distanceFns = new ArrayList<DistanceFn<SimpleFeature>>();
+		distanceFns.add(new FeatureCentroidDistanceFn());
+		distanceFns.add(new FeatureCentroidDistanceFn(
+				new CoordinateCircleDistanceFn()));
+		for (final DistanceFn<SimpleFeature> distanceFn : distanceFns) {
+			final CentroidIndex<SimpleFeature> centroidIndex = new CentroidIndex<SimpleFeature>(
+					centroids,
+					distanceFn);
+			final CentroidAssociationFn<SimpleFeature> exhaustive = new CentroidAssociationFn<SimpleFeature>();
+			exhaustive.setDistanceFunction(distanceFn);
+			final List<CentroidPairing<SimpleFeature>> pairings = new ArrayList<CentroidPairing<SimpleFeature>>();
+			final AssociationNotification<SimpleFeature> assoc = new AssociationNotification<SimpleFeature>() {
+				@Override
+				public void notify(
+						final CentroidPairing<SimpleFeature> pairing ) {
+					pairings.add(pairing);
+				}
+			};
+			for (int i = 0; i < 100; i++) {
+				final AnalyticItemWrapper<SimpleFeature> point = wrapperFactory.create(create(
+						"b0",
+						"p" + i,
+						"g1",
+						1,
+						(random.nextDouble() * 120.0) - 60.0,
+						(random.nextDouble() * 120.0) - 60.0));
+				centroidIndex.compute(
+						point,
+						assoc);
+				exhaustive.compute(
+						point,
+						centroids,
+						assoc);
+				assertEquals(
+						pairings.get(
+								1).getCentroid().getID(),
+						pairings.get(
+								0).getCentroid().getID());
+				pairings.clear();
+			}
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package mil.nga.giat.geowave.analytic.kryo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Date;
+
+import mil.nga.giat.geowave.analytic.partitioner.Partitioner.PartitionData;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.mapreduce.input.GeoWaveInputKey;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.SchemaException;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.simple.SimpleFeatureImpl;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+
+public class SimpleFeatureSerializerTest
+{
+	private Kryo createKryo() {
+		final Kryo kryo = new Kryo();
+		kryo.register(
+				SimpleFeatureImpl.class,
+				new SimpleFeatureSerializer());
+		kryo.register(
+				ByteArrayId.class,
+				new ByteArrayIdSerializer());
+		kryo.register(
+				GeoWaveInputKey.class,
+				new GeoWaveInputKeySerializer());
+		kryo.register(
+				PartitionData.class,
+				new PartitionDataSerializer());
+		return kryo;
+	}
+
+	private byte[] write(
+			final Kryo kryo,
+			final Object object ) {
+		final Output output = new Output(
+				1024,
+				-1);
+		kryo.writeObject(
+				output,
+				object);
+		return output.toBytes();
+	}
+
+	private <T> T read(
+			final Kryo kryo,
+			final byte[] bytes,
+			final Class<T> type ) {
+		return kryo.readObject(
+				new Input(
+						bytes),
+				type);
+	}
+
+	private SimpleFeature createFeature(
+			final SimpleFeatureType schema )
+			throws ParseException {
+		final Geometry polygon = new WKTReader().read("POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 3 2, 3 3, 2 2))");
+		return SimpleFeatureBuilder.build(
+				schema,
+				new Object[] {
+					polygon,
+					"name",
+					Integer.valueOf(-5),
+					null,
+					new Date(
+							12345L)
+				},
+				"fid1");
+	}
+
+	@Test
+	public void testFeatureRoundTrip()
+			throws SchemaException,
+			ParseException {
+		final SimpleFeatureType schema = DataUtilities.createType(
+				"kryoInline",
+				"geom:Polygon:srid=4326,name:String,count:Integer,value:Double,when:Date");
+		final SimpleFeature feature = createFeature(schema);
+		final Kryo kryo = createKryo();
+
+		final byte[] inline = write(
+				kryo,
+				feature);
+		final SimpleFeature inlineCopy = read(
+				kryo,
+				inline,
+				SimpleFeatureImpl.class);
+		assertEquals(
+				feature,
+				inlineCopy);
+		assertEquals(
+				"fid1",
+				inlineCopy.getID());
+		assertTrue(((Geometry) feature.getDefaultGeometry()).equalsExact((Geometry) inlineCopy.getDefaultGeometry()));
+
+		SimpleFeatureSerializer.registerFeatureType(schema);
+		final Kryo registeredKryo = createKryo();
+		final SimpleFeature registeredFeature = createFeature(schema);
+		final byte[] byReference = write(
+				registeredKryo,
+				registeredFeature);
+		assertTrue(byReference.length < inline.length);
+		assertEquals(
+				registeredFeature,
+				read(
+						registeredKryo,
+						byReference,
+						SimpleFeatureImpl.class));
+	}
+
+	@Test
+	public void testRegisterEncodedTypes()
+			throws SchemaException,
+			ParseException {
+		final SimpleFeatureType schema = DataUtilities.createType(
+				"kryoEncoded",
+				"geom:Polygon:srid=4326,name:String,count:Integer,value:Double,when:Date");
+		SimpleFeatureSerializer.registerFeatureTypes(SimpleFeatureSerializer.encodeFeatureTypes(Collections
+				.singleton(schema)));
+		final Kryo kryo = createKryo();
+		final SimpleFeature feature = createFeature(schema);
+		assertEquals(
+				feature,
+				read(
+						kryo,
+						write(
+								kryo,
+								feature),
+						SimpleFeatureImpl.class));
+	}
+
+	@Test
+	public void testKeys() {
+		final Kryo kryo = createKryo();
+		final GeoWaveInputKey key = new GeoWaveInputKey(
+				new ByteArrayId(
+						"adapter"),
+				new ByteArrayId(
+						"data"));
+		assertEquals(
+				key,
+				read(
+						kryo,
+						write(
+								kryo,
+								key),
+						GeoWaveInputKey.class));
+
+		final PartitionData partitionData = new PartitionData(
+				new ByteArrayId(
+						"partition"),
+				true);
+		partitionData.setGroupId(new ByteArrayId(
+				"group"));
+		final PartitionData partitionCopy = read(
+				kryo,
+				write(
+						kryo,
+						partitionData),
+				PartitionData.class);
+		assertEquals(
+				partitionData,
+				partitionCopy);
+		assertEquals(
+				partitionData.getGroupId(),
+				partitionCopy.getGroupId());
+		assertTrue(partitionCopy.isPrimary());
+	}
+}
@@ -0,0 +1,102 @@
+package mil.nga.giat.geowave.analytic.nn;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+
+import org.junit.Test;
+
+public class CompactIdMapTest
+{
+	@Test
+	public void testPutGetRemove() {
+		final CompactIdMap<Integer> map = new CompactIdMap<Integer>();
+		for (int i = 0; i < 1000; i++) {
+			map.put(
+					new ByteArrayId(
+							"id" + i),
+					i);
+		}
+		assertEquals(
+				1000,
+				map.size());
+		for (int i = 0; i < 1000; i += 2) {
+			assertEquals(
+					Integer.valueOf(i),
+					map.remove(new ByteArrayId(
+							"id" + i)));
+		}
+		assertEquals(
+				500,
+				map.size());
+		for (int i = 0; i < 1000; i++) {
+			final ByteArrayId id = new ByteArrayId(
+					"id" + i);
+			if ((i % 2) == 0) {
+				assertNull(map.get(id));
+				assertFalse(map.containsKey(id));
+			}
+			else {
+				assertEquals(
+						Integer.valueOf(i),
+						map.get(id));
+			}
+		}
+		assertEquals(
+				Integer.valueOf(1),
+				map.put(
+						new ByteArrayId(
+								"id1"),
+						-1));
+		assertEquals(
+				Integer.valueOf(-1),
+				map.get(new ByteArrayId(
+						"id1")));
+	}
+
+	@Test
+	public void testIteratorRemoveAndClear() {
+		final CompactIdMap<Integer> map = new CompactIdMap<Integer>();
+		for (int i = 0; i < 100; i++) {
+			map.put(
+					new ByteArrayId(
+							"id" + i),
+					i);
+		}
+		final Iterator<Entry<ByteArrayId, Integer>> it = map.entrySet().iterator();
+		int count = 0;
+		while (it.hasNext()) {
+			final Entry<ByteArrayId, Integer> entry = it.next();
+			count++;
+			if ((entry.getValue() % 10) != 0) {
+				it.remove();
+			}
+		}
+		assertEquals(
+				100,
+				count);
+		assertEquals(
+				10,
+				map.size());
+
+		map.clear();
+		assertTrue(map.isEmpty());
+		map.put(
+				new ByteArrayId(
+						"id5"),
+				5);
+		assertEquals(
+				1,
+				map.size());
+		assertEquals(
+				Integer.valueOf(5),
+				map.get(new ByteArrayId(
+						"id5")));
+	}
+}
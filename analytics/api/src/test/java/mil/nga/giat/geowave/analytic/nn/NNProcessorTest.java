@@ -27,6 +27,8 @@ import org.apache.hadoop.mapreduce.JobContext;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.vividsolutions.jts.geom.Envelope;
+
 public class NNProcessorTest
 {
 	static Map<Integer, List<Integer>> expectedResults = new HashMap<Integer, List<Integer>>();
@@ -172,6 +174,60 @@ public class NNProcessorTest
 				});
 	}
 
+	@Test
+	public void testNormalOpWithIndex()
+			throws IOException,
+			InterruptedException {
+		final NNProcessor<Integer, Integer> processor = buildProcessor();
+		processor.setEnvelopeFn(new NeighborEnvelopeFn<Integer>() {
+
+			@Override
+			public Envelope getEnvelope(
+					final Integer item ) {
+				return new Envelope(
+						item.doubleValue(),
+						item.doubleValue(),
+						0,
+						0);
+			}
+
+			@Override
+			public Envelope getSearchEnvelope(
+					final Envelope envelope,
+					final double distance ) {
+				final Envelope searchEnvelope = new Envelope(
+						envelope);
+				searchEnvelope.expandBy(distance);
+				return searchEnvelope;
+			}
+		});
+		runProcess(
+				processor,
+				new CompleteNotifier<Integer>() {
+
+					@Override
+					public void complete(
+							final ByteArrayId id,
+							final Integer value,
+							final NeighborList<Integer> list )
+							throws IOException,
+							InterruptedException {
+						final Iterator<Entry<ByteArrayId, Integer>> it = list.iterator();
+						final List<Integer> expectedResultSet = new ArrayList<Integer>(
+								expectedResults.get(value));
+						assertNotNull(expectedResultSet);
+						while (it.hasNext()) {
+							final Integer result = it.next().getValue();
+							assertTrue(
+									"" + value + " with " + result,
+									expectedResultSet.remove(result));
+						}
+						assertTrue(expectedResultSet.isEmpty());
+					}
+
+				});
+	}
+
 	@Test
 	public void testRemoveOp()
 			throws IOException,
@@ -8,6 +8,7 @@ import java.util.Set;
 import mil.nga.giat.geowave.analytic.PropertyManagement;
 import mil.nga.giat.geowave.analytic.SimpleFeatureProjection;
 import mil.nga.giat.geowave.analytic.clustering.CentroidManagerGeoWave;
+import mil.nga.giat.geowave.analytic.clustering.CentroidManagerInMemory;
 import mil.nga.giat.geowave.analytic.clustering.NestedGroupCentroidAssignment;
 import mil.nga.giat.geowave.analytic.mapreduce.GeoWaveAnalyticJobRunner;
 import mil.nga.giat.geowave.analytic.mapreduce.GeoWaveOutputFormatConfiguration;
@@ -56,6 +57,9 @@ public class ConvexHullJobRunner extends
 		job.setReduceSpeculativeExecution(false);
 		job.setOutputKeyClass(GeoWaveOutputKey.class);
 		job.setOutputValueClass(Object.class);
+		CentroidManagerInMemory.distribute(
+				job,
+				getScope());
 	}
 
 	@Override
@@ -12,6 +12,7 @@ import org.apache.hadoop.mapreduce.Reducer;
 
 import mil.nga.giat.geowave.analytic.PropertyManagement;
 import mil.nga.giat.geowave.analytic.clustering.CentroidManagerGeoWave;
+import mil.nga.giat.geowave.analytic.clustering.CentroidManagerInMemory;
 import mil.nga.giat.geowave.analytic.clustering.NestedGroupCentroidAssignment;
 import mil.nga.giat.geowave.analytic.mapreduce.GeoWaveAnalyticJobRunner;
 import mil.nga.giat.geowave.analytic.mapreduce.clustering.GroupAssignmentMapReduce;
@@ -56,6 +57,9 @@ public class GroupAssigmentJobRunner extends
 		job.setReducerClass(Reducer.class);
 		job.setOutputKeyClass(GeoWaveInputKey.class);
 		job.setOutputValueClass(ObjectWritable.class);
+		CentroidManagerInMemory.distribute(
+				job,
+				getScope());
 	}
 
 	@Override
@@ -0,0 +1,19 @@
+package mil.nga.giat.geowave.analytic.mapreduce.dbscan;
+
+import mil.nga.giat.geowave.analytic.nn.OrthodromicNeighborEnvelopeFn;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Envelopes of cluster items, compatible with the orthodromic distances
+ * measured by {@link ClusterItemDistanceFn}.
+ */
+public class ClusterItemEnvelopeFn extends
+		OrthodromicNeighborEnvelopeFn<ClusterItem>
+{
+	@Override
+	protected Geometry getGeometry(
+			final ClusterItem item ) {
+		return item.getGeometry();
+	}
+}
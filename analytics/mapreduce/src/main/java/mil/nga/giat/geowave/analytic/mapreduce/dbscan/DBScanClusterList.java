@@ -11,6 +11,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import mil.nga.giat.geowave.analytic.GeometryHullTool;
+import mil.nga.giat.geowave.analytic.nn.CompactIdMap;
 import mil.nga.giat.geowave.analytic.nn.DistanceProfile;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 
@@ -115,7 +116,8 @@ public abstract class DBScanClusterList implements
 	protected Set<ByteArrayId> getLinkedClusters(
 			boolean allowUpdates ) {
 		if (linkedClusters == null || linkedClusters == Collections.<ByteArrayId> emptySet())
-			linkedClusters = allowUpdates ? new HashSet<ByteArrayId>() : Collections.<ByteArrayId> emptySet();
+			linkedClusters = allowUpdates ? Collections.newSetFromMap(new CompactIdMap<Boolean>()) : Collections
+					.<ByteArrayId> emptySet();
 		return linkedClusters;
 	}
 
@@ -1,7 +1,6 @@
 package mil.nga.giat.geowave.analytic.mapreduce.dbscan;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
@@ -24,6 +23,7 @@ import mil.nga.giat.geowave.analytic.mapreduce.dbscan.SingleItemClusterList.Sing
 import mil.nga.giat.geowave.analytic.mapreduce.nn.NNMapReduce;
 import mil.nga.giat.geowave.analytic.mapreduce.nn.NNMapReduce.NNReducer;
 import mil.nga.giat.geowave.analytic.mapreduce.nn.NNMapReduce.PartitionDataWritable;
+import mil.nga.giat.geowave.analytic.nn.CompactIdMap;
 import mil.nga.giat.geowave.analytic.nn.NNProcessor;
 import mil.nga.giat.geowave.analytic.nn.NNProcessor.CompleteNotifier;
 import mil.nga.giat.geowave.analytic.nn.NeighborList;
@@ -91,7 +91,7 @@ public class DBScanMapReduce
 
 		@Override
 		protected Map<ByteArrayId, Cluster> createSummary() {
-			return new HashMap<ByteArrayId, Cluster>();
+			return new CompactIdMap<Cluster>();
 		}
 
 		@Override
@@ -399,6 +399,8 @@ public class DBScanMapReduce
 
 			super.distanceFn = new ClusterItemDistanceFn();
 
+			super.envelopeFn = new ClusterItemEnvelopeFn();
+
 		}
 	}
 }
@@ -5,6 +5,7 @@ import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Job;
 
 import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.clustering.CentroidManagerInMemory;
 import mil.nga.giat.geowave.analytic.clustering.DistortionGroupManagement.DistortionDataAdapter;
 import mil.nga.giat.geowave.analytic.clustering.DistortionGroupManagement.DistortionEntry;
 import mil.nga.giat.geowave.analytic.clustering.NestedGroupCentroidAssignment;
@@ -84,6 +85,9 @@ public class KMeansDistortionJobRunner extends
 		GeoWaveOutputFormat.addDataAdapter(
 				conf,
 				new DistortionDataAdapter());
+		CentroidManagerInMemory.distribute(
+				job,
+				getScope());
 	}
 
 	@Override
@@ -1,6 +1,7 @@
 package mil.nga.giat.geowave.analytic.mapreduce.kmeans.runner;
 
 import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.clustering.CentroidManagerInMemory;
 import mil.nga.giat.geowave.analytic.clustering.NestedGroupCentroidAssignment;
 import mil.nga.giat.geowave.analytic.mapreduce.GeoWaveAnalyticJobRunner;
 import mil.nga.giat.geowave.analytic.mapreduce.GeoWaveOutputFormatConfiguration;
@@ -52,6 +53,9 @@ public class KMeansJobRunner extends
 		job.setReduceSpeculativeExecution(false);
 		job.setOutputKeyClass(GeoWaveOutputKey.class);
 		job.setOutputValueClass(SimpleFeature.class);
+		CentroidManagerInMemory.distribute(
+				job,
+				getScope());
 	}
 
 	@Override
@@ -3,6 +3,7 @@ package mil.nga.giat.geowave.analytic.mapreduce.kmeans.runner;
 import java.util.UUID;
 
 import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.clustering.CentroidManagerInMemory;
 import mil.nga.giat.geowave.analytic.clustering.NestedGroupCentroidAssignment;
 import mil.nga.giat.geowave.analytic.mapreduce.GeoWaveAnalyticJobRunner;
 import mil.nga.giat.geowave.analytic.mapreduce.GeoWaveOutputFormatConfiguration;
@@ -76,6 +77,9 @@ public class KSamplerJobRunner extends
 		job.setReduceSpeculativeExecution(false);
 		job.setOutputKeyClass(GeoWaveOutputKey.class);
 		job.setOutputValueClass(Object.class);
+		CentroidManagerInMemory.distribute(
+				job,
+				getScope());
 	}
 
 	private DataAdapter<?> getAdapter(
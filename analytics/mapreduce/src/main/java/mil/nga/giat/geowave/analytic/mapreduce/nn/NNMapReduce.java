@@ -14,6 +14,7 @@ import java.util.Set;
 import mil.nga.giat.geowave.analytic.AdapterWithObjectWritable;
 import mil.nga.giat.geowave.analytic.PropertyManagement;
 import mil.nga.giat.geowave.analytic.ScopedJobConfiguration;
+import mil.nga.giat.geowave.analytic.distance.CoordinateCircleDistanceFn;
 import mil.nga.giat.geowave.analytic.distance.DistanceFn;
 import mil.nga.giat.geowave.analytic.distance.FeatureGeometryDistanceFn;
 import mil.nga.giat.geowave.analytic.nn.DefaultNeighborList;
@@ -21,8 +22,10 @@ import mil.nga.giat.geowave.analytic.nn.DistanceProfile;
 import mil.nga.giat.geowave.analytic.nn.DistanceProfileGenerateFn;
 import mil.nga.giat.geowave.analytic.nn.NNProcessor;
 import mil.nga.giat.geowave.analytic.nn.NNProcessor.CompleteNotifier;
+import mil.nga.giat.geowave.analytic.nn.NeighborEnvelopeFn;
 import mil.nga.giat.geowave.analytic.nn.NeighborList;
 import mil.nga.giat.geowave.analytic.nn.NeighborListFactory;
+import mil.nga.giat.geowave.analytic.nn.OrthodromicNeighborEnvelopeFn;
 import mil.nga.giat.geowave.analytic.nn.TypeConverter;
 import mil.nga.giat.geowave.analytic.param.CommonParameters;
 import mil.nga.giat.geowave.analytic.param.ParameterEnum;
@@ -51,6 +54,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.primitives.SignedBytes;
+import com.vividsolutions.jts.geom.Geometry;
 
 /**
  * Find the nearest neighbors to a each item.
@@ -225,6 +229,13 @@ public class NNMapReduce
 
 		protected DistanceProfileGenerateFn<?, VALUEIN> distanceProfileFn = new LocalDistanceProfileGenerateFn();
 
+		/**
+		 * If provided, neighbors are found using a spatial index within each
+		 * partition. Only set this if the units of the envelopes and the
+		 * distance function are compatible.
+		 */
+		protected NeighborEnvelopeFn<VALUEIN> envelopeFn = null;
+
 		@Override
 		protected void reduce(
 				final PartitionDataWritable key,
@@ -241,6 +252,7 @@ public class NNMapReduce
 					key.partitionData);
 
 			processor.setUpperBoundPerPartition(maxNeighbors);
+			processor.setEnvelopeFn(envelopeFn);
 
 			final PARTITION_SUMMARY summary = createSummary();
 
@@ -491,6 +503,20 @@ public class NNMapReduce
 
 		}
 
+		@Override
+		protected void setup(
+				final Reducer<PartitionDataWritable, AdapterWithObjectWritable, Text, Text>.Context context )
+				throws IOException,
+				InterruptedException {
+			super.setup(context);
+			// orthodromic distances between geometries can be bounded by an
+			// envelope in degrees
+			if ((distanceFn instanceof FeatureGeometryDistanceFn)
+					&& (((FeatureGeometryDistanceFn) distanceFn).getCoordinateDistanceFunction().getClass() == CoordinateCircleDistanceFn.class)) {
+				envelopeFn = new FeatureGeometryEnvelopeFn();
+			}
+		}
+
 		@Override
 		protected Boolean createSummary() {
 			return Boolean.TRUE;
@@ -505,6 +531,22 @@ public class NNMapReduce
 		}
 	}
 
+	public static class FeatureGeometryEnvelopeFn extends
+			OrthodromicNeighborEnvelopeFn<SimpleFeature>
+	{
+		@Override
+		protected Geometry getGeometry(
+				final SimpleFeature feature ) {
+			// consistent with FeatureGeometryDistanceFn
+			for (final Object attr : feature.getAttributes()) {
+				if (attr instanceof Geometry) {
+					return (Geometry) attr;
+				}
+			}
+			return (Geometry) feature.getDefaultGeometry();
+		}
+	}
+
 	public static class PartitionDataWritable implements
 			Writable,
 			WritableComparable<PartitionDataWritable>
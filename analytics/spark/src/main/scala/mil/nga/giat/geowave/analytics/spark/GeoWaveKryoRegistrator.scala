@@ -1,13 +1,35 @@
 package mil.nga.giat.geowave.analytics.spark
 
+import org.apache.spark.SparkEnv
 import org.apache.spark.serializer.KryoRegistrator
 import com.esotericsoftware.kryo.Kryo
-import mil.nga.giat.geowave.analytic.kryo.FeatureSerializer
-import org.opengis.feature.simple.SimpleFeature
+import com.vividsolutions.jts.geom._
+import mil.nga.giat.geowave.adapter.vector.FeatureWritable
+import mil.nga.giat.geowave.analytic.kryo._
+import mil.nga.giat.geowave.analytic.partitioner.Partitioner.PartitionData
+import mil.nga.giat.geowave.core.index.ByteArrayId
+import mil.nga.giat.geowave.mapreduce.input.GeoWaveInputKey
 import org.geotools.feature.simple.SimpleFeatureImpl
 
 class GeoWaveKryoRegistrator extends KryoRegistrator {
-	  override def registerClasses(kryo: Kryo) {
-	    kryo.register(classOf[SimpleFeatureImpl], new FeatureSerializer )
-	  }
-}
\ No newline at end of file
+  override def registerClasses(kryo: Kryo) {
+    // feature types written by reference, see GeoWaveRDD.registerFeatureTypes
+    Option(SparkEnv.get).flatMap(env => env.conf.getOption(GeoWaveKryoRegistrator.FeatureTypesKey))
+      .foreach(SimpleFeatureSerializer.registerFeatureTypes)
+
+    kryo.register(classOf[SimpleFeatureImpl], new SimpleFeatureSerializer)
+    kryo.register(classOf[FeatureWritable], new FeatureWritableSerializer)
+    kryo.register(classOf[ByteArrayId], new ByteArrayIdSerializer)
+    kryo.register(classOf[GeoWaveInputKey], new GeoWaveInputKeySerializer)
+    kryo.register(classOf[PartitionData], new PartitionDataSerializer)
+
+    val geometrySerializer = new GeometrySerializer
+    for (geometryClass <- Seq(classOf[Point], classOf[LineString], classOf[LinearRing], classOf[Polygon],
+      classOf[MultiPoint], classOf[MultiLineString], classOf[MultiPolygon], classOf[GeometryCollection]))
+      kryo.register(geometryClass, geometrySerializer)
+  }
+}
+
+object GeoWaveKryoRegistrator {
+  val FeatureTypesKey = "spark.geowave.kryo.featureTypes"
+}
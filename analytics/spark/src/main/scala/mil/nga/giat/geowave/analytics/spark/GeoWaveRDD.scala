@@ -4,11 +4,13 @@ import org.apache.spark.SparkConf
 import org.apache.spark.rdd.RDD
 import org.apache.hadoop.conf.Configuration
 import org.opengis.feature.simple.SimpleFeature
+import org.opengis.feature.simple.SimpleFeatureType
 import org.apache.spark.SparkContext
 import mil.nga.giat.geowave.mapreduce.input.GeoWaveInputKey
 import mil.nga.giat.geowave.core.store.query.Query
 import mil.nga.giat.geowave.mapreduce.input.GeoWaveInputFormat
 import mil.nga.giat.geowave.analytic.ScopedJobConfiguration
+import mil.nga.giat.geowave.analytic.kryo.SimpleFeatureSerializer
 import org.apache.spark.serializer.KryoRegistrator
 import com.esotericsoftware.kryo.Kryo
 import mil.nga.giat.geowave.analytic.partitioner.Partitioner
@@ -46,6 +48,17 @@ object GeoWaveRDD {
       classOf[GeoWaveKryoRegistrator].getCanonicalName());
   }
 
+  /**
+    * Features of the given types are serialized with a reference to the type
+    * rather than the type definition.
+    */
+  def registerFeatureTypes(conf: SparkConf, featureTypes: SimpleFeatureType*): SparkConf = {
+    featureTypes.foreach(SimpleFeatureSerializer.registerFeatureType)
+    conf.set(
+      GeoWaveKryoRegistrator.FeatureTypesKey,
+      SimpleFeatureSerializer.encodeFeatureTypes(featureTypes.asJava))
+  }
+
   /**
     * Example of forming an RDD using the GeoWavInputFormat
     *
@@ -57,6 +70,22 @@ object GeoWaveRDD {
                            minSplits: Int,
                            maxSplits: Int,
                            query: DistributableQuery)(implicit geoWaveContext: GeoWaveContext): RDD[(GeoWaveInputKey, SimpleFeature)] = {
+    rddForSimpleFeatures(sc, queryOptions, Some(minSplits), Some(maxSplits), None, query)
+  }
+
+  /**
+    * Form an RDD using the GeoWaveInputFormat.
+    *
+    * targetSplitSize is the desired number of rows per split; when provided,
+    * splits are planned from the row range statistics, bounded by any
+    * provided minSplits and maxSplits.
+    */
+  def rddForSimpleFeatures(sc: SparkContext,
+                           queryOptions: QueryOptions,
+                           minSplits: Option[Int],
+                           maxSplits: Option[Int],
+                           targetSplitSize: Option[Long],
+                           query: DistributableQuery)(implicit geoWaveContext: GeoWaveContext): RDD[(GeoWaveInputKey, SimpleFeature)] = {
 
     val conf = new org.apache.hadoop.conf.Configuration(sc.hadoopConfiguration)
 
@@ -71,8 +100,9 @@ object GeoWaveRDD {
     GeoWaveInputFormat.setQuery(conf, query)
 
     // recommended
-    GeoWaveInputFormat.setMaximumSplitCount(conf, maxSplits)
-    GeoWaveInputFormat.setMinimumSplitCount(conf, minSplits)
+    maxSplits.foreach(s => GeoWaveInputFormat.setMaximumSplitCount(conf, s))
+    minSplits.foreach(s => GeoWaveInputFormat.setMinimumSplitCount(conf, s))
+    targetSplitSize.foreach(s => GeoWaveInputFormat.setTargetSplitSize(conf, s))
 
     sc.newAPIHadoopRDD(conf, classOf[GeoWaveInputFormat[SimpleFeature]], classOf[GeoWaveInputKey], classOf[SimpleFeature])
   }
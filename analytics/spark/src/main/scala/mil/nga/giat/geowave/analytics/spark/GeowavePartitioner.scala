@@ -13,10 +13,15 @@ class GeowavePartitioner(private val size: Int)
 
   override def getPartition(key: Any): Int = {
     key match {
-      case (b1: ByteArrayId) => b1.hashCode % size
-      case (pd: PartitionData) => pd.hashCode % size
+      case (b1: ByteArrayId) => nonNegativeMod(b1.hashCode)
+      case (pd: PartitionData) => nonNegativeMod(pd.hashCode)
       case _ => 0 // Throw an exception?
     }
   }
 
+  private def nonNegativeMod(hash: Int): Int = {
+    val mod = hash % size
+    if (mod < 0) mod + size else mod
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,233 @@
+package mil.nga.giat.geowave.analytics.spark
+
+import scala.collection.JavaConverters._
+import org.apache.spark.SparkContext._
+import org.apache.spark.rdd.RDD
+import org.opengis.feature.simple.SimpleFeature
+import com.vividsolutions.jts.geom.Envelope
+import com.vividsolutions.jts.geom.Geometry
+import com.vividsolutions.jts.index.strtree.STRtree
+import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition
+import mil.nga.giat.geowave.core.geotime.index.dimension.LongitudeDefinition
+import mil.nga.giat.geowave.core.index.ByteArrayId
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy
+import mil.nga.giat.geowave.core.index.PersistenceUtils
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition
+import mil.nga.giat.geowave.core.index.sfc.SFCFactory.SFCType
+import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData
+import mil.nga.giat.geowave.core.index.sfc.data.NumericRange
+import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexFactory
+import mil.nga.giat.geowave.mapreduce.input.GeoWaveInputKey
+
+/**
+  * Distributed spatial join of two RDDs of features in EPSG:4326.
+  *
+  * Both sides are co-partitioned by the cells of a single tier of a spatial
+  * SFC index: each feature is keyed by every cell its envelope (the search
+  * envelope, for the left side) overlaps. Within a cell, the right side
+  * features are indexed with an STRtree and probed with each left side
+  * feature. A pair found in several cells is only reported by the cell
+  * containing the lower left corner of the intersection of the left search
+  * envelope and the right envelope.
+  *
+  * Features overlapping more than a maximum number of cells are not
+  * replicated to every cell. They are collected and broadcast instead, and
+  * joined with every feature of the other side. The inputs are read once
+  * more to find them, so they should be persisted by the caller.
+  */
+object SpatialJoin {
+
+  val DefaultBitsPerDimension = 8
+  val DefaultMaxCellsPerFeature = 1024
+
+  def join(left: RDD[(GeoWaveInputKey, SimpleFeature)],
+           right: RDD[(GeoWaveInputKey, SimpleFeature)],
+           predicate: SpatialJoinPredicate): RDD[(SimpleFeature, SimpleFeature)] =
+    join(left, right, predicate, DefaultBitsPerDimension, left.partitions.length)
+
+  def join(left: RDD[(GeoWaveInputKey, SimpleFeature)],
+           right: RDD[(GeoWaveInputKey, SimpleFeature)],
+           predicate: SpatialJoinPredicate,
+           bitsPerDimension: Int,
+           numPartitions: Int): RDD[(SimpleFeature, SimpleFeature)] =
+    join(left, right, predicate, bitsPerDimension, numPartitions, DefaultMaxCellsPerFeature)
+
+  /**
+    * @param bitsPerDimension the precision of the cells; smaller cells
+    *                         replicate more features but reduce the
+    *                         candidates compared within a cell
+    * @param maxCellsPerFeature features overlapping more cells are broadcast
+    *                           rather than replicated to every cell
+    */
+  def join(left: RDD[(GeoWaveInputKey, SimpleFeature)],
+           right: RDD[(GeoWaveInputKey, SimpleFeature)],
+           predicate: SpatialJoinPredicate,
+           bitsPerDimension: Int,
+           numPartitions: Int,
+           maxCellsPerFeature: Int): RDD[(SimpleFeature, SimpleFeature)] = {
+    val sc = left.sparkContext
+    val strategyBinary = sc.broadcast(PersistenceUtils.toBinary(createCellStrategy(bitsPerDimension)))
+    val leftEnvelope = (geometry: Geometry) => predicate.getSearchEnvelope(geometry)
+    val rightEnvelope = (geometry: Geometry) => geometry.getEnvelopeInternal
+    val isLarge = (envelope: Envelope) => cellCount(envelope, bitsPerDimension) > maxCellsPerFeature
+
+    val leftCells = left.mapPartitions(it => {
+      val strategy = PersistenceUtils.fromBinary(strategyBinary.value, classOf[NumericIndexStrategy])
+      it.flatMap(kv => {
+        val geometry = getGeometry(kv._2)
+        if (geometry == null) Nil
+        else {
+          val envelope = leftEnvelope(geometry)
+          if (isLarge(envelope)) Nil
+          else cellsFor(strategy, envelope).map(cell => (cell, kv._2))
+        }
+      })
+    })
+
+    val rightCells = right.mapPartitions(it => {
+      val strategy = PersistenceUtils.fromBinary(strategyBinary.value, classOf[NumericIndexStrategy])
+      it.flatMap(kv => {
+        val geometry = getGeometry(kv._2)
+        if (geometry == null) Nil
+        else {
+          val envelope = rightEnvelope(geometry)
+          if (isLarge(envelope)) Nil
+          else cellsFor(strategy, envelope).map(cell => (cell, kv._2))
+        }
+      })
+    })
+
+    val cellPairs = leftCells.cogroup(rightCells, new GeowavePartitioner(numPartitions)).mapPartitions(it => {
+      val strategy = PersistenceUtils.fromBinary(strategyBinary.value, classOf[NumericIndexStrategy])
+      it.flatMap {
+        case (cell, (leftFeatures, rightFeatures)) =>
+          if (leftFeatures.isEmpty || rightFeatures.isEmpty) Nil
+          else joinCell(strategy.getRangeForId(cell), leftFeatures, rightFeatures, predicate)
+      }
+    })
+
+    // a pair of two large features is only reported with the large left
+    // features
+    val largeLeft = largeFeatures(left, leftEnvelope, isLarge)
+    val largeRight = largeFeatures(right, rightEnvelope, isLarge)
+    var pairs = cellPairs
+    if (largeLeft.nonEmpty) {
+      val broadcastLeft = sc.broadcast(largeLeft)
+      pairs = pairs.union(right.mapPartitions(it => {
+        val index = createIndex(broadcastLeft.value, leftEnvelope)
+        it.flatMap(kv => {
+          val rightGeometry = getGeometry(kv._2)
+          if (rightGeometry == null) Nil
+          else index.query(rightGeometry.getEnvelopeInternal).asScala.map(_.asInstanceOf[(Geometry, SimpleFeature)]).filter {
+            case (leftGeometry, _) => predicate.evaluate(leftGeometry, rightGeometry)
+          }.map(l => (l._2, kv._2))
+        })
+      }))
+    }
+    if (largeRight.nonEmpty) {
+      val broadcastRight = sc.broadcast(largeRight)
+      pairs = pairs.union(left.mapPartitions(it => {
+        val index = createIndex(broadcastRight.value, rightEnvelope)
+        it.flatMap(kv => {
+          val leftGeometry = getGeometry(kv._2)
+          if (leftGeometry == null) Nil
+          else {
+            val searchEnvelope = leftEnvelope(leftGeometry)
+            if (isLarge(searchEnvelope)) Nil
+            else index.query(searchEnvelope).asScala.map(_.asInstanceOf[(Geometry, SimpleFeature)]).filter {
+              case (rightGeometry, _) => predicate.evaluate(leftGeometry, rightGeometry)
+            }.map(r => (kv._2, r._2))
+          }
+        })
+      }))
+    }
+    pairs
+  }
+
+  private def largeFeatures(features: RDD[(GeoWaveInputKey, SimpleFeature)],
+                            envelopeFn: Geometry => Envelope,
+                            isLarge: Envelope => Boolean): Array[SimpleFeature] = {
+    features.values.filter(feature => {
+      val geometry = getGeometry(feature)
+      (geometry != null) && isLarge(envelopeFn(geometry))
+    }).collect()
+  }
+
+  private def createIndex(features: Array[SimpleFeature], envelopeFn: Geometry => Envelope): STRtree = {
+    val index = new STRtree()
+    for (feature <- features) {
+      val geometry = getGeometry(feature)
+      index.insert(envelopeFn(geometry), (geometry, feature))
+    }
+    index
+  }
+
+  private def joinCell(cell: mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData,
+                       leftFeatures: Iterable[SimpleFeature],
+                       rightFeatures: Iterable[SimpleFeature],
+                       predicate: SpatialJoinPredicate): Iterator[(SimpleFeature, SimpleFeature)] = {
+    val index = new STRtree()
+    for (feature <- rightFeatures) {
+      val geometry = getGeometry(feature)
+      index.insert(geometry.getEnvelopeInternal, (geometry, feature))
+    }
+    val cellRanges = cell.getDataPerDimension
+    leftFeatures.iterator.flatMap(leftFeature => {
+      val leftGeometry = getGeometry(leftFeature)
+      val searchEnvelope = predicate.getSearchEnvelope(leftGeometry)
+      index.query(searchEnvelope).asScala.iterator.map(_.asInstanceOf[(Geometry, SimpleFeature)]).filter {
+        case (rightGeometry, _) =>
+          isReferenceCell(cellRanges, searchEnvelope.intersection(rightGeometry.getEnvelopeInternal)) &&
+            predicate.evaluate(leftGeometry, rightGeometry)
+      }.map(r => (leftFeature, r._2))
+    })
+  }
+
+  private def isReferenceCell(cellRanges: Array[NumericData], intersection: Envelope): Boolean = {
+    !intersection.isNull &&
+      inRange(cellRanges(0), intersection.getMinX, LongitudeBound) &&
+      inRange(cellRanges(1), intersection.getMinY, LatitudeBound)
+  }
+
+  // cells are half open except at the upper bound of the dimension
+  private def inRange(range: NumericData, value: Double, upperBound: Double): Boolean =
+    (value >= range.getMin) && ((value < range.getMax) || (range.getMax >= upperBound))
+
+  private val LongitudeBound = 180.0
+  // latitude uses the same range as longitude, for square cells
+  private val LatitudeBound = 180.0
+
+  /**
+    * @return the number of cells of the tier overlapped by the envelope,
+    *         without decomposing it
+    */
+  private[spark] def cellCount(envelope: Envelope, bitsPerDimension: Int): Long = {
+    val cells = 1L << bitsPerDimension
+    def cellIndex(value: Double, bound: Double): Long =
+      math.min(cells - 1, math.max(0L, math.floor(((value + bound) / (2 * bound)) * cells).toLong))
+    def span(min: Double, max: Double, bound: Double): Long =
+      cellIndex(max, bound) - cellIndex(min, bound) + 1
+    span(envelope.getMinX, envelope.getMaxX, LongitudeBound) * span(envelope.getMinY, envelope.getMaxY, LatitudeBound)
+  }
+
+  private def cellsFor(strategy: NumericIndexStrategy, envelope: Envelope): Seq[ByteArrayId] = {
+    strategy.getInsertionIds(new BasicNumericDataset(Array[NumericData](
+      new NumericRange(envelope.getMinX, envelope.getMaxX),
+      new NumericRange(envelope.getMinY, envelope.getMaxY)))).asScala
+  }
+
+  private def getGeometry(feature: SimpleFeature): Geometry = {
+    feature.getDefaultGeometry match {
+      case geometry: Geometry if !geometry.isEmpty => geometry
+      case _ => null
+    }
+  }
+
+  private def createCellStrategy(bitsPerDimension: Int): NumericIndexStrategy = {
+    TieredSFCIndexFactory.createSingleTierStrategy(
+      Array[NumericDimensionDefinition](new LongitudeDefinition(), new LatitudeDefinition(true)),
+      Array(bitsPerDimension, bitsPerDimension),
+      SFCType.HILBERT)
+  }
+}
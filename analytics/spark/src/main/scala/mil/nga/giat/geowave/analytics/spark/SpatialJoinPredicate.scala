@@ -0,0 +1,63 @@
+package mil.nga.giat.geowave.analytics.spark
+
+import com.vividsolutions.jts.geom.Envelope
+import com.vividsolutions.jts.geom.Geometry
+import com.vividsolutions.jts.operation.distance.DistanceOp
+import mil.nga.giat.geowave.analytic.distance.CoordinateCircleDistanceFn
+import mil.nga.giat.geowave.analytic.nn.OrthodromicNeighborEnvelopeFn
+
+/**
+  * The relationship tested by a spatial join between a geometry of the left
+  * side and a geometry of the right side.
+  */
+trait SpatialJoinPredicate extends Serializable {
+
+  /**
+    * @return an envelope intersecting the envelope of every right side
+    *         geometry that may satisfy the predicate with the left geometry
+    */
+  def getSearchEnvelope(left: Geometry): Envelope
+
+  def evaluate(left: Geometry, right: Geometry): Boolean
+}
+
+object SpatialJoinPredicate {
+
+  object Intersects extends SpatialJoinPredicate {
+    override def getSearchEnvelope(left: Geometry) = left.getEnvelopeInternal
+
+    override def evaluate(left: Geometry, right: Geometry) = left.intersects(right)
+  }
+
+  /**
+    * The left geometry contains the right geometry (e.g. points in polygons)
+    */
+  object Contains extends SpatialJoinPredicate {
+    override def getSearchEnvelope(left: Geometry) = left.getEnvelopeInternal
+
+    override def evaluate(left: Geometry, right: Geometry) = left.contains(right)
+  }
+
+  /**
+    * Geometries in EPSG:4326 within the given distance, in meters, measured
+    * between the closest points of the geometries along the surface of the
+    * earth.
+    */
+  case class WithinDistance(distance: Double) extends SpatialJoinPredicate {
+    private val distanceFn = new CoordinateCircleDistanceFn()
+
+    override def getSearchEnvelope(left: Geometry) =
+      WithinDistance.envelopeFn.getSearchEnvelope(left.getEnvelopeInternal, distance)
+
+    override def evaluate(left: Geometry, right: Geometry) = {
+      val closest = DistanceOp.nearestPoints(left, right)
+      distanceFn.measure(closest(0), closest(1)) <= distance
+    }
+  }
+
+  object WithinDistance {
+    private val envelopeFn = new OrthodromicNeighborEnvelopeFn[Geometry] {
+      override def getGeometry(geometry: Geometry) = geometry
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package mil.nga.giat.geowave.analytics.spark.clustering
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable
+import org.apache.commons.codec.binary.Hex
+import org.apache.spark.SparkContext._
+import org.apache.spark.rdd.RDD
+import org.apache.spark.storage.StorageLevel
+import org.opengis.feature.simple.SimpleFeature
+import com.vividsolutions.jts.geom.Geometry
+import com.vividsolutions.jts.index.strtree.STRtree
+import mil.nga.giat.geowave.analytic.distance.CoordinateCircleDistanceFn
+import mil.nga.giat.geowave.analytic.distance.DistanceFn
+import mil.nga.giat.geowave.analytic.distance.FeatureCentroidDistanceFn
+import mil.nga.giat.geowave.analytic.nn.NeighborEnvelopeFn
+import mil.nga.giat.geowave.analytic.nn.OrthodromicNeighborEnvelopeFn
+import mil.nga.giat.geowave.analytic.partitioner.Partitioner
+import mil.nga.giat.geowave.analytics.spark.GeowavePartitioner
+import mil.nga.giat.geowave.mapreduce.input.GeoWaveInputKey
+
+/**
+  * Envelopes of feature geometries in EPSG:4326 for distances in meters
+  */
+class FeatureOrthodromicEnvelopeFn extends OrthodromicNeighborEnvelopeFn[SimpleFeature] with Serializable {
+  override def getGeometry(feature: SimpleFeature): Geometry = feature.getDefaultGeometry.asInstanceOf[Geometry]
+}
+
+/**
+  * DBSCAN over a partitioned feature RDD.
+  *
+  * Features are assigned to partitions with a GeoWave Partitioner configured
+  * for the clustering distance, so the neighborhood of every feature is
+  * present in its primary partition. Each partition is clustered locally,
+  * with an STRtree to find neighbors; only features primary to a partition
+  * can be core points. A feature that is a core point in its primary
+  * partition joins every local cluster it belongs to in other partitions.
+  * The resulting links between local clusters are resolved on the driver.
+  */
+object DBScan {
+
+  private case class LocalResult(feature: SimpleFeature, primary: Boolean, core: Boolean, clusters: Seq[String])
+
+  /**
+    * @param partitioner a partitioner initialized with a distance of at
+    *                    least epsilon
+    * @return the clustered features with their cluster ID; noise is omitted
+    */
+  def cluster(rdd: RDD[(GeoWaveInputKey, SimpleFeature)],
+              partitioner: Partitioner[SimpleFeature],
+              epsilon: Double,
+              minPoints: Int,
+              numPartitions: Int,
+              distanceFn: DistanceFn[SimpleFeature] = new FeatureCentroidDistanceFn(new CoordinateCircleDistanceFn()),
+              envelopeFn: NeighborEnvelopeFn[SimpleFeature] with Serializable = new FeatureOrthodromicEnvelopeFn()): RDD[(Long, SimpleFeature)] = {
+    val partitioned = rdd.flatMap(kv =>
+      partitioner.getCubeIdentifiers(kv._2).asScala.map(pd => (pd.getId, (kv._2, pd.isPrimary))))
+
+    val local = partitioned.groupByKey(new GeowavePartitioner(numPartitions)).flatMap {
+      case (partitionId, members) =>
+        clusterPartition(Hex.encodeHexString(partitionId.getBytes), members.toArray, epsilon, minPoints, distanceFn, envelopeFn)
+    }.map(r => (r.feature.getID, r)).groupByKey.persist(StorageLevel.MEMORY_AND_DISK)
+
+    try {
+      // link the local clusters shared by core points
+      val links = local.flatMap {
+        case (_, results) =>
+          if (results.exists(r => r.primary && r.core)) {
+            val clusters = results.flatMap(_.clusters).toSeq.distinct
+            clusters.tail.map(c => (clusters.head, c))
+          }
+          else Nil
+      }.collect
+
+      val unionFind = new mutable.HashMap[String, String]()
+      def find(c: String): String = {
+        val parent = unionFind.getOrElse(c, c)
+        if (parent == c) c
+        else {
+          val root = find(parent)
+          unionFind.put(c, root)
+          root
+        }
+      }
+      for ((a, b) <- links) {
+        val rootA = find(a)
+        val rootB = find(b)
+        if (rootA != rootB) unionFind.put(rootA, rootB)
+      }
+      val roots = unionFind.keys.toSeq.map(c => (c, find(c))).toMap
+      val bcRoots = rdd.sparkContext.broadcast(roots)
+
+      // a border feature belongs to a cluster of its primary partition,
+      // if any, otherwise to the first cluster that reached it
+      val assigned = local.flatMap {
+        case (_, results) =>
+          results.find(_.primary).flatMap(primary => {
+            val cluster = primary.clusters.headOption.orElse(results.flatMap(_.clusters).headOption)
+            cluster.map(c => (bcRoots.value.getOrElse(c, c), primary.feature))
+          })
+      }.persist(StorageLevel.MEMORY_AND_DISK)
+
+      // number the clusters
+      val ids = assigned.keys.distinct.zipWithIndex.collectAsMap
+      val bcIds = rdd.sparkContext.broadcast(ids)
+      assigned.map(kv => (bcIds.value(kv._1), kv._2))
+    }
+    finally {
+      local.unpersist(false)
+    }
+  }
+
+  private def clusterPartition(partitionId: String,
+                               members: Array[(SimpleFeature, Boolean)],
+                               epsilon: Double,
+                               minPoints: Int,
+                               distanceFn: DistanceFn[SimpleFeature],
+                               envelopeFn: NeighborEnvelopeFn[SimpleFeature]): Seq[LocalResult] = {
+    val index = new STRtree()
+    for (i <- members.indices) {
+      val envelope = envelopeFn.getEnvelope(members(i)._1)
+      if (envelope != null) index.insert(envelope, Integer.valueOf(i))
+    }
+
+    def neighbors(i: Int): Seq[Int] = {
+      val envelope = envelopeFn.getEnvelope(members(i)._1)
+      if (envelope == null) Seq(i)
+      else index.query(envelopeFn.getSearchEnvelope(envelope, epsilon)).asScala.map(_.asInstanceOf[Integer].intValue)
+        .filter(j => (j == i) || (distanceFn.measure(members(i)._1, members(j)._1) <= epsilon))
+    }
+
+    // only primary members have their complete neighborhood in the partition
+    val neighborhoods = members.indices.map(i =>
+      if (members(i)._2) {
+        val n = neighbors(i)
+        if (n.size >= minPoints) n else null
+      }
+      else null)
+
+    // local union find over core members
+    val parents = Array.tabulate(members.length)(i => i)
+    def find(i: Int): Int = {
+      if (parents(i) != i) parents(i) = find(parents(i))
+      parents(i)
+    }
+    for (i <- members.indices if neighborhoods(i) != null; j <- neighborhoods(i) if neighborhoods(j) != null) {
+      val rootI = find(i)
+      val rootJ = find(j)
+      if (rootI != rootJ) parents(rootI) = rootJ
+    }
+
+    val clusters = Array.fill(members.length)(mutable.LinkedHashSet[Int]())
+    for (i <- members.indices if neighborhoods(i) != null) {
+      val root = find(i)
+      for (j <- neighborhoods(i)) clusters(j) += root
+    }
+
+    members.indices.filter(i => members(i)._2 || clusters(i).nonEmpty).map(i =>
+      LocalResult(
+        members(i)._1,
+        members(i)._2,
+        neighborhoods(i) != null,
+        clusters(i).toSeq.map(root => partitionId + "/" + root)))
+  }
+}
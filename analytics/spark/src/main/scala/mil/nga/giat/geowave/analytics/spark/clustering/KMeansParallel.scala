@@ -0,0 +1,213 @@
+package mil.nga.giat.geowave.analytics.spark.clustering
+
+import scala.collection.mutable.ArrayBuffer
+import scala.util.Random
+import org.apache.spark.SparkContext._
+import org.apache.spark.rdd.RDD
+import org.apache.spark.storage.StorageLevel
+import org.opengis.feature.simple.SimpleFeature
+import com.vividsolutions.jts.geom.Coordinate
+import com.vividsolutions.jts.geom.Geometry
+import mil.nga.giat.geowave.analytic.distance.CoordinateCircleDistanceFn
+import mil.nga.giat.geowave.analytic.distance.DistanceFn
+import mil.nga.giat.geowave.mapreduce.input.GeoWaveInputKey
+
+/**
+  * K-means over the centroids of feature geometries, initialized with
+  * k-means|| (scalable k-means++).
+  *
+  * The points are cached once and the centroids are kept in memory and
+  * broadcast each iteration, rather than persisted to GeoWave between
+  * MapReduce jobs as the MapReduce implementation does.
+  */
+object KMeansParallel {
+
+  /**
+    * @param epsilon iteration stops when no centroid moves further than
+    *                this distance, as measured by the distance function
+    * @return the centroids
+    */
+  def run(rdd: RDD[(GeoWaveInputKey, SimpleFeature)],
+          k: Int,
+          maxIterations: Int = 20,
+          epsilon: Double = 1.0,
+          initializationSteps: Int = 5,
+          distanceFn: DistanceFn[Coordinate] = new CoordinateCircleDistanceFn(),
+          seed: Long = 42L): Array[Coordinate] = {
+    val points = rdd.flatMap(kv => centroid(kv._2)).persist(StorageLevel.MEMORY_AND_DISK)
+    try {
+      val centers = initialize(points, k, initializationSteps, distanceFn, seed)
+      iterate(points, centers, maxIterations, epsilon, distanceFn)
+    }
+    finally {
+      points.unpersist(false)
+    }
+  }
+
+  /**
+    * @return each feature with the index of its closest centroid
+    */
+  def assign(rdd: RDD[(GeoWaveInputKey, SimpleFeature)],
+             centers: Array[Coordinate],
+             distanceFn: DistanceFn[Coordinate] = new CoordinateCircleDistanceFn()): RDD[(Int, SimpleFeature)] = {
+    val bcCenters = rdd.sparkContext.broadcast(centers)
+    rdd.flatMap(kv => centroid(kv._2).map(c => (closest(c, bcCenters.value, distanceFn)._1, kv._2)))
+  }
+
+  private def initialize(points: RDD[Coordinate],
+                         k: Int,
+                         steps: Int,
+                         distanceFn: DistanceFn[Coordinate],
+                         seed: Long): Array[Coordinate] = {
+    val sc = points.sparkContext
+    val first = points.takeSample(false, 1, seed)
+    if (first.isEmpty) return Array()
+
+    val candidates = ArrayBuffer[Coordinate](first(0))
+    var newCandidates = Array(first(0))
+    var costs = points.map(_ => Double.PositiveInfinity)
+    for (step <- 0 until steps) {
+      val bcNew = sc.broadcast(newCandidates)
+      val previousCosts = costs
+      costs = points.zip(previousCosts).map {
+        case (p, cost) => math.min(cost, squared(closest(p, bcNew.value, distanceFn)._2))
+      }.persist(StorageLevel.MEMORY_AND_DISK)
+      val totalCost = costs.sum
+      previousCosts.unpersist(false)
+
+      val oversampling = 2.0 * k
+      newCandidates = points.zip(costs).mapPartitionsWithIndex((index, it) => {
+        val random = new Random(seed ^ (step.toLong << 32) ^ index)
+        it.filter(pc => random.nextDouble < (oversampling * pc._2 / totalCost)).map(_._1)
+      }).collect
+      candidates ++= newCandidates
+    }
+    costs.unpersist(false)
+
+    if (candidates.size <= k) {
+      candidates.toArray
+    }
+    else {
+      // weight each candidate by the points closest to it and reduce to k
+      val bcCandidates = sc.broadcast(candidates.toArray)
+      val weights = points.map(p => closest(p, bcCandidates.value, distanceFn)._1).countByValue
+      localKMeansPlusPlus(
+        candidates.toArray,
+        candidates.indices.map(i => weights.getOrElse(i, 0L).toDouble).toArray,
+        k,
+        distanceFn,
+        new Random(seed))
+    }
+  }
+
+  private def iterate(points: RDD[Coordinate],
+                      initialCenters: Array[Coordinate],
+                      maxIterations: Int,
+                      epsilon: Double,
+                      distanceFn: DistanceFn[Coordinate]): Array[Coordinate] = {
+    val sc = points.sparkContext
+    val centers = initialCenters.clone
+    var iteration = 0
+    var converged = centers.isEmpty
+    while (!converged && (iteration < maxIterations)) {
+      val bcCenters = sc.broadcast(centers.clone)
+      val sums = points.mapPartitions(it => {
+        val k = bcCenters.value.length
+        val sumX = new Array[Double](k)
+        val sumY = new Array[Double](k)
+        val counts = new Array[Long](k)
+        for (p <- it) {
+          val i = closest(p, bcCenters.value, distanceFn)._1
+          sumX(i) += p.x
+          sumY(i) += p.y
+          counts(i) += 1
+        }
+        (0 until k).iterator.filter(counts(_) > 0).map(i => (i, (sumX(i), sumY(i), counts(i))))
+      }).reduceByKey((a, b) => (a._1 + b._1, a._2 + b._2, a._3 + b._3)).collectAsMap
+
+      converged = true
+      for ((i, (x, y, count)) <- sums) {
+        val center = new Coordinate(x / count, y / count)
+        if (distanceFn.measure(center, centers(i)) > epsilon) {
+          converged = false
+        }
+        centers(i) = center
+      }
+      bcCenters.unpersist(false)
+      iteration += 1
+    }
+    centers
+  }
+
+  /**
+    * Weighted k-means++ seeding followed by weighted Lloyd iterations, run
+    * on the driver over the (small) set of k-means|| candidates.
+    */
+  private def localKMeansPlusPlus(points: Array[Coordinate],
+                                  weights: Array[Double],
+                                  k: Int,
+                                  distanceFn: DistanceFn[Coordinate],
+                                  random: Random): Array[Coordinate] = {
+    val centers = ArrayBuffer[Coordinate](points(pickWeighted(weights, random)))
+    val costs = points.map(p => squared(distanceFn.measure(p, centers(0))))
+    while (centers.size < k) {
+      val weightedCosts = costs.indices.map(i => costs(i) * weights(i)).toArray
+      val next = points(if (weightedCosts.sum > 0) pickWeighted(weightedCosts, random) else random.nextInt(points.length))
+      centers += next
+      for (i <- points.indices) {
+        costs(i) = math.min(costs(i), squared(distanceFn.measure(points(i), next)))
+      }
+    }
+
+    val result = centers.toArray
+    for (iteration <- 0 until 30) {
+      val sumX = new Array[Double](k)
+      val sumY = new Array[Double](k)
+      val totals = new Array[Double](k)
+      for (i <- points.indices) {
+        val c = closest(points(i), result, distanceFn)._1
+        sumX(c) += points(i).x * weights(i)
+        sumY(c) += points(i).y * weights(i)
+        totals(c) += weights(i)
+      }
+      for (c <- 0 until k if totals(c) > 0) {
+        result(c) = new Coordinate(sumX(c) / totals(c), sumY(c) / totals(c))
+      }
+    }
+    result
+  }
+
+  private def pickWeighted(weights: Array[Double], random: Random): Int = {
+    val target = random.nextDouble * weights.sum
+    var cumulative = 0.0
+    var i = 0
+    while ((i < weights.length - 1) && ((cumulative + weights(i)) < target)) {
+      cumulative += weights(i)
+      i += 1
+    }
+    i
+  }
+
+  /**
+    * @return the index of and distance to the closest center
+    */
+  private def closest(point: Coordinate, centers: Array[Coordinate], distanceFn: DistanceFn[Coordinate]): (Int, Double) = {
+    var best = 0
+    var bestDistance = Double.PositiveInfinity
+    for (i <- centers.indices) {
+      val distance = distanceFn.measure(point, centers(i))
+      if (distance < bestDistance) {
+        best = i
+        bestDistance = distance
+      }
+    }
+    (best, bestDistance)
+  }
+
+  private def squared(distance: Double) = distance * distance
+
+  private def centroid(feature: SimpleFeature): Option[Coordinate] = feature.getDefaultGeometry match {
+    case geometry: Geometry if !geometry.isEmpty => Some(geometry.getCentroid.getCoordinate)
+    case _ => None
+  }
+}
@@ -0,0 +1,74 @@
+package mil.nga.giat.geowave.analytics.spark.sql
+
+import scala.collection.JavaConverters._
+import org.apache.spark.sql.SQLContext
+import org.apache.spark.sql.sources.BaseRelation
+import org.apache.spark.sql.sources.DataSourceRegister
+import org.apache.spark.sql.sources.RelationProvider
+import mil.nga.giat.geowave.analytics.spark.GeoWaveContext
+import mil.nga.giat.geowave.core.store.GeoWaveStoreFinder
+import mil.nga.giat.geowave.core.store.StoreFactoryOptions
+
+/**
+  * Spark SQL data source for GeoWave feature data:
+  *
+  * {{{
+  * sqlContext.read.format("geowave")
+  *   .option("adapterId", "myType")
+  *   .option("gwNamespace", "myNamespace")
+  *   ...
+  *   .load()
+  * }}}
+  *
+  * Options other than those of the relation are passed to the data store.
+  */
+class DefaultSource extends RelationProvider with DataSourceRegister {
+
+  override def shortName(): String = "geowave"
+
+  override def createRelation(sqlContext: SQLContext, parameters: Map[String, String]): BaseRelation = {
+    val adapterId = parameters.getOrElse(DefaultSource.AdapterIdOption,
+      throw new IllegalArgumentException("Option '" + DefaultSource.AdapterIdOption + "' is required"))
+    val storeParameters = DefaultSource.storeParameters(
+      parameters.filterKeys(k => !DefaultSource.RelationOptions.contains(k.toLowerCase)))
+    new GeoWaveRelation(
+      sqlContext,
+      new GeoWaveContext(storeParameters.asJava, null, null),
+      adapterId,
+      parameters.get(DefaultSource.IndexIdOption),
+      parameters.get(DefaultSource.CqlOption),
+      parameters.get(DefaultSource.MinSplitsOption).map(_.toInt),
+      parameters.get(DefaultSource.MaxSplitsOption).map(_.toInt),
+      parameters.get(DefaultSource.RowsPerPartitionOption).map(_.toLong))
+  }
+}
+
+object DefaultSource {
+  val AdapterIdOption = "adapterid"
+  val IndexIdOption = "indexid"
+  val CqlOption = "cql"
+  val MinSplitsOption = "minsplits"
+  val MaxSplitsOption = "maxsplits"
+  val RowsPerPartitionOption = "rowsperpartition"
+
+  private val RelationOptions = Set(
+    AdapterIdOption,
+    IndexIdOption,
+    CqlOption,
+    MinSplitsOption,
+    MaxSplitsOption,
+    RowsPerPartitionOption,
+    "path")
+
+  /**
+    * Spark SQL lower cases option names; restore the case of known data
+    * store options.
+    */
+  private def storeParameters(parameters: Map[String, String]): Map[String, String] = {
+    val names = (GeoWaveStoreFinder.getRegisteredStoreFactoryFamilies.values.asScala.flatMap(family =>
+      GeoWaveStoreFinder.getAllOptions(family, true).map(_.getName)) ++
+      Seq(GeoWaveStoreFinder.STORE_HINT_KEY, StoreFactoryOptions.GEOWAVE_NAMESPACE_OPTION))
+      .map(name => name.toLowerCase -> name).toMap
+    parameters.map { case (k, v) => names.getOrElse(k.toLowerCase, k) -> v }
+  }
+}
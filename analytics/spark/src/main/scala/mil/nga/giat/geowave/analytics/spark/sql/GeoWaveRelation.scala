@@ -0,0 +1,144 @@
+package mil.nga.giat.geowave.analytics.spark.sql
+
+import scala.collection.JavaConverters._
+import org.apache.spark.rdd.RDD
+import org.apache.spark.sql.Row
+import org.apache.spark.sql.SQLContext
+import org.apache.spark.sql.sources.BaseRelation
+import org.apache.spark.sql.sources.Filter
+import org.apache.spark.sql.sources.PrunedFilteredScan
+import org.apache.spark.sql.types.StructType
+import org.geotools.data.DataUtilities
+import org.geotools.factory.CommonFactoryFinder
+import org.geotools.filter.text.ecql.ECQL
+import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter
+import mil.nga.giat.geowave.adapter.vector.query.cql.CQLQuery
+import mil.nga.giat.geowave.analytics.spark.GeoWaveContext
+import mil.nga.giat.geowave.analytics.spark.GeoWaveRDD
+import mil.nga.giat.geowave.core.index.ByteArrayId
+import mil.nga.giat.geowave.core.store.GeoWaveStoreFinder
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex
+import mil.nga.giat.geowave.core.store.query.DistributableQuery
+import mil.nga.giat.geowave.core.store.query.QueryOptions
+
+/**
+  * A Spark SQL relation over the SimpleFeatures of one GeoWave feature adapter.
+  *
+  * Filters on attributes are pushed into the GeoWave query (spatial and
+  * temporal constraints are derived from them as they are for CQL queries),
+  * only the attributes required by the query are read, and the count
+  * statistic is used to estimate the relation size and the number of rows per
+  * input split.
+  *
+  * @param baseCql an optional CQL filter applied to every scan, such as a
+  *                spatial constraint that cannot be expressed in Spark SQL
+  * @param rowsPerPartition the target number of rows per split; when absent
+  *                         it is derived from the count statistic
+  */
+class GeoWaveRelation(
+  @transient val sqlContext: SQLContext,
+  @transient val geoWaveContext: GeoWaveContext,
+  val adapterId: String,
+  val indexId: Option[String],
+  val baseCql: Option[String],
+  val minSplits: Option[Int],
+  val maxSplits: Option[Int],
+  val rowsPerPartition: Option[Long])
+    extends BaseRelation
+    with PrunedFilteredScan {
+
+  @transient private lazy val adapter: FeatureDataAdapter = {
+    GeoWaveStoreFinder.createAdapterStore(geoWaveContext.storeParameters).getAdapter(
+      new ByteArrayId(adapterId)) match {
+        case featureAdapter: FeatureDataAdapter => featureAdapter
+        case null => throw new IllegalArgumentException(
+          "Adapter '" + adapterId + "' does not exist")
+        case _ => throw new IllegalArgumentException(
+          "Adapter '" + adapterId + "' is not a feature data adapter")
+      }
+  }
+
+  @transient private lazy val index: PrimaryIndex = {
+    val indexStore = GeoWaveStoreFinder.createIndexStore(geoWaveContext.storeParameters)
+    indexId match {
+      case Some(id) => indexStore.getIndex(new ByteArrayId(id)).asInstanceOf[PrimaryIndex]
+      case None => GeoWaveStoreFinder.createAdapterIndexMappingStore(geoWaveContext.storeParameters)
+        .getIndicesForAdapter(new ByteArrayId(adapterId))
+        .getIndices(indexStore)
+        .headOption
+        .orNull
+    }
+  }
+
+  @transient private lazy val count: Option[Long] = {
+    GeoWaveStoreFinder.createDataStatisticsStore(geoWaveContext.storeParameters).getDataStatistics(
+      new ByteArrayId(adapterId),
+      CountDataStatistics.STATS_TYPE) match {
+        case stats: CountDataStatistics[_] if stats.isSet => Some(stats.getCount)
+        case _ => None
+      }
+  }
+
+  override lazy val schema: StructType = SimpleFeatureSchema.schema(adapter.getFeatureType)
+
+  override def sizeInBytes: Long = count match {
+    case Some(c) => c * schema.defaultSize
+    case None => super.sizeInBytes
+  }
+
+  override def buildScan(requiredColumns: Array[String], filters: Array[Filter]): RDD[Row] = {
+    val featureType = adapter.getFeatureType
+    val cqlFilter = (baseCql.map(ECQL.toFilter).toSeq ++
+      SparkFilterTranslator.translate(filters, featureType).toSeq)
+      .reduceOption[org.opengis.filter.Filter]((l, r) => GeoWaveRelation.ff.and(l, r))
+
+    val query = cqlFilter.map(f =>
+      CQLQuery.createOptimalQuery(f, adapter, index, null).asInstanceOf[DistributableQuery])
+
+    val queryOptions = new QueryOptions(adapter, index)
+    // read only the attributes needed for the projection and the filter
+    val fieldIds = (requiredColumns.filter(_ != SimpleFeatureSchema.FeatureIdColumn) ++
+      cqlFilter.map(f => DataUtilities.attributeNames(f, featureType)).getOrElse(Array[String]())).distinct
+    if (fieldIds.length < featureType.getAttributeCount) {
+      queryOptions.setFieldIds(
+        (if (fieldIds.isEmpty) Seq(featureType.getGeometryDescriptor.getLocalName) else fieldIds.toSeq).asJava,
+        adapter)
+    }
+
+    val sc = sqlContext.sparkContext
+    val targetSplitSize = rowsPerPartition.orElse(count.map(c =>
+      math.max(1L, math.min(GeoWaveRelation.MaxRowsPerPartition, c / sc.defaultParallelism))))
+
+    val columns = requiredColumns.map(c => (c, schema(c).dataType))
+    GeoWaveRDD.rddForSimpleFeatures(
+      sc,
+      queryOptions,
+      minSplits,
+      maxSplits,
+      targetSplitSize,
+      query.orNull)(geoWaveContext).map(kv => SimpleFeatureSchema.toRow(kv._2, columns))
+  }
+}
+
+object GeoWaveRelation {
+  val MaxRowsPerPartition = 1000000L
+
+  private val ff = CommonFactoryFinder.getFilterFactory2()
+
+  def apply(sqlContext: SQLContext,
+            adapterId: String,
+            indexId: Option[String] = None,
+            baseCql: Option[String] = None,
+            minSplits: Option[Int] = None,
+            maxSplits: Option[Int] = None,
+            rowsPerPartition: Option[Long] = None)(implicit geoWaveContext: GeoWaveContext) = new GeoWaveRelation(
+    sqlContext,
+    geoWaveContext,
+    adapterId,
+    indexId,
+    baseCql,
+    minSplits,
+    maxSplits,
+    rowsPerPartition)
+}
@@ -0,0 +1,64 @@
+package mil.nga.giat.geowave.analytics.spark.sql
+
+import scala.collection.JavaConverters._
+import org.apache.spark.sql.Row
+import org.apache.spark.sql.types._
+import org.opengis.feature.simple.SimpleFeature
+import org.opengis.feature.simple.SimpleFeatureType
+import com.vividsolutions.jts.geom.Geometry
+
+/**
+  * Maps a SimpleFeatureType to a Spark SQL schema and SimpleFeatures to rows.
+  *
+  * Geometries are represented as WKT strings and dates as timestamps.
+  * The feature ID is provided in an additional column.
+  */
+object SimpleFeatureSchema {
+
+  val FeatureIdColumn = "__fid"
+
+  def schema(featureType: SimpleFeatureType): StructType = {
+    StructType(StructField(FeatureIdColumn, StringType, false) +:
+      featureType.getAttributeDescriptors.asScala.map(d =>
+        StructField(d.getLocalName, dataType(d.getType.getBinding), true)))
+  }
+
+  def dataType(binding: Class[_]): DataType = {
+    if (classOf[Geometry].isAssignableFrom(binding)) StringType
+    else if (classOf[java.util.Date].isAssignableFrom(binding)) TimestampType
+    else if (classOf[java.lang.Double].isAssignableFrom(binding)) DoubleType
+    else if (classOf[java.lang.Float].isAssignableFrom(binding)) FloatType
+    else if (classOf[java.lang.Long].isAssignableFrom(binding)) LongType
+    else if (classOf[java.lang.Integer].isAssignableFrom(binding)) IntegerType
+    else if (classOf[java.lang.Short].isAssignableFrom(binding)) ShortType
+    else if (classOf[java.lang.Byte].isAssignableFrom(binding)) ByteType
+    else if (classOf[java.lang.Boolean].isAssignableFrom(binding)) BooleanType
+    else StringType
+  }
+
+  /**
+    * Build a row holding only the given columns, in the given order.
+    */
+  def toRow(feature: SimpleFeature, columns: Array[(String, DataType)]): Row = {
+    Row.fromSeq(columns.map {
+      case (name, dataType) =>
+        if (name == FeatureIdColumn) feature.getID
+        else convert(feature.getAttribute(name), dataType)
+    })
+  }
+
+  private def convert(value: Object, dataType: DataType): Any = (value, dataType) match {
+    case (null, _) => null
+    case (g: Geometry, _) => g.toText
+    case (d: java.util.Date, TimestampType) => new java.sql.Timestamp(d.getTime)
+    case (n: java.lang.Number, DoubleType) => n.doubleValue
+    case (n: java.lang.Number, FloatType) => n.floatValue
+    case (n: java.lang.Number, LongType) => n.longValue
+    case (n: java.lang.Number, IntegerType) => n.intValue
+    case (n: java.lang.Number, ShortType) => n.shortValue
+    case (n: java.lang.Number, ByteType) => n.byteValue
+    case (b: java.lang.Boolean, BooleanType) => b.booleanValue
+    case (v, StringType) => v.toString
+    case (v, _) => v
+  }
+}
@@ -0,0 +1,91 @@
+package mil.nga.giat.geowave.analytics.spark.sql
+
+import scala.collection.JavaConverters._
+import org.apache.spark.sql.sources._
+import org.geotools.factory.CommonFactoryFinder
+import org.opengis.feature.simple.SimpleFeatureType
+import com.vividsolutions.jts.geom.Geometry
+
+/**
+  * Translates Spark SQL data source filters to GeoTools filters over the
+  * attributes of a SimpleFeatureType, so they can be pushed into a GeoWave
+  * query. Comparisons on temporal attributes become temporal index constraints
+  * when the GeoWave query is formed.
+  *
+  * Filters that cannot be represented (including those on geometry columns,
+  * which are exposed as WKT) are left for Spark to evaluate.
+  */
+object SparkFilterTranslator {
+
+  private val ff = CommonFactoryFinder.getFilterFactory2()
+
+  def translate(filters: Array[Filter], featureType: SimpleFeatureType): Option[org.opengis.filter.Filter] = {
+    val translated = filters.flatMap(f => translate(f, featureType, true))
+    if (translated.isEmpty) None
+    else if (translated.length == 1) Some(translated(0))
+    else Some(ff.and(translated.toList.asJava))
+  }
+
+  /**
+    * @param allowPartial if true, a conjunction may be loosened by dropping
+    *                     the terms that cannot be translated. Spark evaluates
+    *                     the original filter on the results, so this is only
+    *                     safe outside of negations and disjunctions.
+    */
+  private def translate(filter: Filter, featureType: SimpleFeatureType, allowPartial: Boolean): Option[org.opengis.filter.Filter] = filter match {
+    case EqualTo(attr, value) => compare(attr, value, featureType)((p, l) => ff.equals(p, l))
+    case EqualNullSafe(attr, value) => compare(attr, value, featureType)((p, l) => ff.equals(p, l))
+    case GreaterThan(attr, value) => compare(attr, value, featureType)((p, l) => ff.greater(p, l))
+    case GreaterThanOrEqual(attr, value) => compare(attr, value, featureType)((p, l) => ff.greaterOrEqual(p, l))
+    case LessThan(attr, value) => compare(attr, value, featureType)((p, l) => ff.less(p, l))
+    case LessThanOrEqual(attr, value) => compare(attr, value, featureType)((p, l) => ff.lessOrEqual(p, l))
+    case In(attr, values) =>
+      val terms = values.map(v => compare(attr, v, featureType)((p, l) => ff.equals(p, l)))
+      if (terms.isEmpty || terms.exists(_.isEmpty)) None
+      else Some(ff.or(terms.map(_.get).toList.asJava))
+    case IsNull(attr) if isSupported(attr, featureType) => Some(ff.isNull(ff.property(attr)))
+    case IsNotNull(attr) if isSupported(attr, featureType) => Some(ff.not(ff.isNull(ff.property(attr))))
+    case StringStartsWith(attr, value) => like(attr, escape(value) + "*", featureType)
+    case StringEndsWith(attr, value) => like(attr, "*" + escape(value), featureType)
+    case StringContains(attr, value) => like(attr, "*" + escape(value) + "*", featureType)
+    case And(left, right) =>
+      (translate(left, featureType, allowPartial), translate(right, featureType, allowPartial)) match {
+        case (Some(l), Some(r)) => Some(ff.and(l, r))
+        case (Some(l), None) if allowPartial => Some(l)
+        case (None, Some(r)) if allowPartial => Some(r)
+        case _ => None
+      }
+    case Or(left, right) =>
+      for (
+        l <- translate(left, featureType, false);
+        r <- translate(right, featureType, false)
+      ) yield ff.or(l, r)
+    case Not(child) => translate(child, featureType, false).map(ff.not)
+    case _ => None
+  }
+
+  private def isSupported(attr: String, featureType: SimpleFeatureType): Boolean = {
+    val descriptor = featureType.getDescriptor(attr)
+    (descriptor != null) && !classOf[Geometry].isAssignableFrom(descriptor.getType.getBinding)
+  }
+
+  private def compare(attr: String, value: Any, featureType: SimpleFeatureType)(
+    op: (org.opengis.filter.expression.Expression, org.opengis.filter.expression.Expression) => org.opengis.filter.Filter): Option[org.opengis.filter.Filter] = {
+    if ((value == null) || !isSupported(attr, featureType)) None
+    else Some(op(ff.property(attr), ff.literal(literal(value))))
+  }
+
+  private def like(attr: String, pattern: String, featureType: SimpleFeatureType): Option[org.opengis.filter.Filter] = {
+    if (!isSupported(attr, featureType)) None
+    else Some(ff.like(ff.property(attr), pattern, "*", "?", "\\", true))
+  }
+
+  private def literal(value: Any): Any = value match {
+    case t: java.sql.Timestamp => new java.util.Date(t.getTime)
+    case d: java.sql.Date => new java.util.Date(d.getTime)
+    case v => v
+  }
+
+  private def escape(value: String): String =
+    value.replace("\\", "\\\\").replace("*", "\\*").replace("?", "\\?")
+}
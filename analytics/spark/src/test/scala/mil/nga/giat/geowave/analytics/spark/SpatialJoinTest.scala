@@ -0,0 +1,88 @@
+package mil.nga.giat.geowave.analytics.spark
+
+import java.util.UUID
+import org.apache.spark.SparkConf
+import org.apache.spark.SparkContext
+import org.geotools.data.DataUtilities
+import org.geotools.feature.simple.SimpleFeatureBuilder
+import org.opengis.feature.simple.SimpleFeature
+import org.scalatest.BeforeAndAfterAll
+import org.scalatest.FlatSpec
+import scala.util.Random
+import com.vividsolutions.jts.geom.Envelope
+import com.vividsolutions.jts.geom.Geometry
+import com.vividsolutions.jts.geom.GeometryFactory
+import mil.nga.giat.geowave.core.index.ByteArrayId
+import mil.nga.giat.geowave.mapreduce.input.GeoWaveInputKey
+
+class SpatialJoinTest extends FlatSpec with BeforeAndAfterAll {
+
+  val featureType = DataUtilities.createType("joinTest", "geometry:Geometry:srid=4326")
+  val adapterId = new ByteArrayId("joinTest")
+  val factory = new GeometryFactory()
+  val random = new Random(3431)
+
+  val conf = new SparkConf().setAppName(
+    "SpatialJoinTest").setMaster(
+      "local").set("spark.driver.allowMultipleContexts", "true")
+  GeoWaveRDD.init(conf)
+  val sc = new SparkContext(conf)
+
+  override def afterAll() {
+    sc.stop()
+  }
+
+  def create(geometry: Geometry): (GeoWaveInputKey, SimpleFeature) = {
+    val feature = SimpleFeatureBuilder.build(featureType, Array[Object](geometry), UUID.randomUUID().toString())
+    (new GeoWaveInputKey(adapterId, new ByteArrayId(feature.getID)), feature)
+  }
+
+  val polygons = (1 to 50).map(i => {
+    val x = (random.nextDouble * 40) - 20
+    val y = (random.nextDouble * 40) - 20
+    create(factory.toGeometry(new Envelope(x, x + (random.nextDouble * 5), y, y + (random.nextDouble * 5))))
+  })
+
+  val points = (1 to 1000).map(i => create(factory.createPoint(
+    new com.vividsolutions.jts.geom.Coordinate((random.nextDouble * 50) - 25, (random.nextDouble * 50) - 25))))
+
+  def expected(predicate: SpatialJoinPredicate): Set[(String, String)] = expected(polygons, points, predicate)
+
+  def expected(left: Seq[(GeoWaveInputKey, SimpleFeature)],
+               right: Seq[(GeoWaveInputKey, SimpleFeature)],
+               predicate: SpatialJoinPredicate): Set[(String, String)] = (for (
+    l <- left;
+    r <- right if predicate.evaluate(l._2.getDefaultGeometry.asInstanceOf[Geometry], r._2.getDefaultGeometry.asInstanceOf[Geometry])
+  ) yield (l._2.getID, r._2.getID)).toSet
+
+  "Points in polygons" should "match the pairs of a nested loop join without duplicates" in {
+    val result = SpatialJoin.join(sc.parallelize(polygons, 3), sc.parallelize(points, 4), SpatialJoinPredicate.Contains, 6, 5)
+      .map(p => (p._1.getID, p._2.getID)).collect
+    assert(result.length == result.toSet.size)
+    assert(result.toSet == expected(SpatialJoinPredicate.Contains))
+  }
+
+  "A distance join" should "match the pairs of a nested loop join without duplicates" in {
+    val predicate = SpatialJoinPredicate.WithinDistance(50000)
+    val result = SpatialJoin.join(sc.parallelize(polygons, 3), sc.parallelize(points, 4), predicate, 7, 5)
+      .map(p => (p._1.getID, p._2.getID)).collect
+    assert(result.length == result.toSet.size)
+    assert(result.toSet == expected(predicate))
+  }
+
+  "A join with large envelopes" should "broadcast them rather than replicate them to every cell" in {
+    val world = new Envelope(-179, 179, -89, 89)
+    // every cell of the tier would otherwise be decomposed
+    assert(SpatialJoin.cellCount(world, SpatialJoin.DefaultBitsPerDimension) > SpatialJoin.DefaultMaxCellsPerFeature)
+
+    val left = polygons :+ create(factory.toGeometry(world))
+    val right = points ++ Seq(
+      create(factory.toGeometry(new Envelope(-100, 100, -60, 60))),
+      create(factory.toGeometry(new Envelope(10, 12, 10, 12))))
+    val result = SpatialJoin.join(sc.parallelize(left, 3), sc.parallelize(right, 4), SpatialJoinPredicate.Intersects,
+      SpatialJoin.DefaultBitsPerDimension, 5)
+      .map(p => (p._1.getID, p._2.getID)).collect
+    assert(result.length == result.toSet.size)
+    assert(result.toSet == expected(left, right, SpatialJoinPredicate.Intersects))
+  }
+}
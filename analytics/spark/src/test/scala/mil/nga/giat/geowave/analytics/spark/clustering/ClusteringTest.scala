@@ -0,0 +1,91 @@
+package mil.nga.giat.geowave.analytics.spark.clustering
+
+import java.util.UUID
+import org.apache.spark.SparkConf
+import org.apache.spark.SparkContext
+import org.geotools.data.DataUtilities
+import org.geotools.feature.simple.SimpleFeatureBuilder
+import org.opengis.feature.simple.SimpleFeature
+import org.scalatest.BeforeAndAfterAll
+import org.scalatest.FlatSpec
+import scala.util.Random
+import com.vividsolutions.jts.geom.Coordinate
+import com.vividsolutions.jts.geom.GeometryFactory
+import mil.nga.giat.geowave.analytic.PropertyManagement
+import mil.nga.giat.geowave.analytic.ScopedJobConfiguration
+import mil.nga.giat.geowave.analytic.extract.SimpleFeatureGeometryExtractor
+import mil.nga.giat.geowave.analytic.model.SpatialIndexModelBuilder
+import mil.nga.giat.geowave.analytic.param.CommonParameters
+import mil.nga.giat.geowave.analytic.param.ExtractParameters
+import mil.nga.giat.geowave.analytic.param.GlobalParameters
+import mil.nga.giat.geowave.analytic.param.ParameterEnum
+import mil.nga.giat.geowave.analytic.param.PartitionParameters
+import mil.nga.giat.geowave.analytic.partitioner.OrthodromicDistancePartitioner
+import mil.nga.giat.geowave.analytics.spark.GeoWaveRDD
+import mil.nga.giat.geowave.core.index.ByteArrayId
+import mil.nga.giat.geowave.mapreduce.input.GeoWaveInputKey
+
+class ClusteringTest extends FlatSpec with BeforeAndAfterAll {
+
+  val featureType = DataUtilities.createType("clusterTest", "geometry:Geometry:srid=4326")
+  val adapterId = new ByteArrayId("clusterTest")
+  val factory = new GeometryFactory()
+  val random = new Random(9876)
+
+  val conf = new SparkConf().setAppName(
+    "ClusteringTest").setMaster(
+      "local").set("spark.driver.allowMultipleContexts", "true")
+  GeoWaveRDD.init(conf)
+  val sc = new SparkContext(conf)
+
+  override def afterAll() {
+    sc.stop()
+  }
+
+  // three groups of points about 0.05 degrees across, far apart
+  val groupCenters = Seq(new Coordinate(-40, 10), new Coordinate(0, 0), new Coordinate(30, -20))
+  val dataSet = groupCenters.flatMap(center => (1 to 100).map(i => {
+    val feature = SimpleFeatureBuilder.build(featureType, Array[Object](factory.createPoint(new Coordinate(
+      center.x + (random.nextDouble * 0.05), center.y + (random.nextDouble * 0.05)))), UUID.randomUUID().toString())
+    (new GeoWaveInputKey(adapterId, new ByteArrayId(feature.getID)), feature)
+  })) ++ Seq((new GeoWaveInputKey(adapterId, new ByteArrayId("noise")), SimpleFeatureBuilder.build(featureType,
+    Array[Object](factory.createPoint(new Coordinate(60, 60))), "noise")))
+
+  "K-means" should "find a centroid in each group" in {
+    val centers = KMeansParallel.run(sc.parallelize(dataSet.take(300), 4), 3, seed = 7L)
+    assert(centers.length == 3)
+    for (group <- groupCenters) {
+      assert(centers.exists(c => (math.abs(c.x - group.x - 0.025) < 0.1) && (math.abs(c.y - group.y - 0.025) < 0.1)))
+    }
+    val assigned = KMeansParallel.assign(sc.parallelize(dataSet.take(300), 4), centers).countByKey
+    assert(assigned.values.forall(_ == 100))
+  }
+
+  "DBSCAN" should "find each group and omit noise" in {
+    val propertyManagement = new PropertyManagement()
+    propertyManagement.store(
+      PartitionParameters.Partition.DISTANCE_THRESHOLDS.asInstanceOf[ParameterEnum[_]],
+      "20,20")
+    propertyManagement.store(
+      CommonParameters.Common.INDEX_MODEL_BUILDER_CLASS.asInstanceOf[ParameterEnum[_]],
+      classOf[SpatialIndexModelBuilder])
+    propertyManagement.store(
+      ExtractParameters.Extract.DIMENSION_EXTRACT_CLASS.asInstanceOf[ParameterEnum[_]],
+      classOf[SimpleFeatureGeometryExtractor])
+    propertyManagement.store(
+      GlobalParameters.Global.CRS_ID,
+      "EPSG:4326")
+    propertyManagement.store(
+      PartitionParameters.Partition.GEOMETRIC_DISTANCE_UNIT.asInstanceOf[ParameterEnum[_]],
+      "km")
+    val partitioner = new OrthodromicDistancePartitioner[SimpleFeature]()
+    val jobConfig = new org.apache.hadoop.conf.Configuration(sc.hadoopConfiguration)
+    partitioner.setup(propertyManagement, classOf[OrthodromicDistancePartitioner[SimpleFeature]], jobConfig)
+    partitioner.initialize(new ScopedJobConfiguration(jobConfig, classOf[OrthodromicDistancePartitioner[SimpleFeature]]))
+
+    val clusters = DBScan.cluster(sc.parallelize(dataSet, 4), partitioner, 20000, 4, 5).collect
+    assert(clusters.length == 300)
+    assert(!clusters.exists(_._2.getID == "noise"))
+    assert(clusters.map(_._1).distinct.length == 3)
+  }
+}
@@ -0,0 +1,56 @@
+package mil.nga.giat.geowave.analytics.spark.sql
+
+import java.sql.Timestamp
+import java.util.Date
+import org.apache.spark.sql.sources._
+import org.apache.spark.sql.types._
+import org.geotools.data.DataUtilities
+import org.geotools.feature.simple.SimpleFeatureBuilder
+import org.scalatest.FlatSpec
+import com.vividsolutions.jts.geom.Coordinate
+import com.vividsolutions.jts.geom.GeometryFactory
+
+class SparkFilterTranslatorTest extends FlatSpec {
+
+  val featureType = DataUtilities.createType("sqlTest", "geometry:Geometry:srid=4326,pid:String,when:Date,count:Integer")
+  val feature = SimpleFeatureBuilder.build(featureType, Array[Object](
+    new GeometryFactory().createPoint(new Coordinate(10, 20)),
+    "abc*d",
+    new Date(1000L),
+    Integer.valueOf(5)), "f1")
+
+  "Attribute filters" should "be translated and evaluated" in {
+    val filter = SparkFilterTranslator.translate(Array[Filter](
+      GreaterThan("count", 4),
+      StringStartsWith("pid", "abc*"),
+      LessThanOrEqual("when", new Timestamp(1000L))), featureType)
+    assert(filter.isDefined)
+    assert(filter.get.evaluate(feature))
+
+    val excluded = SparkFilterTranslator.translate(Array[Filter](
+      In("pid", Array("x", "y"))), featureType)
+    assert(!excluded.get.evaluate(feature))
+  }
+
+  "Untranslatable filters" should "only be dropped from conjunctions" in {
+    assert(SparkFilterTranslator.translate(Array[Filter](
+      EqualTo("geometry", "POINT (10 20)")), featureType).isEmpty)
+    assert(SparkFilterTranslator.translate(Array[Filter](
+      Not(And(EqualTo("geometry", "POINT (10 20)"), EqualTo("count", 1)))), featureType).isEmpty)
+    assert(SparkFilterTranslator.translate(Array[Filter](
+      And(EqualTo("geometry", "POINT (10 20)"), EqualTo("count", 5))), featureType).get.evaluate(feature))
+  }
+
+  "Features" should "be converted to rows of the schema" in {
+    val schema = SimpleFeatureSchema.schema(featureType)
+    assert(schema(SimpleFeatureSchema.FeatureIdColumn).dataType == StringType)
+    assert(schema("when").dataType == TimestampType)
+    assert(schema("count").dataType == IntegerType)
+    val row = SimpleFeatureSchema.toRow(feature, Array("count", SimpleFeatureSchema.FeatureIdColumn, "geometry", "when")
+      .map(c => (c, schema(c).dataType)))
+    assert(row.getInt(0) == 5)
+    assert(row.getString(1) == "f1")
+    assert(row.getString(2) == "POINT (10 20)")
+    assert(row.getAs[Timestamp](3).getTime == 1000L)
+  }
+}
@@ -12,6 +12,12 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.log4j.Logger;
 
@@ -22,6 +28,8 @@ import kafka.consumer.ConsumerTimeoutException;
 import kafka.consumer.KafkaStream;
 import kafka.javaapi.consumer.ConsumerConnector;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.Persistable;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
 import mil.nga.giat.geowave.core.ingest.GeoWaveData;
 import mil.nga.giat.geowave.core.ingest.IngestPluginBase;
 import mil.nga.giat.geowave.core.ingest.avro.AvroFormatPlugin;
@@ -161,6 +169,14 @@ public class IngestFromKafkaDriver
 	private ConsumerConnector buildKafkaConsumer() {
 
 		Properties kafkaProperties = kafkaOptions.getProperties();
+		if (kafkaOptions.isCommitAfterFlush()) {
+			// offsets are committed explicitly once the data is flushed
+			kafkaProperties = new Properties();
+			kafkaProperties.putAll(kafkaOptions.getProperties());
+			kafkaProperties.setProperty(
+					"auto.commit.enable",
+					"false");
+		}
 
 		final ConsumerConnector consumer = Consumer.createJavaConsumerConnector(new ConsumerConfig(
 				kafkaProperties));
@@ -206,26 +222,64 @@ public class IngestFromKafkaDriver
 			throw new RuntimeException(
 					"Kafka consumer connector is null, unable to create message streams");
 		}
+		final int consumerThreads = Math.max(
+				1,
+				kafkaOptions.getConsumerThreads());
+		final TopicIngestState ingestState = new TopicIngestState(
+				consumer,
+				ingestRunData,
+				kafkaOptions.getDecodeThreads());
 		try {
 			LOGGER.debug("Kafka consumer setup for format [" + formatPluginName + "] against topic ["
-					+ formatPluginName + "]");
+					+ formatPluginName + "] with " + consumerThreads + " consumer thread(s)");
 			final Map<String, Integer> topicCount = new HashMap<>();
 			topicCount.put(
 					formatPluginName,
-					1);
+					consumerThreads);
 
 			final Map<String, List<KafkaStream<byte[], byte[]>>> consumerStreams = consumer
 					.createMessageStreams(topicCount);
 			final List<KafkaStream<byte[], byte[]>> streams = consumerStreams.get(formatPluginName);
 
 			queue.remove(formatPluginName);
-			consumeMessages(
-					formatPluginName,
-					avroFormatPlugin,
-					ingestRunData,
-					streams.get(0));
+			if (streams.size() == 1) {
+				consumeMessages(
+						formatPluginName,
+						avroFormatPlugin,
+						ingestState,
+						streams.get(0));
+			}
+			else {
+				final ExecutorService streamExecutor = Executors.newFixedThreadPool(streams.size());
+				final List<Future<?>> streamFutures = new ArrayList<Future<?>>();
+				for (final KafkaStream<byte[], byte[]> stream : streams) {
+					streamFutures.add(streamExecutor.submit(new Runnable() {
+						@Override
+						public void run() {
+							consumeMessages(
+									formatPluginName,
+									avroFormatPlugin,
+									ingestState,
+									stream);
+						}
+					}));
+				}
+				streamExecutor.shutdown();
+				for (final Future<?> streamFuture : streamFutures) {
+					try {
+						streamFuture.get();
+					}
+					catch (final InterruptedException | ExecutionException e) {
+						LOGGER.warn(
+								"Consumer thread for Kafka topic [" + formatPluginName + "] did not complete",
+								e);
+					}
+				}
+			}
+			ingestState.flushAndCommit();
 		}
 		finally {
+			ingestState.close();
 			consumer.shutdown();
 		}
 	}
@@ -233,62 +287,55 @@ public class IngestFromKafkaDriver
 	protected <T> void consumeMessages(
 			final String formatPluginName,
 			final AvroFormatPlugin<T, ?> avroFormatPlugin,
-			final KafkaIngestRunData ingestRunData,
+			final TopicIngestState ingestState,
 			final KafkaStream<byte[], byte[]> stream ) {
-		int currentBatchId = 0;
 		final int batchSize = kafkaOptions.getBatchSize();
 		try {
 			final ConsumerIterator<byte[], byte[]> messageIterator = stream.iterator();
-			while (messageIterator.hasNext()) {
-				final byte[] msg = messageIterator.next().message();
-				LOGGER.info("[" + formatPluginName + "] message received");
-				final T dataRecord = GenericAvroSerializer.deserialize(
-						msg,
-						avroFormatPlugin.getAvroSchema());
-
-				if (dataRecord != null) {
-					try {
-						processMessage(
-								dataRecord,
-								ingestRunData,
-								avroFormatPlugin);
-						if (++currentBatchId > batchSize) {
-							if (LOGGER.isDebugEnabled()) {
-								LOGGER.debug(String.format(
-										"Flushing %d items",
-										currentBatchId));
-							}
-							ingestRunData.flush();
-							currentBatchId = 0;
+			// stop consuming once a message fails, so that its offset is never
+			// committed
+			while (!ingestState.isFailed() && messageIterator.hasNext()) {
+				// hold the read lock while the consumed offset advances until
+				// the message is handed to the writer, so that a concurrent
+				// flush never commits an offset for a message that has not
+				// been written
+				ingestState.commitLock.readLock().lock();
+				try {
+					final byte[] msg = messageIterator.next().message();
+					LOGGER.debug("[" + formatPluginName + "] message received");
+					ingestState.submit(new Runnable() {
+						@Override
+						public void run() {
+							decodeAndProcessMessage(
+									msg,
+									avroFormatPlugin,
+									ingestState);
 						}
-					}
-					catch (final Exception e) {
-						LOGGER.error(
-								"Error processing message: " + e.getMessage(),
-								e);
-					}
+					});
+				}
+				finally {
+					ingestState.commitLock.readLock().unlock();
+				}
+				if (ingestState.messageConsumed() > batchSize) {
+					ingestState.flushAndCommit();
 				}
 			}
+			if (ingestState.isFailed()) {
+				LOGGER.error("Stopped consuming from Kafka topic [" + formatPluginName
+						+ "] since a message failed to be ingested");
+			}
 		}
 		catch (final ConsumerTimeoutException te) {
 			// Flush any outstanding items
-			if (currentBatchId > 0) {
-				if (LOGGER.isDebugEnabled()) {
-					LOGGER.debug(String.format(
-							"Flushing %d items",
-							currentBatchId));
-				}
-				ingestRunData.flush();
-				currentBatchId = 0;
-			}
-			if (kafkaOptions.isFlushAndReconnect()) {
+			ingestState.flushAndCommit();
+			if (kafkaOptions.isFlushAndReconnect() && !ingestState.isFailed()) {
 				LOGGER.info(
 						"Consumer timed out from Kafka topic [" + formatPluginName + "]... Reconnecting...",
 						te);
 				consumeMessages(
 						formatPluginName,
 						avroFormatPlugin,
-						ingestRunData,
+						ingestState,
 						stream);
 			}
 			else {
@@ -305,15 +352,61 @@ public class IngestFromKafkaDriver
 
 	}
 
-	synchronized protected <T> void processMessage(
+	private <T> void decodeAndProcessMessage(
+			final byte[] msg,
+			final AvroFormatPlugin<T, ?> avroFormatPlugin,
+			final TopicIngestState ingestState ) {
+		final T dataRecord = GenericAvroSerializer.deserialize(
+				msg,
+				avroFormatPlugin.getAvroSchema());
+
+		// a message that cannot be deserialized is skipped rather than
+		// stopping the ingest, since it would fail again on every restart
+		if (dataRecord != null) {
+			try {
+				processMessage(
+						dataRecord,
+						ingestState,
+						avroFormatPlugin);
+			}
+			catch (final Exception e) {
+				ingestState.messageFailed(e);
+			}
+		}
+	}
+
+	protected <T> void processMessage(
 			final T dataRecord,
-			final KafkaIngestRunData ingestRunData,
+			final TopicIngestState ingestState,
 			final AvroFormatPlugin<T, ?> plugin )
 			throws IOException {
+		final IngestPluginBase<T, ?> ingestPlugin = ingestState.getIngestPlugin(plugin);
+		if (ingestPlugin instanceof Persistable) {
+			writeMessage(
+					dataRecord,
+					ingestState.ingestRunData,
+					ingestPlugin,
+					plugin);
+		}
+		else {
+			// the plugin cannot be copied for each thread, so the threads take
+			// turns using it, until the converted data is written
+			synchronized (plugin) {
+				writeMessage(
+						dataRecord,
+						ingestState.ingestRunData,
+						ingestPlugin,
+						plugin);
+			}
+		}
+	}
 
-		IngestPluginBase<T, ?> ingestPlugin = plugin.getIngestWithAvroPlugin();
-		IndexProvider indexProvider = plugin;
-
+	private <T> void writeMessage(
+			final T dataRecord,
+			final KafkaIngestRunData ingestRunData,
+			final IngestPluginBase<T, ?> ingestPlugin,
+			final IndexProvider indexProvider )
+			throws IOException {
 		final Map<ByteArrayId, IndexWriter> writerMap = new HashMap<ByteArrayId, IndexWriter>();
 		final Map<ByteArrayId, PrimaryIndex> indexMap = new HashMap<ByteArrayId, PrimaryIndex>();
 
@@ -374,6 +467,157 @@ public class IngestFromKafkaDriver
 		}
 	}
 
+	/**
+	 * The state shared by all consumer threads of a topic. Messages are
+	 * decoded and written either on the consumer thread or on a pool of
+	 * decode threads. Flushing takes the write lock so that no consumer thread
+	 * is between consuming a message and handing it off, waits for all
+	 * outstanding decode tasks, flushes the writers and then commits the
+	 * consumed offsets (if automatic commits are disabled), unless a message
+	 * failed to be ingested.
+	 */
+	protected class TopicIngestState
+	{
+		private final ConsumerConnector consumer;
+		private final KafkaIngestRunData ingestRunData;
+		private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+		private final AtomicInteger consumedSinceFlush = new AtomicInteger();
+		private final ExecutorService decodeExecutor;
+		private final Semaphore decodePermits;
+		private final int maxOutstandingDecodes;
+		private final AtomicBoolean failed = new AtomicBoolean();
+		private final ThreadLocal<IngestPluginBase<?, ?>> threadIngestPlugin = new ThreadLocal<IngestPluginBase<?, ?>>();
+
+		public TopicIngestState(
+				final ConsumerConnector consumer,
+				final KafkaIngestRunData ingestRunData,
+				final int decodeThreads ) {
+			this.consumer = consumer;
+			this.ingestRunData = ingestRunData;
+			if (decodeThreads > 0) {
+				decodeExecutor = Executors.newFixedThreadPool(decodeThreads);
+				// bound the number of messages held in memory
+				maxOutstandingDecodes = decodeThreads * 4;
+				decodePermits = new Semaphore(
+						maxOutstandingDecodes);
+			}
+			else {
+				decodeExecutor = null;
+				maxOutstandingDecodes = 0;
+				decodePermits = null;
+			}
+		}
+
+		private void submit(
+				final Runnable task )
+				throws InterruptedException {
+			if (decodeExecutor == null) {
+				task.run();
+				return;
+			}
+			decodePermits.acquire();
+			try {
+				decodeExecutor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							task.run();
+						}
+						finally {
+							decodePermits.release();
+						}
+					}
+				});
+			}
+			catch (final RejectedExecutionException e) {
+				decodePermits.release();
+				throw e;
+			}
+		}
+
+		int messageConsumed() {
+			return consumedSinceFlush.incrementAndGet();
+		}
+
+		void messageFailed(
+				final Exception e ) {
+			LOGGER.error(
+					"Error processing message: " + e.getMessage(),
+					e);
+			failed.set(true);
+		}
+
+		boolean isFailed() {
+			return failed.get();
+		}
+
+		/**
+		 * The ingest plugins keep state, such as feature builders, between
+		 * calls, so each thread converts messages with its own copy of the
+		 * plugin when the plugin can be copied
+		 */
+		@SuppressWarnings("unchecked")
+		<T> IngestPluginBase<T, ?> getIngestPlugin(
+				final AvroFormatPlugin<T, ?> avroFormatPlugin ) {
+			IngestPluginBase<T, ?> ingestPlugin = (IngestPluginBase<T, ?>) threadIngestPlugin.get();
+			if (ingestPlugin == null) {
+				ingestPlugin = avroFormatPlugin.getIngestWithAvroPlugin();
+				if (ingestPlugin instanceof Persistable) {
+					ingestPlugin = (IngestPluginBase<T, ?>) PersistenceUtils.fromBinary(
+							PersistenceUtils.toBinary((Persistable) ingestPlugin),
+							Persistable.class);
+				}
+				threadIngestPlugin.set(ingestPlugin);
+			}
+			return ingestPlugin;
+		}
+
+		public void flushAndCommit() {
+			commitLock.writeLock().lock();
+			try {
+				if (consumedSinceFlush.get() == 0) {
+					return;
+				}
+				if (decodePermits != null) {
+					// wait for all outstanding messages to be written
+					decodePermits.acquireUninterruptibly(maxOutstandingDecodes);
+				}
+				try {
+					if (LOGGER.isDebugEnabled()) {
+						LOGGER.debug(String.format(
+								"Flushing %d items",
+								consumedSinceFlush.get()));
+					}
+					ingestRunData.flush();
+					if (kafkaOptions.isCommitAfterFlush()) {
+						if (failed.get()) {
+							LOGGER.error("Offsets are not committed since a message failed to be ingested, "
+									+ "the messages consumed since the last commit are consumed again on restart");
+						}
+						else {
+							consumer.commitOffsets();
+						}
+					}
+					consumedSinceFlush.set(0);
+				}
+				finally {
+					if (decodePermits != null) {
+						decodePermits.release(maxOutstandingDecodes);
+					}
+				}
+			}
+			finally {
+				commitLock.writeLock().unlock();
+			}
+		}
+
+		public void close() {
+			if (decodeExecutor != null) {
+				decodeExecutor.shutdown();
+			}
+		}
+	}
+
 	public List<Future<?>> getFutures() {
 		return futures;
 	}
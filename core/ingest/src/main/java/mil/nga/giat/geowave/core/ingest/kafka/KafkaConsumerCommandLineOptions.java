@@ -34,6 +34,15 @@ public class KafkaConsumerCommandLineOptions extends
 	@Parameter(names = "--batchSize", description = "The data will automatically flush after this number of entries")
 	private int batchSize = 10000;
 
+	@Parameter(names = "--consumerThreads", description = "The number of threads consuming each topic. Kafka divides the partitions of the topic among these threads, so more threads than partitions will leave some threads idle.")
+	private int consumerThreads = 1;
+
+	@Parameter(names = "--decodeThreads", description = "The number of threads decoding and writing messages for each topic. By default messages are decoded and written on the consumer threads.")
+	private int decodeThreads = 0;
+
+	@Parameter(names = "--commitAfterFlush", description = "Disable automatic offset commits and commit consumed offsets only after the ingested data has been flushed, so that a restarted consumer resumes from the last durably written message")
+	private boolean commitAfterFlush = false;
+
 	public boolean isFlushAndReconnect() {
 		return reconnectOnTimeout;
 	}
@@ -42,6 +51,33 @@ public class KafkaConsumerCommandLineOptions extends
 		return batchSize;
 	}
 
+	public int getConsumerThreads() {
+		return consumerThreads;
+	}
+
+	public void setConsumerThreads(
+			int consumerThreads ) {
+		this.consumerThreads = consumerThreads;
+	}
+
+	public int getDecodeThreads() {
+		return decodeThreads;
+	}
+
+	public void setDecodeThreads(
+			int decodeThreads ) {
+		this.decodeThreads = decodeThreads;
+	}
+
+	public boolean isCommitAfterFlush() {
+		return commitAfterFlush;
+	}
+
+	public void setCommitAfterFlush(
+			boolean commitAfterFlush ) {
+		this.commitAfterFlush = commitAfterFlush;
+	}
+
 	public String getGroupId() {
 		return groupId;
 	}
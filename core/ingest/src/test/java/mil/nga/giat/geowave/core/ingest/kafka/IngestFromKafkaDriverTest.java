@@ -0,0 +1,237 @@
+package mil.nga.giat.geowave.core.ingest.kafka;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import kafka.javaapi.consumer.ConsumerConnector;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.Persistable;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.ingest.GeoWaveData;
+import mil.nga.giat.geowave.core.ingest.IngestPluginBase;
+import mil.nga.giat.geowave.core.ingest.avro.AvroFormatPlugin;
+import mil.nga.giat.geowave.core.ingest.kafka.IngestFromKafkaDriver.TopicIngestState;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.operations.remote.options.IndexPluginOptions;
+import mil.nga.giat.geowave.core.store.operations.remote.options.VisibilityOptions;
+
+public class IngestFromKafkaDriverTest
+{
+	private final AtomicInteger commits = new AtomicInteger();
+	private final KafkaConsumerCommandLineOptions kafkaOptions = new KafkaConsumerCommandLineOptions();
+	private IngestFromKafkaDriver driver;
+	private TopicIngestState ingestState;
+
+	@Before
+	public void setUp() {
+		kafkaOptions.setCommitAfterFlush(true);
+		driver = new IngestFromKafkaDriver(
+				null,
+				Collections.<IndexPluginOptions> emptyList(),
+				new HashMap<String, AvroFormatPlugin<?, ?>>(),
+				kafkaOptions,
+				new VisibilityOptions());
+		ingestState = driver.new TopicIngestState(
+				newConsumer(),
+				new KafkaIngestRunData(
+						Collections.<WritableDataAdapter<?>> emptyList(),
+						null),
+				0);
+	}
+
+	@After
+	public void tearDown() {
+		ingestState.close();
+	}
+
+	@Test
+	public void testCommitAfterFlush() {
+		ingestState.messageConsumed();
+		ingestState.flushAndCommit();
+		assertEquals(
+				1,
+				commits.get());
+		assertFalse(ingestState.isFailed());
+	}
+
+	@Test
+	public void testNoCommitAfterFailedMessage() {
+		ingestState.messageConsumed();
+		ingestState.flushAndCommit();
+		ingestState.messageConsumed();
+		ingestState.messageFailed(new IOException(
+				"test failure"));
+		ingestState.messageConsumed();
+		ingestState.flushAndCommit();
+
+		// the offsets of the failed message are never committed
+		assertTrue(ingestState.isFailed());
+		assertEquals(
+				1,
+				commits.get());
+	}
+
+	@Test
+	public void testFailedProcessMessage()
+			throws IOException {
+		final AvroFormatPlugin<Object, Object> plugin = newFormatPlugin();
+		try {
+			driver.processMessage(
+					TestIngestPlugin.FAIL,
+					ingestState,
+					plugin);
+		}
+		catch (final IllegalStateException e) {
+			ingestState.messageFailed(e);
+		}
+		ingestState.messageConsumed();
+		ingestState.flushAndCommit();
+
+		assertTrue(ingestState.isFailed());
+		assertEquals(
+				0,
+				commits.get());
+	}
+
+	@Test
+	public void testIngestPluginPerThread()
+			throws Exception {
+		final AvroFormatPlugin<Object, Object> plugin = newFormatPlugin();
+		final IngestPluginBase<Object, ?> ingestPlugin = ingestState.getIngestPlugin(plugin);
+		assertSame(
+				ingestPlugin,
+				ingestState.getIngestPlugin(plugin));
+
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final IngestPluginBase<Object, ?> otherIngestPlugin = executor.submit(
+					new Callable<IngestPluginBase<Object, ?>>() {
+						@Override
+						public IngestPluginBase<Object, ?> call() {
+							return ingestState.getIngestPlugin(plugin);
+						}
+					}).get();
+			// every thread converts messages with its own copy of the plugin
+			assertNotSame(
+					ingestPlugin,
+					otherIngestPlugin);
+			assertTrue(otherIngestPlugin instanceof TestIngestPlugin);
+			assertEquals(
+					"copied",
+					((TestIngestPlugin) otherIngestPlugin).state);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	private ConsumerConnector newConsumer() {
+		return (ConsumerConnector) Proxy.newProxyInstance(
+				getClass().getClassLoader(),
+				new Class[] {
+					ConsumerConnector.class
+				},
+				new InvocationHandler() {
+					@Override
+					public Object invoke(
+							final Object proxy,
+							final Method method,
+							final Object[] args ) {
+						if ("commitOffsets".equals(method.getName())) {
+							commits.incrementAndGet();
+						}
+						return null;
+					}
+				});
+	}
+
+	@SuppressWarnings("unchecked")
+	private AvroFormatPlugin<Object, Object> newFormatPlugin() {
+		return (AvroFormatPlugin<Object, Object>) Proxy.newProxyInstance(
+				getClass().getClassLoader(),
+				new Class[] {
+					AvroFormatPlugin.class
+				},
+				new InvocationHandler() {
+					@Override
+					public Object invoke(
+							final Object proxy,
+							final Method method,
+							final Object[] args ) {
+						if ("getIngestWithAvroPlugin".equals(method.getName())) {
+							return new TestIngestPlugin(
+									"copied");
+						}
+						if ("getRequiredIndices".equals(method.getName())) {
+							return new PrimaryIndex[0];
+						}
+						return null;
+					}
+				});
+	}
+
+	public static class TestIngestPlugin implements
+			IngestPluginBase<Object, Object>,
+			Persistable
+	{
+		private static final Object FAIL = new Object();
+		private String state;
+
+		public TestIngestPlugin() {}
+
+		public TestIngestPlugin(
+				final String state ) {
+			this.state = state;
+		}
+
+		@Override
+		public WritableDataAdapter<Object>[] getDataAdapters(
+				final String globalVisibility ) {
+			return new WritableDataAdapter[0];
+		}
+
+		@Override
+		public CloseableIterator<GeoWaveData<Object>> toGeoWaveData(
+				final Object input,
+				final Collection<ByteArrayId> primaryIndexIds,
+				final String globalVisibility ) {
+			if (input == FAIL) {
+				throw new IllegalStateException(
+						"test failure");
+			}
+			return new CloseableIterator.Empty<GeoWaveData<Object>>();
+		}
+
+		@Override
+		public byte[] toBinary() {
+			return StringUtils.stringToBinary(state);
+		}
+
+		@Override
+		public void fromBinary(
+				final byte[] bytes ) {
+			state = StringUtils.stringFromBinary(bytes);
+		}
+	}
+}
@@ -29,6 +29,7 @@ public abstract class AbstractGeoWaveJobRunner extends
 	protected QueryOptions queryOptions;
 	protected Integer minInputSplits = null;
 	protected Integer maxInputSplits = null;
+	protected Long targetInputSplitSize = null;
 
 	public AbstractGeoWaveJobRunner(
 			final DataStorePluginOptions dataStoreOptions ) {
@@ -78,6 +79,11 @@ public abstract class AbstractGeoWaveJobRunner extends
 					conf,
 					maxInputSplits);
 		}
+		if (targetInputSplitSize != null) {
+			GeoWaveInputFormat.setTargetSplitSize(
+					conf,
+					targetInputSplitSize);
+		}
 
 		final boolean jobSuccess = job.waitForCompletion(true);
 
@@ -98,6 +104,11 @@ public abstract class AbstractGeoWaveJobRunner extends
 		this.minInputSplits = minInputSplits;
 	}
 
+	public void setTargetInputSplitSize(
+			final long targetInputSplitSize ) {
+		this.targetInputSplitSize = targetInputSplitSize;
+	}
+
 	public void setQueryOptions(
 			final QueryOptions options ) {
 		queryOptions = options;
@@ -36,7 +36,8 @@ public interface MapReduceDataStore extends
 			DataStatisticsStore statsStore,
 			IndexStore indexStore,
 			Integer minSplits,
-			Integer maxSplits )
+			Integer maxSplits,
+			Long targetSplitSize )
 			throws IOException,
 			InterruptedException;
 }
@@ -23,6 +23,7 @@ public class GeoWaveInputConfigurator extends
 		QUERY_OPTIONS,
 		MIN_SPLITS,
 		MAX_SPLITS,
+		TARGET_SPLIT_SIZE,
 		OUTPUT_WRITABLE, // used to inform the input format to output a Writable
 							// from the HadoopDataAdapter
 		AUTHORIZATION
@@ -80,6 +81,20 @@ public class GeoWaveInputConfigurator extends
 				InputConfig.MAX_SPLITS);
 	}
 
+	private static Long getTargetSplitSizeInternal(
+			final Class<?> implementingClass,
+			final Configuration configuration ) {
+		final String str = configuration.get(
+				enumToConfKey(
+						implementingClass,
+						InputConfig.TARGET_SPLIT_SIZE),
+				"");
+		if ((str != null) && !str.isEmpty()) {
+			return Long.parseLong(str);
+		}
+		return null;
+	}
+
 	private static Integer getIntegerConfigInternal(
 			final Class<?> implementingClass,
 			final Configuration configuration,
@@ -214,4 +229,30 @@ public class GeoWaveInputConfigurator extends
 					InputConfig.MAX_SPLITS));
 		}
 	}
-}
\ No newline at end of file
+
+	public static Long getTargetSplitSize(
+			final Class<?> implementingClass,
+			final JobContext context ) {
+		return getTargetSplitSizeInternal(
+				implementingClass,
+				getConfiguration(context));
+	}
+
+	public static void setTargetSplitSize(
+			final Class<?> implementingClass,
+			final Configuration config,
+			final Long targetSplitSize ) {
+		if (targetSplitSize != null) {
+			config.set(
+					enumToConfKey(
+							implementingClass,
+							InputConfig.TARGET_SPLIT_SIZE),
+					targetSplitSize.toString());
+		}
+		else {
+			config.unset(enumToConfKey(
+					implementingClass,
+					InputConfig.TARGET_SPLIT_SIZE));
+		}
+	}
+}
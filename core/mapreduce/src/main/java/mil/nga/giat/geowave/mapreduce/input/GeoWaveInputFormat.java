@@ -113,6 +113,20 @@ public class GeoWaveInputFormat<T> extends
 				maxSplits);
 	}
 
+	/**
+	 * Set the desired number of rows per split. When row range statistics are
+	 * available, the ranges will be cut into splits of approximately this many
+	 * rows, bounded by the minimum and maximum split counts.
+	 */
+	public static void setTargetSplitSize(
+			final Configuration config,
+			final Long targetSplitSize ) {
+		GeoWaveInputConfigurator.setTargetSplitSize(
+				CLASS,
+				config,
+				targetSplitSize);
+	}
+
 	public static void setIsOutputWritable(
 			final Configuration config,
 			final Boolean isOutputWritable ) {
@@ -214,6 +228,13 @@ public class GeoWaveInputFormat<T> extends
 				context);
 	}
 
+	protected static Long getTargetSplitSize(
+			final JobContext context ) {
+		return GeoWaveInputConfigurator.getTargetSplitSize(
+				CLASS,
+				context);
+	}
+
 	@Override
 	public RecordReader<GeoWaveInputKey, T> createRecordReader(
 			final InputSplit split,
@@ -311,7 +332,8 @@ public class GeoWaveInputFormat<T> extends
 					getJobContextDataStatisticsStore(context),
 					getJobContextIndexStore(context),
 					getMinimumSplitCount(context),
-					getMaximumSplitCount(context));
+					getMaximumSplitCount(context),
+					getTargetSplitSize(context));
 		}
 
 		LOGGER.error("Data Store does not support map reduce");
@@ -210,6 +210,23 @@ public class IntermediateSplitInfo implements
 	 */
 	synchronized IntermediateSplitInfo split(
 			final Map<PrimaryIndex, RowRangeHistogramStatistics<?>> statsCache ) {
+		return split(
+				statsCache,
+				getTotalRangeAtCardinality() / 2);
+	}
+
+	/**
+	 * Side effect: Break up this split.
+	 *
+	 * Carve a new split of approximately the target cardinality off of this
+	 * split, using the row range histogram to place the split point within a
+	 * range.
+	 *
+	 * @return the new split.
+	 */
+	synchronized IntermediateSplitInfo split(
+			final Map<PrimaryIndex, RowRangeHistogramStatistics<?>> statsCache,
+			final double targetCardinality ) {
 		// generically you'd want the split to be as limiting to total
 		// locations as possible and then as limiting as possible to total
 		// indices, but in this case split() is only called when all ranges
@@ -233,7 +250,6 @@ public class IntermediateSplitInfo implements
 						ranges.getKey()));
 			}
 		}
-		final double targetCardinality = getTotalRangeAtCardinality() / 2;
 		double currentCardinality = 0.0;
 		final Map<PrimaryIndex, List<RangeLocationPair>> otherSplitInfo = new HashMap<PrimaryIndex, List<RangeLocationPair>>();
 
@@ -331,13 +347,18 @@ public class IntermediateSplitInfo implements
 
 	}
 
-	public synchronized GeoWaveInputSplit toFinalSplit() {
+	synchronized Set<String> getLocations() {
 		final Set<String> locations = new HashSet<String>();
 		for (final Entry<PrimaryIndex, List<RangeLocationPair>> entry : splitInfo.entrySet()) {
 			for (final RangeLocationPair pair : entry.getValue()) {
 				locations.add(pair.getLocation());
 			}
 		}
+		return locations;
+	}
+
+	public synchronized GeoWaveInputSplit toFinalSplit() {
+		final Set<String> locations = getLocations();
 		return splitsProvider.constructInputSplit(
 				splitInfo,
 				locations.toArray(new String[locations.size()]));
@@ -433,7 +454,7 @@ public class IntermediateSplitInfo implements
 		return true;
 	}
 
-	private synchronized double getTotalRangeAtCardinality() {
+	synchronized double getTotalRangeAtCardinality() {
 		double sum = 0.0;
 		for (final List<RangeLocationPair> pairList : splitInfo.values()) {
 			for (final RangeLocationPair pair : pairList) {
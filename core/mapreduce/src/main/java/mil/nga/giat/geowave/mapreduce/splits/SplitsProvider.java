@@ -4,9 +4,12 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeSet;
 
 import org.apache.commons.lang3.tuple.Pair;
@@ -49,6 +52,45 @@ public abstract class SplitsProvider
 			final Integer maxSplits )
 			throws IOException,
 			InterruptedException {
+		return getSplits(
+				operations,
+				query,
+				queryOptions,
+				adapterStore,
+				statsStore,
+				indexStore,
+				adapterIndexMappingStore,
+				minSplits,
+				maxSplits,
+				null);
+	}
+
+	/**
+	 * Read the metadata table to get tablets and match up ranges to them.
+	 *
+	 * When row range histograms are available, ranges are cut into splits of
+	 * equal cardinality using the cumulative distribution of the histogram
+	 * rather than by halving the largest split until the minimum is met. If
+	 * the number of splits must be reduced, splits that share a tablet server
+	 * or region server are merged first so that each split stays local.
+	 *
+	 * @param targetSplitSize
+	 *            the desired number of rows per split, or null to be driven
+	 *            only by the minimum and maximum number of splits
+	 */
+	public List<InputSplit> getSplits(
+			final DataStoreOperations operations,
+			final DistributableQuery query,
+			final QueryOptions queryOptions,
+			final AdapterStore adapterStore,
+			final DataStatisticsStore statsStore,
+			final IndexStore indexStore,
+			final AdapterIndexMappingStore adapterIndexMappingStore,
+			final Integer minSplits,
+			final Integer maxSplits,
+			final Long targetSplitSize )
+			throws IOException,
+			InterruptedException {
 
 		final Map<PrimaryIndex, RowRangeHistogramStatistics<?>> statsCache = new HashMap<PrimaryIndex, RowRangeHistogramStatistics<?>>();
 
@@ -74,15 +116,37 @@ public abstract class SplitsProvider
 					queryOptions.getAuthorizations());
 		}
 
-		// this is an incremental algorithm, it may be better use the target
-		// split count to drive it (ie. to get 3 splits this will split 1
-		// large
-		// range into two down the middle and then split one of those ranges
-		// down the middle to get 3, rather than splitting one range into
-		// thirds)
-		if (!statsCache.isEmpty() && !splits.isEmpty() && (minSplits != null) && (splits.size() < minSplits)) {
-			// set the ranges to at least min splits
-			do {
+		Integer lowerBound = minSplits;
+		Integer upperBound = maxSplits;
+		if (!statsCache.isEmpty() && !splits.isEmpty() && (targetSplitSize != null) && (targetSplitSize > 0)) {
+			int targetSplits = (int) Math.min(
+					Integer.MAX_VALUE,
+					Math.max(
+							1,
+							Math.ceil(getTotalCardinality(splits) / targetSplitSize)));
+			if ((minSplits != null) && (targetSplits < minSplits)) {
+				targetSplits = minSplits;
+			}
+			if ((maxSplits != null) && (maxSplits > 0) && (targetSplits > maxSplits)) {
+				targetSplits = maxSplits;
+			}
+			lowerBound = targetSplits;
+			upperBound = targetSplits;
+		}
+
+		if (!statsCache.isEmpty() && !splits.isEmpty() && (lowerBound != null)
+				&& ((splits.size() < lowerBound) || (targetSplitSize != null))) {
+			balanceSplits(
+					splits,
+					statsCache,
+					lowerBound);
+
+			// this is an incremental algorithm that picks up whatever
+			// balancing could not reach (ie. ranges for which the histogram
+			// could not find a split point); it splits 1 large range into two
+			// down the middle and then splits one of those ranges down the
+			// middle to get 3
+			while (splits.size() < lowerBound) {
 				// remove the highest range, split it into 2 and add both
 				// back,
 				// increasing the size by 1
@@ -95,23 +159,11 @@ public abstract class SplitsProvider
 				}
 				splits.add(otherSplit);
 			}
-			while (splits.size() < minSplits);
 		}
-		else if (((maxSplits != null) && (maxSplits > 0)) && (splits.size() > maxSplits)) {
-			// merge splits to fit within max splits
-			do {
-				// this is the naive approach, remove the lowest two ranges
-				// and merge them, decreasing the size by 1
-
-				// TODO Ideally merge takes into account locations (as well
-				// as possibly the index as a secondary criteria) to limit
-				// the number of locations/indices
-				final IntermediateSplitInfo lowestSplit = splits.pollFirst();
-				final IntermediateSplitInfo nextLowestSplit = splits.pollFirst();
-				lowestSplit.merge(nextLowestSplit);
-				splits.add(lowestSplit);
-			}
-			while (splits.size() > maxSplits);
+		if (((upperBound != null) && (upperBound > 0)) && (splits.size() > upperBound)) {
+			mergeSplits(
+					splits,
+					upperBound);
 		}
 
 		for (final IntermediateSplitInfo split : splits) {
@@ -120,6 +172,89 @@ public abstract class SplitsProvider
 		return retVal;
 	}
 
+	/**
+	 * Cut every split that is larger than the average target cardinality into
+	 * pieces of equal cardinality. Each piece stays at the location of the
+	 * range it was cut from.
+	 */
+	static void balanceSplits(
+			final TreeSet<IntermediateSplitInfo> splits,
+			final Map<PrimaryIndex, RowRangeHistogramStatistics<?>> statsCache,
+			final int targetSplits ) {
+		final double targetCardinality = getTotalCardinality(splits) / targetSplits;
+		if (targetCardinality <= 0) {
+			return;
+		}
+		final List<IntermediateSplitInfo> balanced = new ArrayList<IntermediateSplitInfo>();
+		while (!splits.isEmpty() && (splits.last().getTotalRangeAtCardinality() > targetCardinality)) {
+			final IntermediateSplitInfo split = splits.pollLast();
+			final double cardinality = split.getTotalRangeAtCardinality();
+			final int pieces = (int) Math.max(
+					1,
+					Math.round(cardinality / targetCardinality));
+			final double pieceCardinality = cardinality / pieces;
+			for (int i = 1; i < pieces; i++) {
+				final IntermediateSplitInfo piece = split.split(
+						statsCache,
+						pieceCardinality);
+				if (piece == null) {
+					break;
+				}
+				balanced.add(piece);
+			}
+			balanced.add(split);
+		}
+		splits.addAll(balanced);
+	}
+
+	/**
+	 * Merge the smallest splits until there are no more than the maximum
+	 * number of splits, preferring to merge splits that share a location as
+	 * long as the merged split does not exceed the average split cardinality.
+	 */
+	static void mergeSplits(
+			final TreeSet<IntermediateSplitInfo> splits,
+			final int maxSplits ) {
+		final double targetCardinality = getTotalCardinality(splits) / maxSplits;
+		while (splits.size() > maxSplits) {
+			final IntermediateSplitInfo lowestSplit = splits.pollFirst();
+			final double lowestCardinality = lowestSplit.getTotalRangeAtCardinality();
+			final Set<String> locations = lowestSplit.getLocations();
+			IntermediateSplitInfo mergeSplit = null;
+			final Iterator<IntermediateSplitInfo> it = splits.iterator();
+			while (it.hasNext()) {
+				final IntermediateSplitInfo candidate = it.next();
+				if ((lowestCardinality + candidate.getTotalRangeAtCardinality()) > targetCardinality) {
+					// splits are ordered by cardinality, no other candidate
+					// will fit
+					break;
+				}
+				if (!Collections.disjoint(
+						locations,
+						candidate.getLocations())) {
+					mergeSplit = candidate;
+					it.remove();
+					break;
+				}
+			}
+			if (mergeSplit == null) {
+				// no split shares a location, fall back to the next lowest
+				mergeSplit = splits.pollFirst();
+			}
+			lowestSplit.merge(mergeSplit);
+			splits.add(lowestSplit);
+		}
+	}
+
+	private static double getTotalCardinality(
+			final TreeSet<IntermediateSplitInfo> splits ) {
+		double total = 0;
+		for (final IntermediateSplitInfo split : splits) {
+			total += split.getTotalRangeAtCardinality();
+		}
+		return total;
+	}
+
 	protected abstract TreeSet<IntermediateSplitInfo> populateIntermediateSplits(
 			TreeSet<IntermediateSplitInfo> splits,
 			DataStoreOperations operations,
@@ -0,0 +1,450 @@
+package mil.nga.giat.geowave.mapreduce.splits;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.DataStoreOperations;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.adapter.statistics.RowRangeHistogramStatistics;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.index.NullIndex;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.query.DistributableQuery;
+
+public class SplitsProviderTest
+{
+	private static final PrimaryIndex INDEX = new NullIndex(
+			"test_index");
+
+	private final TestSplitsProvider splitsProvider = new TestSplitsProvider();
+	private final Map<PrimaryIndex, RowRangeHistogramStatistics<?>> statsCache = new HashMap<PrimaryIndex, RowRangeHistogramStatistics<?>>();
+	private RowRangeHistogramStatistics<Object> stats;
+
+	@Before
+	public void setUp() {
+		// rows spread evenly from 0x1000 to 0x4ff0
+		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>();
+		for (int first = 0x10; first < 0x50; first++) {
+			for (int second = 0; second < 0x100; second += 0x10) {
+				rowIds.add(new ByteArrayId(
+						new byte[] {
+							(byte) first,
+							(byte) second
+						}));
+			}
+		}
+		stats = new RowRangeHistogramStatistics<Object>(
+				new ByteArrayId(
+						"adapter"),
+				INDEX.getId(),
+				1024);
+		stats.entryIngested(
+				new DataStoreEntryInfo(
+						new byte[0],
+						rowIds,
+						rowIds,
+						Collections.<DataStoreEntryInfo.FieldInfo<?>> emptyList()),
+				null);
+		statsCache.put(
+				INDEX,
+				stats);
+	}
+
+	@Test
+	public void testBalanceSplits() {
+		final TreeSet<IntermediateSplitInfo> splits = new TreeSet<IntermediateSplitInfo>();
+		// three quarters of the rows are in one range and a quarter in the
+		// other
+		splits.add(newSplit(newPair(
+				0x10,
+				0x40,
+				"a")));
+		splits.add(newSplit(newPair(
+				0x40,
+				0x50,
+				"b")));
+		final double totalCardinality = getTotalCardinality(splits);
+
+		SplitsProvider.balanceSplits(
+				splits,
+				statsCache,
+				4);
+
+		// the large range is cut into three splits of about the cardinality
+		// of the small range, and each piece stays at its location
+		assertEquals(
+				4,
+				splits.size());
+		final double targetCardinality = totalCardinality / 4;
+		int locationA = 0;
+		for (final IntermediateSplitInfo split : splits) {
+			assertEquals(
+					targetCardinality,
+					split.getTotalRangeAtCardinality(),
+					targetCardinality * 0.25);
+			assertEquals(
+					1,
+					split.getLocations().size());
+			if (split.getLocations().contains(
+					"a")) {
+				locationA++;
+			}
+		}
+		assertEquals(
+				3,
+				locationA);
+		assertEquals(
+				totalCardinality,
+				getTotalCardinality(splits),
+				totalCardinality * 0.05);
+	}
+
+	@Test
+	public void testBalancedSplitsUnchanged() {
+		final TreeSet<IntermediateSplitInfo> splits = new TreeSet<IntermediateSplitInfo>();
+		splits.add(newSplit(newPair(
+				0x10,
+				0x30,
+				"a")));
+		splits.add(newSplit(newPair(
+				0x30,
+				0x50,
+				"b")));
+
+		SplitsProvider.balanceSplits(
+				splits,
+				statsCache,
+				2);
+
+		assertEquals(
+				2,
+				splits.size());
+	}
+
+	@Test
+	public void testMergeSplitsByLocation() {
+		final TreeSet<IntermediateSplitInfo> splits = new TreeSet<IntermediateSplitInfo>();
+		splits.add(newSplit(newPair(
+				0x10,
+				0x11,
+				"a",
+				10)));
+		splits.add(newSplit(newPair(
+				0x11,
+				0x12,
+				"b",
+				15)));
+		splits.add(newSplit(newPair(
+				0x12,
+				0x13,
+				"a",
+				20)));
+		splits.add(newSplit(newPair(
+				0x13,
+				0x14,
+				"b",
+				25)));
+		splits.add(newSplit(newPair(
+				0x14,
+				0x30,
+				"a",
+				300)));
+		splits.add(newSplit(newPair(
+				0x30,
+				0x50,
+				"b",
+				300)));
+
+		SplitsProvider.mergeSplits(
+				splits,
+				4);
+
+		// the small splits are merged with the next smallest split at the
+		// same location rather than with the smallest split
+		assertEquals(
+				4,
+				splits.size());
+		final List<Double> cardinalities = new ArrayList<Double>();
+		for (final IntermediateSplitInfo split : splits) {
+			assertEquals(
+					1,
+					split.getLocations().size());
+			cardinalities.add(split.getTotalRangeAtCardinality());
+		}
+		assertEquals(
+				Arrays.asList(
+						30.0,
+						40.0,
+						300.0,
+						300.0),
+				cardinalities);
+	}
+
+	@Test
+	public void testMergeSplitsWithoutSharedLocation() {
+		final TreeSet<IntermediateSplitInfo> splits = new TreeSet<IntermediateSplitInfo>();
+		splits.add(newSplit(newPair(
+				0x10,
+				0x11,
+				"a",
+				10)));
+		splits.add(newSplit(newPair(
+				0x11,
+				0x12,
+				"b",
+				15)));
+		splits.add(newSplit(newPair(
+				0x12,
+				0x50,
+				"c",
+				300)));
+
+		SplitsProvider.mergeSplits(
+				splits,
+				2);
+
+		// no split shares a location, so the two smallest are merged and the
+		// large split is left alone
+		assertEquals(
+				2,
+				splits.size());
+		assertEquals(
+				25.0,
+				splits.first().getTotalRangeAtCardinality(),
+				0);
+		assertEquals(
+				2,
+				splits.first().getLocations().size());
+		assertEquals(
+				300.0,
+				splits.last().getTotalRangeAtCardinality(),
+				0);
+		assertTrue(splits.last().getLocations().contains(
+				"c"));
+	}
+
+	private IntermediateSplitInfo newSplit(
+			final RangeLocationPair pair ) {
+		final Map<PrimaryIndex, List<RangeLocationPair>> splitInfo = new HashMap<PrimaryIndex, List<RangeLocationPair>>();
+		splitInfo.put(
+				INDEX,
+				new ArrayList<RangeLocationPair>(
+						Arrays.asList(pair)));
+		return new IntermediateSplitInfo(
+				splitInfo,
+				splitsProvider);
+	}
+
+	private RangeLocationPair newPair(
+			final int start,
+			final int end,
+			final String location ) {
+		final GeoWaveRowRange range = newRange(
+				start,
+				end);
+		return new TestRangeLocationPair(
+				range,
+				location,
+				stats.cardinality(
+						range.getStartKey(),
+						range.getEndKey()));
+	}
+
+	private RangeLocationPair newPair(
+			final int start,
+			final int end,
+			final String location,
+			final double cardinality ) {
+		return new TestRangeLocationPair(
+				newRange(
+						start,
+						end),
+				location,
+				cardinality);
+	}
+
+	private static GeoWaveRowRange newRange(
+			final int start,
+			final int end ) {
+		return new TestRowRange(
+				new byte[] {
+					(byte) start,
+					0
+				},
+				true,
+				new byte[] {
+					(byte) end,
+					0
+				},
+				false);
+	}
+
+	private static double getTotalCardinality(
+			final TreeSet<IntermediateSplitInfo> splits ) {
+		double total = 0;
+		for (final IntermediateSplitInfo split : splits) {
+			total += split.getTotalRangeAtCardinality();
+		}
+		return total;
+	}
+
+	private static class TestSplitsProvider extends
+			SplitsProvider
+	{
+		@Override
+		protected TreeSet<IntermediateSplitInfo> populateIntermediateSplits(
+				final TreeSet<IntermediateSplitInfo> splits,
+				final DataStoreOperations operations,
+				final PrimaryIndex left,
+				final List<DataAdapter<Object>> value,
+				final Map<PrimaryIndex, RowRangeHistogramStatistics<?>> statsCache,
+				final AdapterStore adapterStore,
+				final DataStatisticsStore statsStore,
+				final Integer maxSplits,
+				final DistributableQuery query,
+				final String[] authorizations ) {
+			return splits;
+		}
+
+		@Override
+		protected GeoWaveRowRange constructRange(
+				final byte[] startKey,
+				final boolean isStartKeyInclusive,
+				final byte[] endKey,
+				final boolean isEndKeyInclusive ) {
+			return new TestRowRange(
+					startKey,
+					isStartKeyInclusive,
+					endKey,
+					isEndKeyInclusive);
+		}
+
+		@Override
+		protected GeoWaveRowRange defaultConstructRange() {
+			return new TestRowRange(
+					null,
+					true,
+					null,
+					true);
+		}
+
+		@Override
+		protected RangeLocationPair constructRangeLocationPair(
+				final GeoWaveRowRange range,
+				final String location,
+				final double cardinality ) {
+			return new TestRangeLocationPair(
+					range,
+					location,
+					cardinality);
+		}
+
+		@Override
+		public GeoWaveInputSplit constructInputSplit(
+				final Map<PrimaryIndex, List<RangeLocationPair>> splitInfo,
+				final String[] locations ) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static class TestRangeLocationPair extends
+			RangeLocationPair
+	{
+		private TestRangeLocationPair(
+				final GeoWaveRowRange range,
+				final String location,
+				final double cardinality ) {
+			super(
+					range,
+					location,
+					cardinality);
+		}
+
+		@Override
+		protected GeoWaveRowRange buildRowRangeInstance() {
+			return new TestRowRange(
+					null,
+					true,
+					null,
+					true);
+		}
+	}
+
+	private static class TestRowRange implements
+			GeoWaveRowRange
+	{
+		private final byte[] startKey;
+		private final boolean startKeyInclusive;
+		private final byte[] endKey;
+		private final boolean endKeyInclusive;
+
+		private TestRowRange(
+				final byte[] startKey,
+				final boolean startKeyInclusive,
+				final byte[] endKey,
+				final boolean endKeyInclusive ) {
+			this.startKey = startKey;
+			this.startKeyInclusive = startKeyInclusive;
+			this.endKey = endKey;
+			this.endKeyInclusive = endKeyInclusive;
+		}
+
+		@Override
+		public byte[] getStartKey() {
+			return startKey;
+		}
+
+		@Override
+		public byte[] getEndKey() {
+			return endKey;
+		}
+
+		@Override
+		public boolean isStartKeyInclusive() {
+			return startKeyInclusive;
+		}
+
+		@Override
+		public boolean isEndKeyInclusive() {
+			return endKeyInclusive;
+		}
+
+		@Override
+		public boolean isInfiniteStartKey() {
+			return startKey == null;
+		}
+
+		@Override
+		public boolean isInfiniteStopKey() {
+			return endKey == null;
+		}
+
+		@Override
+		public void write(
+				final DataOutput out ) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void readFields(
+				final DataInput in ) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -23,6 +23,15 @@ public class BaseDataStoreOptions implements
 	@Parameter(names = "--enableBlockCache", hidden = true, arity = 1)
 	protected boolean enableBlockCache = true;
 
+	@Parameter(names = "--stripedStatistics", hidden = true, arity = 1, description = "Accumulate statistics per ingest thread and merge on flush, for writers shared across threads")
+	protected boolean stripedStatistics = false;
+
+	@Parameter(names = "--statsFlushInterval", hidden = true, description = "Interval in milliseconds at which writers flush statistics in the background, 0 to flush only when the writer is closed")
+	protected long statisticsFlushInterval = 0;
+
+	@Parameter(names = "--statsCompactionInterval", hidden = true, description = "Interval in milliseconds at which partial statistics entries are compacted in the background, 0 to disable")
+	protected long statisticsCompactionInterval = 0;
+
 	@Override
 	public boolean isPersistDataStatistics() {
 		return persistDataStatistics;
@@ -83,4 +92,34 @@ public class BaseDataStoreOptions implements
 		this.enableBlockCache = enableBlockCache;
 	}
 
+	@Override
+	public boolean isStripedStatistics() {
+		return stripedStatistics;
+	}
+
+	public void setStripedStatistics(
+			final boolean stripedStatistics ) {
+		this.stripedStatistics = stripedStatistics;
+	}
+
+	@Override
+	public long getStatisticsFlushInterval() {
+		return statisticsFlushInterval;
+	}
+
+	public void setStatisticsFlushInterval(
+			final long statisticsFlushInterval ) {
+		this.statisticsFlushInterval = statisticsFlushInterval;
+	}
+
+	@Override
+	public long getStatisticsCompactionInterval() {
+		return statisticsCompactionInterval;
+	}
+
+	public void setStatisticsCompactionInterval(
+			final long statisticsCompactionInterval ) {
+		this.statisticsCompactionInterval = statisticsCompactionInterval;
+	}
+
 }
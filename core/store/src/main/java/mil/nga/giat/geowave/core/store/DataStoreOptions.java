@@ -13,4 +13,10 @@ public interface DataStoreOptions
 	public boolean isCreateTable();
 
 	public boolean isEnableBlockCache();
+
+	public boolean isStripedStatistics();
+
+	public long getStatisticsFlushInterval();
+
+	public long getStatisticsCompactionInterval();
 }
@@ -101,4 +101,11 @@ public interface DataStatisticsStore
 			final String... authorizations );
 
 	public void removeAll();
+
+	/**
+	 * Merge the partial statistics entries written by incorporateStatistics
+	 * into a single entry per statistic so that reads no longer pay for the
+	 * merge. Stores that merge on write may treat this as a no-op.
+	 */
+	public void compactStatistics();
 }
\ No newline at end of file
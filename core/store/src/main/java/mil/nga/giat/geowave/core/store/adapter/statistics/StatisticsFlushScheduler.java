@@ -0,0 +1,145 @@
+package mil.nga.giat.geowave.core.store.adapter.statistics;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Runs statistics maintenance in the background so that it stays off the
+ * ingest and query paths. Accumulated statistics can be periodically flushed
+ * to the statistics store, and partial statistics rows can be periodically
+ * compacted using {@link DataStatisticsStore#compactStatistics()}.
+ *
+ * Flushes share a single daemon thread and compactions share another, so a
+ * slow compaction never delays a flush; cancel the returned future to stop a
+ * task.
+ */
+public class StatisticsFlushScheduler
+{
+	private final static Logger LOGGER = Logger.getLogger(StatisticsFlushScheduler.class);
+
+	private static ScheduledExecutorService scheduler = null;
+	private static ScheduledExecutorService compactionScheduler = null;
+	private static final Map<DataStatisticsStore, ScheduledFuture<?>> compactions = new WeakHashMap<DataStatisticsStore, ScheduledFuture<?>>();
+
+	private static synchronized ScheduledExecutorService getScheduler() {
+		if (scheduler == null) {
+			scheduler = createScheduler("geowave-statistics-flush");
+		}
+		return scheduler;
+	}
+
+	private static synchronized ScheduledExecutorService getCompactionScheduler() {
+		if (compactionScheduler == null) {
+			compactionScheduler = createScheduler("geowave-statistics-compaction");
+		}
+		return compactionScheduler;
+	}
+
+	private static ScheduledExecutorService createScheduler(
+			final String threadName ) {
+		return Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(
+					final Runnable r ) {
+				final Thread thread = new Thread(
+						r,
+						threadName);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	public static ScheduledFuture<?> scheduleFlush(
+			final Flushable flushable,
+			final long intervalMillis ) {
+		return getScheduler().scheduleWithFixedDelay(
+				new Runnable() {
+					@Override
+					public void run() {
+						try {
+							flushable.flush();
+						}
+						catch (final IOException | RuntimeException e) {
+							// do not let an exception cancel future flushes
+							LOGGER.warn(
+									"Unable to flush statistics",
+									e);
+						}
+					}
+				},
+				intervalMillis,
+				intervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Compaction is scheduled at most once per statistics store, however many
+	 * data stores share it. The task only holds the store weakly and cancels
+	 * itself once the store is no longer referenced.
+	 *
+	 * @return the compaction task of the statistics store
+	 */
+	public static synchronized ScheduledFuture<?> scheduleCompaction(
+			final DataStatisticsStore statisticsStore,
+			final long intervalMillis ) {
+		final ScheduledFuture<?> existing = compactions.get(statisticsStore);
+		if ((existing != null) && !existing.isDone()) {
+			return existing;
+		}
+		final CompactionTask task = new CompactionTask(
+				statisticsStore);
+		final ScheduledFuture<?> future = getCompactionScheduler().scheduleWithFixedDelay(
+				task,
+				intervalMillis,
+				intervalMillis,
+				TimeUnit.MILLISECONDS);
+		task.future = future;
+		compactions.put(
+				statisticsStore,
+				future);
+		return future;
+	}
+
+	private static class CompactionTask implements
+			Runnable
+	{
+		private final WeakReference<DataStatisticsStore> statisticsStore;
+		private volatile ScheduledFuture<?> future;
+
+		private CompactionTask(
+				final DataStatisticsStore statisticsStore ) {
+			this.statisticsStore = new WeakReference<DataStatisticsStore>(
+					statisticsStore);
+		}
+
+		@Override
+		public void run() {
+			final DataStatisticsStore store = statisticsStore.get();
+			if (store == null) {
+				if (future != null) {
+					future.cancel(false);
+				}
+				return;
+			}
+			try {
+				store.compactStatistics();
+			}
+			catch (final RuntimeException e) {
+				LOGGER.warn(
+						"Unable to compact statistics",
+						e);
+			}
+		}
+	}
+}
@@ -5,6 +5,7 @@ import java.io.Flushable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ScheduledFuture;
 
 import org.apache.log4j.Logger;
 
@@ -13,6 +14,7 @@ import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
 import mil.nga.giat.geowave.core.store.callback.DeleteCallback;
 import mil.nga.giat.geowave.core.store.callback.IngestCallback;
 import mil.nga.giat.geowave.core.store.callback.ScanCallback;
+import mil.nga.giat.geowave.core.store.callback.ThreadSafeCallback;
 
 /**
  * 
@@ -29,7 +31,8 @@ public class StatsCompositionTool<T> implements
 		DeleteCallback<T>,
 		AutoCloseable,
 		Closeable,
-		Flushable
+		Flushable,
+		ThreadSafeCallback
 {
 	private final static Logger LOGGER = Logger.getLogger(StatsCompositionTool.class);
 	public static final int FLUSH_STATS_THRESHOLD = 16384;
@@ -39,6 +42,7 @@ public class StatsCompositionTool<T> implements
 	List<DataStatisticsBuilder<T>> statisticsBuilders = null;
 	final Object MUTEX = new Object();
 	protected boolean skipFlush = false;
+	private ScheduledFuture<?> scheduledFlush = null;
 
 	public StatsCompositionTool() {
 		statisticsStore = null;
@@ -127,15 +131,41 @@ public class StatsCompositionTool<T> implements
 			return;
 		}
 
+		// hand off the accumulated statistics while holding the lock, but write
+		// them outside of it so that a background flush does not stall ingest
+		final List<DataStatistics<T>> flushed = new ArrayList<DataStatistics<T>>();
 		synchronized (MUTEX) {
 			for (final DataStatisticsBuilder<T> builder : statisticsBuilders) {
 				final Collection<DataStatistics<T>> statistics = builder.getStatistics();
-				for (final DataStatistics<T> s : statistics) {
-					statisticsStore.incorporateStatistics(s);
-				}
+				flushed.addAll(statistics);
 				statistics.clear();
 			}
 		}
+		for (final DataStatistics<T> s : flushed) {
+			statisticsStore.incorporateStatistics(s);
+		}
+	}
+
+	/**
+	 * Periodically flush accumulated statistics to the statistics store from a
+	 * background thread rather than only when this tool is closed, so that
+	 * long-lived writers make their statistics visible as they go
+	 *
+	 * @param intervalMillis
+	 *            the flush interval, a non-positive value disables background
+	 *            flushing
+	 */
+	public synchronized void setFlushInterval(
+			final long intervalMillis ) {
+		if (scheduledFlush != null) {
+			scheduledFlush.cancel(false);
+			scheduledFlush = null;
+		}
+		if (intervalMillis > 0) {
+			scheduledFlush = StatisticsFlushScheduler.scheduleFlush(
+					this,
+					intervalMillis);
+		}
 	}
 
 	/**
@@ -175,6 +205,7 @@ public class StatsCompositionTool<T> implements
 
 	@Override
 	public void close() {
+		setFlushInterval(0);
 		flush();
 	}
 
@@ -0,0 +1,286 @@
+package mil.nga.giat.geowave.core.store.adapter.statistics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
+
+/**
+ * A thread-striped alternative to {@link StatsCompositionTool} for writers
+ * that are shared by many ingest threads. Each thread updates its own copy of
+ * the statistics, so the ingest path never contends on a shared monitor. When
+ * a stripe has seen enough updates it merges its partial statistics, by
+ * statistics ID and visibility using
+ * {@link mil.nga.giat.geowave.core.index.Mergeable#merge}, into a single set
+ * of pending statistics and starts over with fresh copies, so the pending
+ * statistics hold at most one statistic per ID and visibility. A flush hands
+ * off every stripe and incorporates the pending statistics into the
+ * statistics store.
+ *
+ * Statistics that de-duplicate deletes using transient state (such as
+ * {@link CountDataStatistics}) only de-duplicate within a stripe.
+ *
+ * @param <T>
+ *            Entry type
+ */
+public class StripedStatsCompositionTool<T> extends
+		StatsCompositionTool<T>
+{
+	public static final int DEFAULT_HANDOFF_THRESHOLD = StatsCompositionTool.FLUSH_STATS_THRESHOLD;
+
+	private final StatisticsProvider<T> statisticsProvider;
+	private final int handoffThreshold;
+
+	private final ConcurrentLinkedQueue<Stripe> stripes = new ConcurrentLinkedQueue<Stripe>();
+	private Map<StatisticsKey, DataStatistics<T>> pendingStatistics = new LinkedHashMap<StatisticsKey, DataStatistics<T>>();
+	private final Object PENDING_MUTEX = new Object();
+	private final ThreadLocal<Stripe> localStripe = new ThreadLocal<Stripe>() {
+		@Override
+		protected Stripe initialValue() {
+			final Stripe stripe = new Stripe();
+			stripes.add(stripe);
+			return stripe;
+		}
+	};
+	private final Object FLUSH_MUTEX = new Object();
+
+	public StripedStatsCompositionTool(
+			final StatisticsProvider<T> statisticsProvider,
+			final DataStatisticsStore statisticsStore ) {
+		this(
+				statisticsProvider,
+				statisticsStore,
+				DEFAULT_HANDOFF_THRESHOLD);
+	}
+
+	public StripedStatsCompositionTool(
+			final StatisticsProvider<T> statisticsProvider,
+			final DataStatisticsStore statisticsStore,
+			final int handoffThreshold ) {
+		super();
+		this.statisticsProvider = statisticsProvider;
+		this.statisticsStore = statisticsStore;
+		this.handoffThreshold = handoffThreshold;
+	}
+
+	@Override
+	public void entryIngested(
+			final DataStoreEntryInfo entryInfo,
+			final T entry ) {
+		final Stripe stripe = localStripe.get();
+		stripe.lock.lock();
+		try {
+			for (final DataStatisticsBuilder<T> builder : stripe.builders) {
+				builder.entryIngested(
+						entryInfo,
+						entry);
+			}
+			stripe.updated();
+		}
+		finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	@Override
+	public void entryDeleted(
+			final DataStoreEntryInfo entryInfo,
+			final T entry ) {
+		final Stripe stripe = localStripe.get();
+		stripe.lock.lock();
+		try {
+			for (final DataStatisticsBuilder<T> builder : stripe.builders) {
+				builder.entryDeleted(
+						entryInfo,
+						entry);
+			}
+			stripe.updated();
+		}
+		finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	@Override
+	public void entryScanned(
+			final DataStoreEntryInfo entryInfo,
+			final T entry ) {
+		final Stripe stripe = localStripe.get();
+		stripe.lock.lock();
+		try {
+			for (final DataStatisticsBuilder<T> builder : stripe.builders) {
+				builder.entryScanned(
+						entryInfo,
+						entry);
+			}
+			stripe.updated();
+		}
+		finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	/**
+	 * Merge the partial statistics of every stripe and update the statistics
+	 * store
+	 */
+	@Override
+	public void flush() {
+		final Map<StatisticsKey, DataStatistics<T>> merged;
+		synchronized (FLUSH_MUTEX) {
+			for (final Stripe stripe : stripes) {
+				stripe.lock.lock();
+				try {
+					stripe.handoff();
+				}
+				finally {
+					stripe.lock.unlock();
+				}
+			}
+			synchronized (PENDING_MUTEX) {
+				merged = pendingStatistics;
+				pendingStatistics = new LinkedHashMap<StatisticsKey, DataStatistics<T>>();
+			}
+		}
+		if (statisticsStore != null) {
+			for (final DataStatistics<T> s : merged.values()) {
+				statisticsStore.incorporateStatistics(s);
+			}
+		}
+	}
+
+	/**
+	 * Reset statistics, losing any updates since last flush
+	 */
+	@Override
+	public void reset() {
+		synchronized (FLUSH_MUTEX) {
+			for (final Stripe stripe : stripes) {
+				stripe.lock.lock();
+				try {
+					stripe.reset();
+				}
+				finally {
+					stripe.lock.unlock();
+				}
+			}
+			synchronized (PENDING_MUTEX) {
+				pendingStatistics.clear();
+			}
+		}
+	}
+
+	private void mergePending(
+			final Collection<DataStatistics<T>> statistics ) {
+		synchronized (PENDING_MUTEX) {
+			for (final DataStatistics<T> s : statistics) {
+				final StatisticsKey key = new StatisticsKey(
+						s.getStatisticsId(),
+						new ByteArrayId(
+								s.getVisibility()));
+				final DataStatistics<T> existing = pendingStatistics.get(key);
+				if (existing == null) {
+					pendingStatistics.put(
+							key,
+							s);
+				}
+				else {
+					existing.merge(s);
+				}
+			}
+		}
+	}
+
+	private class Stripe
+	{
+		private final ReentrantLock lock = new ReentrantLock();
+		private List<DataStatisticsBuilder<T>> builders;
+		private int updateCount = 0;
+
+		private Stripe() {
+			reset();
+		}
+
+		private void updated() {
+			if (++updateCount >= handoffThreshold) {
+				handoff();
+			}
+		}
+
+		private void handoff() {
+			if (updateCount == 0) {
+				return;
+			}
+			for (final DataStatisticsBuilder<T> builder : builders) {
+				final Collection<DataStatistics<T>> statistics = builder.getStatistics();
+				mergePending(statistics);
+				statistics.clear();
+			}
+			updateCount = 0;
+		}
+
+		private void reset() {
+			final ByteArrayId[] statisticsIds = statisticsProvider.getSupportedStatisticsTypes();
+			builders = new ArrayList<DataStatisticsBuilder<T>>(
+					statisticsIds.length);
+			for (final ByteArrayId id : statisticsIds) {
+				builders.add(new DataStatisticsBuilder<T>(
+						statisticsProvider,
+						id));
+			}
+			updateCount = 0;
+		}
+	}
+
+	private static class StatisticsKey
+	{
+		private final ByteArrayId statisticsId;
+		private final ByteArrayId visibility;
+
+		private StatisticsKey(
+				final ByteArrayId statisticsId,
+				final ByteArrayId visibility ) {
+			this.statisticsId = statisticsId;
+			this.visibility = visibility;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = (prime * result) + ((statisticsId == null) ? 0 : statisticsId.hashCode());
+			result = (prime * result) + ((visibility == null) ? 0 : visibility.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if ((obj == null) || (getClass() != obj.getClass())) {
+				return false;
+			}
+			final StatisticsKey other = (StatisticsKey) obj;
+			if (statisticsId == null) {
+				if (other.statisticsId != null) {
+					return false;
+				}
+			}
+			else if (!statisticsId.equals(other.statisticsId)) {
+				return false;
+			}
+			if (visibility == null) {
+				return other.visibility == null;
+			}
+			return visibility.equals(other.visibility);
+		}
+	}
+}
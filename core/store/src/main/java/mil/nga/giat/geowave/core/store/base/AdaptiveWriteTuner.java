@@ -0,0 +1,340 @@
+package mil.nga.giat.geowave.core.store.base;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Tunes the buffer size and number of threads of a writer from the throughput
+ * it achieves.
+ *
+ * Writers report the bytes of each write along with the time the write (or a
+ * flush) was blocked, which grows as the buffer backs up, and report server
+ * errors as they occur. At the end of every window the throughput of the
+ * window is compared with the previous window: the settings keep moving in the
+ * same direction while the throughput improves, reverse when it drops, and
+ * hold once it levels off. Errors halve the settings, and they are then
+ * increased again only while that improves the throughput, so ingest settles
+ * on the largest sustainable settings. While writes are hardly blocked the
+ * writer is not the bottleneck and the settings are left alone.
+ *
+ * The metrics are exported as an MXBean once the tuner is registered.
+ */
+public class AdaptiveWriteTuner implements
+		AdaptiveWriteTunerMXBean
+{
+	private final static Logger LOGGER = Logger.getLogger(AdaptiveWriteTuner.class);
+	public static final long DEFAULT_MIN_BUFFER_SIZE = 256L * 1024L; // 256 KB
+	public static final long DEFAULT_MAX_BUFFER_SIZE = 256L * 1024L * 1024L; // 256 MB
+	public static final int DEFAULT_MIN_THREADS = 1;
+	public static final int DEFAULT_MAX_THREADS = 64;
+	public static final long DEFAULT_WINDOW_MILLIS = 10000L; // 10 seconds
+	private static final String MBEAN_DOMAIN = "mil.nga.giat.geowave";
+	// throughput changes within this fraction are considered level
+	private static final double TOLERANCE = 0.05;
+	// the settings are only tuned while writes are blocked for at least this
+	// fraction of the time
+	private static final double MIN_BLOCKED_FRACTION = 0.1;
+	private static final AtomicInteger MBEAN_ID = new AtomicInteger();
+
+	private final String tableName;
+	private final long minBufferSize;
+	private final long maxBufferSize;
+	private final int minThreads;
+	private final int maxThreads;
+	private final long windowMillis;
+
+	private volatile long bufferSize;
+	private volatile int threads;
+	private int direction = 1;
+	private boolean settled = false;
+	private double baselineThroughput = -1;
+	private volatile double throughput = -1;
+	private volatile double meanLatencyMillis = 0;
+
+	private volatile long windowStart = System.currentTimeMillis();
+	private final AtomicLong windowBytes = new AtomicLong();
+	private final AtomicLong windowWrites = new AtomicLong();
+	private final AtomicLong windowLatencyNanos = new AtomicLong();
+	private final AtomicLong windowErrors = new AtomicLong();
+
+	private final AtomicLong totalBytes = new AtomicLong();
+	private final AtomicLong totalWrites = new AtomicLong();
+	private final AtomicLong totalErrors = new AtomicLong();
+	private volatile long adjustments = 0;
+
+	private ObjectName mbeanName = null;
+
+	public AdaptiveWriteTuner(
+			final String tableName,
+			final long bufferSize,
+			final int threads ) {
+		this(
+				tableName,
+				bufferSize,
+				threads,
+				DEFAULT_MIN_BUFFER_SIZE,
+				DEFAULT_MAX_BUFFER_SIZE,
+				DEFAULT_MIN_THREADS,
+				DEFAULT_MAX_THREADS,
+				DEFAULT_WINDOW_MILLIS);
+	}
+
+	public AdaptiveWriteTuner(
+			final String tableName,
+			final long bufferSize,
+			final int threads,
+			final long minBufferSize,
+			final long maxBufferSize,
+			final int minThreads,
+			final int maxThreads,
+			final long windowMillis ) {
+		this.tableName = tableName;
+		this.minBufferSize = minBufferSize;
+		this.maxBufferSize = maxBufferSize;
+		this.minThreads = minThreads;
+		this.maxThreads = maxThreads;
+		this.windowMillis = windowMillis;
+		this.bufferSize = Math.max(
+				minBufferSize,
+				Math.min(
+						maxBufferSize,
+						bufferSize));
+		this.threads = Math.max(
+				minThreads,
+				Math.min(
+						maxThreads,
+						threads));
+	}
+
+	/**
+	 * Record a write, or a flush with no bytes
+	 *
+	 * @param bytes
+	 *            the size of the write
+	 * @param latencyNanos
+	 *            the time the write was blocked
+	 * @return true if the settings changed and the writer should be
+	 *         reconfigured
+	 */
+	public boolean recordWrite(
+			final long bytes,
+			final long latencyNanos ) {
+		return recordWrite(
+				bytes,
+				latencyNanos,
+				System.currentTimeMillis());
+	}
+
+	/**
+	 * Record a write at the given time, in milliseconds
+	 */
+	boolean recordWrite(
+			final long bytes,
+			final long latencyNanos,
+			final long now ) {
+		windowBytes.addAndGet(bytes);
+		windowWrites.incrementAndGet();
+		windowLatencyNanos.addAndGet(latencyNanos);
+		totalBytes.addAndGet(bytes);
+		totalWrites.incrementAndGet();
+		return endWindow(now);
+	}
+
+	/**
+	 * Record a write rejected or failed by the server
+	 */
+	public void recordError() {
+		windowErrors.incrementAndGet();
+		totalErrors.incrementAndGet();
+	}
+
+	private boolean endWindow(
+			final long now ) {
+		if ((now - windowStart) < windowMillis) {
+			return false;
+		}
+		synchronized (this) {
+			final long elapsed = now - windowStart;
+			if (elapsed < windowMillis) {
+				// another writer ended the window
+				return false;
+			}
+			final long bytes = windowBytes.getAndSet(0);
+			final long writes = windowWrites.getAndSet(0);
+			final long latencyNanos = windowLatencyNanos.getAndSet(0);
+			final long errors = windowErrors.getAndSet(0);
+			windowStart = now;
+
+			final double lastThroughput = baselineThroughput;
+			throughput = (bytes * 1000.0) / elapsed;
+			meanLatencyMillis = writes > 0 ? latencyNanos / (writes * 1000000.0) : 0;
+			if (errors > 0) {
+				// back off and probe upwards again from the lower settings
+				direction = 1;
+				settled = false;
+				baselineThroughput = -1;
+				return adjust(
+						-1,
+						2.0);
+			}
+			if (latencyNanos < (elapsed * 1000000.0 * MIN_BLOCKED_FRACTION)) {
+				// the writes were hardly blocked, so the writer is not what
+				// limits the throughput
+				baselineThroughput = -1;
+				return false;
+			}
+			baselineThroughput = throughput;
+			if (lastThroughput >= 0) {
+				if (throughput < (lastThroughput * (1 - TOLERANCE))) {
+					direction = -direction;
+					settled = false;
+				}
+				else if (throughput <= (lastThroughput * (1 + TOLERANCE))) {
+					settled = true;
+				}
+				else {
+					settled = false;
+				}
+			}
+			if (settled) {
+				return false;
+			}
+			return adjust(
+					direction,
+					1.5);
+		}
+	}
+
+	private boolean adjust(
+			final int sign,
+			final double factor ) {
+		final long newBufferSize;
+		final int newThreads;
+		if (sign > 0) {
+			newBufferSize = Math.min(
+					maxBufferSize,
+					(long) (bufferSize * factor));
+			newThreads = Math.min(
+					maxThreads,
+					Math.max(
+							threads + 1,
+							(int) (threads * factor)));
+		}
+		else {
+			newBufferSize = Math.max(
+					minBufferSize,
+					(long) (bufferSize / factor));
+			newThreads = Math.max(
+					minThreads,
+					Math.min(
+							threads - 1,
+							(int) (threads / factor)));
+		}
+		if ((newBufferSize == bufferSize) && (newThreads == threads)) {
+			// at a bound, there is nowhere further to go
+			settled = true;
+			return false;
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Writer for table '" + tableName + "' at " + (long) throughput
+					+ " bytes/s, changing buffer size to " + newBufferSize + " bytes and threads to " + newThreads);
+		}
+		bufferSize = newBufferSize;
+		threads = newThreads;
+		adjustments++;
+		return true;
+	}
+
+	/**
+	 * Export the metrics of this tuner over JMX
+	 */
+	public synchronized void register() {
+		if (mbeanName != null) {
+			return;
+		}
+		try {
+			final ObjectName name = new ObjectName(
+					MBEAN_DOMAIN + ":type=AdaptiveWriter,table=" + ObjectName.quote(tableName) + ",id="
+							+ MBEAN_ID.incrementAndGet());
+			ManagementFactory.getPlatformMBeanServer().registerMBean(
+					this,
+					name);
+			mbeanName = name;
+		}
+		catch (final JMException e) {
+			LOGGER.warn(
+					"Unable to register writer metrics for table '" + tableName + "'",
+					e);
+		}
+	}
+
+	public synchronized void unregister() {
+		if (mbeanName == null) {
+			return;
+		}
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if (server.isRegistered(mbeanName)) {
+				server.unregisterMBean(mbeanName);
+			}
+		}
+		catch (final JMException e) {
+			LOGGER.warn(
+					"Unable to unregister writer metrics for table '" + tableName + "'",
+					e);
+		}
+		mbeanName = null;
+	}
+
+	@Override
+	public String getTableName() {
+		return tableName;
+	}
+
+	@Override
+	public long getBufferSize() {
+		return bufferSize;
+	}
+
+	@Override
+	public int getThreads() {
+		return threads;
+	}
+
+	@Override
+	public long getTotalBytes() {
+		return totalBytes.get();
+	}
+
+	@Override
+	public long getTotalWrites() {
+		return totalWrites.get();
+	}
+
+	@Override
+	public long getTotalErrors() {
+		return totalErrors.get();
+	}
+
+	@Override
+	public long getAdjustments() {
+		return adjustments;
+	}
+
+	@Override
+	public double getThroughput() {
+		return throughput;
+	}
+
+	@Override
+	public double getMeanLatencyMillis() {
+		return meanLatencyMillis;
+	}
+}
@@ -0,0 +1,32 @@
+package mil.nga.giat.geowave.core.store.base;
+
+/**
+ * The metrics of an adaptive writer, exported over JMX
+ */
+public interface AdaptiveWriteTunerMXBean
+{
+	public String getTableName();
+
+	public long getBufferSize();
+
+	public int getThreads();
+
+	public long getTotalBytes();
+
+	public long getTotalWrites();
+
+	public long getTotalErrors();
+
+	public long getAdjustments();
+
+	/**
+	 * @return the throughput of the last completed window in bytes per second
+	 */
+	public double getThroughput();
+
+	/**
+	 * @return the mean time a write or flush was blocked in the last completed
+	 *         window in milliseconds, which grows as the buffer backs up
+	 */
+	public double getMeanLatencyMillis();
+}
@@ -21,6 +21,7 @@ import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.CloseableIteratorWrapper;
 import mil.nga.giat.geowave.core.store.DataStoreOperations;
 import mil.nga.giat.geowave.core.store.DataStoreOptions;
+import mil.nga.giat.geowave.core.store.DataStoreStatisticsProvider;
 import mil.nga.giat.geowave.core.store.IndexWriter;
 import mil.nga.giat.geowave.core.store.adapter.AdapterIndexMappingStore;
 import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
@@ -30,12 +31,16 @@ import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
 import mil.nga.giat.geowave.core.store.adapter.exceptions.MismatchedIndexToAdapterMapping;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StatisticsFlushScheduler;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StatisticsProvider;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StatsCompositionTool;
 import mil.nga.giat.geowave.core.store.callback.IngestCallback;
 import mil.nga.giat.geowave.core.store.callback.IngestCallbackList;
 import mil.nga.giat.geowave.core.store.callback.ScanCallback;
 import mil.nga.giat.geowave.core.store.filter.DedupeFilter;
 import mil.nga.giat.geowave.core.store.index.IndexStore;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndexDataAdapter;
 import mil.nga.giat.geowave.core.store.index.SecondaryIndexDataStore;
 import mil.nga.giat.geowave.core.store.index.writer.IndependentAdapterIndexWriter;
 import mil.nga.giat.geowave.core.store.index.writer.IndexCompositeWriter;
@@ -77,6 +82,13 @@ public abstract class BaseDataStore
 
 		baseOperations = operations;
 		baseOptions = options;
+
+		if ((statisticsStore != null) && (options.getStatisticsCompactionInterval() > 0)) {
+			// data stores sharing a statistics store share its compaction
+			StatisticsFlushScheduler.scheduleCompaction(
+					statisticsStore,
+					options.getStatisticsCompactionInterval());
+		}
 	}
 
 	public void store(
@@ -113,6 +125,8 @@ public abstract class BaseDataStore
 					i == 0);
 
 			callbackManager.setPersistStats(baseOptions.isPersistDataStatistics());
+			callbackManager.setStripedStats(baseOptions.isStripedStatistics());
+			callbackManager.setStatsFlushInterval(baseOptions.getStatisticsFlushInterval());
 
 			final List<IngestCallback<T>> callbacks = new ArrayList<IngestCallback<T>>();
 
@@ -412,10 +426,11 @@ public abstract class BaseDataStore
 
 				for (final DataAdapter<Object> adapter : indexAdapterPair.getRight()) {
 
+					final boolean captureAdapterStats = queriedAdapters.add(adapter.getAdapterId());
 					final DataStoreCallbackManager callbackCache = new DataStoreCallbackManager(
 							statisticsStore,
 							secondaryIndexDataStore,
-							queriedAdapters.add(adapter.getAdapterId()));
+							captureAdapterStats);
 
 					callbackCache.setPersistStats(baseOptions.isPersistDataStatistics());
 
@@ -427,6 +442,25 @@ public abstract class BaseDataStore
 						continue;
 					}
 
+					// the alternate and secondary indices are updated from the
+					// deleted entries on the client
+					final boolean persistStats = baseOptions.isPersistDataStatistics()
+							&& (adapter instanceof StatisticsProvider);
+					ServerSideDeleteStatus serverSideStatus = ServerSideDeleteStatus.INCOMPLETE;
+					if ((altIdxDelete == null)
+							&& !(captureAdapterStats && (adapter instanceof SecondaryIndexDataAdapter))) {
+						serverSideStatus = deleteOnServer(
+								adapter,
+								index,
+								query,
+								queryOptions,
+								persistStats,
+								captureAdapterStats);
+						if (serverSideStatus == ServerSideDeleteStatus.COMPLETE) {
+							continue;
+						}
+					}
+
 					final ScanCallback<Object> callback = new ScanCallback<Object>() {
 						@Override
 						public void entryScanned(
@@ -514,6 +548,13 @@ public abstract class BaseDataStore
 								ex);
 					}
 					callbackCache.close();
+					if (persistStats && (serverSideStatus == ServerSideDeleteStatus.STATISTICS_UNKNOWN)) {
+						recalculateStatistics(
+								adapter,
+								index,
+								captureAdapterStats,
+								queryOptions.getAuthorizations());
+					}
 				}
 				if (altIdxDelete != null) {
 					altIdxDelete.close();
@@ -531,6 +572,88 @@ public abstract class BaseDataStore
 		}
 	}
 
+	/**
+	 * Delete the entries of an adapter matching a query on the servers rather
+	 * than scanning them to the client, incorporating the statistics of the
+	 * deleted entries into the stored statistics
+	 *
+	 * @param statistics
+	 *            whether to calculate the statistics of the deleted entries
+	 * @param includeAdapterStats
+	 *            whether to calculate the statistics of the adapter as well as
+	 *            those of the index
+	 * @return whether entries remain to be deleted from the client
+	 */
+	protected ServerSideDeleteStatus deleteOnServer(
+			final DataAdapter<Object> adapter,
+			final PrimaryIndex index,
+			final Query query,
+			final QueryOptions queryOptions,
+			final boolean statistics,
+			final boolean includeAdapterStats )
+			throws IOException {
+		return ServerSideDeleteStatus.INCOMPLETE;
+	}
+
+	/**
+	 * Replace the stored statistics of an adapter in an index with statistics
+	 * calculated by scanning its entries
+	 *
+	 * @param includeAdapterStats
+	 *            whether to calculate the statistics of the adapter as well as
+	 *            those of the index
+	 */
+	protected void recalculateStatistics(
+			final DataAdapter<Object> adapter,
+			final PrimaryIndex index,
+			final boolean includeAdapterStats,
+			final String[] authorizations )
+			throws IOException {
+		final DataStoreStatisticsProvider<Object> statisticsProvider = new DataStoreStatisticsProvider<Object>(
+				adapter,
+				index,
+				includeAdapterStats);
+		removeStatistics(
+				statisticsProvider,
+				statisticsProvider.getSupportedStatisticsTypes(),
+				authorizations);
+		try (StatsCompositionTool<Object> statsTool = new StatsCompositionTool<Object>(
+				statisticsProvider,
+				statisticsStore)) {
+			try (CloseableIterator<?> it = query(
+					new QueryOptions(
+							adapter,
+							index,
+							(Integer) null,
+							statsTool,
+							authorizations),
+					null)) {
+				while (it.hasNext()) {
+					it.next();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove the stored statistics of the given types, so that recalculated
+	 * statistics replace them rather than being merged into them
+	 */
+	protected void removeStatistics(
+			final StatisticsProvider<?> statisticsProvider,
+			final ByteArrayId[] statisticsTypes,
+			final String... authorizations ) {
+		for (final ByteArrayId statisticsType : statisticsTypes) {
+			final DataStatistics<?> statistics = statisticsProvider.createDataStatistics(statisticsType);
+			if (statistics != null) {
+				statisticsStore.removeStatistics(
+						statistics.getDataAdapterId(),
+						statistics.getStatisticsId(),
+						authorizations);
+			}
+		}
+	}
+
 	protected boolean deleteEverything() {
 		try {
 			indexStore.removeAll();
@@ -13,6 +13,7 @@ import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
 import mil.nga.giat.geowave.core.store.adapter.statistics.StatisticsProvider;
 import mil.nga.giat.geowave.core.store.adapter.statistics.StatsCompositionTool;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StripedStatsCompositionTool;
 import mil.nga.giat.geowave.core.store.callback.DeleteCallback;
 import mil.nga.giat.geowave.core.store.callback.DeleteCallbackList;
 import mil.nga.giat.geowave.core.store.callback.IngestCallback;
@@ -27,6 +28,8 @@ public class DataStoreCallbackManager
 
 	final private DataStatisticsStore statsStore;
 	private boolean persistStats = true;
+	private boolean stripedStats = false;
+	private long statsFlushInterval = 0;
 	final private SecondaryIndexDataStore secondaryIndexStore;
 
 	final private boolean captureAdapterStats;
@@ -53,9 +56,7 @@ public class DataStoreCallbackManager
 					captureAdapterStats);
 			final List<IngestCallback<T>> callbackList = new ArrayList<IngestCallback<T>>();
 			if ((writableAdapter instanceof StatisticsProvider) && persistStats) {
-				callbackList.add(new StatsCompositionTool<T>(
-						statsProvider,
-						statsStore));
+				callbackList.add(createStatsTool(statsProvider));
 			}
 			if (captureAdapterStats && writableAdapter instanceof SecondaryIndexDataAdapter<?>) {
 				callbackList.add(new SecondaryIndexDataManager<T>(
@@ -77,6 +78,41 @@ public class DataStoreCallbackManager
 		this.persistStats = persistStats;
 	}
 
+	/**
+	 * Use a thread-striped statistics tool so that writers shared across
+	 * ingest threads do not serialize on statistics updates
+	 */
+	public void setStripedStats(
+			final boolean stripedStats ) {
+		this.stripedStats = stripedStats;
+	}
+
+	/**
+	 * Flush statistics from a background thread at this interval in
+	 * milliseconds instead of only when the callbacks are closed
+	 */
+	public void setStatsFlushInterval(
+			final long statsFlushInterval ) {
+		this.statsFlushInterval = statsFlushInterval;
+	}
+
+	private <T> StatsCompositionTool<T> createStatsTool(
+			final DataStoreStatisticsProvider<T> statsProvider ) {
+		final StatsCompositionTool<T> statsTool;
+		if (stripedStats) {
+			statsTool = new StripedStatsCompositionTool<T>(
+					statsProvider,
+					statsStore);
+		}
+		else {
+			statsTool = new StatsCompositionTool<T>(
+					statsProvider,
+					statsStore);
+		}
+		statsTool.setFlushInterval(statsFlushInterval);
+		return statsTool;
+	}
+
 	public <T> DeleteCallback<T> getDeleteCallback(
 			final WritableDataAdapter<T> writableAdapter,
 			final PrimaryIndex index ) {
@@ -87,9 +123,7 @@ public class DataStoreCallbackManager
 					captureAdapterStats);
 			final List<DeleteCallback<T>> callbackList = new ArrayList<DeleteCallback<T>>();
 			if ((writableAdapter instanceof StatisticsProvider) && persistStats) {
-				callbackList.add(new StatsCompositionTool<T>(
-						statsProvider,
-						statsStore));
+				callbackList.add(createStatsTool(statsProvider));
 			}
 			if (captureAdapterStats && writableAdapter instanceof SecondaryIndexDataAdapter<?>) {
 				callbackList.add(new SecondaryIndexDataManager<T>(
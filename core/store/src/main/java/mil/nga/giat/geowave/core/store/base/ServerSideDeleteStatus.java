@@ -0,0 +1,26 @@
+package mil.nga.giat.geowave.core.store.base;
+
+/**
+ * The outcome of deleting the entries matching a query on the servers rather
+ * than from the client
+ */
+public enum ServerSideDeleteStatus {
+	/**
+	 * Every matching entry was deleted and the statistics of the deleted
+	 * entries are incorporated into the stored statistics
+	 */
+	COMPLETE,
+	/**
+	 * Matching entries may remain, such as entries stored in several rows or
+	 * entries the servers failed to delete, and are to be deleted from the
+	 * client. The statistics of the entries deleted on the servers are
+	 * incorporated into the stored statistics.
+	 */
+	INCOMPLETE,
+	/**
+	 * Matching entries may remain and are to be deleted from the client, but
+	 * the entries deleted on the servers are not known, so the stored
+	 * statistics are to be recalculated once the delete is complete
+	 */
+	STATISTICS_UNKNOWN
+}
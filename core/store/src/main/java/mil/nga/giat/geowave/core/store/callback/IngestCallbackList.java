@@ -30,6 +30,23 @@ public class IngestCallbackList<T> implements
 		}
 	}
 
+	/**
+	 * @return true if the callback, or every callback of a list, can be called
+	 *         by several threads at once
+	 */
+	public static boolean isThreadSafe(
+			final IngestCallback<?> callback ) {
+		if (callback instanceof IngestCallbackList) {
+			for (final IngestCallback<?> c : ((IngestCallbackList<?>) callback).callbacks) {
+				if (!isThreadSafe(c)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return callback instanceof ThreadSafeCallback;
+	}
+
 	@Override
 	public void close()
 			throws IOException {
@@ -0,0 +1,10 @@
+package mil.nga.giat.geowave.core.store.callback;
+
+/**
+ * Marks a callback that can be called by several threads at once, so that a
+ * writer shared by those threads can call it without holding its own lock
+ */
+public interface ThreadSafeCallback
+{
+
+}
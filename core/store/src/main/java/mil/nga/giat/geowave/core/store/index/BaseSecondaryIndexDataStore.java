@@ -2,29 +2,139 @@ package mil.nga.giat.geowave.core.store.index;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.CloseableIteratorWrapper;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
 import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo.FieldInfo;
 import mil.nga.giat.geowave.core.store.base.Writer;
 import mil.nga.giat.geowave.core.store.filter.DistributableFilterList;
 import mil.nga.giat.geowave.core.store.filter.DistributableQueryFilter;
+import mil.nga.giat.geowave.core.store.query.DistributableQuery;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.log4j.Logger;
 
+import com.google.common.primitives.UnsignedBytes;
+
+/**
+ * Secondary index mutations are buffered per secondary index table rather than
+ * written per ingested entry. A buffer is written once it reaches the batch
+ * size, sorted by row and with mutations of the same row coalesced (see
+ * {@link #coalesce(List)}), and all buffers are written on {@link #flush()},
+ * which is invoked with the flush of the primary index writer.
+ *
+ * @param <MutationType>
+ */
 public abstract class BaseSecondaryIndexDataStore<MutationType> implements
 		SecondaryIndexDataStore,
 		Closeable
 {
 
 	private final static Logger LOGGER = Logger.getLogger(BaseSecondaryIndexDataStore.class);
+	public final static int DEFAULT_BATCH_SIZE = 1000;
 	protected final Map<String, Writer<MutationType>> writerCache = new HashMap<>();
 	protected final static byte[] EMPTY_VALUE = new byte[0];
+	private final Map<ByteArrayId, List<MutationType>> mutationBuffers = new HashMap<>();
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	protected DataStore dataStore = null;
+
+	private final Comparator<MutationType> rowComparator = new Comparator<MutationType>() {
+		private final Comparator<byte[]> bytesComparator = UnsignedBytes.lexicographicalComparator();
+
+		@Override
+		public int compare(
+				final MutationType o1,
+				final MutationType o2 ) {
+			return bytesComparator.compare(
+					getRowId(o1),
+					getRowId(o2));
+		}
+	};
 
 	public BaseSecondaryIndexDataStore() {}
 
+	@Override
+	public void setDataStore(
+			final DataStore dataStore ) {
+		this.dataStore = dataStore;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * 
+	 * @param batchSize
+	 *            the number of mutations buffered per secondary index before
+	 *            they are written. A size of one or less writes each mutation
+	 *            immediately.
+	 */
+	public void setBatchSize(
+			final int batchSize ) {
+		this.batchSize = batchSize;
+	}
+
+	private synchronized void write(
+			final ByteArrayId secondaryIndexId,
+			final MutationType mutation ) {
+		if (batchSize <= 1) {
+			final Writer<MutationType> writer = getWriter(secondaryIndexId);
+			if (writer != null) {
+				writer.write(mutation);
+			}
+			return;
+		}
+		List<MutationType> buffer = mutationBuffers.get(secondaryIndexId);
+		if (buffer == null) {
+			buffer = new ArrayList<>(
+					batchSize);
+			mutationBuffers.put(
+					secondaryIndexId,
+					buffer);
+		}
+		buffer.add(mutation);
+		if (buffer.size() >= batchSize) {
+			writeBuffer(
+					secondaryIndexId,
+					buffer);
+		}
+	}
+
+	private void writeBuffer(
+			final ByteArrayId secondaryIndexId,
+			final List<MutationType> buffer ) {
+		if (buffer.isEmpty()) {
+			return;
+		}
+		final Writer<MutationType> writer = getWriter(secondaryIndexId);
+		if (writer != null) {
+			// a stable sort retains the order of mutations to the same row
+			Collections.sort(
+					buffer,
+					rowComparator);
+			writer.write(coalesce(buffer));
+		}
+		buffer.clear();
+	}
+
+	private synchronized void writeBuffers() {
+		for (final Map.Entry<ByteArrayId, List<MutationType>> buffer : mutationBuffers.entrySet()) {
+			writeBuffer(
+					buffer.getKey(),
+					buffer.getValue());
+		}
+	}
+
 	@Override
 	public void storeJoinEntry(
 			final ByteArrayId secondaryIndexId,
@@ -35,16 +145,15 @@ public abstract class BaseSecondaryIndexDataStore<MutationType> implements
 			final ByteArrayId primaryIndexRowId,
 			final ByteArrayId attributeVisibility ) {
 		try {
-			final Writer<MutationType> writer = getWriter(secondaryIndexId);
-			if (writer != null) {
-				writer.write(buildJoinMutation(
-						indexedAttributeValue.getBytes(),
-						adapterId.getBytes(),
-						indexedAttributeFieldId.getBytes(),
-						primaryIndexId.getBytes(),
-						primaryIndexRowId.getBytes(),
-						attributeVisibility.getBytes()));
-			}
+			write(
+					secondaryIndexId,
+					buildJoinMutation(
+							indexedAttributeValue.getBytes(),
+							adapterId.getBytes(),
+							indexedAttributeFieldId.getBytes(),
+							primaryIndexId.getBytes(),
+							primaryIndexRowId.getBytes(),
+							attributeVisibility.getBytes()));
 		}
 		catch (final Exception e) {
 			LOGGER.error(
@@ -63,18 +172,17 @@ public abstract class BaseSecondaryIndexDataStore<MutationType> implements
 			final ByteArrayId attributeVisibility,
 			final List<FieldInfo<?>> attributes ) {
 		try {
-			final Writer<MutationType> writer = getWriter(secondaryIndexId);
-			if (writer != null) {
-				for (final FieldInfo<?> indexedAttribute : attributes) {
-					writer.write(buildMutation(
-							indexedAttributeValue.getBytes(),
-							adapterId.getBytes(),
-							indexedAttributeFieldId.getBytes(),
-							dataId.getBytes(),
-							indexedAttribute.getDataValue().getId().getBytes(),
-							indexedAttribute.getWrittenValue(),
-							indexedAttribute.getVisibility()));
-				}
+			for (final FieldInfo<?> indexedAttribute : attributes) {
+				write(
+						secondaryIndexId,
+						buildMutation(
+								indexedAttributeValue.getBytes(),
+								adapterId.getBytes(),
+								indexedAttributeFieldId.getBytes(),
+								dataId.getBytes(),
+								indexedAttribute.getDataValue().getId().getBytes(),
+								indexedAttribute.getWrittenValue(),
+								indexedAttribute.getVisibility()));
 			}
 		}
 		catch (final Exception e) {
@@ -84,6 +192,100 @@ public abstract class BaseSecondaryIndexDataStore<MutationType> implements
 		}
 	}
 
+	/**
+	 * The primary index row ids referenced by every secondary index but the
+	 * first are collected and intersected (see
+	 * {@link SecondaryIndexQueryExecutor}), and the join entries of the first
+	 * secondary index are streamed through the intersection, fetching the
+	 * primary index rows in batches. When a primary index is provided, only
+	 * the rows stored in that primary index are fetched; otherwise the rows
+	 * are fetched from every primary index referenced by the join entries.
+	 */
+	@Override
+	public <T> CloseableIterator<T> query(
+			final List<SecondaryIndex<T>> secondaryIndices,
+			final List<ByteArrayId> indexedAttributeFieldIds,
+			final DataAdapter<T> adapter,
+			final PrimaryIndex primaryIndex,
+			final DistributableQuery query,
+			final String... authorizations ) {
+		if (secondaryIndices.isEmpty() || (secondaryIndices.size() != indexedAttributeFieldIds.size())) {
+			throw new IllegalArgumentException(
+					"Each secondary index requires exactly one indexed attribute");
+		}
+		for (final SecondaryIndex<T> secondaryIndex : secondaryIndices) {
+			if (!secondaryIndex.getSecondaryIndexType().equals(
+					SecondaryIndexType.JOIN)) {
+				throw new IllegalArgumentException(
+						"Only join secondary indices can be combined, '" + secondaryIndex.getId().getString()
+								+ "' is " + secondaryIndex.getSecondaryIndexType());
+			}
+		}
+		final ByteArrayId primaryIndexId = (primaryIndex == null) ? null : primaryIndex.getId();
+		Map<ByteArrayId, ByteArrayId[]> rowIdsPerIndex = null;
+		for (int i = 1; i < secondaryIndices.size(); i++) {
+			Map<ByteArrayId, ByteArrayId[]> rowIds = Collections.emptyMap();
+			try (final CloseableIterator<Pair<ByteArrayId, ByteArrayId>> joinEntries = getJoinEntries(
+					secondaryIndices.get(i),
+					indexedAttributeFieldIds.get(i),
+					adapter,
+					query,
+					authorizations)) {
+				rowIds = SecondaryIndexQueryExecutor.collect(SecondaryIndexQueryExecutor.filter(
+						joinEntries,
+						primaryIndexId,
+						null));
+			}
+			catch (final IOException e) {
+				LOGGER.warn(
+						"Unable to close secondary index scan",
+						e);
+			}
+			rowIdsPerIndex = (rowIdsPerIndex == null) ? rowIds : SecondaryIndexQueryExecutor.intersect(
+					rowIdsPerIndex,
+					rowIds);
+			if (rowIdsPerIndex.isEmpty()) {
+				return new CloseableIterator.Empty<T>();
+			}
+		}
+		final CloseableIterator<Pair<ByteArrayId, ByteArrayId>> joinEntries = getJoinEntries(
+				secondaryIndices.get(0),
+				indexedAttributeFieldIds.get(0),
+				adapter,
+				query,
+				authorizations);
+		return new SecondaryIndexQueryExecutor(
+				dataStore).fetch(
+				adapter,
+				new CloseableIteratorWrapper<Pair<ByteArrayId, ByteArrayId>>(
+						joinEntries,
+						SecondaryIndexQueryExecutor.filter(
+								joinEntries,
+								primaryIndexId,
+								rowIdsPerIndex)),
+				authorizations);
+	}
+
+	/**
+	 * Query a single join secondary index, fetching the referenced primary
+	 * index rows in batches.
+	 */
+	protected <T> CloseableIterator<T> queryJoin(
+			final SecondaryIndex<T> secondaryIndex,
+			final ByteArrayId indexedAttributeFieldId,
+			final DataAdapter<T> adapter,
+			final PrimaryIndex primaryIndex,
+			final DistributableQuery query,
+			final String... authorizations ) {
+		return query(
+				Collections.singletonList(secondaryIndex),
+				Collections.singletonList(indexedAttributeFieldId),
+				adapter,
+				primaryIndex,
+				query,
+				authorizations);
+	}
+
 	protected static DistributableQueryFilter getFilter(
 			final List<DistributableQueryFilter> constraints ) {
 		final DistributableQueryFilter filter;
@@ -110,15 +312,14 @@ public abstract class BaseSecondaryIndexDataStore<MutationType> implements
 			final ByteArrayId primaryIndexId,
 			final ByteArrayId primaryIndexRowId ) {
 		try {
-			final Writer<MutationType> writer = getWriter(secondaryIndexId);
-			if (writer != null) {
-				writer.write(buildJoinDeleteMutation(
-						indexedAttributeValue.getBytes(),
-						adapterId.getBytes(),
-						indexedAttributeFieldId.getBytes(),
-						primaryIndexId.getBytes(),
-						primaryIndexRowId.getBytes()));
-			}
+			write(
+					secondaryIndexId,
+					buildJoinDeleteMutation(
+							indexedAttributeValue.getBytes(),
+							adapterId.getBytes(),
+							indexedAttributeFieldId.getBytes(),
+							primaryIndexId.getBytes(),
+							primaryIndexRowId.getBytes()));
 		}
 		catch (final Exception e) {
 			LOGGER.error(
@@ -136,16 +337,15 @@ public abstract class BaseSecondaryIndexDataStore<MutationType> implements
 			final ByteArrayId dataId,
 			final List<FieldInfo<?>> attributes ) {
 		try {
-			final Writer<MutationType> writer = getWriter(secondaryIndexId);
-			if (writer != null) {
-				for (FieldInfo<?> attribute : attributes) {
-					writer.write(buildFullDeleteMutation(
-							indexedAttributeValue.getBytes(),
-							adapterId.getBytes(),
-							indexedAttributeFieldId.getBytes(),
-							dataId.getBytes(),
-							attribute.getDataValue().getId().getBytes()));
-				}
+			for (final FieldInfo<?> attribute : attributes) {
+				write(
+						secondaryIndexId,
+						buildFullDeleteMutation(
+								indexedAttributeValue.getBytes(),
+								adapterId.getBytes(),
+								indexedAttributeFieldId.getBytes(),
+								dataId.getBytes(),
+								attribute.getDataValue().getId().getBytes()));
 			}
 		}
 		catch (final Exception e) {
@@ -156,13 +356,15 @@ public abstract class BaseSecondaryIndexDataStore<MutationType> implements
 	}
 
 	@Override
-	public void removeAll() {
+	public synchronized void removeAll() {
 		close();
 		writerCache.clear();
 	}
 
 	@Override
-	public void close() {
+	public synchronized void close() {
+		writeBuffers();
+		mutationBuffers.clear();
 		for (final Writer<MutationType> writer : writerCache.values()) {
 			try {
 				writer.close();
@@ -176,9 +378,48 @@ public abstract class BaseSecondaryIndexDataStore<MutationType> implements
 		writerCache.clear();
 	}
 
+	/**
+	 * Write all buffered mutations and flush the secondary index writers,
+	 * leaving them open.
+	 */
 	@Override
-	public void flush() {
-		close();
+	public synchronized void flush() {
+		writeBuffers();
+		for (final Writer<MutationType> writer : writerCache.values()) {
+			writer.flush();
+		}
+	}
+
+	/**
+	 * 
+	 * @return the join entries of the secondary index matching the secondary
+	 *         index constraints of the query, as pairs of primary index id and
+	 *         primary index row id
+	 */
+	protected abstract <T> CloseableIterator<Pair<ByteArrayId, ByteArrayId>> getJoinEntries(
+			final SecondaryIndex<T> secondaryIndex,
+			final ByteArrayId indexedAttributeFieldId,
+			final DataAdapter<T> adapter,
+			final DistributableQuery query,
+			final String... authorizations );
+
+	/**
+	 * 
+	 * @return the row of the mutation, used to sort a batch of mutations
+	 */
+	protected abstract byte[] getRowId(
+			final MutationType mutation );
+
+	/**
+	 * Combine consecutive mutations to the same row of a batch sorted by row.
+	 * By default, the mutations are written as they are.
+	 * 
+	 * @param sortedMutations
+	 * @return the mutations to write
+	 */
+	protected List<MutationType> coalesce(
+			final List<MutationType> sortedMutations ) {
+		return sortedMutations;
 	}
 
 	protected abstract MutationType buildJoinMutation(
@@ -16,6 +16,7 @@ import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
 import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
 import mil.nga.giat.geowave.core.store.base.Writer;
 import mil.nga.giat.geowave.core.store.callback.IngestCallback;
+import mil.nga.giat.geowave.core.store.callback.IngestCallbackList;
 import mil.nga.giat.geowave.core.store.data.VisibilityWriter;
 import mil.nga.giat.geowave.core.store.util.DataStoreUtils;
 
@@ -33,6 +34,7 @@ public abstract class DataStoreIndexWriter<T, MutationType> implements
 	protected final DataStoreOperations operations;
 	protected final DataStoreOptions options;
 	protected final IngestCallback<T> callback;
+	private final boolean callbackThreadSafe;
 	protected Writer<MutationType> writer;
 
 	protected final DataAdapter<T> adapter;
@@ -50,6 +52,7 @@ public abstract class DataStoreIndexWriter<T, MutationType> implements
 		this.operations = operations;
 		this.options = options;
 		this.callback = callback;
+		callbackThreadSafe = IngestCallbackList.isThreadSafe(callback);
 		this.adapter = adapter;
 		this.adapterId = adapter.getAdapterId().getBytes();
 		this.closable = closable;
@@ -107,6 +110,15 @@ public abstract class DataStoreIndexWriter<T, MutationType> implements
 				LOGGER.error("Null EntryInfo - empty list returned");
 				return Collections.emptyList();
 			}
+			if (!callbackThreadSafe) {
+				callback.entryIngested(
+						entryInfo,
+						entry);
+			}
+		}
+		if (callbackThreadSafe) {
+			// the callback does its own locking, so threads sharing this
+			// writer do not serialize on it
 			callback.entryIngested(
 					entryInfo,
 					entry);
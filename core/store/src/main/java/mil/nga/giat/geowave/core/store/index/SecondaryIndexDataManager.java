@@ -1,6 +1,7 @@
 package mil.nga.giat.geowave.core.store.index;
 
 import java.io.Closeable;
+import java.io.Flushable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -17,12 +18,15 @@ import mil.nga.giat.geowave.core.store.callback.IngestCallback;
 /**
  * One manager associated with each primary index.
  * 
+ * Secondary index entries are written through the secondary index store, which
+ * may buffer them until the primary index writer is flushed or closed.
  * 
  * @param <T>
  *            The type of entity being indexed
  */
 public class SecondaryIndexDataManager<T> implements
 		Closeable,
+		Flushable,
 		IngestCallback<T>,
 		DeleteCallback<T>
 {
@@ -44,6 +48,14 @@ public class SecondaryIndexDataManager<T> implements
 	public void entryIngested(
 			final DataStoreEntryInfo entryInfo,
 			final T entry ) {
+		if (entryInfo.getRowIds().isEmpty()) {
+			// the entry could not be indexed, so it has no row to refer to
+			return;
+		}
+		final ByteArrayId primaryIndexRowId = entryInfo.getRowIds().get(
+				0);
+		final ByteArrayId dataId = new ByteArrayId(
+				entryInfo.getDataId());
 		// loop secondary indices for adapter
 		for (final SecondaryIndex<T> secondaryIndex : adapter.getSupportedSecondaryIndices()) {
 			final ByteArrayId indexedAttributeFieldId = secondaryIndex.getFieldId();
@@ -57,12 +69,8 @@ public class SecondaryIndexDataManager<T> implements
 					Arrays.asList(indexedAttributeFieldInfo));
 			// loop insertionIds
 			for (final ByteArrayId insertionId : secondaryIndexInsertionIds) {
-				final ByteArrayId primaryIndexRowId = entryInfo.getRowIds().get(
-						0);
 				final ByteArrayId attributeVisibility = new ByteArrayId(
 						indexedAttributeFieldInfo.getVisibility());
-				final ByteArrayId dataId = new ByteArrayId(
-						entryInfo.getDataId());
 				switch (secondaryIndex.getSecondaryIndexType()) {
 					case JOIN:
 						secondaryIndexStore.storeJoinEntry(
@@ -120,6 +128,9 @@ public class SecondaryIndexDataManager<T> implements
 	public void entryDeleted(
 			final DataStoreEntryInfo entryInfo,
 			final T entry ) {
+		if (entryInfo.getRowIds().isEmpty()) {
+			return;
+		}
 		// loop secondary indices for adapter
 		for (final SecondaryIndex<T> secondaryIndex : adapter.getSupportedSecondaryIndices()) {
 			final ByteArrayId indexedAttributeFieldId = secondaryIndex.getFieldId();
@@ -202,11 +213,22 @@ public class SecondaryIndexDataManager<T> implements
 	}
 
 	@Override
-	public void close()
+	public void flush()
 			throws IOException {
 		if (secondaryIndexStore != null) {
 			secondaryIndexStore.flush();
 		}
 	}
 
+	@Override
+	public void close()
+			throws IOException {
+		if (secondaryIndexStore instanceof Closeable) {
+			((Closeable) secondaryIndexStore).close();
+		}
+		else if (secondaryIndexStore != null) {
+			secondaryIndexStore.flush();
+		}
+	}
+
 }
\ No newline at end of file
@@ -83,6 +83,29 @@ public interface SecondaryIndexDataStore
 			final DistributableQuery query,
 			final String... authorizations );
 
+	/**
+	 * Execute a query constrained on several attributes, each through its own
+	 * join secondary index, returning the entries that satisfy the constraints
+	 * of all of the secondary indices
+	 * 
+	 * @param secondaryIndices
+	 * @param indexedAttributeFieldIds
+	 *            the indexed attribute of each secondary index, in the same
+	 *            order
+	 * @param adapter
+	 * @param primaryIndex
+	 * @param query
+	 * @param authorizations
+	 * @return
+	 */
+	public <T> CloseableIterator<T> query(
+			final List<SecondaryIndex<T>> secondaryIndices,
+			final List<ByteArrayId> indexedAttributeFieldIds,
+			final DataAdapter<T> adapter,
+			final PrimaryIndex primaryIndex,
+			final DistributableQuery query,
+			final String... authorizations );
+
 	public void deleteJoinEntry(
 			final ByteArrayId secondaryIndexId,
 			final ByteArrayId indexedAttributeValue,
@@ -0,0 +1,345 @@
+package mil.nga.giat.geowave.core.store.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+import mil.nga.giat.geowave.core.store.query.RowIdQuery;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterators;
+
+/**
+ * Resolves join entries of one or more secondary indices against the primary
+ * indices.
+ *
+ * The join entries of a secondary index are streamed into batches of primary
+ * index row ids, each batch sorted, without duplicates and issued as a single
+ * {@link RowIdQuery} against its primary index when the previous batch is
+ * exhausted, so at most one batch of row ids is held at a time. Duplicate row
+ * ids are only dropped within a batch, which is enough for the single entry a
+ * row has per attribute value and primary index.
+ *
+ * A lookup constrained on multiple attributes collects the row ids of all but
+ * one of the secondary indices into sorted arrays per primary index,
+ * intersects them with a merge of the arrays, and streams the join entries of
+ * the remaining secondary index through the intersection.
+ */
+public class SecondaryIndexQueryExecutor
+{
+	private final static Logger LOGGER = Logger.getLogger(SecondaryIndexQueryExecutor.class);
+	public final static int DEFAULT_BATCH_SIZE = 1000;
+	private final DataStore dataStore;
+	private final int batchSize;
+
+	public SecondaryIndexQueryExecutor(
+			final DataStore dataStore ) {
+		this(
+				dataStore,
+				DEFAULT_BATCH_SIZE);
+	}
+
+	public SecondaryIndexQueryExecutor(
+			final DataStore dataStore,
+			final int batchSize ) {
+		this.dataStore = dataStore;
+		this.batchSize = Math.max(
+				1,
+				batchSize);
+	}
+
+	/**
+	 *
+	 * @param joinEntries
+	 *            pairs of primary index id and primary index row id
+	 * @return the sorted, distinct row ids per primary index id
+	 */
+	public static Map<ByteArrayId, ByteArrayId[]> collect(
+			final Iterator<Pair<ByteArrayId, ByteArrayId>> joinEntries ) {
+		final Map<ByteArrayId, List<ByteArrayId>> rowIdLists = group(
+				joinEntries,
+				Integer.MAX_VALUE);
+		final Map<ByteArrayId, ByteArrayId[]> rowIdsPerIndex = new LinkedHashMap<ByteArrayId, ByteArrayId[]>();
+		for (final Entry<ByteArrayId, List<ByteArrayId>> entry : rowIdLists.entrySet()) {
+			rowIdsPerIndex.put(
+					entry.getKey(),
+					sortDistinct(entry.getValue()));
+		}
+		return rowIdsPerIndex;
+	}
+
+	/**
+	 * Read up to the given number of join entries, grouping the row ids by
+	 * primary index id.
+	 */
+	private static Map<ByteArrayId, List<ByteArrayId>> group(
+			final Iterator<Pair<ByteArrayId, ByteArrayId>> joinEntries,
+			final int maxEntries ) {
+		final Map<ByteArrayId, List<ByteArrayId>> rowIdLists = new LinkedHashMap<ByteArrayId, List<ByteArrayId>>();
+		int entries = 0;
+		while ((entries < maxEntries) && joinEntries.hasNext()) {
+			final Pair<ByteArrayId, ByteArrayId> entry = joinEntries.next();
+			List<ByteArrayId> rowIds = rowIdLists.get(entry.getLeft());
+			if (rowIds == null) {
+				rowIds = new ArrayList<ByteArrayId>();
+				rowIdLists.put(
+						entry.getLeft(),
+						rowIds);
+			}
+			rowIds.add(entry.getRight());
+			entries++;
+		}
+		return rowIdLists;
+	}
+
+	/**
+	 * Sort the row ids and drop duplicates.
+	 */
+	private static ByteArrayId[] sortDistinct(
+			final List<ByteArrayId> rowIds ) {
+		Collections.sort(rowIds);
+		int size = 0;
+		for (final ByteArrayId rowId : rowIds) {
+			if ((size == 0) || !rowIds.get(
+					size - 1).equals(
+					rowId)) {
+				rowIds.set(
+						size++,
+						rowId);
+			}
+		}
+		return rowIds.subList(
+				0,
+				size).toArray(
+				new ByteArrayId[size]);
+	}
+
+	/**
+	 * Filter join entries to the given primary index and to the row ids of a
+	 * previous lookup.
+	 *
+	 * @param primaryIndexId
+	 *            the only primary index to keep, or null to keep every primary
+	 *            index
+	 * @param rowIdsPerIndex
+	 *            the sorted row ids to keep per primary index id, or null to
+	 *            keep every row id
+	 */
+	public static Iterator<Pair<ByteArrayId, ByteArrayId>> filter(
+			final Iterator<Pair<ByteArrayId, ByteArrayId>> joinEntries,
+			final ByteArrayId primaryIndexId,
+			final Map<ByteArrayId, ByteArrayId[]> rowIdsPerIndex ) {
+		if ((primaryIndexId == null) && (rowIdsPerIndex == null)) {
+			return joinEntries;
+		}
+		return Iterators.filter(
+				joinEntries,
+				new Predicate<Pair<ByteArrayId, ByteArrayId>>() {
+					@Override
+					public boolean apply(
+							final Pair<ByteArrayId, ByteArrayId> entry ) {
+						if ((primaryIndexId != null) && !primaryIndexId.equals(entry.getLeft())) {
+							return false;
+						}
+						if (rowIdsPerIndex == null) {
+							return true;
+						}
+						final ByteArrayId[] rowIds = rowIdsPerIndex.get(entry.getLeft());
+						return (rowIds != null) && (Arrays.binarySearch(
+								rowIds,
+								entry.getRight()) >= 0);
+					}
+				});
+	}
+
+	/**
+	 * Intersect two sorted arrays of distinct row ids.
+	 */
+	public static ByteArrayId[] intersect(
+			final ByteArrayId[] rowIds1,
+			final ByteArrayId[] rowIds2 ) {
+		final ByteArrayId[] intersection = new ByteArrayId[Math.min(
+				rowIds1.length,
+				rowIds2.length)];
+		int size = 0;
+		int i = 0;
+		int j = 0;
+		while ((i < rowIds1.length) && (j < rowIds2.length)) {
+			final int cmp = rowIds1[i].compareTo(rowIds2[j]);
+			if (cmp < 0) {
+				i++;
+			}
+			else if (cmp > 0) {
+				j++;
+			}
+			else {
+				intersection[size++] = rowIds1[i];
+				i++;
+				j++;
+			}
+		}
+		if (size == intersection.length) {
+			return intersection;
+		}
+		final ByteArrayId[] result = new ByteArrayId[size];
+		System.arraycopy(
+				intersection,
+				0,
+				result,
+				0,
+				size);
+		return result;
+	}
+
+	/**
+	 * Intersect the row ids of two secondary index lookups, per primary index.
+	 * Primary indices with no row ids in common are dropped.
+	 */
+	public static Map<ByteArrayId, ByteArrayId[]> intersect(
+			final Map<ByteArrayId, ByteArrayId[]> rowIdsPerIndex1,
+			final Map<ByteArrayId, ByteArrayId[]> rowIdsPerIndex2 ) {
+		final Map<ByteArrayId, ByteArrayId[]> intersection = new LinkedHashMap<ByteArrayId, ByteArrayId[]>();
+		for (final Entry<ByteArrayId, ByteArrayId[]> entry : rowIdsPerIndex1.entrySet()) {
+			final ByteArrayId[] otherRowIds = rowIdsPerIndex2.get(entry.getKey());
+			if (otherRowIds != null) {
+				final ByteArrayId[] rowIds = intersect(
+						entry.getValue(),
+						otherRowIds);
+				if (rowIds.length > 0) {
+					intersection.put(
+							entry.getKey(),
+							rowIds);
+				}
+			}
+		}
+		return intersection;
+	}
+
+	/**
+	 * Fetch the entries of the adapter stored under the primary index row ids
+	 * of the join entries. Each batch of join entries is read and queried when
+	 * the previous batch is exhausted, and the join entries are closed with
+	 * the returned iterator.
+	 */
+	public <T> CloseableIterator<T> fetch(
+			final DataAdapter<T> adapter,
+			final CloseableIterator<Pair<ByteArrayId, ByteArrayId>> joinEntries,
+			final String... authorizations ) {
+		return new BatchedRowIdIterator<T>(
+				adapter,
+				joinEntries,
+				authorizations);
+	}
+
+	private class BatchedRowIdIterator<T> implements
+			CloseableIterator<T>
+	{
+		private final DataAdapter<T> adapter;
+		private final CloseableIterator<Pair<ByteArrayId, ByteArrayId>> joinEntries;
+		private final String[] authorizations;
+		private final LinkedList<Pair<ByteArrayId, ByteArrayId[]>> batches = new LinkedList<Pair<ByteArrayId, ByteArrayId[]>>();
+		private CloseableIterator<T> current = null;
+
+		private BatchedRowIdIterator(
+				final DataAdapter<T> adapter,
+				final CloseableIterator<Pair<ByteArrayId, ByteArrayId>> joinEntries,
+				final String[] authorizations ) {
+			this.adapter = adapter;
+			this.joinEntries = joinEntries;
+			this.authorizations = authorizations;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while ((current == null) || !current.hasNext()) {
+				closeCurrent();
+				if (batches.isEmpty() && !readBatches()) {
+					return false;
+				}
+				final Pair<ByteArrayId, ByteArrayId[]> batch = batches.removeFirst();
+				final QueryOptions options = new QueryOptions(
+						adapter.getAdapterId(),
+						batch.getLeft());
+				options.setAuthorizations(authorizations);
+				current = dataStore.query(
+						options,
+						new RowIdQuery(
+								Arrays.asList(batch.getRight())));
+			}
+			return true;
+		}
+
+		/**
+		 * Read the next batch of join entries, one batch of row ids per
+		 * primary index they reference.
+		 */
+		private boolean readBatches() {
+			for (final Entry<ByteArrayId, List<ByteArrayId>> entry : group(
+					joinEntries,
+					batchSize).entrySet()) {
+				batches.add(Pair.of(
+						entry.getKey(),
+						sortDistinct(entry.getValue())));
+			}
+			return !batches.isEmpty();
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return current.next();
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close()
+				throws IOException {
+			batches.clear();
+			try {
+				if (current != null) {
+					current.close();
+					current = null;
+				}
+			}
+			finally {
+				joinEntries.close();
+			}
+		}
+
+		private void closeCurrent() {
+			if (current != null) {
+				try {
+					current.close();
+				}
+				catch (final IOException e) {
+					LOGGER.warn(
+							"Unable to close primary index results",
+							e);
+				}
+				current = null;
+			}
+		}
+	}
+}
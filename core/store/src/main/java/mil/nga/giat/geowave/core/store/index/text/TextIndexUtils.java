@@ -0,0 +1,60 @@
+package mil.nga.giat.geowave.core.store.index.text;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.StringUtils;
+
+/**
+ * Ranges over text secondary index keys. Keys are UTF-8 encoded, which never
+ * contains the byte 0xFF, so a key made of a prefix followed by 0xFF sorts
+ * after every key starting with the prefix.
+ */
+public class TextIndexUtils
+{
+	private static final byte MAX_BYTE = (byte) 0xFF;
+
+	/**
+	 * A range covering every text key
+	 */
+	public static final ByteArrayRange ALL_RANGE = new ByteArrayRange(
+			new ByteArrayId(
+					new byte[0]),
+			new ByteArrayId(
+					new byte[] {
+						MAX_BYTE
+					}));
+
+	public static ByteArrayRange getExactRange(
+			final String value ) {
+		return new ByteArrayRange(
+				new ByteArrayId(
+						value),
+				new ByteArrayId(
+						value));
+	}
+
+	public static ByteArrayRange getPrefixRange(
+			final String prefix ) {
+		final byte[] start = StringUtils.stringToBinary(prefix);
+		final byte[] end = Arrays.copyOf(
+				start,
+				start.length + 1);
+		end[start.length] = MAX_BYTE;
+		return new ByteArrayRange(
+				new ByteArrayId(
+						start),
+				new ByteArrayId(
+						end));
+	}
+
+	/**
+	 * The form in which case insensitive text indices store values
+	 */
+	public static String normalize(
+			final String value ) {
+		return value.toLowerCase(Locale.ENGLISH);
+	}
+}
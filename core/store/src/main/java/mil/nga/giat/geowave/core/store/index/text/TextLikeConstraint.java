@@ -0,0 +1,163 @@
+package mil.nga.giat.geowave.core.store.index.text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.store.filter.DistributableQueryFilter;
+import mil.nga.giat.geowave.core.store.index.FilterableConstraints;
+
+/**
+ * A text constraint matching a LIKE pattern, in which '%' matches any sequence
+ * of characters, '_' matches any single character and '\' escapes the
+ * character following it.
+ * 
+ * The ranges of the constraint cover every value that can match the pattern,
+ * and the filter of the constraint matches the pattern exactly.
+ */
+public class TextLikeConstraint extends
+		TextQueryConstraint
+{
+	public static final char WILDCARD = '%';
+	public static final char SINGLE_CHAR = '_';
+	public static final char ESCAPE = '\\';
+
+	private final List<String> literals = new ArrayList<>();
+	private final String prefix;
+	private final boolean hasWildcards;
+
+	public TextLikeConstraint(
+			final ByteArrayId fieldId,
+			final String pattern,
+			final boolean caseSensitive ) {
+		super(
+				fieldId,
+				pattern,
+				caseSensitive);
+		StringBuilder literal = new StringBuilder();
+		String leadingLiteral = null;
+		for (int i = 0; i < pattern.length(); i++) {
+			final char c = pattern.charAt(i);
+			if ((c == ESCAPE) && ((i + 1) < pattern.length())) {
+				literal.append(pattern.charAt(++i));
+			}
+			else if ((c == WILDCARD) || (c == SINGLE_CHAR)) {
+				if (leadingLiteral == null) {
+					leadingLiteral = literal.toString();
+				}
+				if (literal.length() > 0) {
+					literals.add(literal.toString());
+					literal = new StringBuilder();
+				}
+			}
+			else {
+				literal.append(c);
+			}
+		}
+		if (literal.length() > 0) {
+			literals.add(literal.toString());
+		}
+		hasWildcards = leadingLiteral != null;
+		prefix = hasWildcards ? leadingLiteral : literal.toString();
+	}
+
+	/**
+	 * Convert a pattern using the given wildcard, single character and escape
+	 * strings into the pattern syntax of this constraint. A null string is not
+	 * recognized in the pattern.
+	 */
+	public static String toPattern(
+			final String pattern,
+			final String wildcard,
+			final String singleChar,
+			final String escape ) {
+		final String wildcardString = (wildcard == null) ? "" : wildcard;
+		final String singleCharString = (singleChar == null) ? "" : singleChar;
+		final String escapeString = (escape == null) ? "" : escape;
+		final StringBuilder result = new StringBuilder();
+		int i = 0;
+		while (i < pattern.length()) {
+			if (!escapeString.isEmpty() && pattern.startsWith(
+					escapeString,
+					i) && ((i + escapeString.length()) < pattern.length())) {
+				i += escapeString.length();
+				result.append(
+						ESCAPE).append(
+						pattern.charAt(i));
+				i++;
+			}
+			else if (!wildcardString.isEmpty() && pattern.startsWith(
+					wildcardString,
+					i)) {
+				result.append(WILDCARD);
+				i += wildcardString.length();
+			}
+			else if (!singleCharString.isEmpty() && pattern.startsWith(
+					singleCharString,
+					i)) {
+				result.append(SINGLE_CHAR);
+				i += singleCharString.length();
+			}
+			else {
+				final char c = pattern.charAt(i);
+				if ((c == WILDCARD) || (c == SINGLE_CHAR) || (c == ESCAPE)) {
+					result.append(ESCAPE);
+				}
+				result.append(c);
+				i++;
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * 
+	 * @return the runs of characters between wildcards, in order
+	 */
+	public List<String> getLiterals() {
+		return Collections.unmodifiableList(literals);
+	}
+
+	/**
+	 * 
+	 * @return the characters preceding the first wildcard, or the entire value
+	 *         if the pattern has no wildcards
+	 */
+	public String getPrefix() {
+		return prefix;
+	}
+
+	public boolean hasWildcards() {
+		return hasWildcards;
+	}
+
+	@Override
+	public DistributableQueryFilter getFilter() {
+		return new TextLikeFilter(
+				getFieldId(),
+				getMatchValue(),
+				isCaseSensitive());
+	}
+
+	/**
+	 * Ranges over an index of the values as they are, see
+	 * {@link TextIndexStrategy}
+	 */
+	@Override
+	public List<ByteArrayRange> getRange() {
+		if (!isCaseSensitive() || prefix.isEmpty()) {
+			return Collections.singletonList(TextIndexUtils.ALL_RANGE);
+		}
+		return Collections.singletonList(hasWildcards ? TextIndexUtils.getPrefixRange(prefix) : TextIndexUtils
+				.getExactRange(prefix));
+	}
+
+	@Override
+	public FilterableConstraints intersect(
+			final FilterableConstraints constraints ) {
+		// the ranges of either constraint cover the intersection
+		return this;
+	}
+}
@@ -0,0 +1,120 @@
+package mil.nga.giat.geowave.core.store.index.text;
+
+import java.nio.ByteBuffer;
+import java.util.regex.Pattern;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.filter.DistributableQueryFilter;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+
+/**
+ * Accepts text values matching a LIKE pattern, see {@link TextLikeConstraint}
+ */
+public class TextLikeFilter implements
+		DistributableQueryFilter
+{
+
+	private ByteArrayId fieldId;
+	private String pattern;
+	private boolean caseSensitive;
+	private Pattern regex;
+
+	protected TextLikeFilter() {
+		super();
+	}
+
+	public TextLikeFilter(
+			final ByteArrayId fieldId,
+			final String pattern,
+			final boolean caseSensitive ) {
+		super();
+		this.fieldId = fieldId;
+		this.pattern = pattern;
+		this.caseSensitive = caseSensitive;
+		regex = toRegex(
+				pattern,
+				caseSensitive);
+	}
+
+	private static Pattern toRegex(
+			final String pattern,
+			final boolean caseSensitive ) {
+		final StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < pattern.length(); i++) {
+			final char c = pattern.charAt(i);
+			if ((c == TextLikeConstraint.ESCAPE) && ((i + 1) < pattern.length())) {
+				regex.append(Pattern.quote(String.valueOf(pattern.charAt(++i))));
+			}
+			else if (c == TextLikeConstraint.WILDCARD) {
+				regex.append(".*");
+			}
+			else if (c == TextLikeConstraint.SINGLE_CHAR) {
+				regex.append('.');
+			}
+			else {
+				regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		return Pattern.compile(
+				regex.toString(),
+				caseSensitive ? Pattern.DOTALL : Pattern.DOTALL | Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+	}
+
+	public ByteArrayId getFieldId() {
+		return fieldId;
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	public boolean isCaseSensitive() {
+		return caseSensitive;
+	}
+
+	@Override
+	public boolean accept(
+			final CommonIndexModel indexModel,
+			final IndexedPersistenceEncoding<?> persistenceEncoding ) {
+		final ByteArrayId stringBytes = (ByteArrayId) persistenceEncoding.getCommonData().getValue(
+				fieldId);
+		if (stringBytes != null) {
+			return regex.matcher(
+					stringBytes.getString()).matches();
+		}
+		return false;
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final byte[] fieldIdBytes = fieldId.getBytes();
+		final byte[] patternBytes = StringUtils.stringToBinary(pattern);
+		final ByteBuffer bb = ByteBuffer.allocate(4 + fieldIdBytes.length + 4 + patternBytes.length + 4);
+		bb.putInt(fieldIdBytes.length);
+		bb.put(fieldIdBytes);
+		bb.putInt(patternBytes.length);
+		bb.put(patternBytes);
+		bb.putInt(caseSensitive ? 1 : 0);
+		return bb.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer bb = ByteBuffer.wrap(bytes);
+		final byte[] fieldIdBytes = new byte[bb.getInt()];
+		bb.get(fieldIdBytes);
+		fieldId = new ByteArrayId(
+				fieldIdBytes);
+		final byte[] patternBytes = new byte[bb.getInt()];
+		bb.get(patternBytes);
+		pattern = StringUtils.stringFromBinary(patternBytes);
+		caseSensitive = (bb.getInt() == 1) ? true : false;
+		regex = toRegex(
+				pattern,
+				caseSensitive);
+	}
+
+}
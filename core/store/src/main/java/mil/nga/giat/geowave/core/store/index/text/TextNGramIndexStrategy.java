@@ -0,0 +1,158 @@
+package mil.nga.giat.geowave.core.store.index.text;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.IndexMetaData;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.index.FieldIndexStrategy;
+
+/**
+ * Indexes every substring of a value of the n-gram size, along with the
+ * shorter substrings ending the value, so that a value containing a substring
+ * can be looked up directly:
+ * 
+ * <ul>
+ * <li>a substring at least as long as the n-gram size is found under its
+ * leading n-gram</li>
+ * <li>a shorter substring is found under the n-grams that start with it</li>
+ * </ul>
+ * 
+ * Values are indexed case insensitively. For a {@link TextLikeConstraint} the
+ * longest literal of the pattern is looked up, which yields every value that
+ * may match the pattern; the filter of the constraint matches the pattern
+ * exactly.
+ */
+public class TextNGramIndexStrategy implements
+		FieldIndexStrategy<TextQueryConstraint, String>
+{
+	private static final String ID = "TEXT_NGRAM";
+	public static final int DEFAULT_NGRAM_SIZE = 3;
+	private int ngramSize;
+
+	public TextNGramIndexStrategy() {
+		this(
+				DEFAULT_NGRAM_SIZE);
+	}
+
+	public TextNGramIndexStrategy(
+			final int ngramSize ) {
+		super();
+		this.ngramSize = ngramSize;
+	}
+
+	public int getNGramSize() {
+		return ngramSize;
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final ByteBuffer buf = ByteBuffer.allocate(4);
+		buf.putInt(ngramSize);
+		return buf.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		ngramSize = ByteBuffer.wrap(
+				bytes).getInt();
+	}
+
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final TextQueryConstraint indexedRange,
+			final IndexMetaData... hints ) {
+		final List<String> literals = (indexedRange instanceof TextLikeConstraint) ? ((TextLikeConstraint) indexedRange)
+				.getLiterals() : Collections.singletonList(indexedRange.getMatchValue());
+		String longest = "";
+		for (final String literal : literals) {
+			if (literal.length() > longest.length()) {
+				longest = literal;
+			}
+		}
+		if (longest.isEmpty()) {
+			return Collections.singletonList(TextIndexUtils.ALL_RANGE);
+		}
+		final String normalized = TextIndexUtils.normalize(longest);
+		if (normalized.codePointCount(
+				0,
+				normalized.length()) >= ngramSize) {
+			return Collections.singletonList(TextIndexUtils.getExactRange(normalized.substring(
+					0,
+					normalized.offsetByCodePoints(
+							0,
+							ngramSize))));
+		}
+		return Collections.singletonList(TextIndexUtils.getPrefixRange(normalized));
+	}
+
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final TextQueryConstraint indexedRange,
+			final int maxEstimatedRangeDecomposition,
+			final IndexMetaData... hints ) {
+		return getQueryRanges(
+				indexedRange,
+				hints);
+	}
+
+	@Override
+	public List<ByteArrayId> getInsertionIds(
+			final List<FieldInfo<String>> indexedData ) {
+		final Set<ByteArrayId> insertionIds = new LinkedHashSet<>();
+		for (final FieldInfo<String> fieldInfo : indexedData) {
+			final String value = TextIndexUtils.normalize(fieldInfo.getDataValue().getValue());
+			for (int start = 0; start < value.length(); start = value.offsetByCodePoints(
+					start,
+					1)) {
+				final int remaining = value.codePointCount(
+						start,
+						value.length());
+				final int end = (remaining > ngramSize) ? value.offsetByCodePoints(
+						start,
+						ngramSize) : value.length();
+				insertionIds.add(new ByteArrayId(
+						value.substring(
+								start,
+								end)));
+			}
+		}
+		return new ArrayList<>(
+				insertionIds);
+	}
+
+	@Override
+	public List<ByteArrayId> getInsertionIds(
+			final List<FieldInfo<String>> indexedData,
+			final int maxEstimatedDuplicateIds ) {
+		return getInsertionIds(indexedData);
+	}
+
+	@Override
+	public List<FieldInfo<String>> getRangeForId(
+			final ByteArrayId insertionId ) {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public String getId() {
+		return ID + "_" + ngramSize;
+	}
+
+	@Override
+	public Set<ByteArrayId> getNaturalSplits() {
+		return null;
+	}
+
+	@Override
+	public List<IndexMetaData> createMetaData() {
+		return Collections.emptyList();
+	}
+}
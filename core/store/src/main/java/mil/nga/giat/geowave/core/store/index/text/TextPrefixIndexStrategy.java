@@ -0,0 +1,104 @@
+package mil.nga.giat.geowave.core.store.index.text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.IndexMetaData;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.index.FieldIndexStrategy;
+
+/**
+ * Indexes values case insensitively so that a {@link TextLikeConstraint} with
+ * a leading literal, such as 'foo%', regardless of case sensitivity, is looked
+ * up as a range of the values starting with the literal.
+ */
+public class TextPrefixIndexStrategy implements
+		FieldIndexStrategy<TextQueryConstraint, String>
+{
+	private static final String ID = "TEXT_PREFIX";
+
+	public TextPrefixIndexStrategy() {
+		super();
+	}
+
+	@Override
+	public byte[] toBinary() {
+		return new byte[0];
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {}
+
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final TextQueryConstraint indexedRange,
+			final IndexMetaData... hints ) {
+		if (indexedRange instanceof TextLikeConstraint) {
+			final TextLikeConstraint like = (TextLikeConstraint) indexedRange;
+			final String prefix = TextIndexUtils.normalize(like.getPrefix());
+			if (!like.hasWildcards()) {
+				return Collections.singletonList(TextIndexUtils.getExactRange(prefix));
+			}
+			if (prefix.isEmpty()) {
+				return Collections.singletonList(TextIndexUtils.ALL_RANGE);
+			}
+			return Collections.singletonList(TextIndexUtils.getPrefixRange(prefix));
+		}
+		return Collections.singletonList(TextIndexUtils.getExactRange(TextIndexUtils.normalize(indexedRange
+				.getMatchValue())));
+	}
+
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final TextQueryConstraint indexedRange,
+			final int maxEstimatedRangeDecomposition,
+			final IndexMetaData... hints ) {
+		return getQueryRanges(
+				indexedRange,
+				hints);
+	}
+
+	@Override
+	public List<ByteArrayId> getInsertionIds(
+			final List<FieldInfo<String>> indexedData ) {
+		final List<ByteArrayId> insertionIds = new ArrayList<>();
+		for (final FieldInfo<String> fieldInfo : indexedData) {
+			insertionIds.add(new ByteArrayId(
+					TextIndexUtils.normalize(fieldInfo.getDataValue().getValue())));
+		}
+		return insertionIds;
+	}
+
+	@Override
+	public List<ByteArrayId> getInsertionIds(
+			final List<FieldInfo<String>> indexedData,
+			final int maxEstimatedDuplicateIds ) {
+		return getInsertionIds(indexedData);
+	}
+
+	@Override
+	public List<FieldInfo<String>> getRangeForId(
+			final ByteArrayId insertionId ) {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public String getId() {
+		return ID;
+	}
+
+	@Override
+	public Set<ByteArrayId> getNaturalSplits() {
+		return null;
+	}
+
+	@Override
+	public List<IndexMetaData> createMetaData() {
+		return Collections.emptyList();
+	}
+}
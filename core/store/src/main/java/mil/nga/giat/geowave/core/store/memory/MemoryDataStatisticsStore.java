@@ -188,6 +188,11 @@ public class MemoryDataStatisticsStore implements
 		statsMap.clear();
 	}
 
+	@Override
+	public void compactStatistics() {
+		// statistics are merged as they are incorporated
+	}
+
 	private static class Key
 	{
 		ByteArrayId adapterId;
@@ -90,6 +90,18 @@ public class MemorySecondaryIndexDataStore implements
 		return null;
 	}
 
+	@Override
+	public <T> CloseableIterator<T> query(
+			final List<SecondaryIndex<T>> secondaryIndices,
+			final List<ByteArrayId> indexedAttributeFieldIds,
+			final DataAdapter<T> adapter,
+			final PrimaryIndex primaryIndex,
+			final DistributableQuery query,
+			final String... authorizations ) {
+		// no secondary index entries are stored in memory
+		return new CloseableIterator.Empty<T>();
+	}
+
 	@Override
 	public void setDataStore(
 			final DataStore dataStore ) {
@@ -0,0 +1,294 @@
+package mil.nga.giat.geowave.core.store.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.log4j.Logger;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.adapter.statistics.RowRangeHistogramStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.histogram.ByteUtils;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+
+/**
+ * Chooses the splits of index tables from the row range histogram statistics
+ * of the index, so that a table is spread across a number of tablets (or
+ * regions) without running the split commands manually.
+ *
+ * New tables are pre-split on the partition ids of the index strategy and, if
+ * the index already has statistics, on their quantiles. After ingest the
+ * existing splits are rebalanced, at most once per rebalance interval for each
+ * index: a quantile of the statistics becomes a new split only if the tablet
+ * it falls into holds more than twice its share of the entries, so repeated
+ * rebalancing of a balanced table adds no splits.
+ *
+ * The histogram orders rows by their first 8 bytes as a signed long, so the
+ * population of a tablet spanning the sign boundary is the sum of its two
+ * parts.
+ */
+public abstract class StatisticsSplitManager
+{
+	private final static Logger LOGGER = Logger.getLogger(StatisticsSplitManager.class);
+	public static final long DEFAULT_REBALANCE_INTERVAL = 5 * 60 * 1000L; // 5 minutes
+	/**
+	 * a table is not split into tablets of fewer entries than this
+	 */
+	public static final long MIN_ENTRIES_PER_TABLET = 10000L;
+	private static final double REBALANCE_THRESHOLD = 2.0;
+	private static final byte[] FIRST_ROW = new byte[0];
+	private static final byte[] LAST_ROW = new byte[] {
+		(byte) 0xff,
+		(byte) 0xff,
+		(byte) 0xff,
+		(byte) 0xff,
+		(byte) 0xff,
+		(byte) 0xff,
+		(byte) 0xff,
+		(byte) 0xff
+	};
+
+	private final DataStatisticsStore statisticsStore;
+	private final int numTablets;
+	private final long rebalanceInterval;
+	private final String[] authorizations;
+	private final Map<ByteArrayId, Long> lastRebalanceTimes = new HashMap<ByteArrayId, Long>();
+
+	public StatisticsSplitManager(
+			final DataStatisticsStore statisticsStore,
+			final int numTablets,
+			final String... authorizations ) {
+		this(
+				statisticsStore,
+				numTablets,
+				DEFAULT_REBALANCE_INTERVAL,
+				authorizations);
+	}
+
+	public StatisticsSplitManager(
+			final DataStatisticsStore statisticsStore,
+			final int numTablets,
+			final long rebalanceInterval,
+			final String... authorizations ) {
+		this.statisticsStore = statisticsStore;
+		this.numTablets = numTablets;
+		this.rebalanceInterval = rebalanceInterval;
+		this.authorizations = authorizations;
+	}
+
+	/**
+	 * @return the splits of the existing table of the index
+	 */
+	protected abstract SortedSet<ByteArrayId> getSplits(
+			PrimaryIndex index )
+			throws IOException;
+
+	protected abstract void addSplits(
+			PrimaryIndex index,
+			SortedSet<ByteArrayId> splits )
+			throws IOException;
+
+	/**
+	 * @return the splits to create a new table for the index with
+	 */
+	public Set<ByteArrayId> getPreSplits(
+			final PrimaryIndex index ) {
+		final SortedSet<ByteArrayId> splits = new TreeSet<ByteArrayId>();
+		final Set<ByteArrayId> naturalSplits = index.getIndexStrategy().getNaturalSplits();
+		if (naturalSplits != null) {
+			splits.addAll(naturalSplits);
+		}
+		final RowRangeHistogramStatistics<?> stats = getRowRangeHistogram(
+				statisticsStore,
+				index,
+				authorizations);
+		if (stats != null) {
+			splits.addAll(getQuantileSplits(
+					stats,
+					getNumTablets(stats)));
+		}
+		return splits;
+	}
+
+	/**
+	 * Add splits to the table of the index where its statistics show a tablet
+	 * holding more than its share of the entries, unless the index has been
+	 * rebalanced within the rebalance interval
+	 */
+	public synchronized void rebalance(
+			final PrimaryIndex index )
+			throws IOException {
+		final long now = System.currentTimeMillis();
+		final Long lastRebalanceTime = lastRebalanceTimes.get(index.getId());
+		if ((lastRebalanceTime != null) && ((now - lastRebalanceTime) < rebalanceInterval)) {
+			return;
+		}
+		lastRebalanceTimes.put(
+				index.getId(),
+				now);
+		final RowRangeHistogramStatistics<?> stats = getRowRangeHistogram(
+				statisticsStore,
+				index,
+				authorizations);
+		if (stats == null) {
+			return;
+		}
+		final SortedSet<ByteArrayId> splits = getRebalanceSplits(
+				getSplits(index),
+				stats,
+				getNumTablets(stats));
+		if (!splits.isEmpty()) {
+			LOGGER.info("Adding " + splits.size() + " splits to index '" + index.getId().getString() + "'");
+			addSplits(
+					index,
+					splits);
+		}
+	}
+
+	/**
+	 * @return a closeable closing the given closeable and then rebalancing the
+	 *         index, so that the statistics of a writer are flushed before
+	 *         they are used
+	 */
+	public Closeable getRebalancingClosable(
+			final PrimaryIndex index,
+			final Closeable closable ) {
+		return new Closeable() {
+			@Override
+			public void close()
+					throws IOException {
+				closable.close();
+				try {
+					rebalance(index);
+				}
+				catch (final IOException e) {
+					LOGGER.warn(
+							"Unable to rebalance the splits of index '" + index.getId().getString() + "'",
+							e);
+				}
+			}
+		};
+	}
+
+	private int getNumTablets(
+			final RowRangeHistogramStatistics<?> stats ) {
+		return (int) Math.min(
+				numTablets,
+				stats.totalSampleSize() / MIN_ENTRIES_PER_TABLET);
+	}
+
+	/**
+	 * @return the row range histogram of the index, merged across its
+	 *         adapters, or null if there is none
+	 */
+	public static RowRangeHistogramStatistics<?> getRowRangeHistogram(
+			final DataStatisticsStore statisticsStore,
+			final PrimaryIndex index,
+			final String... authorizations ) {
+		final ByteArrayId statisticsId = RowRangeHistogramStatistics.composeId(index.getId());
+		RowRangeHistogramStatistics<?> mergedStats = null;
+		try (CloseableIterator<DataStatistics<?>> it = statisticsStore.getAllDataStatistics(authorizations)) {
+			while (it.hasNext()) {
+				final DataStatistics<?> stats = it.next();
+				if ((stats instanceof RowRangeHistogramStatistics) && statisticsId.equals(stats.getStatisticsId())) {
+					if (mergedStats == null) {
+						// merge into a copy rather than the stored statistics
+						mergedStats = (RowRangeHistogramStatistics<?>) stats.duplicate();
+					}
+					else {
+						mergedStats.merge(stats);
+					}
+				}
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to close statistics iterator",
+					e);
+		}
+		return mergedStats;
+	}
+
+	/**
+	 * @return the rows dividing the entries of the statistics into the number
+	 *         of tablets
+	 */
+	public static SortedSet<ByteArrayId> getQuantileSplits(
+			final RowRangeHistogramStatistics<?> stats,
+			final int numTablets ) {
+		final SortedSet<ByteArrayId> splits = new TreeSet<ByteArrayId>();
+		if (stats.totalSampleSize() <= 0) {
+			return splits;
+		}
+		for (int i = 1; i < numTablets; i++) {
+			splits.add(new ByteArrayId(
+					ByteUtils.toBytes(stats.quantile((double) i / numTablets))));
+		}
+		return splits;
+	}
+
+	/**
+	 * @return the quantile splits of the statistics falling into a tablet of
+	 *         the existing splits that holds more than twice its share of the
+	 *         entries, a tablet may be split on several quantiles at once
+	 */
+	public static SortedSet<ByteArrayId> getRebalanceSplits(
+			final SortedSet<ByteArrayId> existingSplits,
+			final RowRangeHistogramStatistics<?> stats,
+			final int numTablets ) {
+		final SortedSet<ByteArrayId> newSplits = new TreeSet<ByteArrayId>();
+		if (numTablets < 2) {
+			return newSplits;
+		}
+		final TreeSet<ByteArrayId> splits = new TreeSet<ByteArrayId>(
+				existingSplits);
+		final double maxPopulation = REBALANCE_THRESHOLD / numTablets;
+		for (final ByteArrayId candidate : getQuantileSplits(
+				stats,
+				numTablets)) {
+			if (splits.contains(candidate)) {
+				continue;
+			}
+			final ByteArrayId start = splits.lower(candidate);
+			final ByteArrayId end = splits.higher(candidate);
+			if (getPopulation(
+					stats,
+					start != null ? start.getBytes() : null,
+					end != null ? end.getBytes() : null) > maxPopulation) {
+				newSplits.add(candidate);
+			}
+		}
+		return newSplits;
+	}
+
+	/**
+	 * @param start
+	 *            the first row of the range, or null for the start of the
+	 *            table
+	 * @param end
+	 *            the last row of the range, or null for the end of the table
+	 * @return the estimated fraction of the entries within the row range
+	 */
+	public static double getPopulation(
+			final RowRangeHistogramStatistics<?> stats,
+			final byte[] start,
+			final byte[] end ) {
+		final byte[] startRow = start != null ? start : FIRST_ROW;
+		final byte[] endRow = end != null ? end : LAST_ROW;
+		final double startCdf = stats.cdf(startRow);
+		final double endCdf = stats.cdf(endRow);
+		if (ByteUtils.toLong(startRow) <= ByteUtils.toLong(endRow)) {
+			return endCdf - startCdf;
+		}
+		// the range wraps from the largest positive to the smallest negative
+		// value
+		return (1 - startCdf) + endCdf;
+	}
+}
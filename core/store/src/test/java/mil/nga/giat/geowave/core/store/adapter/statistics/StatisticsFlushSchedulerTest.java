@@ -0,0 +1,76 @@
+package mil.nga.giat.geowave.core.store.adapter.statistics;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.store.memory.MemoryDataStatisticsStore;
+
+public class StatisticsFlushSchedulerTest
+{
+	private static final long INTERVAL_MILLIS = 10;
+
+	@Test
+	public void testBackgroundFlush()
+			throws InterruptedException {
+		final CountDownLatch flushes = new CountDownLatch(
+				3);
+		final ScheduledFuture<?> future = StatisticsFlushScheduler.scheduleFlush(
+				new Flushable() {
+					@Override
+					public void flush()
+							throws IOException {
+						flushes.countDown();
+						// a failed flush does not cancel later flushes
+						throw new IOException(
+								"test failure");
+					}
+				},
+				INTERVAL_MILLIS);
+		try {
+			assertTrue(flushes.await(
+					10,
+					TimeUnit.SECONDS));
+		}
+		finally {
+			future.cancel(false);
+		}
+	}
+
+	@Test
+	public void testCompactionScheduledOnce()
+			throws InterruptedException {
+		final CountDownLatch compactions = new CountDownLatch(
+				2);
+		final MemoryDataStatisticsStore statisticsStore = new MemoryDataStatisticsStore() {
+			@Override
+			public void compactStatistics() {
+				compactions.countDown();
+			}
+		};
+		final ScheduledFuture<?> future = StatisticsFlushScheduler.scheduleCompaction(
+				statisticsStore,
+				INTERVAL_MILLIS);
+		try {
+			// data stores sharing the statistics store share its compaction
+			assertSame(
+					future,
+					StatisticsFlushScheduler.scheduleCompaction(
+							statisticsStore,
+							INTERVAL_MILLIS));
+			assertTrue(compactions.await(
+					10,
+					TimeUnit.SECONDS));
+		}
+		finally {
+			future.cancel(false);
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package mil.nga.giat.geowave.core.store.adapter.statistics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.EntryVisibilityHandler;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.memory.MemoryDataStatisticsStore;
+
+public class StripedStatsCompositionToolTest
+{
+	private static final ByteArrayId ADAPTER_ID = new ByteArrayId(
+			"adapter");
+	private static final ByteArrayId INDEX_ID = new ByteArrayId(
+			"index");
+
+	private static class CountProvider implements
+			StatisticsProvider<Integer>
+	{
+		@Override
+		public ByteArrayId[] getSupportedStatisticsTypes() {
+			return new ByteArrayId[] {
+				CountDataStatistics.STATS_TYPE
+			};
+		}
+
+		@Override
+		public DataStatistics<Integer> createDataStatistics(
+				final ByteArrayId statisticsId ) {
+			return new CountDataStatistics<Integer>(
+					ADAPTER_ID);
+		}
+
+		@Override
+		public EntryVisibilityHandler<Integer> getVisibilityHandler(
+				final ByteArrayId statisticsId ) {
+			return new EntryVisibilityHandler<Integer>() {
+				@Override
+				public byte[] getVisibility(
+						final DataStoreEntryInfo entryInfo,
+						final Integer entry ) {
+					return new byte[0];
+				}
+			};
+		}
+	}
+
+	private static class RowRangeProvider extends
+			CountProvider
+	{
+		@Override
+		public ByteArrayId[] getSupportedStatisticsTypes() {
+			return new ByteArrayId[] {
+				RowRangeDataStatistics.STATS_TYPE,
+				RowRangeHistogramStatistics.STATS_TYPE
+			};
+		}
+
+		@Override
+		public DataStatistics<Integer> createDataStatistics(
+				final ByteArrayId statisticsId ) {
+			if (statisticsId.equals(RowRangeDataStatistics.STATS_TYPE)) {
+				return new RowRangeDataStatistics<Integer>(
+						INDEX_ID);
+			}
+			return new RowRangeHistogramStatistics<Integer>(
+					ADAPTER_ID,
+					INDEX_ID,
+					1024);
+		}
+	}
+
+	private static DataStoreEntryInfo rowEntryInfo(
+			final int i ) {
+		return new DataStoreEntryInfo(
+				Integer.toString(
+						i).getBytes(),
+				Collections.singletonList(new ByteArrayId(
+						ByteBuffer.allocate(
+								4).putInt(
+								i).array())),
+				Collections.<ByteArrayId> emptyList(),
+				Collections.<FieldInfo<?>> emptyList());
+	}
+
+	private static DataStoreEntryInfo entryInfo(
+			final int i ) {
+		return new DataStoreEntryInfo(
+				Integer.toString(
+						i).getBytes(),
+				Collections.<ByteArrayId> emptyList(),
+				Collections.<ByteArrayId> emptyList(),
+				Collections.<FieldInfo<?>> emptyList());
+	}
+
+	@Test
+	public void testConcurrentIngest()
+			throws InterruptedException {
+		final MemoryDataStatisticsStore statsStore = new MemoryDataStatisticsStore();
+		final StripedStatsCompositionTool<Integer> tool = new StripedStatsCompositionTool<Integer>(
+				new CountProvider(),
+				statsStore,
+				100);
+		final int threads = 4;
+		final int perThread = 1050;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < perThread; i++) {
+						tool.entryIngested(
+								entryInfo(i),
+								i);
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(
+				1,
+				TimeUnit.MINUTES);
+
+		assertNull(statsStore.getDataStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_TYPE));
+
+		tool.flush();
+
+		final CountDataStatistics<?> count = (CountDataStatistics<?>) statsStore.getDataStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_TYPE);
+		assertEquals(
+				threads * perThread,
+				count.getCount());
+	}
+
+	@Test
+	public void testConcurrentRowRangeIngest()
+			throws InterruptedException {
+		final MemoryDataStatisticsStore statsStore = new MemoryDataStatisticsStore();
+		final StripedStatsCompositionTool<Integer> tool = new StripedStatsCompositionTool<Integer>(
+				new RowRangeProvider(),
+				statsStore,
+				100);
+		final int threads = 4;
+		final int perThread = 1050;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			final int offset = t * perThread;
+			executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < perThread; i++) {
+						tool.entryIngested(
+								rowEntryInfo(offset + i),
+								offset + i);
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(
+				1,
+				TimeUnit.MINUTES);
+		tool.flush();
+
+		final RowRangeDataStatistics<?> range = (RowRangeDataStatistics<?>) statsStore.getDataStatistics(
+				INDEX_ID,
+				RowRangeDataStatistics.composeId(INDEX_ID));
+		assertArrayEquals(
+				rowEntryInfo(
+						0).getRowIds().get(
+						0).getBytes(),
+				range.getMin());
+		assertArrayEquals(
+				rowEntryInfo(
+						(threads * perThread) - 1).getRowIds().get(
+						0).getBytes(),
+				range.getMax());
+
+		// the partials of every stripe are merged into a single histogram
+		final RowRangeHistogramStatistics<?> histogram = (RowRangeHistogramStatistics<?>) statsStore.getDataStatistics(
+				ADAPTER_ID,
+				RowRangeHistogramStatistics.composeId(INDEX_ID));
+		assertEquals(
+				threads * perThread,
+				histogram.totalSampleSize());
+	}
+
+	@Test
+	public void testReset() {
+		final MemoryDataStatisticsStore statsStore = new MemoryDataStatisticsStore();
+		final StripedStatsCompositionTool<Integer> tool = new StripedStatsCompositionTool<Integer>(
+				new CountProvider(),
+				statsStore,
+				10);
+		for (int i = 0; i < 25; i++) {
+			tool.entryIngested(
+					entryInfo(i),
+					i);
+		}
+		tool.reset();
+		tool.entryIngested(
+				entryInfo(0),
+				0);
+		tool.close();
+
+		final CountDataStatistics<?> count = (CountDataStatistics<?>) statsStore.getDataStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_TYPE);
+		assertEquals(
+				1,
+				count.getCount());
+	}
+}
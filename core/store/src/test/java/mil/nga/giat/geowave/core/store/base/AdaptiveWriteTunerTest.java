@@ -0,0 +1,222 @@
+package mil.nga.giat.geowave.core.store.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptiveWriteTunerTest
+{
+	private static final long WINDOW_MILLIS = 1000L;
+	private static final long BUFFER_SIZE = 1024L * 1024L;
+	private static final int THREADS = 4;
+	// blocked for half of each window
+	private static final long BLOCKED_NANOS = (WINDOW_MILLIS / 2) * 1000000L;
+
+	private AdaptiveWriteTuner tuner;
+	private long windowStart;
+
+	@Before
+	public void setUp() {
+		tuner = new AdaptiveWriteTuner(
+				"test",
+				BUFFER_SIZE,
+				THREADS,
+				AdaptiveWriteTuner.DEFAULT_MIN_BUFFER_SIZE,
+				AdaptiveWriteTuner.DEFAULT_MAX_BUFFER_SIZE,
+				AdaptiveWriteTuner.DEFAULT_MIN_THREADS,
+				AdaptiveWriteTuner.DEFAULT_MAX_THREADS,
+				WINDOW_MILLIS);
+		// end the window opened at construction so that the windows of the
+		// tests start at a known time
+		windowStart = System.currentTimeMillis() + WINDOW_MILLIS;
+		assertFalse(tuner.recordWrite(
+				0,
+				0,
+				windowStart));
+	}
+
+	@Test
+	public void testWindowRollover() {
+		assertFalse(tuner.recordWrite(
+				1000,
+				0,
+				windowStart + 1));
+		assertFalse(tuner.recordWrite(
+				1000,
+				0,
+				(windowStart + WINDOW_MILLIS) - 1));
+		// the window is still open
+		assertEquals(
+				0,
+				tuner.getThroughput(),
+				0);
+
+		assertFalse(tuner.recordWrite(
+				0,
+				0,
+				windowStart + WINDOW_MILLIS));
+		assertEquals(
+				2000,
+				tuner.getThroughput(),
+				0);
+
+		// the next window only counts its own writes
+		assertFalse(tuner.recordWrite(
+				500,
+				0,
+				windowStart + (2 * WINDOW_MILLIS)));
+		assertEquals(
+				500,
+				tuner.getThroughput(),
+				0);
+		assertEquals(
+				2500,
+				tuner.getTotalBytes());
+		assertEquals(
+				5,
+				tuner.getTotalWrites());
+	}
+
+	@Test
+	public void testReverseOnThroughputDrop() {
+		// the first blocked window steps up
+		assertTrue(endWindow(
+				1,
+				1000,
+				BLOCKED_NANOS));
+		assertEquals(
+				(BUFFER_SIZE * 3) / 2,
+				tuner.getBufferSize());
+		assertEquals(
+				6,
+				tuner.getThreads());
+
+		// an improvement keeps stepping up
+		assertTrue(endWindow(
+				2,
+				2000,
+				BLOCKED_NANOS));
+		assertEquals(
+				(BUFFER_SIZE * 9) / 4,
+				tuner.getBufferSize());
+		assertEquals(
+				9,
+				tuner.getThreads());
+
+		// a drop reverses
+		assertTrue(endWindow(
+				3,
+				1000,
+				BLOCKED_NANOS));
+		assertEquals(
+				(BUFFER_SIZE * 3) / 2,
+				tuner.getBufferSize());
+		assertEquals(
+				6,
+				tuner.getThreads());
+
+		// a level throughput settles
+		assertFalse(endWindow(
+				4,
+				1010,
+				BLOCKED_NANOS));
+		assertEquals(
+				(BUFFER_SIZE * 3) / 2,
+				tuner.getBufferSize());
+		assertEquals(
+				3,
+				tuner.getAdjustments());
+	}
+
+	@Test
+	public void testHalveOnErrors() {
+		tuner.recordError();
+		assertTrue(endWindow(
+				1,
+				1000,
+				BLOCKED_NANOS));
+		assertEquals(
+				BUFFER_SIZE / 2,
+				tuner.getBufferSize());
+		assertEquals(
+				2,
+				tuner.getThreads());
+		assertEquals(
+				1,
+				tuner.getTotalErrors());
+
+		// errors back off even when writes are not blocked
+		tuner.recordError();
+		assertTrue(endWindow(
+				2,
+				1000,
+				0));
+		assertEquals(
+				BUFFER_SIZE / 4,
+				tuner.getBufferSize());
+		assertEquals(
+				1,
+				tuner.getThreads());
+
+		// the lower bounds hold
+		tuner.recordError();
+		assertFalse(endWindow(
+				3,
+				1000,
+				0));
+		assertEquals(
+				AdaptiveWriteTuner.DEFAULT_MIN_BUFFER_SIZE,
+				tuner.getBufferSize());
+		assertEquals(
+				AdaptiveWriteTuner.DEFAULT_MIN_THREADS,
+				tuner.getThreads());
+	}
+
+	@Test
+	public void testNoChangeWhileRarelyBlocked() {
+		final long rarelyBlockedNanos = (WINDOW_MILLIS / 100) * 1000000L;
+		assertFalse(endWindow(
+				1,
+				1000,
+				rarelyBlockedNanos));
+		assertFalse(endWindow(
+				2,
+				4000,
+				rarelyBlockedNanos));
+		assertFalse(endWindow(
+				3,
+				500,
+				rarelyBlockedNanos));
+		assertEquals(
+				BUFFER_SIZE,
+				tuner.getBufferSize());
+		assertEquals(
+				THREADS,
+				tuner.getThreads());
+		assertEquals(
+				0,
+				tuner.getAdjustments());
+	}
+
+	/**
+	 * Write within the given window, then end it
+	 *
+	 * @return whether ending the window changed the settings
+	 */
+	private boolean endWindow(
+			final int window,
+			final long bytes,
+			final long latencyNanos ) {
+		assertFalse(tuner.recordWrite(
+				bytes,
+				latencyNanos,
+				(windowStart + (window * WINDOW_MILLIS)) - 1));
+		return tuner.recordWrite(
+				0,
+				0,
+				windowStart + (window * WINDOW_MILLIS));
+	}
+}
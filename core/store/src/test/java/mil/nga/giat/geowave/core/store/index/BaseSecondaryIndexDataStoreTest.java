@@ -0,0 +1,244 @@
+package mil.nga.giat.geowave.core.store.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.base.Writer;
+import mil.nga.giat.geowave.core.store.query.DistributableQuery;
+
+public class BaseSecondaryIndexDataStoreTest
+{
+	private static class TestWriter implements
+			Writer<ByteArrayId>
+	{
+		private final List<ByteArrayId> written = new ArrayList<>();
+		private int writeCalls = 0;
+		private int flushCalls = 0;
+		private boolean closed = false;
+
+		@Override
+		public void write(
+				final Iterable<ByteArrayId> mutations ) {
+			writeCalls++;
+			for (final ByteArrayId mutation : mutations) {
+				written.add(mutation);
+			}
+		}
+
+		@Override
+		public void write(
+				final ByteArrayId mutation ) {
+			writeCalls++;
+			written.add(mutation);
+		}
+
+		@Override
+		public void flush() {
+			flushCalls++;
+		}
+
+		@Override
+		public void close()
+				throws IOException {
+			closed = true;
+		}
+	}
+
+	private static class TestSecondaryIndexDataStore extends
+			BaseSecondaryIndexDataStore<ByteArrayId>
+	{
+		private final TestWriter writer = new TestWriter();
+
+		@Override
+		public void setDataStore(
+				final DataStore dataStore ) {}
+
+		@Override
+		public <T> CloseableIterator<T> query(
+				final SecondaryIndex<T> secondaryIndex,
+				final ByteArrayId indexedAttributeFieldId,
+				final DataAdapter<T> adapter,
+				final PrimaryIndex primaryIndex,
+				final DistributableQuery query,
+				final String... authorizations ) {
+			return new CloseableIterator.Empty<T>();
+		}
+
+		@Override
+		protected <T> CloseableIterator<Pair<ByteArrayId, ByteArrayId>> getJoinEntries(
+				final SecondaryIndex<T> secondaryIndex,
+				final ByteArrayId indexedAttributeFieldId,
+				final DataAdapter<T> adapter,
+				final DistributableQuery query,
+				final String... authorizations ) {
+			return new CloseableIterator.Empty<Pair<ByteArrayId, ByteArrayId>>();
+		}
+
+		@Override
+		protected ByteArrayId buildJoinMutation(
+				final byte[] secondaryIndexRowId,
+				final byte[] adapterId,
+				final byte[] indexedAttributeFieldId,
+				final byte[] primaryIndexId,
+				final byte[] primaryIndexRowId,
+				final byte[] attributeVisibility ) {
+			return new ByteArrayId(
+					secondaryIndexRowId);
+		}
+
+		@Override
+		protected ByteArrayId buildMutation(
+				final byte[] secondaryIndexRowId,
+				final byte[] adapterId,
+				final byte[] indexedAttributeFieldId,
+				final byte[] dataId,
+				final byte[] fieldId,
+				final byte[] fieldValue,
+				final byte[] fieldVisibility ) {
+			return new ByteArrayId(
+					secondaryIndexRowId);
+		}
+
+		@Override
+		protected ByteArrayId buildJoinDeleteMutation(
+				final byte[] secondaryIndexRowId,
+				final byte[] adapterId,
+				final byte[] indexedAttributeFieldId,
+				final byte[] primaryIndexId,
+				final byte[] primaryIndexRowId ) {
+			return new ByteArrayId(
+					secondaryIndexRowId);
+		}
+
+		@Override
+		protected ByteArrayId buildFullDeleteMutation(
+				final byte[] secondaryIndexRowId,
+				final byte[] adapterId,
+				final byte[] indexedAttributeFieldId,
+				final byte[] dataId,
+				final byte[] fieldId ) {
+			return new ByteArrayId(
+					secondaryIndexRowId);
+		}
+
+		@Override
+		protected Writer<ByteArrayId> getWriter(
+				final ByteArrayId secondaryIndexId ) {
+			writerCache.put(
+					secondaryIndexId.getString(),
+					writer);
+			return writer;
+		}
+
+		@Override
+		protected byte[] getRowId(
+				final ByteArrayId mutation ) {
+			return mutation.getBytes();
+		}
+	}
+
+	private static void store(
+			final SecondaryIndexDataStore store,
+			final String row ) {
+		final ByteArrayId id = new ByteArrayId(
+				"id");
+		store.storeJoinEntry(
+				id,
+				new ByteArrayId(
+						row),
+				id,
+				id,
+				id,
+				id,
+				new ByteArrayId(
+						""));
+	}
+
+	@Test
+	public void testBatching()
+			throws IOException {
+		final TestSecondaryIndexDataStore store = new TestSecondaryIndexDataStore();
+		store.setBatchSize(3);
+		store(
+				store,
+				"c");
+		store(
+				store,
+				"a");
+		assertTrue(store.writer.written.isEmpty());
+		store(
+				store,
+				"b");
+		// one sorted batch
+		assertEquals(
+				1,
+				store.writer.writeCalls);
+		assertEquals(
+				3,
+				store.writer.written.size());
+		assertEquals(
+				"a",
+				store.writer.written.get(
+						0).getString());
+		assertEquals(
+				"b",
+				store.writer.written.get(
+						1).getString());
+		assertEquals(
+				"c",
+				store.writer.written.get(
+						2).getString());
+
+		store(
+				store,
+				"d");
+		store.flush();
+		assertEquals(
+				4,
+				store.writer.written.size());
+		assertEquals(
+				1,
+				store.writer.flushCalls);
+		assertFalse(store.writer.closed);
+
+		store(
+				store,
+				"e");
+		store.close();
+		assertEquals(
+				5,
+				store.writer.written.size());
+		assertTrue(store.writer.closed);
+	}
+
+	@Test
+	public void testUnbuffered() {
+		final TestSecondaryIndexDataStore store = new TestSecondaryIndexDataStore();
+		store.setBatchSize(1);
+		store(
+				store,
+				"b");
+		store(
+				store,
+				"a");
+		assertEquals(
+				2,
+				store.writer.writeCalls);
+		assertEquals(
+				"b",
+				store.writer.written.get(
+						0).getString());
+	}
+}
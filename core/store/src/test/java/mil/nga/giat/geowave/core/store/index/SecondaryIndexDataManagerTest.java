@@ -0,0 +1,198 @@
+package mil.nga.giat.geowave.core.store.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.EntryVisibilityHandler;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.MockComponents;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.index.numeric.NumericFieldIndexStrategy;
+import mil.nga.giat.geowave.core.store.query.DistributableQuery;
+
+public class SecondaryIndexDataManagerTest
+{
+	private static final ByteArrayId FIELD_ID = new ByteArrayId(
+			"field");
+	private static final ByteArrayId PRIMARY_INDEX_ID = new ByteArrayId(
+			"primary");
+
+	private static class SecondaryIndexedAdapter extends
+			MockComponents.MockAbstractDataAdapter implements
+			SecondaryIndexDataAdapter<Integer>
+	{
+		@Override
+		public List<SecondaryIndex<Integer>> getSupportedSecondaryIndices() {
+			return Arrays.asList(new SecondaryIndex<Integer>(
+					new NumericFieldIndexStrategy(),
+					FIELD_ID,
+					Collections.<DataStatistics<Integer>> emptyList(),
+					SecondaryIndexType.JOIN));
+		}
+
+		@Override
+		public EntryVisibilityHandler<Integer> getVisibilityHandler(
+				final ByteArrayId indexId ) {
+			return null;
+		}
+	}
+
+	private static class JoinEntryDataStore implements
+			SecondaryIndexDataStore
+	{
+		private final List<ByteArrayId> storedRowIds = new ArrayList<>();
+		private final List<ByteArrayId> deletedRowIds = new ArrayList<>();
+
+		@Override
+		public void setDataStore(
+				final DataStore dataStore ) {}
+
+		@Override
+		public void storeJoinEntry(
+				final ByteArrayId secondaryIndexId,
+				final ByteArrayId indexedAttributeValue,
+				final ByteArrayId adapterId,
+				final ByteArrayId indexedAttributeFieldId,
+				final ByteArrayId primaryIndexId,
+				final ByteArrayId primaryIndexRowId,
+				final ByteArrayId attributeVisibility ) {
+			storedRowIds.add(primaryIndexRowId);
+		}
+
+		@Override
+		public void storeEntry(
+				final ByteArrayId secondaryIndexId,
+				final ByteArrayId indexedAttributeValue,
+				final ByteArrayId adapterId,
+				final ByteArrayId indexedAttributeFieldId,
+				final ByteArrayId dataId,
+				final ByteArrayId attributeVisibility,
+				final List<FieldInfo<?>> attributes ) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public <T> CloseableIterator<T> query(
+				final SecondaryIndex<T> secondaryIndex,
+				final ByteArrayId indexedAttributeFieldId,
+				final DataAdapter<T> adapter,
+				final PrimaryIndex primaryIndex,
+				final DistributableQuery query,
+				final String... authorizations ) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public <T> CloseableIterator<T> query(
+				final List<SecondaryIndex<T>> secondaryIndices,
+				final List<ByteArrayId> indexedAttributeFieldIds,
+				final DataAdapter<T> adapter,
+				final PrimaryIndex primaryIndex,
+				final DistributableQuery query,
+				final String... authorizations ) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void deleteJoinEntry(
+				final ByteArrayId secondaryIndexId,
+				final ByteArrayId indexedAttributeValue,
+				final ByteArrayId adapterId,
+				final ByteArrayId indexedAttributeFieldId,
+				final ByteArrayId primaryIndexId,
+				final ByteArrayId primaryIndexRowId ) {
+			deletedRowIds.add(primaryIndexRowId);
+		}
+
+		@Override
+		public void deleteEntry(
+				final ByteArrayId secondaryIndexId,
+				final ByteArrayId indexedAttributeValue,
+				final ByteArrayId adapterId,
+				final ByteArrayId indexedAttributeFieldId,
+				final ByteArrayId dataId,
+				final List<FieldInfo<?>> attributes ) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void flush() {}
+
+		@Override
+		public void removeAll() {}
+	}
+
+	private static DataStoreEntryInfo entryInfo(
+			final List<ByteArrayId> rowIds ) {
+		final List<FieldInfo<?>> fieldInfo = new ArrayList<>();
+		fieldInfo.add(new FieldInfo<Number>(
+				new PersistentValue<Number>(
+						FIELD_ID,
+						1.0),
+				new byte[] {},
+				new byte[] {}));
+		return new DataStoreEntryInfo(
+				"data".getBytes(),
+				rowIds,
+				rowIds,
+				fieldInfo);
+	}
+
+	@Test
+	public void testEntryWithRowIds() {
+		final JoinEntryDataStore store = new JoinEntryDataStore();
+		final SecondaryIndexDataManager<Integer> manager = new SecondaryIndexDataManager<>(
+				store,
+				new SecondaryIndexedAdapter(),
+				PRIMARY_INDEX_ID);
+		final List<ByteArrayId> rowIds = Arrays.asList(
+				new ByteArrayId(
+						"row1"),
+				new ByteArrayId(
+						"row2"));
+		manager.entryIngested(
+				entryInfo(rowIds),
+				1);
+		manager.entryDeleted(
+				entryInfo(rowIds),
+				1);
+		// the join entry refers to the first row of the entry
+		assertEquals(
+				Arrays.asList(rowIds.get(0)),
+				store.storedRowIds);
+		assertEquals(
+				Arrays.asList(rowIds.get(0)),
+				store.deletedRowIds);
+	}
+
+	@Test
+	public void testEntryWithoutInsertionIds() {
+		final JoinEntryDataStore store = new JoinEntryDataStore();
+		final SecondaryIndexDataManager<Integer> manager = new SecondaryIndexDataManager<>(
+				store,
+				new SecondaryIndexedAdapter(),
+				PRIMARY_INDEX_ID);
+		// an entry that could not be indexed has no rows to refer to
+		manager.entryIngested(
+				entryInfo(Collections.<ByteArrayId> emptyList()),
+				1);
+		manager.entryDeleted(
+				entryInfo(Collections.<ByteArrayId> emptyList()),
+				1);
+		assertTrue(store.storedRowIds.isEmpty());
+		assertTrue(store.deletedRowIds.isEmpty());
+	}
+}
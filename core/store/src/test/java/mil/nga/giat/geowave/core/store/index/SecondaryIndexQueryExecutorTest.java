@@ -0,0 +1,278 @@
+package mil.nga.giat.geowave.core.store.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.MockComponents;
+import mil.nga.giat.geowave.core.store.adapter.exceptions.MismatchedIndexToAdapterMapping;
+import mil.nga.giat.geowave.core.store.query.Query;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+import mil.nga.giat.geowave.core.store.query.RowIdQuery;
+
+public class SecondaryIndexQueryExecutorTest
+{
+	private static final ByteArrayId INDEX1 = new ByteArrayId(
+			"index1");
+	private static final ByteArrayId INDEX2 = new ByteArrayId(
+			"index2");
+
+	private static class RowIdDataStore implements
+			DataStore
+	{
+		private final List<List<ByteArrayId>> queries = new ArrayList<List<ByteArrayId>>();
+
+		@Override
+		public <T> IndexWriter createWriter(
+				final DataAdapter<T> adapter,
+				final PrimaryIndex... index )
+				throws MismatchedIndexToAdapterMapping {
+			throw new UnsupportedOperationException();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T> CloseableIterator<T> query(
+				final QueryOptions queryOptions,
+				final Query query ) {
+			final List<ByteArrayId> rowIds = ((RowIdQuery) query).getRowIds();
+			queries.add(rowIds);
+			final List<Integer> entries = new ArrayList<Integer>();
+			for (final ByteArrayId rowId : rowIds) {
+				entries.add(Integer.valueOf(rowId.getString()));
+			}
+			return new CloseableIterator.Wrapper<T>(
+					(Iterator<T>) entries.iterator());
+		}
+
+		@Override
+		public boolean delete(
+				final QueryOptions queryOptions,
+				final Query query ) {
+			return false;
+		}
+	}
+
+	private static List<Pair<ByteArrayId, ByteArrayId>> entries(
+			final ByteArrayId indexId,
+			final String... rowIds ) {
+		final List<Pair<ByteArrayId, ByteArrayId>> entries = new ArrayList<Pair<ByteArrayId, ByteArrayId>>();
+		for (final String rowId : rowIds) {
+			entries.add(Pair.of(
+					indexId,
+					new ByteArrayId(
+							rowId)));
+		}
+		return entries;
+	}
+
+	private static List<String> strings(
+			final ByteArrayId[] ids ) {
+		final List<String> strings = new ArrayList<String>();
+		for (final ByteArrayId id : ids) {
+			strings.add(id.getString());
+		}
+		return strings;
+	}
+
+	@Test
+	public void testCollectAndIntersect() {
+		final List<Pair<ByteArrayId, ByteArrayId>> entries1 = entries(
+				INDEX1,
+				"e",
+				"a",
+				"c",
+				"a",
+				"g");
+		entries1.addAll(entries(
+				INDEX2,
+				"a"));
+		final Map<ByteArrayId, ByteArrayId[]> rowIds1 = SecondaryIndexQueryExecutor.collect(entries1.iterator());
+		assertEquals(
+				Arrays.asList(
+						"a",
+						"c",
+						"e",
+						"g"),
+				strings(rowIds1.get(INDEX1)));
+
+		final Map<ByteArrayId, ByteArrayId[]> rowIds2 = SecondaryIndexQueryExecutor.collect(entries(
+				INDEX1,
+				"g",
+				"b",
+				"c",
+				"h").iterator());
+		final Map<ByteArrayId, ByteArrayId[]> intersection = SecondaryIndexQueryExecutor.intersect(
+				rowIds1,
+				rowIds2);
+		assertEquals(
+				1,
+				intersection.size());
+		assertEquals(
+				Arrays.asList(
+						"c",
+						"g"),
+				strings(intersection.get(INDEX1)));
+
+		assertTrue(SecondaryIndexQueryExecutor.intersect(
+				intersection,
+				SecondaryIndexQueryExecutor.collect(entries(
+						INDEX1,
+						"a",
+						"e").iterator())).isEmpty());
+	}
+
+	@Test
+	public void testFilter() {
+		final List<Pair<ByteArrayId, ByteArrayId>> joinEntries = entries(
+				INDEX1,
+				"e",
+				"a",
+				"c");
+		joinEntries.addAll(entries(
+				INDEX2,
+				"c"));
+		final Map<ByteArrayId, ByteArrayId[]> rowIds = SecondaryIndexQueryExecutor.collect(entries(
+				INDEX1,
+				"c",
+				"e",
+				"g").iterator());
+
+		// only the entries of the previous lookup are kept
+		assertEquals(
+				Arrays.asList(
+						"e",
+						"c"),
+				rowIds(SecondaryIndexQueryExecutor.filter(
+						joinEntries.iterator(),
+						null,
+						rowIds)));
+		// only the entries of the primary index are kept
+		assertEquals(
+				Arrays.asList(
+						"c"),
+				rowIds(SecondaryIndexQueryExecutor.filter(
+						joinEntries.iterator(),
+						INDEX2,
+						null)));
+		assertFalse(SecondaryIndexQueryExecutor.filter(
+				joinEntries.iterator(),
+				INDEX2,
+				rowIds).hasNext());
+	}
+
+	@Test
+	public void testBatchedFetch()
+			throws IOException {
+		final RowIdDataStore dataStore = new RowIdDataStore();
+		final SecondaryIndexQueryExecutor executor = new SecondaryIndexQueryExecutor(
+				dataStore,
+				2);
+		final List<Pair<ByteArrayId, ByteArrayId>> joinEntries = entries(
+				INDEX1,
+				"2",
+				"1",
+				"3");
+		joinEntries.addAll(entries(
+				INDEX2,
+				"4"));
+		final TestJoinEntries joinEntryIterator = new TestJoinEntries(
+				joinEntries.iterator());
+		final List<Integer> results = new ArrayList<Integer>();
+		try (CloseableIterator<Integer> it = executor.fetch(
+				new MockComponents.MockAbstractDataAdapter(),
+				joinEntryIterator)) {
+			// nothing is queried until the results are iterated
+			assertTrue(dataStore.queries.isEmpty());
+			while (it.hasNext()) {
+				results.add(it.next());
+			}
+			assertFalse(it.hasNext());
+		}
+		// each batch of join entries is sorted and queried per primary index
+		assertEquals(
+				Arrays.asList(
+						1,
+						2,
+						3,
+						4),
+				results);
+		assertEquals(
+				3,
+				dataStore.queries.size());
+		assertTrue(joinEntryIterator.closed);
+	}
+
+	@Test
+	public void testDuplicatesInBatch()
+			throws IOException {
+		final RowIdDataStore dataStore = new RowIdDataStore();
+		final SecondaryIndexQueryExecutor executor = new SecondaryIndexQueryExecutor(
+				dataStore,
+				4);
+		final List<Integer> results = new ArrayList<Integer>();
+		try (CloseableIterator<Integer> it = executor.fetch(
+				new MockComponents.MockAbstractDataAdapter(),
+				new TestJoinEntries(
+						entries(
+								INDEX1,
+								"2",
+								"1",
+								"2").iterator()))) {
+			while (it.hasNext()) {
+				results.add(it.next());
+			}
+		}
+		assertEquals(
+				Arrays.asList(
+						1,
+						2),
+				results);
+		assertEquals(
+				1,
+				dataStore.queries.size());
+	}
+
+	private static List<String> rowIds(
+			final Iterator<Pair<ByteArrayId, ByteArrayId>> joinEntries ) {
+		final List<String> rowIds = new ArrayList<String>();
+		while (joinEntries.hasNext()) {
+			rowIds.add(joinEntries.next().getRight().getString());
+		}
+		return rowIds;
+	}
+
+	private static class TestJoinEntries extends
+			CloseableIterator.Wrapper<Pair<ByteArrayId, ByteArrayId>>
+	{
+		private boolean closed = false;
+
+		private TestJoinEntries(
+				final Iterator<Pair<ByteArrayId, ByteArrayId>> joinEntries ) {
+			super(
+					joinEntries);
+		}
+
+		@Override
+		public void close()
+				throws IOException {
+			closed = true;
+			super.close();
+		}
+	}
+}
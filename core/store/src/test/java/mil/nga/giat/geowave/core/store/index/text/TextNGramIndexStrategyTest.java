@@ -0,0 +1,129 @@
+package mil.nga.giat.geowave.core.store.index.text;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TextNGramIndexStrategyTest
+{
+	private final TextNGramIndexStrategy strategy = new TextNGramIndexStrategy(
+			3);
+	private final ByteArrayId fieldId = new ByteArrayId(
+			"fieldId");
+
+	private List<ByteArrayId> insert(
+			final String value ) {
+		final List<FieldInfo<String>> fieldInfoList = new ArrayList<>();
+		fieldInfoList.add(new FieldInfo<>(
+				new PersistentValue<String>(
+						null,
+						value),
+				null,
+				null));
+		return strategy.getInsertionIds(fieldInfoList);
+	}
+
+	private static boolean contains(
+			final List<ByteArrayRange> ranges,
+			final ByteArrayId id ) {
+		for (final ByteArrayRange range : ranges) {
+			if ((range.getStart().compareTo(
+					id) <= 0) && (range.getEnd().compareTo(
+					id) >= 0)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean found(
+			final String value,
+			final TextQueryConstraint constraint ) {
+		final List<ByteArrayRange> ranges = strategy.getQueryRanges(constraint);
+		for (final ByteArrayId insertionId : insert(value)) {
+			if (contains(
+					ranges,
+					insertionId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void testInsertions() {
+		final List<ByteArrayId> insertionIds = insert("Abcab");
+		Assert.assertEquals(
+				5,
+				insertionIds.size());
+		Assert.assertTrue(insertionIds.contains(new ByteArrayId(
+				"abc")));
+		Assert.assertTrue(insertionIds.contains(new ByteArrayId(
+				"bca")));
+		Assert.assertTrue(insertionIds.contains(new ByteArrayId(
+				"cab")));
+		Assert.assertTrue(insertionIds.contains(new ByteArrayId(
+				"ab")));
+		Assert.assertTrue(insertionIds.contains(new ByteArrayId(
+				"b")));
+	}
+
+	@Test
+	public void testLike() {
+		final String value = "Washington Monument";
+		Assert.assertTrue(found(
+				value,
+				new TextLikeConstraint(
+						fieldId,
+						"%ton Mon%",
+						false)));
+		Assert.assertTrue(found(
+				value,
+				new TextLikeConstraint(
+						fieldId,
+						"%nt",
+						true)));
+		Assert.assertTrue(found(
+				value,
+				new TextLikeConstraint(
+						fieldId,
+						"%t",
+						true)));
+		Assert.assertTrue(found(
+				value,
+				new TextQueryConstraint(
+						fieldId,
+						value,
+						true)));
+		Assert.assertFalse(found(
+				value,
+				new TextLikeConstraint(
+						fieldId,
+						"%memorial%",
+						false)));
+		Assert.assertFalse(found(
+				value,
+				new TextLikeConstraint(
+						fieldId,
+						"%z",
+						false)));
+	}
+
+	@Test
+	public void testPersistence() {
+		final TextNGramIndexStrategy other = new TextNGramIndexStrategy();
+		other.fromBinary(new TextNGramIndexStrategy(
+				4).toBinary());
+		Assert.assertEquals(
+				4,
+				other.getNGramSize());
+		Assert.assertFalse(strategy.getId().equals(
+				other.getId()));
+	}
+}
@@ -0,0 +1,102 @@
+package mil.nga.giat.geowave.core.store.index.text;
+
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TextPrefixIndexStrategyTest
+{
+	private final TextPrefixIndexStrategy strategy = new TextPrefixIndexStrategy();
+	private final ByteArrayId fieldId = new ByteArrayId(
+			"fieldId");
+
+	private static boolean contains(
+			final ByteArrayRange range,
+			final String value ) {
+		final ByteArrayId id = new ByteArrayId(
+				value);
+		return (range.getStart().compareTo(
+				id) <= 0) && (range.getEnd().compareTo(
+				id) >= 0);
+	}
+
+	@Test
+	public void testPrefix() {
+		final List<ByteArrayRange> ranges = strategy.getQueryRanges(new TextLikeConstraint(
+				fieldId,
+				"Wash%ton",
+				false));
+		Assert.assertEquals(
+				1,
+				ranges.size());
+		Assert.assertTrue(contains(
+				ranges.get(0),
+				"washington"));
+		Assert.assertTrue(contains(
+				ranges.get(0),
+				"wash"));
+		Assert.assertFalse(contains(
+				ranges.get(0),
+				"was"));
+		Assert.assertFalse(contains(
+				ranges.get(0),
+				"wasg"));
+		Assert.assertFalse(contains(
+				ranges.get(0),
+				"wasi"));
+	}
+
+	@Test
+	public void testExact() {
+		final List<ByteArrayRange> ranges = strategy.getQueryRanges(new TextLikeConstraint(
+				fieldId,
+				"100\\%",
+				true));
+		Assert.assertEquals(
+				new ByteArrayRange(
+						new ByteArrayId(
+								"100%"),
+						new ByteArrayId(
+								"100%")),
+				ranges.get(0));
+	}
+
+	@Test
+	public void testLeadingWildcard() {
+		final List<ByteArrayRange> ranges = strategy.getQueryRanges(new TextLikeConstraint(
+				fieldId,
+				"%ton",
+				false));
+		Assert.assertEquals(
+				TextIndexUtils.ALL_RANGE,
+				ranges.get(0));
+	}
+
+	@Test
+	public void testPattern() {
+		final TextLikeConstraint constraint = new TextLikeConstraint(
+				fieldId,
+				TextLikeConstraint.toPattern(
+						"a*b_c!*.d",
+						"*",
+						".",
+						"!"),
+				true);
+		Assert.assertEquals(
+				"a%b\\_c\\*_d",
+				constraint.getMatchValue());
+		Assert.assertEquals(
+				"a",
+				constraint.getPrefix());
+		Assert.assertEquals(
+				3,
+				constraint.getLiterals().size());
+		Assert.assertEquals(
+				"b_c*",
+				constraint.getLiterals().get(
+						1));
+	}
+}
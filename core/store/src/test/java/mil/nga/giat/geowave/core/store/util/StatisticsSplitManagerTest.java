@@ -0,0 +1,178 @@
+package mil.nga.giat.geowave.core.store.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.adapter.MockComponents;
+import mil.nga.giat.geowave.core.store.adapter.statistics.RowRangeHistogramStatistics;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.memory.MemoryDataStatisticsStore;
+
+public class StatisticsSplitManagerTest
+{
+	private static ByteArrayId genId(
+			final long id ) {
+		return new ByteArrayId(
+				ByteBuffer.allocate(
+						8).putLong(
+						(1L << 56) + (id << 40)).array());
+	}
+
+	private static RowRangeHistogramStatistics<Integer> createStats() {
+		return createStats(
+				"adapter",
+				"index",
+				10000);
+	}
+
+	private static RowRangeHistogramStatistics<Integer> createStats(
+			final String adapterId,
+			final String indexId,
+			final long count ) {
+		final RowRangeHistogramStatistics<Integer> stats = new RowRangeHistogramStatistics<Integer>(
+				new ByteArrayId(
+						adapterId),
+				new ByteArrayId(
+						indexId),
+				1024);
+		for (long i = 0; i < count; i++) {
+			final List<ByteArrayId> ids = Arrays.asList(genId(i));
+			stats.entryIngested(
+					new DataStoreEntryInfo(
+							Long.toString(
+									i).getBytes(),
+							ids,
+							ids,
+							Collections.<FieldInfo<?>> emptyList()),
+					1);
+		}
+		return stats;
+	}
+
+	@Test
+	public void testQuantileSplits() {
+		final RowRangeHistogramStatistics<Integer> stats = createStats();
+		final SortedSet<ByteArrayId> splits = StatisticsSplitManager.getQuantileSplits(
+				stats,
+				4);
+		assertEquals(
+				3,
+				splits.size());
+
+		byte[] start = null;
+		for (final ByteArrayId split : splits) {
+			assertEquals(
+					0.25,
+					StatisticsSplitManager.getPopulation(
+							stats,
+							start,
+							split.getBytes()),
+					0.05);
+			start = split.getBytes();
+		}
+		assertEquals(
+				0.25,
+				StatisticsSplitManager.getPopulation(
+						stats,
+						start,
+						null),
+				0.05);
+		assertEquals(
+				1.0,
+				StatisticsSplitManager.getPopulation(
+						stats,
+						null,
+						null),
+				0.00001);
+	}
+
+	@Test
+	public void testRebalanceSplits() {
+		final RowRangeHistogramStatistics<Integer> stats = createStats();
+
+		// an unsplit table is split on every quantile
+		assertEquals(
+				3,
+				StatisticsSplitManager.getRebalanceSplits(
+						new TreeSet<ByteArrayId>(),
+						stats,
+						4).size());
+
+		// a balanced table is left alone
+		assertTrue(StatisticsSplitManager.getRebalanceSplits(
+				StatisticsSplitManager.getQuantileSplits(
+						stats,
+						4),
+				stats,
+				4).isEmpty());
+
+		// splits outside of the data only leave one tablet holding it
+		final SortedSet<ByteArrayId> outsideSplits = new TreeSet<ByteArrayId>();
+		outsideSplits.add(new ByteArrayId(
+				new byte[] {
+					0x00
+				}));
+		outsideSplits.add(new ByteArrayId(
+				new byte[] {
+					0x7f
+				}));
+		assertEquals(
+				3,
+				StatisticsSplitManager.getRebalanceSplits(
+						outsideSplits,
+						stats,
+						4).size());
+	}
+
+	@Test
+	public void testRowRangeHistogram() {
+		final MemoryDataStatisticsStore statisticsStore = new MemoryDataStatisticsStore();
+		final PrimaryIndex index = new PrimaryIndex(
+				new MockComponents.MockIndexStrategy(),
+				new MockComponents.TestIndexModel(
+						"SSMT_tm"));
+		final String indexId = index.getId().getString();
+		assertNull(StatisticsSplitManager.getRowRangeHistogram(
+				statisticsStore,
+				index));
+
+		final RowRangeHistogramStatistics<Integer> stats = createStats(
+				"adapter",
+				indexId,
+				1000);
+		statisticsStore.setStatistics(stats);
+		statisticsStore.setStatistics(createStats(
+				"adapter2",
+				indexId,
+				500));
+		// the histogram of another index is not merged
+		statisticsStore.setStatistics(createStats(
+				"adapter",
+				"index",
+				250));
+
+		final RowRangeHistogramStatistics<?> merged = StatisticsSplitManager.getRowRangeHistogram(
+				statisticsStore,
+				index);
+		assertEquals(
+				1500,
+				merged.totalSampleSize());
+		// the stored statistics are not modified
+		assertEquals(
+				1000,
+				stats.totalSampleSize());
+	}
+}
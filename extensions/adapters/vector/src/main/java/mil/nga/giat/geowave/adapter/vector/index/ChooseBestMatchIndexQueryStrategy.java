@@ -5,12 +5,25 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
+import org.apache.log4j.Logger;
+import org.opengis.feature.simple.SimpleFeature;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureSpatialDensityStatistics;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.core.geotime.index.dimension.TimeDefinition;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.IndexUtils;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.SFCDimensionDefinition;
 import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DuplicateEntryCount;
 import mil.nga.giat.geowave.core.store.adapter.statistics.RowRangeHistogramStatistics;
 import mil.nga.giat.geowave.core.store.index.Index;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
@@ -18,9 +31,6 @@ import mil.nga.giat.geowave.core.store.query.BasicQuery;
 import mil.nga.giat.geowave.core.store.query.ConstraintsQuery;
 import mil.nga.giat.geowave.core.store.util.DataStoreUtils;
 
-import org.apache.log4j.Logger;
-import org.opengis.feature.simple.SimpleFeature;
-
 public class ChooseBestMatchIndexQueryStrategy implements
 		IndexQueryStrategySPI
 {
@@ -37,10 +47,26 @@ public class ChooseBestMatchIndexQueryStrategy implements
 			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
 			final BasicQuery query,
 			final PrimaryIndex[] indices ) {
+		return getIndices(
+				stats,
+				query,
+				indices,
+				null);
+	}
+
+	@Override
+	public CloseableIterator<Index<?, ?>> getIndices(
+			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
+			final BasicQuery query,
+			final PrimaryIndex[] indices,
+			final String geometryField ) {
 		return new CloseableIterator<Index<?, ?>>() {
 			PrimaryIndex nextIdx = null;
 			boolean done = false;
 			int i = 0;
+			final FeatureSpatialDensityStatistics density = getDensityStatistics(
+					stats,
+					geometryField);
 
 			@Override
 			public boolean hasNext() {
@@ -52,7 +78,8 @@ public class ChooseBestMatchIndexQueryStrategy implements
 					if (nextIdx.getIndexStrategy().getOrderedDimensionDefinitions().length == 0) continue;
 					final List<MultiDimensionalNumericData> constraints = query.getIndexConstraints(nextIdx
 							.getIndexStrategy());
-					if (!stats.containsKey(RowRangeHistogramStatistics.composeId(nextIdx.getId()))) {
+					final boolean hasHistogram = stats.containsKey(RowRangeHistogramStatistics.composeId(nextIdx.getId()));
+					if (!hasHistogram && (density == null)) {
 						LOGGER
 								.warn("Best Match Heuristic requires statistic RowRangeHistogramStatistics for each index to properly choose an index.");
 					}
@@ -69,10 +96,16 @@ public class ChooseBestMatchIndexQueryStrategy implements
 								constraints,
 								nextIdx.getIndexStrategy(),
 								ConstraintsQuery.MAX_RANGE_DECOMPOSITION);
-						final long temp = DataStoreUtils.cardinality(
+						final long temp = (hasHistogram || (density == null)) ? DataStoreUtils.cardinality(
+								nextIdx,
+								stats,
+								ranges) : (long) Math.ceil(estimateCardinality(
+								density,
 								nextIdx,
+								constraints) * getRowsPerEntry(
 								stats,
-								ranges);
+								density,
+								nextIdx));
 						if (temp < min) {
 							bestIdx = nextIdx;
 							min = temp;
@@ -104,4 +137,85 @@ public class ChooseBestMatchIndexQueryStrategy implements
 					throws IOException {}
 		};
 	}
+
+	/**
+	 * @return the density statistic of the geometry attribute the query
+	 *         constrains, or null if it has none
+	 */
+	private static FeatureSpatialDensityStatistics getDensityStatistics(
+			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
+			final String geometryField ) {
+		if (geometryField == null) {
+			return null;
+		}
+		final DataStatistics<SimpleFeature> stat = stats.get(FeatureSpatialDensityStatistics.composeId(geometryField));
+		return stat instanceof FeatureSpatialDensityStatistics ? (FeatureSpatialDensityStatistics) stat : null;
+	}
+
+	/**
+	 * The density statistic counts features while a row range histogram counts
+	 * rows, and an entry with duplicates is stored in several rows of an
+	 * index. A density estimate is scaled to rows by the fraction of entries
+	 * with duplicates in the index, each stored in at least two rows.
+	 */
+	private static double getRowsPerEntry(
+			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
+			final FeatureSpatialDensityStatistics density,
+			final PrimaryIndex index ) {
+		final DataStatistics<SimpleFeature> duplicates = stats.get(DuplicateEntryCount.composeId(index.getId()));
+		if (!(duplicates instanceof DuplicateEntryCount) || (density.getTotalCount() <= 0)) {
+			return 1;
+		}
+		final long entriesWithDuplicates = ((DuplicateEntryCount<?>) duplicates).getEntriesWithDuplicatesCount();
+		return 1 + ((double) Math.min(
+				Math.max(
+						entriesWithDuplicates,
+						0),
+				density.getTotalCount()) / density.getTotalCount());
+	}
+
+	/**
+	 * Without a row range histogram for the index, estimate the number of
+	 * features the index would scan from the spatial density statistic, using
+	 * only the constraints on dimensions that the index can use
+	 */
+	private static double estimateCardinality(
+			final FeatureSpatialDensityStatistics density,
+			final PrimaryIndex index,
+			final List<MultiDimensionalNumericData> constraints ) {
+		final NumericDimensionDefinition[] dimensions = index.getIndexStrategy().getOrderedDimensionDefinitions();
+		double estimate = 0;
+		for (final MultiDimensionalNumericData constraint : constraints) {
+			final NumericData[] data = constraint.getDataPerDimension();
+			double minX = -180, maxX = 180, minY = -90, maxY = 90;
+			Long startTime = null, endTime = null;
+			for (int d = 0; (d < dimensions.length) && (d < data.length); d++) {
+				NumericDimensionDefinition dimension = dimensions[d];
+				if (dimension instanceof SFCDimensionDefinition) {
+					dimension = ((SFCDimensionDefinition) dimension).getDimensionDefinition();
+				}
+				if (dimension instanceof LongitudeDefinition) {
+					minX = data[d].getMin();
+					maxX = data[d].getMax();
+				}
+				else if (dimension instanceof LatitudeDefinition) {
+					minY = data[d].getMin();
+					maxY = data[d].getMax();
+				}
+				else if (dimension instanceof TimeDefinition) {
+					startTime = (long) data[d].getMin();
+					endTime = (long) data[d].getMax();
+				}
+			}
+			estimate += density.estimateCount(
+					new Envelope(
+							minX,
+							maxX,
+							minY,
+							maxY),
+					startTime,
+					endTime);
+		}
+		return estimate;
+	}
 }
@@ -17,4 +17,20 @@ public interface IndexQueryStrategySPI
 			Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
 			BasicQuery query,
 			PrimaryIndex[] indices );
+
+	/**
+	 * @param geometryField
+	 *            the geometry attribute constrained by the query, for
+	 *            strategies using statistics of that attribute
+	 */
+	public default CloseableIterator<Index<?, ?>> getIndices(
+			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
+			final BasicQuery query,
+			final PrimaryIndex[] indices,
+			final String geometryField ) {
+		return getIndices(
+				stats,
+				query,
+				indices);
+	}
 }
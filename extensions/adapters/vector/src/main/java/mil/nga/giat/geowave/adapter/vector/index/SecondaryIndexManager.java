@@ -17,6 +17,8 @@ import mil.nga.giat.geowave.core.store.index.SecondaryIndexType;
 import mil.nga.giat.geowave.core.store.index.numeric.NumericIndexStrategy;
 import mil.nga.giat.geowave.core.store.index.temporal.TemporalIndexStrategy;
 import mil.nga.giat.geowave.core.store.index.text.TextIndexStrategy;
+import mil.nga.giat.geowave.core.store.index.text.TextNGramIndexStrategy;
+import mil.nga.giat.geowave.core.store.index.text.TextPrefixIndexStrategy;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
@@ -84,6 +86,16 @@ public class SecondaryIndexManager implements
 				secondaryIndexType = SecondaryIndexType.valueOf((String) userData
 						.get(TextSecondaryIndexConfiguration.INDEX_KEY));
 			}
+			else if (userData.containsKey(TextNGramSecondaryIndexConfiguration.INDEX_KEY)) {
+				secondaryIndex = TextNGramSecondaryIndexConfiguration.INDEX_KEY;
+				secondaryIndexType = SecondaryIndexType.valueOf((String) userData
+						.get(TextNGramSecondaryIndexConfiguration.INDEX_KEY));
+			}
+			else if (userData.containsKey(TextPrefixSecondaryIndexConfiguration.INDEX_KEY)) {
+				secondaryIndex = TextPrefixSecondaryIndexConfiguration.INDEX_KEY;
+				secondaryIndexType = SecondaryIndexType.valueOf((String) userData
+						.get(TextPrefixSecondaryIndexConfiguration.INDEX_KEY));
+			}
 			else if (userData.containsKey(TemporalSecondaryIndexConfiguration.INDEX_KEY)) {
 				secondaryIndex = TemporalSecondaryIndexConfiguration.INDEX_KEY;
 				secondaryIndexType = SecondaryIndexType.valueOf((String) userData
@@ -165,6 +177,34 @@ public class SecondaryIndexManager implements
 						fieldsForPartial));
 				break;
 
+			case TextNGramSecondaryIndexConfiguration.INDEX_KEY:
+				stat = new FeatureHyperLogLogStatistics(
+						dataAdapter.getAdapterId(),
+						fieldId.getString(),
+						16);
+				statistics.add(stat);
+				supportedSecondaryIndices.add(new SecondaryIndex<SimpleFeature>(
+						new TextNGramIndexStrategy(),
+						fieldId,
+						statistics,
+						secondaryIndexType,
+						fieldsForPartial));
+				break;
+
+			case TextPrefixSecondaryIndexConfiguration.INDEX_KEY:
+				stat = new FeatureHyperLogLogStatistics(
+						dataAdapter.getAdapterId(),
+						fieldId.getString(),
+						16);
+				statistics.add(stat);
+				supportedSecondaryIndices.add(new SecondaryIndex<SimpleFeature>(
+						new TextPrefixIndexStrategy(),
+						fieldId,
+						statistics,
+						secondaryIndexType,
+						fieldsForPartial));
+				break;
+
 			case TemporalSecondaryIndexConfiguration.INDEX_KEY:
 				stat = new FeatureNumericHistogramStatistics(
 						dataAdapter.getAdapterId(),
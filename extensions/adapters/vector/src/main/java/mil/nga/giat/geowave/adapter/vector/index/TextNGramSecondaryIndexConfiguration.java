@@ -0,0 +1,71 @@
+package mil.nga.giat.geowave.adapter.vector.index;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import mil.nga.giat.geowave.core.store.index.SecondaryIndexType;
+
+import org.codehaus.jackson.annotate.JsonIgnore;
+
+public class TextNGramSecondaryIndexConfiguration extends
+		AbstractSecondaryIndexConfiguration<String>
+{
+
+	private static final long serialVersionUID = 3928153046621774920L;
+	public static final String INDEX_KEY = "2ND_IDX_TEXT_NGRAM";
+
+	public TextNGramSecondaryIndexConfiguration() {
+		super(
+				String.class,
+				Collections.<String> emptySet(),
+				SecondaryIndexType.JOIN);
+	}
+
+	public TextNGramSecondaryIndexConfiguration(
+			final String attribute,
+			final SecondaryIndexType secondaryIndexType ) {
+		super(
+				String.class,
+				attribute,
+				secondaryIndexType);
+	}
+
+	public TextNGramSecondaryIndexConfiguration(
+			final Set<String> attributes,
+			final SecondaryIndexType secondaryIndexType ) {
+		super(
+				String.class,
+				attributes,
+				secondaryIndexType);
+	}
+
+	public TextNGramSecondaryIndexConfiguration(
+			final String attribute,
+			final SecondaryIndexType secondaryIndexType,
+			final List<String> fieldIds ) {
+		super(
+				String.class,
+				attribute,
+				secondaryIndexType,
+				fieldIds);
+	}
+
+	public TextNGramSecondaryIndexConfiguration(
+			final Set<String> attributes,
+			final SecondaryIndexType secondaryIndexType,
+			final List<String> fieldIds ) {
+		super(
+				String.class,
+				attributes,
+				secondaryIndexType,
+				fieldIds);
+	}
+
+	@JsonIgnore
+	@Override
+	public String getIndexKey() {
+		return INDEX_KEY;
+	}
+
+}
@@ -84,7 +84,8 @@ public class GeoWaveDataStoreComponents
 		return getGTstore().getIndexQueryStrategy().getIndices(
 				stats,
 				query,
-				gtStore.getIndicesForAdapter(adapter));
+				gtStore.getIndicesForAdapter(adapter),
+				adapter.getFeatureType().getGeometryDescriptor().getLocalName());
 	}
 
 	public void remove(
@@ -8,6 +8,7 @@ import mil.nga.giat.geowave.core.store.index.numeric.NumericLessThanConstraint;
 import mil.nga.giat.geowave.core.store.index.numeric.NumericLessThanOrEqualToConstraint;
 import mil.nga.giat.geowave.core.store.index.numeric.NumericQueryConstraint;
 import mil.nga.giat.geowave.core.store.index.text.TextExactMatchFilter;
+import mil.nga.giat.geowave.core.store.index.text.TextLikeConstraint;
 import mil.nga.giat.geowave.core.store.index.text.TextQueryConstraint;
 
 import org.geotools.filter.visitor.NullFilterVisitor;
@@ -437,6 +438,24 @@ public class PropertyFilterVisitor extends
 	public Object visit(
 			final PropertyIsLike filter,
 			final Object data ) {
+		final Object leftResult = filter.getExpression().accept(
+				this,
+				data);
+		if ((leftResult instanceof ByteArrayId) && (filter.getLiteral() != null)) {
+			final TextLikeConstraint constraint = new TextLikeConstraint(
+					(ByteArrayId) leftResult,
+					TextLikeConstraint.toPattern(
+							filter.getLiteral(),
+							filter.getWildCard(),
+							filter.getSingleChar(),
+							filter.getEscape()),
+					filter.isMatchingCase());
+			// a pattern of only wildcards does not constrain the property
+			if (!constraint.getLiterals().isEmpty()) {
+				return new PropertyConstraintSet(
+						constraint);
+			}
+		}
 		return new PropertyConstraintSet();
 	}
 
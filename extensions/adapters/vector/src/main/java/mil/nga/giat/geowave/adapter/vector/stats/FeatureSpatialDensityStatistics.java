@@ -0,0 +1,710 @@
+package mil.nga.giat.geowave.adapter.vector.stats;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.referencing.operation.MathTransform;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+import mil.nga.giat.geowave.adapter.vector.util.FeatureDataUtils;
+import mil.nga.giat.geowave.core.geotime.TimeUtils;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.Mergeable;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.adapter.statistics.AbstractDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.callback.DeleteCallback;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+/**
+ * Counts features per cell of a longitude/latitude grid, optionally binned by
+ * time. Counts are kept at the finest level (2^maxLevel cells per axis) and
+ * any coarser level is derived by summing, so the statistic can estimate how
+ * many features fall within an arbitrary envelope (and time range) and can
+ * provide a low resolution density grid without scanning data. Features are
+ * counted in the cell containing the center of their envelope.
+ *
+ */
+public class FeatureSpatialDensityStatistics extends
+		AbstractDataStatistics<SimpleFeature> implements
+		FeatureStatistic,
+		DeleteCallback<SimpleFeature>
+{
+	private final static Logger LOGGER = Logger.getLogger(FeatureSpatialDensityStatistics.class);
+	public static final ByteArrayId STATS_TYPE = new ByteArrayId(
+			"FEATURE_DENSITY");
+	public static final int DEFAULT_MAX_LEVEL = 8;
+
+	private static final double MIN_X = -180;
+	private static final double MAX_X = 180;
+	private static final double MIN_Y = -90;
+	private static final double MAX_Y = 90;
+
+	private int maxLevel;
+	private String timeField;
+	private long timeBinMillis;
+
+	/**
+	 * time bin to (cell to count), a statistic without a time field uses the
+	 * single bin 0
+	 */
+	private TreeMap<Long, Map<Long, Long>> counts = new TreeMap<Long, Map<Long, Long>>();
+	private long totalCount = 0;
+
+	private SimpleFeatureType persistedType;
+	private SimpleFeatureType reprojectedType;
+	private MathTransform transform;
+
+	/**
+	 * This is expensive, but necessary since there may be duplicates
+	 */
+	private transient HashSet<ByteArrayId> deletedIds = new HashSet<ByteArrayId>();
+
+	protected FeatureSpatialDensityStatistics() {
+		super();
+	}
+
+	public FeatureSpatialDensityStatistics(
+			final ByteArrayId dataAdapterId,
+			final String statisticsId ) {
+		this(
+				dataAdapterId,
+				statisticsId,
+				DEFAULT_MAX_LEVEL,
+				null,
+				0);
+	}
+
+	/**
+	 *
+	 * @param dataAdapterId
+	 * @param statisticsId
+	 *            the geometry attribute
+	 * @param maxLevel
+	 *            the finest grid level, with 2^maxLevel cells per axis
+	 * @param timeField
+	 *            an optional temporal attribute to bin counts by
+	 * @param timeBinMillis
+	 *            the width of a time bin, ignored without a time field
+	 */
+	public FeatureSpatialDensityStatistics(
+			final ByteArrayId dataAdapterId,
+			final String statisticsId,
+			final int maxLevel,
+			final String timeField,
+			final long timeBinMillis ) {
+		super(
+				dataAdapterId,
+				composeId(
+						STATS_TYPE.getString(),
+						statisticsId));
+		this.maxLevel = maxLevel;
+		this.timeField = ((timeField != null) && (timeBinMillis > 0)) ? timeField : null;
+		this.timeBinMillis = (this.timeField != null) ? timeBinMillis : 0;
+	}
+
+	public static final ByteArrayId composeId(
+			final String fieldName ) {
+		return composeId(
+				STATS_TYPE.getString(),
+				fieldName);
+	}
+
+	@Override
+	public String getFieldName() {
+		return decomposeNameFromId(getStatisticsId());
+	}
+
+	/**
+	 * Geometries are counted in the default CRS, the same as
+	 * {@link FeatureBoundingBoxStatistics}
+	 */
+	public void setReprojection(
+			final SimpleFeatureType persistedType,
+			final SimpleFeatureType reprojectedType,
+			final MathTransform transform ) {
+		this.persistedType = persistedType;
+		this.reprojectedType = reprojectedType;
+		this.transform = transform;
+	}
+
+	public int getMaxLevel() {
+		return maxLevel;
+	}
+
+	public boolean isTemporal() {
+		return timeField != null;
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	@Override
+	public DataStatistics<SimpleFeature> duplicate() {
+		final FeatureSpatialDensityStatistics newStats = new FeatureSpatialDensityStatistics(
+				dataAdapterId,
+				getFieldName(),
+				maxLevel,
+				timeField,
+				timeBinMillis);
+		newStats.setReprojection(
+				persistedType,
+				reprojectedType,
+				transform);
+		return newStats;
+	}
+
+	@Override
+	public void entryIngested(
+			final DataStoreEntryInfo entryInfo,
+			final SimpleFeature entry ) {
+		update(
+				entry,
+				1);
+	}
+
+	@Override
+	public void entryDeleted(
+			final DataStoreEntryInfo entryInfo,
+			final SimpleFeature entry ) {
+		if (deletedIds.add(new ByteArrayId(
+				entryInfo.getDataId()))) {
+			update(
+					entry,
+					-1);
+		}
+	}
+
+	private void update(
+			final SimpleFeature entry,
+			final long delta ) {
+		final Envelope env = getEnvelope(entry);
+		if (env == null) {
+			return;
+		}
+		long bin = 0;
+		if (timeField != null) {
+			final Object time = entry.getAttribute(timeField);
+			if (time == null) {
+				return;
+			}
+			bin = Math.floorDiv(
+					TimeUtils.getTimeMillis(time),
+					timeBinMillis);
+		}
+		final int side = 1 << maxLevel;
+		final long cell = (toCellY(
+				(env.getMinY() + env.getMaxY()) / 2,
+				side) * (long) side) + toCellX(
+				(env.getMinX() + env.getMaxX()) / 2,
+				side);
+		Map<Long, Long> cells = counts.get(bin);
+		if (cells == null) {
+			cells = new HashMap<Long, Long>();
+			counts.put(
+					bin,
+					cells);
+		}
+		add(
+				cells,
+				cell,
+				delta);
+		totalCount += delta;
+	}
+
+	private Envelope getEnvelope(
+			final SimpleFeature entry ) {
+		final Object o;
+		if ((persistedType != null) && (reprojectedType != null) && (transform != null)) {
+			o = FeatureDataUtils.defaultCRSTransform(
+					entry,
+					persistedType,
+					reprojectedType,
+					transform).getAttribute(
+					getFieldName());
+		}
+		else {
+			o = entry.getAttribute(getFieldName());
+		}
+		if ((o != null) && (o instanceof Geometry)) {
+			final Geometry geometry = (Geometry) o;
+			if (!geometry.isEmpty()) {
+				return geometry.getEnvelopeInternal();
+			}
+		}
+		return null;
+	}
+
+	private static int toCellX(
+			final double x,
+			final int side ) {
+		return clamp(
+				(int) Math.floor(((x - MIN_X) / (MAX_X - MIN_X)) * side),
+				side);
+	}
+
+	private static int toCellY(
+			final double y,
+			final int side ) {
+		return clamp(
+				(int) Math.floor(((y - MIN_Y) / (MAX_Y - MIN_Y)) * side),
+				side);
+	}
+
+	private static int clamp(
+			final int cell,
+			final int side ) {
+		return Math.max(
+				0,
+				Math.min(
+						side - 1,
+						cell));
+	}
+
+	private static void add(
+			final Map<Long, Long> cells,
+			final long cell,
+			final long delta ) {
+		final Long current = cells.get(cell);
+		final long value = (current == null) ? delta : current + delta;
+		if (value == 0) {
+			cells.remove(cell);
+		}
+		else {
+			cells.put(
+					cell,
+					value);
+		}
+	}
+
+	/**
+	 * Estimate the number of features within an envelope in the default CRS,
+	 * assuming features are uniformly distributed within a cell
+	 */
+	public double estimateCount(
+			final Envelope envelope ) {
+		return estimateCount(
+				envelope,
+				null,
+				null);
+	}
+
+	/**
+	 * Estimate the number of features within an envelope in the default CRS
+	 * and a time range, assuming features are uniformly distributed within a
+	 * cell and a time bin. The time range is ignored if this statistic is not
+	 * binned by time.
+	 *
+	 * @param envelope
+	 *            the spatial constraint, null for no spatial constraint
+	 * @param startMillis
+	 *            the inclusive start time, null for unbounded
+	 * @param endMillis
+	 *            the inclusive end time, null for unbounded
+	 */
+	public double estimateCount(
+			final Envelope envelope,
+			final Long startMillis,
+			final Long endMillis ) {
+		final Envelope world = new Envelope(
+				MIN_X,
+				MAX_X,
+				MIN_Y,
+				MAX_Y);
+		final Envelope query = (envelope == null) ? world : envelope.intersection(world);
+		if (query.isNull()) {
+			return 0;
+		}
+		SortedMap<Long, Map<Long, Long>> bins = counts;
+		if ((timeField != null) && ((startMillis != null) || (endMillis != null))) {
+			final long startBin = (startMillis == null) ? Long.MIN_VALUE : Math.floorDiv(
+					startMillis,
+					timeBinMillis);
+			final long endBin = (endMillis == null) ? Long.MAX_VALUE : Math.floorDiv(
+					endMillis,
+					timeBinMillis);
+			if (endBin < startBin) {
+				return 0;
+			}
+			bins = (endBin == Long.MAX_VALUE) ? counts.tailMap(startBin) : counts.subMap(
+					startBin,
+					endBin + 1);
+		}
+		final int side = 1 << maxLevel;
+		final int minCellX = toCellX(
+				query.getMinX(),
+				side);
+		final int maxCellX = toCellX(
+				query.getMaxX(),
+				side);
+		final int minCellY = toCellY(
+				query.getMinY(),
+				side);
+		final int maxCellY = toCellY(
+				query.getMaxY(),
+				side);
+		final long queryCells = (long) ((maxCellX - minCellX) + 1) * ((maxCellY - minCellY) + 1);
+		double estimate = 0;
+		for (final Entry<Long, Map<Long, Long>> bin : bins.entrySet()) {
+			final double timeFraction = timeFraction(
+					bin.getKey(),
+					startMillis,
+					endMillis);
+			if (timeFraction <= 0) {
+				continue;
+			}
+			final Map<Long, Long> cells = bin.getValue();
+			double binEstimate = 0;
+			if (queryCells < cells.size()) {
+				for (int y = minCellY; y <= maxCellY; y++) {
+					for (int x = minCellX; x <= maxCellX; x++) {
+						final Long count = cells.get((y * (long) side) + x);
+						if (count != null) {
+							binEstimate += count * overlap(
+									x,
+									y,
+									side,
+									query);
+						}
+					}
+				}
+			}
+			else {
+				for (final Entry<Long, Long> cell : cells.entrySet()) {
+					final int x = (int) (cell.getKey() % side);
+					final int y = (int) (cell.getKey() / side);
+					if ((x >= minCellX) && (x <= maxCellX) && (y >= minCellY) && (y <= maxCellY)) {
+						binEstimate += cell.getValue() * overlap(
+								x,
+								y,
+								side,
+								query);
+					}
+				}
+			}
+			estimate += binEstimate * timeFraction;
+		}
+		return estimate;
+	}
+
+	/**
+	 * Estimate the fraction of all features that are within an envelope in the
+	 * default CRS and a time range
+	 */
+	public double estimateSelectivity(
+			final Envelope envelope,
+			final Long startMillis,
+			final Long endMillis ) {
+		if (totalCount <= 0) {
+			return 0;
+		}
+		return Math.min(
+				1,
+				estimateCount(
+						envelope,
+						startMillis,
+						endMillis) / totalCount);
+	}
+
+	private double timeFraction(
+			final long bin,
+			final Long startMillis,
+			final Long endMillis ) {
+		if (timeField == null) {
+			return 1;
+		}
+		final long binStart = bin * timeBinMillis;
+		final long binEnd = binStart + timeBinMillis;
+		final long start = (startMillis == null) ? binStart : Math.max(
+				binStart,
+				startMillis);
+		final long end = (endMillis == null) ? binEnd : Math.min(
+				binEnd,
+				endMillis + 1);
+		if (end <= start) {
+			return 0;
+		}
+		return (double) (end - start) / timeBinMillis;
+	}
+
+	private static double overlap(
+			final int x,
+			final int y,
+			final int side,
+			final Envelope query ) {
+		final double cellWidth = (MAX_X - MIN_X) / side;
+		final double cellHeight = (MAX_Y - MIN_Y) / side;
+		final Envelope cell = new Envelope(
+				MIN_X + (x * cellWidth),
+				MIN_X + ((x + 1) * cellWidth),
+				MIN_Y + (y * cellHeight),
+				MIN_Y + ((y + 1) * cellHeight));
+		final Envelope intersection = cell.intersection(query);
+		if (intersection.isNull()) {
+			return 0;
+		}
+		return intersection.getArea() / cell.getArea();
+	}
+
+	/**
+	 * Get the feature counts summed over all time bins at the given level for
+	 * rendering a density overview. The grid is indexed [y][x] with [0][0] at
+	 * (-180, -90), and each cell covers 360/2^level degrees of longitude and
+	 * 180/2^level degrees of latitude.
+	 *
+	 * @param level
+	 *            the grid level, at most the max level of this statistic
+	 */
+	public long[][] getDensityGrid(
+			final int level ) {
+		final int gridLevel = Math.max(
+				0,
+				Math.min(
+						level,
+						maxLevel));
+		final int shift = maxLevel - gridLevel;
+		final int side = 1 << maxLevel;
+		final long[][] grid = new long[1 << gridLevel][1 << gridLevel];
+		for (final Map<Long, Long> cells : counts.values()) {
+			for (final Entry<Long, Long> cell : cells.entrySet()) {
+				final int x = (int) (cell.getKey() % side);
+				final int y = (int) (cell.getKey() / side);
+				grid[y >> shift][x >> shift] += cell.getValue();
+			}
+		}
+		return grid;
+	}
+
+	@Override
+	public void merge(
+			final Mergeable mergeable ) {
+		if ((mergeable != null) && (mergeable instanceof FeatureSpatialDensityStatistics)) {
+			final FeatureSpatialDensityStatistics other = (FeatureSpatialDensityStatistics) mergeable;
+			if ((other.maxLevel != maxLevel) || (other.timeBinMillis != timeBinMillis)) {
+				LOGGER.warn("Unable to merge density statistics with different grid or time bin configurations");
+				return;
+			}
+			for (final Entry<Long, Map<Long, Long>> bin : other.counts.entrySet()) {
+				Map<Long, Long> cells = counts.get(bin.getKey());
+				if (cells == null) {
+					cells = new HashMap<Long, Long>();
+					counts.put(
+							bin.getKey(),
+							cells);
+				}
+				for (final Entry<Long, Long> cell : bin.getValue().entrySet()) {
+					add(
+							cells,
+							cell.getKey(),
+							cell.getValue());
+				}
+			}
+			totalCount += other.totalCount;
+		}
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final byte[] timeFieldBytes = (timeField == null) ? new byte[0] : StringUtils.stringToBinary(timeField);
+		int size = 24 + timeFieldBytes.length;
+		for (final Map<Long, Long> cells : counts.values()) {
+			size += 12 + (cells.size() * 16);
+		}
+		final ByteBuffer buffer = super.binaryBuffer(size);
+		buffer.putInt(maxLevel);
+		buffer.putLong(timeBinMillis);
+		buffer.putInt(timeFieldBytes.length);
+		buffer.put(timeFieldBytes);
+		buffer.putInt(counts.size());
+		for (final Entry<Long, Map<Long, Long>> bin : counts.entrySet()) {
+			buffer.putLong(bin.getKey());
+			buffer.putInt(bin.getValue().size());
+			for (final Entry<Long, Long> cell : bin.getValue().entrySet()) {
+				buffer.putLong(cell.getKey());
+				buffer.putLong(cell.getValue());
+			}
+		}
+		return buffer.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buffer = super.binaryBuffer(bytes);
+		maxLevel = buffer.getInt();
+		timeBinMillis = buffer.getLong();
+		final byte[] timeFieldBytes = new byte[buffer.getInt()];
+		buffer.get(timeFieldBytes);
+		timeField = (timeFieldBytes.length == 0) ? null : StringUtils.stringFromBinary(timeFieldBytes);
+		final int binCount = buffer.getInt();
+		counts = new TreeMap<Long, Map<Long, Long>>();
+		totalCount = 0;
+		for (int b = 0; b < binCount; b++) {
+			final long bin = buffer.getLong();
+			final int cellCount = buffer.getInt();
+			final Map<Long, Long> cells = new HashMap<Long, Long>(
+					cellCount);
+			for (int c = 0; c < cellCount; c++) {
+				final long cell = buffer.getLong();
+				final long count = buffer.getLong();
+				cells.put(
+						cell,
+						count);
+				totalCount += count;
+			}
+			counts.put(
+					bin,
+					cells);
+		}
+	}
+
+	@Override
+	public String toString() {
+		final StringBuffer buffer = new StringBuffer();
+		buffer.append(
+				"density[adapter=").append(
+				super.getDataAdapterId().getString());
+		buffer.append(
+				", field=").append(
+				getFieldName());
+		buffer.append(
+				", level=").append(
+				maxLevel);
+		if (timeField != null) {
+			buffer.append(
+					", timeField=").append(
+					timeField);
+			buffer.append(
+					", timeBinMillis=").append(
+					timeBinMillis);
+		}
+		buffer.append(
+				", count=").append(
+				totalCount);
+		buffer.append("]");
+		return buffer.toString();
+	}
+
+	/**
+	 * Convert Feature Spatial Density statistics to a JSON object
+	 */
+
+	@Override
+	public JSONObject toJSONObject()
+			throws JSONException {
+		final JSONObject jo = new JSONObject();
+		jo.put(
+				"type",
+				STATS_TYPE.getString());
+		jo.put(
+				"statisticsID",
+				statisticsId.getString());
+		jo.put(
+				"field_identifier",
+				getFieldName());
+		jo.put(
+				"level",
+				maxLevel);
+		if (timeField != null) {
+			jo.put(
+					"time_field",
+					timeField);
+			jo.put(
+					"time_bin_millis",
+					timeBinMillis);
+			jo.put(
+					"time_bins",
+					counts.size());
+		}
+		jo.put(
+				"count",
+				totalCount);
+		return jo;
+	}
+
+	public static class FeatureSpatialDensityConfig implements
+			StatsConfig<SimpleFeature>
+	{
+		/**
+		 *
+		 */
+		private static final long serialVersionUID = -3265403129561960286L;
+		private int maxLevel = DEFAULT_MAX_LEVEL;
+		private String timeField = null;
+		private long timeBinMillis = 0;
+
+		public FeatureSpatialDensityConfig() {
+
+		}
+
+		public FeatureSpatialDensityConfig(
+				final int maxLevel ) {
+			this(
+					maxLevel,
+					null,
+					0);
+		}
+
+		public FeatureSpatialDensityConfig(
+				final int maxLevel,
+				final String timeField,
+				final long timeBinMillis ) {
+			super();
+			this.maxLevel = maxLevel;
+			this.timeField = timeField;
+			this.timeBinMillis = timeBinMillis;
+		}
+
+		public int getMaxLevel() {
+			return maxLevel;
+		}
+
+		public void setMaxLevel(
+				final int maxLevel ) {
+			this.maxLevel = maxLevel;
+		}
+
+		public String getTimeField() {
+			return timeField;
+		}
+
+		public void setTimeField(
+				final String timeField ) {
+			this.timeField = timeField;
+		}
+
+		public long getTimeBinMillis() {
+			return timeBinMillis;
+		}
+
+		public void setTimeBinMillis(
+				final long timeBinMillis ) {
+			this.timeBinMillis = timeBinMillis;
+		}
+
+		@Override
+		public DataStatistics<SimpleFeature> create(
+				final ByteArrayId dataAdapterId,
+				final String fieldName ) {
+			return new FeatureSpatialDensityStatistics(
+					dataAdapterId,
+					fieldName,
+					maxLevel,
+					timeField,
+					timeBinMillis);
+		}
+	}
+}
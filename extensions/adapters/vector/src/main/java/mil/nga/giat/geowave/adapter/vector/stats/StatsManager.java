@@ -153,10 +153,17 @@ public class StatsManager
 				List<StatsConfig<SimpleFeature>> featureConfigs = statsConfigurations.getConfigurationsForAttribute();
 
 				for (StatsConfig<SimpleFeature> statConfig : featureConfigs) {
+					final DataStatistics<SimpleFeature> statObj = statConfig.create(
+							adapterID,
+							fieldName);
+					if (statObj instanceof FeatureSpatialDensityStatistics) {
+						((FeatureSpatialDensityStatistics) statObj).setReprojection(
+								persistedType,
+								reprojectedType,
+								transform);
+					}
 					addStats(
-							statConfig.create(
-									adapterID,
-									fieldName),
+							statObj,
 							vis);
 				}
 
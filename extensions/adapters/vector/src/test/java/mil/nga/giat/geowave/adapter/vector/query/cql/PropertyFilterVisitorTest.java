@@ -2,6 +2,7 @@ package mil.nga.giat.geowave.adapter.vector.query.cql;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.store.index.numeric.NumberRangeFilter;
@@ -9,6 +10,8 @@ import mil.nga.giat.geowave.core.store.index.numeric.NumericEqualsConstraint;
 import mil.nga.giat.geowave.core.store.index.numeric.NumericLessThanConstraint;
 import mil.nga.giat.geowave.core.store.index.numeric.NumericQueryConstraint;
 import mil.nga.giat.geowave.core.store.index.text.TextExactMatchFilter;
+import mil.nga.giat.geowave.core.store.index.text.TextLikeConstraint;
+import mil.nga.giat.geowave.core.store.index.text.TextLikeFilter;
 import mil.nga.giat.geowave.core.store.index.text.TextQueryConstraint;
 
 import org.geotools.data.Query;
@@ -139,4 +142,30 @@ public class PropertyFilterVisitorTest
 		assertTrue(tf.isCaseSensitive());
 
 	}
+
+	@Test
+	public void testLike()
+			throws CQLException {
+		final Filter filter = CQL.toFilter("b LIKE '%ashing_on%' AND c LIKE '%'");
+		final Query query = new Query(
+				"type",
+				filter);
+
+		final PropertyFilterVisitor visitor = new PropertyFilterVisitor();
+
+		final PropertyConstraintSet constraints = (PropertyConstraintSet) query.getFilter().accept(
+				visitor,
+				null);
+		final TextLikeConstraint constraint = (TextLikeConstraint) constraints.getConstraintsById(new ByteArrayId(
+				"b"));
+		assertEquals(
+				"%ashing_on%",
+				constraint.getMatchValue());
+		assertEquals(
+				2,
+				constraint.getLiterals().size());
+		assertTrue(constraint.getFilter() instanceof TextLikeFilter);
+		assertNull(constraints.getConstraintsById(new ByteArrayId(
+				"c")));
+	}
 }
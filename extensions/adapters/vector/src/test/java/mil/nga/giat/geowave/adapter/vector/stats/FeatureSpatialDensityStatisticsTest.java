@@ -0,0 +1,184 @@
+package mil.nga.giat.geowave.adapter.vector.stats;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.UUID;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.SchemaException;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.filter.text.cql2.CQLException;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+
+public class FeatureSpatialDensityStatisticsTest
+{
+	private static final long HOUR = 60L * 60L * 1000L;
+
+	private SimpleFeatureType schema;
+	final GeometryFactory factory = new GeometryFactory();
+
+	@Before
+	public void setup()
+			throws SchemaException,
+			CQLException,
+			ParseException {
+		schema = DataUtilities.createType(
+				"sp.geostuff",
+				"geometry:Geometry:srid=4326,when:Date");
+	}
+
+	private SimpleFeature create(
+			final double x,
+			final double y,
+			final long time ) {
+		final SimpleFeature newFeature = SimpleFeatureBuilder.build(
+				schema,
+				new Object[] {
+					factory.createPoint(new Coordinate(
+							x,
+							y)),
+					new Date(
+							time)
+				},
+				UUID.randomUUID().toString());
+		return newFeature;
+	}
+
+	@Test
+	public void testSpatialEstimate() {
+		final FeatureSpatialDensityStatistics stat = new FeatureSpatialDensityStatistics(
+				new ByteArrayId(
+						"sp.geostuff"),
+				"geometry");
+		for (int i = 0; i < 100; i++) {
+			stat.entryIngested(
+					null,
+					create(
+							10.1 + (i * 0.001),
+							20.1,
+							0));
+		}
+		for (int i = 0; i < 50; i++) {
+			stat.entryIngested(
+					null,
+					create(
+							-100.1,
+							-40.1 - (i * 0.001),
+							0));
+		}
+
+		assertEquals(
+				150,
+				stat.getTotalCount());
+		assertEquals(
+				100,
+				stat.estimateCount(new Envelope(
+						0,
+						30,
+						0,
+						30)),
+				0.001);
+		assertEquals(
+				50,
+				stat.estimateCount(new Envelope(
+						-120,
+						-90,
+						-60,
+						-30)),
+				0.001);
+		assertEquals(
+				0,
+				stat.estimateCount(new Envelope(
+						100,
+						120,
+						60,
+						80)),
+				0.001);
+
+		final long[][] grid = stat.getDensityGrid(1);
+		assertEquals(
+				100,
+				grid[1][1]);
+		assertEquals(
+				50,
+				grid[0][0]);
+	}
+
+	@Test
+	public void testTemporalMergeAndSerialization() {
+		final FeatureSpatialDensityStatistics stat = new FeatureSpatialDensityStatistics(
+				new ByteArrayId(
+						"sp.geostuff"),
+				"geometry",
+				6,
+				"when",
+				HOUR);
+		final FeatureSpatialDensityStatistics stat2 = (FeatureSpatialDensityStatistics) stat.duplicate();
+		for (int i = 0; i < 40; i++) {
+			stat.entryIngested(
+					null,
+					create(
+							1.1,
+							1.1,
+							(i % 2) * HOUR));
+			stat2.entryIngested(
+					null,
+					create(
+							1.1,
+							1.1,
+							(5 * HOUR) + 1));
+		}
+		stat.merge(stat2);
+
+		final FeatureSpatialDensityStatistics copy = (FeatureSpatialDensityStatistics) stat.duplicate();
+		copy.fromBinary(stat.toBinary());
+
+		assertEquals(
+				80,
+				copy.getTotalCount());
+		assertEquals(
+				20,
+				copy.estimateCount(
+						new Envelope(
+								0,
+								10,
+								0,
+								10),
+						0L,
+						HOUR - 1),
+				0.001);
+		assertEquals(
+				60,
+				copy.estimateCount(
+						new Envelope(
+								0,
+								10,
+								0,
+								10),
+						HOUR,
+						null),
+				0.001);
+		assertEquals(
+				0.25,
+				copy.estimateSelectivity(
+						new Envelope(
+								0,
+								10,
+								0,
+								10),
+						null,
+						HOUR - 1),
+				0.001);
+	}
+}
@@ -44,12 +44,15 @@ import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
 import mil.nga.giat.geowave.core.store.adapter.RowMergingDataAdapter;
 import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DuplicateEntryCount;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StatisticsProvider;
 import mil.nga.giat.geowave.core.store.base.BaseDataStore;
 import mil.nga.giat.geowave.core.store.base.CastIterator;
 import mil.nga.giat.geowave.core.store.base.DataStoreCallbackManager;
 import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.base.ServerSideDeleteStatus;
 import mil.nga.giat.geowave.core.store.callback.IngestCallback;
 import mil.nga.giat.geowave.core.store.callback.ScanCallback;
 import mil.nga.giat.geowave.core.store.data.visibility.DifferingFieldVisibilityEntryCount;
@@ -58,6 +61,7 @@ import mil.nga.giat.geowave.core.store.filter.DedupeFilter;
 import mil.nga.giat.geowave.core.store.index.IndexMetaDataSet;
 import mil.nga.giat.geowave.core.store.index.IndexStore;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndexDataAdapter;
 import mil.nga.giat.geowave.core.store.index.SecondaryIndexUtils;
 import mil.nga.giat.geowave.core.store.memory.MemoryAdapterStore;
 import mil.nga.giat.geowave.core.store.query.DataIdQuery;
@@ -84,7 +88,9 @@ import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloRowIdsDelete;
 import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloRowIdsQuery;
 import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloRowPrefixDelete;
 import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloRowPrefixQuery;
+import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloServerSideDelete;
 import mil.nga.giat.geowave.datastore.accumulo.query.SingleEntryFilterIterator;
+import mil.nga.giat.geowave.datastore.accumulo.split.AccumuloSplitManager;
 import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloEntryIteratorWrapper;
 import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloUtils;
 import mil.nga.giat.geowave.datastore.accumulo.util.ScannerClosableWrapper;
@@ -114,6 +120,7 @@ public class AccumuloDataStore extends
 	private final AccumuloOptions accumuloOptions;
 
 	private final AccumuloSplitsProvider splitsProvider = new AccumuloSplitsProvider();
+	private AccumuloSplitManager splitManager = null;
 
 	private static class DupTracker
 	{
@@ -208,13 +215,26 @@ public class AccumuloDataStore extends
 			final DataStoreOptions baseOptions,
 			final IngestCallback callback,
 			final Closeable closable ) {
+		final AccumuloSplitManager splitManager = getSplitManager();
 		return new AccumuloIndexWriter(
 				adapter,
 				index,
 				accumuloOperations,
 				accumuloOptions,
 				callback,
-				closable);
+				splitManager != null ? splitManager.getRebalancingClosable(
+						index,
+						closable) : closable);
+	}
+
+	private synchronized AccumuloSplitManager getSplitManager() {
+		if ((splitManager == null) && (accumuloOptions.getAutoSplits() > 0)) {
+			splitManager = new AccumuloSplitManager(
+					accumuloOperations,
+					statisticsStore,
+					accumuloOptions.getAutoSplits());
+		}
+		return splitManager;
 	}
 
 	@Override
@@ -224,6 +244,24 @@ public class AccumuloDataStore extends
 
 		final String indexName = index.getId().getString();
 
+		final AccumuloSplitManager splitManager = getSplitManager();
+		try {
+			if ((splitManager != null) && accumuloOptions.isCreateTable()
+					&& !accumuloOperations.tableExists(indexName)) {
+				// create the table ahead of the writer to pre-split it
+				accumuloOperations.createTable(
+						indexName,
+						true,
+						accumuloOptions.isEnableBlockCache(),
+						splitManager.getPreSplits(index));
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to pre-split index '" + indexName + "'",
+					e);
+		}
+
 		try {
 			if (adapter instanceof RowMergingDataAdapter) {
 				if (!DataAdapterAndIndexCache.getInstance(
@@ -737,7 +775,8 @@ public class AccumuloDataStore extends
 			final DataStatisticsStore statsStore,
 			final IndexStore indexStore,
 			final Integer minSplits,
-			final Integer maxSplits )
+			final Integer maxSplits,
+			final Long targetSplitSize )
 			throws IOException,
 			InterruptedException {
 		return splitsProvider.getSplits(
@@ -749,7 +788,8 @@ public class AccumuloDataStore extends
 				indexStore,
 				indexMappingStore,
 				minSplits,
-				maxSplits);
+				maxSplits,
+				targetSplitSize);
 	}
 
 	@Override
@@ -821,6 +861,7 @@ public class AccumuloDataStore extends
 		callbackCache.setPersistStats(accumuloOptions.isPersistDataStatistics());
 
 		final DupTracker dupTracker = new DupTracker();
+		final List<Pair<PrimaryIndex, DataAdapter<Object>>> unknownStatistics = new ArrayList<Pair<PrimaryIndex, DataAdapter<Object>>>();
 
 		// Get BatchDeleters for the query
 		CloseableIterator<Object> deleteIt = getBatchDeleters(
@@ -829,7 +870,8 @@ public class AccumuloDataStore extends
 				indexAdapterPairs,
 				sanitizedQueryOptions,
 				sanitizedQuery,
-				dupTracker);
+				dupTracker,
+				unknownStatistics);
 
 		// Iterate through deleters
 		while (deleteIt.hasNext()) {
@@ -875,6 +917,24 @@ public class AccumuloDataStore extends
 			}
 		}
 
+		// the statistics of failed server-side deletes are recalculated once
+		// the remaining entries are deleted
+		for (final Pair<PrimaryIndex, DataAdapter<Object>> indexAdapterPair : unknownStatistics) {
+			try {
+				recalculateStatistics(
+						indexAdapterPair.getRight(),
+						indexAdapterPair.getLeft(),
+						true,
+						sanitizedQueryOptions.getAuthorizations());
+			}
+			catch (final IOException e) {
+				LOGGER.error(
+						"Unable to recalculate statistics of adapter '"
+								+ indexAdapterPair.getRight().getAdapterId().getString() + "'",
+						e);
+			}
+		}
+
 		boolean countAggregation = (sanitizedQuery instanceof DataIdQuery ? false : true);
 
 		// Count after the delete. Should always be zero
@@ -950,13 +1010,33 @@ public class AccumuloDataStore extends
 			final List<Pair<PrimaryIndex, List<DataAdapter<Object>>>> indexAdapterPairs,
 			final QueryOptions sanitizedQueryOptions,
 			final Query sanitizedQuery,
-			final DupTracker dupTracker ) {
+			final DupTracker dupTracker,
+			final List<Pair<PrimaryIndex, DataAdapter<Object>>> unknownStatistics ) {
 		final boolean DELETE = true; // for readability
 		final List<CloseableIterator<Object>> results = new ArrayList<CloseableIterator<Object>>();
 
 		for (final Pair<PrimaryIndex, List<DataAdapter<Object>>> indexAdapterPair : indexAdapterPairs) {
 			final List<ByteArrayId> adapterIdsToQuery = new ArrayList<>();
 			for (final DataAdapter<Object> adapter : indexAdapterPair.getRight()) {
+				// secondary indices are updated from the deleted entries on the
+				// client
+				if (!(adapter instanceof SecondaryIndexDataAdapter)) {
+					final ServerSideDeleteStatus status = deleteOnServer(
+							adapter,
+							indexAdapterPair.getLeft(),
+							sanitizedQuery,
+							sanitizedQueryOptions,
+							accumuloOptions.isPersistDataStatistics() && (adapter instanceof StatisticsProvider),
+							true);
+					if (status == ServerSideDeleteStatus.COMPLETE) {
+						continue;
+					}
+					if (status == ServerSideDeleteStatus.STATISTICS_UNKNOWN) {
+						unknownStatistics.add(Pair.of(
+								indexAdapterPair.getLeft(),
+								adapter));
+					}
+				}
 
 				// Add scan callback for bookkeeping
 				final ScanCallback<Object> callback = new ScanCallback<Object>() {
@@ -1032,6 +1112,114 @@ public class AccumuloDataStore extends
 						results.iterator())));
 	}
 
+	@Override
+	protected ServerSideDeleteStatus deleteOnServer(
+			final DataAdapter<Object> adapter,
+			final PrimaryIndex index,
+			final Query query,
+			final QueryOptions queryOptions,
+			final boolean statistics,
+			final boolean includeAdapterStats ) {
+		// row ID and data ID deletes touch few rows, so they are cheaper to
+		// delete from the client, and the partial rows of merging adapters are
+		// only entries once they are merged
+		if (!accumuloOptions.isServerSideDelete() || (query instanceof RowIdQuery) || (query instanceof DataIdQuery)
+				|| (adapter instanceof RowMergingDataAdapter)) {
+			return ServerSideDeleteStatus.INCOMPLETE;
+		}
+		final List<ByteArrayId> adapterIds = Collections.singletonList(adapter.getAdapterId());
+		final String[] authorizations = queryOptions.getAuthorizations();
+		final DifferingFieldVisibilityEntryCount visibilityCounts = DifferingFieldVisibilityEntryCount
+				.getVisibilityCounts(
+						index,
+						adapterIds,
+						statisticsStore,
+						authorizations);
+		final AccumuloServerSideDelete serverSideDelete;
+		if (query instanceof PrefixIdQuery) {
+			// the fields of an entry must be in a single key for the tablet
+			// servers to calculate its statistics from each key on its own
+			if ((visibilityCounts == null) || visibilityCounts.isAnyEntryDifferingFieldVisiblity()) {
+				return ServerSideDeleteStatus.INCOMPLETE;
+			}
+			serverSideDelete = new AccumuloServerSideDelete(
+					adapter,
+					index,
+					((PrefixIdQuery) query).getRowPrefix());
+		}
+		else {
+			final AccumuloConstraintsQuery accumuloQuery = new AccumuloConstraintsQuery(
+					adapterIds,
+					index,
+					query,
+					null,
+					null,
+					null,
+					null,
+					IndexMetaDataSet.getIndexMetadata(
+							index,
+							adapterIds,
+							statisticsStore,
+							authorizations),
+					DuplicateEntryCount.getDuplicateCounts(
+							index,
+							adapterIds,
+							statisticsStore,
+							authorizations),
+					visibilityCounts,
+					authorizations);
+			if (!AccumuloServerSideDelete.isServerSide(accumuloQuery)) {
+				return ServerSideDeleteStatus.INCOMPLETE;
+			}
+			serverSideDelete = new AccumuloServerSideDelete(
+					adapter,
+					index,
+					accumuloQuery);
+		}
+
+		List<DataStatistics<?>> deletedStatistics = Collections.emptyList();
+		if (statistics) {
+			try {
+				deletedStatistics = serverSideDelete.calculateStatistics(
+						accumuloOperations,
+						includeAdapterStats,
+						authorizations);
+			}
+			catch (final Exception e) {
+				// nothing is deleted yet, so the client deletes every entry
+				LOGGER.warn(
+						"Unable to calculate statistics on the tablet servers, deleting from the client",
+						e);
+				return ServerSideDeleteStatus.INCOMPLETE;
+			}
+		}
+		try {
+			serverSideDelete.delete(
+					accumuloOperations,
+					authorizations);
+		}
+		catch (final Exception e) {
+			// some of the rows may be deleted, and which ones is not known
+			LOGGER.warn(
+					"Unable to delete on the tablet servers, deleting from the client",
+					e);
+			return statistics ? ServerSideDeleteStatus.STATISTICS_UNKNOWN : ServerSideDeleteStatus.INCOMPLETE;
+		}
+		for (final DataStatistics<?> stats : deletedStatistics) {
+			statisticsStore.incorporateStatistics(stats);
+		}
+		// the entries stored in several rows are deleted from the client
+		final DuplicateEntryCount duplicateCounts = DuplicateEntryCount.getDuplicateCounts(
+				index,
+				adapterIds,
+				statisticsStore,
+				authorizations);
+		if ((duplicateCounts == null) || duplicateCounts.isAnyEntryHaveDuplicates()) {
+			return ServerSideDeleteStatus.INCOMPLETE;
+		}
+		return ServerSideDeleteStatus.COMPLETE;
+	}
+
 	protected void updateDupCounts(
 			final DupTracker dupTracker,
 			final ByteArrayId adapterId,
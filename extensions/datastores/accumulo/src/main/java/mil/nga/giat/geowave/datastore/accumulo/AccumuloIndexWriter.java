@@ -1,6 +1,7 @@
 package mil.nga.giat.geowave.datastore.accumulo;
 
 import java.io.Closeable;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
@@ -53,13 +54,27 @@ public class AccumuloIndexWriter<T> extends
 
 	protected synchronized void ensureOpen() {
 		if (writer == null) {
+			if (accumuloOptions.getBulkImportDir() != null) {
+				openBulkImportWriter();
+				return;
+			}
 			try {
-				writer = accumuloOperations.createWriter(
-						StringUtils.stringFromBinary(index.getId().getBytes()),
-						accumuloOptions.isCreateTable(),
-						true,
-						accumuloOptions.isEnableBlockCache(),
-						index.getIndexStrategy().getNaturalSplits());
+				if (accumuloOptions.isAdaptiveWrites()) {
+					writer = accumuloOperations.createAdaptiveWriter(
+							StringUtils.stringFromBinary(index.getId().getBytes()),
+							accumuloOptions.isCreateTable(),
+							true,
+							accumuloOptions.isEnableBlockCache(),
+							index.getIndexStrategy().getNaturalSplits());
+				}
+				else {
+					writer = accumuloOperations.createWriter(
+							StringUtils.stringFromBinary(index.getId().getBytes()),
+							accumuloOptions.isCreateTable(),
+							true,
+							accumuloOptions.isEnableBlockCache(),
+							index.getIndexStrategy().getNaturalSplits());
+				}
 			}
 			catch (final TableNotFoundException e) {
 				LOGGER.error(
@@ -69,6 +84,30 @@ public class AccumuloIndexWriter<T> extends
 		}
 	}
 
+	private void openBulkImportWriter() {
+		final String tableName = StringUtils.stringFromBinary(index.getId().getBytes());
+		if (accumuloOptions.isCreateTable()) {
+			accumuloOperations.createTable(
+					tableName,
+					true,
+					accumuloOptions.isEnableBlockCache(),
+					index.getIndexStrategy().getNaturalSplits());
+		}
+		try {
+			writer = new BulkImportWriter(
+					accumuloOperations.getConnector(),
+					AccumuloUtils.getQualifiedTableName(
+							accumuloOperations.getTableNameSpace(),
+							tableName),
+					accumuloOptions.getBulkImportDir());
+		}
+		catch (final IOException | TableNotFoundException e) {
+			LOGGER.error(
+					"Unable to open bulk import writer",
+					e);
+		}
+	}
+
 	@Override
 	protected DataStoreEntryInfo getEntryInfo(
 			final T entry,
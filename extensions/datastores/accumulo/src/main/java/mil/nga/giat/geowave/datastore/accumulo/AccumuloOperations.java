@@ -63,6 +63,46 @@ public interface AccumuloOperations extends
 			String... additionalAuthorizations )
 			throws TableNotFoundException;
 
+	/**
+	 * Gets a batch scanner that can be used by an index, reusing an idle
+	 * scanner released for the same table and authorizations if there is one.
+	 * The ranges must be set by the caller.
+	 *
+	 * @param tableName
+	 *            The basic name of the table. Note that that basic
+	 *            implementation of the factory will allow for a table namespace
+	 *            to prefix this name
+	 * @param additionalAuthorizations
+	 *            additional authorization other than any defaults provided by
+	 *            the implementing class
+	 * @return The appropriate batch scanner
+	 * @throws TableNotFoundException
+	 *             The table does not exist in this Accumulo instance
+	 */
+	public BatchScanner createPooledBatchScanner(
+			final String tableName,
+			String... additionalAuthorizations )
+			throws TableNotFoundException;
+
+	/**
+	 * Releases a batch scanner obtained from createPooledBatchScanner, closing
+	 * it unless it can be reused
+	 *
+	 * @param scanner
+	 *            the scanner to release
+	 * @param reusable
+	 *            true if all of the scanner's results were read
+	 * @param tableName
+	 *            the table name the scanner was created for
+	 * @param additionalAuthorizations
+	 *            the authorizations the scanner was created for
+	 */
+	public void releaseBatchScanner(
+			final BatchScanner scanner,
+			final boolean reusable,
+			final String tableName,
+			String... additionalAuthorizations );
+
 	/**
 	 * Creates a new scanner that can be used by an index
 	 *
@@ -187,6 +227,40 @@ public interface AccumuloOperations extends
 			final Set<ByteArrayId> splits )
 			throws TableNotFoundException;
 
+	/**
+	 * Creates a writer like createWriter, whose buffer size and number of
+	 * write threads start from the defaults of this implementation and are
+	 * then tuned from the write throughput, latency and errors.
+	 *
+	 * @param tableName
+	 *            The basic name of the table. Note that that basic
+	 *            implementation of the factory will allow for a table namespace
+	 *            to prefix this name
+	 * @param createTable
+	 *            If true and the table does not exist, it will be created. If
+	 *            false and the table does not exist, a TableNotFoundException
+	 *            will be thrown.
+	 * @param enableVersioning
+	 *            If true the versioning iterator will be used.
+	 * @param enableBlockCache
+	 *            Will set the default property for accumulo block cache if the
+	 *            table is created
+	 * @param splits
+	 *            If the table is created, these splits will be added as
+	 *            partition keys. Null can be used to imply not to add any
+	 *            splits.
+	 * @return The appropriate writer
+	 * @throws TableNotFoundException
+	 *             The table does not exist in this Accumulo instance
+	 */
+	public Writer createAdaptiveWriter(
+			final String tableName,
+			final boolean createTable,
+			final boolean enableVersioning,
+			final boolean enableBlockCache,
+			final Set<ByteArrayId> splits )
+			throws TableNotFoundException;
+
 	/**
 	 * Attaches the iterators to the specified table. This will check if the
 	 * scope is the same and if the options are the same. If the options are
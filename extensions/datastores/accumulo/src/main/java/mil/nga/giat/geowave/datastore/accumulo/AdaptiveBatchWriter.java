@@ -0,0 +1,221 @@
+package mil.nga.giat.geowave.datastore.accumulo;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.log4j.Logger;
+
+import mil.nga.giat.geowave.core.store.base.AdaptiveWriteTuner;
+import mil.nga.giat.geowave.core.store.base.Writer;
+
+/**
+ * A batch writer whose memory and number of write threads are tuned while
+ * writing, by an AdaptiveWriteTuner fed with the time each mutation blocks the
+ * caller and the mutations rejected by the tablet servers.
+ *
+ * The configuration of an Accumulo batch writer is fixed, so when the tuner
+ * changes the settings the current batch writer is replaced by a new one and
+ * then closed, which flushes its mutations. A batch writer can not be used
+ * after it rejects mutations, so it is replaced as well. The rejected
+ * mutations are not known, so they can not be written again, and the
+ * rejection is thrown to the caller whose write, flush or close observed it,
+ * including a rejection by a replaced batch writer while it is closed.
+ */
+public class AdaptiveBatchWriter implements
+		Writer<Mutation>
+{
+	private final static Logger LOGGER = Logger.getLogger(AdaptiveBatchWriter.class);
+
+	private final Connector connector;
+	private final String qualifiedTableName;
+	private final long timeoutMillis;
+	private final AdaptiveWriteTuner tuner;
+	// writes share the batch writer, replacing it is exclusive
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private BatchWriter batchWriter;
+
+	public AdaptiveBatchWriter(
+			final Connector connector,
+			final String qualifiedTableName,
+			final long timeoutMillis,
+			final AdaptiveWriteTuner tuner )
+			throws TableNotFoundException {
+		this.connector = connector;
+		this.qualifiedTableName = qualifiedTableName;
+		this.timeoutMillis = timeoutMillis;
+		this.tuner = tuner;
+		batchWriter = createBatchWriter();
+		tuner.register();
+	}
+
+	public AdaptiveWriteTuner getTuner() {
+		return tuner;
+	}
+
+	private BatchWriter createBatchWriter()
+			throws TableNotFoundException {
+		final BatchWriterConfig config = new BatchWriterConfig();
+		config.setMaxMemory(tuner.getBufferSize());
+		config.setMaxLatency(
+				timeoutMillis,
+				TimeUnit.MILLISECONDS);
+		config.setMaxWriteThreads(tuner.getThreads());
+		return createBatchWriter(config);
+	}
+
+	/**
+	 * Create a batch writer for the table with the tuned configuration
+	 */
+	protected BatchWriter createBatchWriter(
+			final BatchWriterConfig config )
+			throws TableNotFoundException {
+		return connector.createBatchWriter(
+				qualifiedTableName,
+				config);
+	}
+
+	@Override
+	public void write(
+			final Iterable<Mutation> mutations ) {
+		for (final Mutation mutation : mutations) {
+			write(mutation);
+		}
+	}
+
+	@Override
+	public void write(
+			final Mutation mutation ) {
+		final BatchWriter currentBatchWriter;
+		MutationsRejectedException rejected = null;
+		boolean replace;
+		lock.readLock().lock();
+		try {
+			currentBatchWriter = batchWriter;
+			final long start = System.nanoTime();
+			try {
+				currentBatchWriter.addMutation(mutation);
+			}
+			catch (final MutationsRejectedException e) {
+				tuner.recordError();
+				rejected = e;
+			}
+			replace = tuner.recordWrite(
+					mutation.numBytes(),
+					System.nanoTime() - start);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		if (replace || (rejected != null)) {
+			replaceBatchWriter(
+					currentBatchWriter,
+					rejected);
+		}
+	}
+
+	@Override
+	public void flush() {
+		final BatchWriter currentBatchWriter;
+		MutationsRejectedException rejected = null;
+		boolean replace;
+		lock.readLock().lock();
+		try {
+			currentBatchWriter = batchWriter;
+			final long start = System.nanoTime();
+			try {
+				currentBatchWriter.flush();
+			}
+			catch (final MutationsRejectedException e) {
+				tuner.recordError();
+				rejected = e;
+			}
+			replace = tuner.recordWrite(
+					0,
+					System.nanoTime() - start);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		if (replace || (rejected != null)) {
+			replaceBatchWriter(
+					currentBatchWriter,
+					rejected);
+		}
+	}
+
+	/**
+	 * Replace the batch writer, unless another thread already replaced it,
+	 * and throw the mutations rejected by the batch writer, either before or
+	 * while it is closed
+	 */
+	private void replaceBatchWriter(
+			final BatchWriter replacedBatchWriter,
+			final MutationsRejectedException rejected ) {
+		MutationsRejectedException failure = rejected;
+		lock.writeLock().lock();
+		try {
+			if (batchWriter == replacedBatchWriter) {
+				final BatchWriter newBatchWriter = createBatchWriter();
+				final MutationsRejectedException closeFailure = closeBatchWriter();
+				if (failure == null) {
+					failure = closeFailure;
+				}
+				batchWriter = newBatchWriter;
+			}
+		}
+		catch (final TableNotFoundException e) {
+			LOGGER.error(
+					"Unable to reconfigure batch writer, continuing with the current configuration",
+					e);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		if (failure != null) {
+			throw new RuntimeException(
+					"Mutations were rejected writing to table '" + qualifiedTableName + "'",
+					failure);
+		}
+	}
+
+	private MutationsRejectedException closeBatchWriter() {
+		try {
+			batchWriter.close();
+			return null;
+		}
+		catch (final MutationsRejectedException e) {
+			LOGGER.error(
+					"Unable to close batch writer",
+					e);
+			tuner.recordError();
+			return e;
+		}
+	}
+
+	@Override
+	public void close()
+			throws IOException {
+		final MutationsRejectedException failure;
+		lock.writeLock().lock();
+		try {
+			failure = closeBatchWriter();
+		}
+		finally {
+			lock.writeLock().unlock();
+			tuner.unregister();
+		}
+		if (failure != null) {
+			throw new IOException(
+					"Mutations were rejected writing to table '" + qualifiedTableName + "'",
+					failure);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package mil.nga.giat.geowave.datastore.accumulo;
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -41,9 +42,11 @@ import org.apache.log4j.Logger;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.base.AdaptiveWriteTuner;
 import mil.nga.giat.geowave.core.store.base.Writer;
 import mil.nga.giat.geowave.datastore.accumulo.operations.config.AccumuloRequiredOptions;
 import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloUtils;
+import mil.nga.giat.geowave.datastore.accumulo.util.BatchScannerPool;
 import mil.nga.giat.geowave.datastore.accumulo.util.ConnectorPool;
 
 /**
@@ -52,7 +55,8 @@ import mil.nga.giat.geowave.datastore.accumulo.util.ConnectorPool;
  * and a batch writer
  */
 public class BasicAccumuloOperations implements
-		AccumuloOperations
+		AccumuloOperations,
+		Closeable
 {
 	private final static Logger LOGGER = Logger.getLogger(BasicAccumuloOperations.class);
 	private static final int DEFAULT_NUM_THREADS = 16;
@@ -70,6 +74,7 @@ public class BasicAccumuloOperations implements
 	private long cacheTimeoutMillis;
 	private String password;
 	private final Map<String, Set<String>> insuredAuthorizationCache;
+	private final BatchScannerPool batchScannerPool = new BatchScannerPool();
 
 	/**
 	 * This is will create an Accumulo connector based on passed in connection
@@ -266,6 +271,32 @@ public class BasicAccumuloOperations implements
 						config));
 	}
 
+	@Override
+	public Writer createAdaptiveWriter(
+			final String tableName,
+			final boolean createTable,
+			final boolean enableVersioning,
+			final boolean enableBlockCache,
+			final Set<ByteArrayId> splits )
+			throws TableNotFoundException {
+		final String qName = getQualifiedTableName(tableName);
+		if (createTable) {
+			createTable(
+					tableName,
+					enableVersioning,
+					enableBlockCache,
+					splits);
+		}
+		return new AdaptiveBatchWriter(
+				connector,
+				qName,
+				timeoutMillis,
+				new AdaptiveWriteTuner(
+						qName,
+						byteBufferSize,
+						numThreads));
+	}
+
 	@Override
 	public void createTable(
 			final String tableName,
@@ -332,10 +363,20 @@ public class BasicAccumuloOperations implements
 		}
 	}
 
+	/**
+	 * Close the idle pooled batch scanners and their query threads, the
+	 * operations remain usable
+	 */
+	@Override
+	public void close() {
+		batchScannerPool.close();
+	}
+
 	@Override
 	public boolean deleteTable(
 			final String tableName ) {
 		final String qName = getQualifiedTableName(tableName);
+		batchScannerPool.close();
 		try {
 			connector.tableOperations().delete(
 					qName);
@@ -372,6 +413,8 @@ public class BasicAccumuloOperations implements
 	@Override
 	public void deleteAll()
 			throws Exception {
+		// idle scanners would refer to the deleted tables
+		batchScannerPool.close();
 		SortedSet<String> tableNames = connector.tableOperations().list();
 
 		if ((tableNamespace != null) && !tableNamespace.isEmpty()) {
@@ -605,6 +648,40 @@ public class BasicAccumuloOperations implements
 				numThreads);
 	}
 
+	@Override
+	public BatchScanner createPooledBatchScanner(
+			final String tableName,
+			final String... additionalAuthorizations )
+			throws TableNotFoundException {
+		final BatchScanner scanner = batchScannerPool.borrow(BatchScannerPool.getKey(
+				getQualifiedTableName(tableName),
+				getAuthorizations(additionalAuthorizations)));
+		if (scanner != null) {
+			return scanner;
+		}
+		return createBatchScanner(
+				tableName,
+				additionalAuthorizations);
+	}
+
+	@Override
+	public void releaseBatchScanner(
+			final BatchScanner scanner,
+			final boolean reusable,
+			final String tableName,
+			final String... additionalAuthorizations ) {
+		if (reusable) {
+			batchScannerPool.release(
+					BatchScannerPool.getKey(
+							getQualifiedTableName(tableName),
+							getAuthorizations(additionalAuthorizations)),
+					scanner);
+		}
+		else {
+			scanner.close();
+		}
+	}
+
 	@Override
 	public void insureAuthorization(
 			final String clientUser,
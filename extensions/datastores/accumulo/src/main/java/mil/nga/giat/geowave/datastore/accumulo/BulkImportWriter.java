@@ -0,0 +1,339 @@
+package mil.nga.giat.geowave.datastore.accumulo;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.FileOperations;
+import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import mil.nga.giat.geowave.core.store.base.Writer;
+
+/**
+ * A writer that bulk imports mutations rather than sending them to the tablet
+ * servers.
+ *
+ * The key/values of the mutations are buffered in sorted order and, when the
+ * buffer is full or the writer is flushed, written to RFiles in a work
+ * directory and imported into the table. The sorted key/values are split into
+ * one file per tablet using the table's splits, so each file is assigned to a
+ * single tablet on import. Deletes can not be bulk imported and are ignored.
+ */
+public class BulkImportWriter implements
+		Writer<Mutation>
+{
+	private final static Logger LOGGER = Logger.getLogger(BulkImportWriter.class);
+	public static final long DEFAULT_MAX_MEMORY = 128L * 1024L * 1024L; // 128 MB
+	private static final String FILES_DIR = "files";
+	private static final String FAILURES_DIR = "failures";
+	private static final String FLUSH_DIR_PREFIX = "flush-";
+	private static final String LOCAL_SCHEME = "file";
+
+	private final Connector connector;
+	private final String qualifiedTableName;
+	private final long maxMemory;
+	private final Configuration conf;
+	private final FileSystem fs;
+	private final Path workDir;
+	private final Text[] splits;
+	private final TreeMap<Key, Value> buffer = new TreeMap<Key, Value>();
+	private long bufferedBytes = 0;
+	private int fileCount = 0;
+	private int flushCount = 0;
+	private boolean explicitTimestamps = false;
+
+	public BulkImportWriter(
+			final Connector connector,
+			final String qualifiedTableName,
+			final String bulkImportDir )
+			throws IOException,
+			TableNotFoundException {
+		this(
+				connector,
+				qualifiedTableName,
+				bulkImportDir,
+				DEFAULT_MAX_MEMORY,
+				getClusterConfiguration(
+						connector,
+						new Configuration()));
+	}
+
+	/**
+	 * @param conf
+	 *            the configuration of the file system of the bulk import
+	 *            directory, such as the configuration of a job
+	 */
+	public BulkImportWriter(
+			final Connector connector,
+			final String qualifiedTableName,
+			final String bulkImportDir,
+			final long maxMemory,
+			final Configuration conf )
+			throws IOException,
+			TableNotFoundException {
+		this.connector = connector;
+		this.qualifiedTableName = qualifiedTableName;
+		this.maxMemory = maxMemory;
+		this.conf = conf;
+		// each writer imports its own directory
+		workDir = new Path(
+				new Path(
+						bulkImportDir,
+						qualifiedTableName),
+				UUID.randomUUID().toString());
+		fs = workDir.getFileSystem(conf);
+		try {
+			splits = connector.tableOperations().listSplits(
+					qualifiedTableName).toArray(
+					new Text[] {});
+		}
+		catch (final AccumuloSecurityException | AccumuloException e) {
+			throw new IOException(
+					"Unable to read the splits of table '" + qualifiedTableName + "'",
+					e);
+		}
+	}
+
+	/**
+	 * A configuration without a default file system only knows the local file
+	 * system, which the tablet servers can not import from. The default file
+	 * system is then taken from the first volume of the Accumulo instance, so
+	 * a bulk import directory without a scheme is on the file system of the
+	 * cluster.
+	 *
+	 * @return a copy of the configuration using the file system of the
+	 *         instance by default
+	 */
+	@SuppressWarnings("deprecation")
+	public static Configuration getClusterConfiguration(
+			final Connector connector,
+			final Configuration conf ) {
+		final Configuration clusterConf = new Configuration(
+				conf);
+		if (!LOCAL_SCHEME.equals(FileSystem.getDefaultUri(
+				conf).getScheme())) {
+			return clusterConf;
+		}
+		try {
+			final Map<String, String> systemConf = connector.instanceOperations().getSystemConfiguration();
+			String volume = systemConf.get(Property.INSTANCE_VOLUMES.getKey());
+			if ((volume == null) || volume.trim().isEmpty()) {
+				volume = systemConf.get(Property.INSTANCE_DFS_URI.getKey());
+			}
+			if ((volume != null) && !volume.trim().isEmpty()) {
+				final URI volumeUri = new Path(
+						volume.split(",")[0].trim()).toUri();
+				if (volumeUri.getScheme() != null) {
+					FileSystem.setDefaultUri(
+							clusterConf,
+							new URI(
+									volumeUri.getScheme(),
+									volumeUri.getAuthority(),
+									"/",
+									null,
+									null));
+				}
+			}
+		}
+		catch (final AccumuloException | AccumuloSecurityException | URISyntaxException e) {
+			LOGGER.warn(
+					"Unable to read the volumes of the instance, using the local file system for bulk imports",
+					e);
+		}
+		return clusterConf;
+	}
+
+	@Override
+	public void write(
+			final Iterable<Mutation> mutations ) {
+		for (final Mutation mutation : mutations) {
+			write(mutation);
+		}
+	}
+
+	@Override
+	public void write(
+			final Mutation mutation ) {
+		final byte[] row = mutation.getRow();
+		for (final ColumnUpdate update : mutation.getUpdates()) {
+			if (update.isDeleted()) {
+				LOGGER.warn("Deletes can not be bulk imported, ignoring delete in table '" + qualifiedTableName
+						+ "'");
+				continue;
+			}
+			explicitTimestamps |= update.hasTimestamp();
+			final Key key = new Key(
+					row,
+					update.getColumnFamily(),
+					update.getColumnQualifier(),
+					update.getColumnVisibility(),
+					update.hasTimestamp() ? update.getTimestamp() : 0L);
+			final Value value = new Value(
+					update.getValue());
+			buffer.put(
+					key,
+					value);
+			bufferedBytes += key.getSize() + value.getSize();
+		}
+		if (bufferedBytes >= maxMemory) {
+			flush();
+		}
+	}
+
+	/**
+	 * Write the buffered rows to RFiles and import them, so that the rows are
+	 * visible and durable once the flush returns.
+	 *
+	 * @throws RuntimeException
+	 *             if the files can not be written or imported, in which case
+	 *             the rows stay buffered for the next flush
+	 */
+	@Override
+	public void flush() {
+		if (buffer.isEmpty()) {
+			return;
+		}
+		// each flush imports its own directory
+		final Path flushDir = new Path(
+				workDir,
+				FLUSH_DIR_PREFIX + (flushCount++));
+		try {
+			writeFiles(new Path(
+					flushDir,
+					FILES_DIR));
+			importFiles(flushDir);
+		}
+		catch (final IOException | AccumuloException | AccumuloSecurityException | TableNotFoundException e) {
+			throw new RuntimeException(
+					"Unable to bulk import into table '" + qualifiedTableName + "'",
+					e);
+		}
+		buffer.clear();
+		bufferedBytes = 0;
+		explicitTimestamps = false;
+		try {
+			fs.delete(
+					flushDir,
+					true);
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to remove bulk import directory '" + flushDir + "'",
+					e);
+		}
+	}
+
+	private void writeFiles(
+			final Path filesDir )
+			throws IOException {
+		int tablet = 0;
+		FileSKVWriter writer = null;
+		try {
+			for (final Entry<Key, Value> entry : buffer.entrySet()) {
+				final Text row = entry.getKey().getRow();
+				// a tablet holds the rows up to and including its end row
+				boolean nextTablet = false;
+				while ((tablet < splits.length) && (row.compareTo(splits[tablet]) > 0)) {
+					tablet++;
+					nextTablet = true;
+				}
+				if ((writer == null) || nextTablet) {
+					if (writer != null) {
+						writer.close();
+					}
+					writer = openFile(filesDir);
+				}
+				writer.append(
+						entry.getKey(),
+						entry.getValue());
+			}
+		}
+		finally {
+			if (writer != null) {
+				writer.close();
+			}
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	private FileSKVWriter openFile(
+			final Path filesDir )
+			throws IOException {
+		final Path file = new Path(
+				filesDir,
+				"part-" + (fileCount++) + ".rf");
+		final FileSKVWriter writer = FileOperations.getInstance().openWriter(
+				file.toString(),
+				fs,
+				conf,
+				AccumuloConfiguration.getDefaultConfiguration());
+		writer.startDefaultLocalityGroup();
+		return writer;
+	}
+
+	private void importFiles(
+			final Path flushDir )
+			throws IOException,
+			AccumuloException,
+			AccumuloSecurityException,
+			TableNotFoundException {
+		final Path failuresDir = new Path(
+				flushDir,
+				FAILURES_DIR);
+		fs.mkdirs(failuresDir);
+		// let the tablet servers assign the timestamps unless they were set
+		// explicitly
+		connector.tableOperations().importDirectory(
+				qualifiedTableName,
+				new Path(
+						flushDir,
+						FILES_DIR).toString(),
+				failuresDir.toString(),
+				!explicitTimestamps);
+		final FileStatus[] failures = fs.listStatus(failuresDir);
+		if ((failures != null) && (failures.length > 0)) {
+			final ArrayList<String> failedFiles = new ArrayList<String>();
+			for (final FileStatus failure : failures) {
+				failedFiles.add(failure.getPath().toString());
+			}
+			throw new IOException(
+					"Unable to bulk import " + failedFiles);
+		}
+	}
+
+	@Override
+	public void close() {
+		flush();
+		try {
+			fs.delete(
+					workDir,
+					true);
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to remove bulk import directory '" + workDir + "'",
+					e);
+		}
+	}
+}
@@ -3,14 +3,17 @@ package mil.nga.giat.geowave.datastore.accumulo.index.secondary;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.ColumnUpdate;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.user.WholeRowIterator;
 import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.commons.lang3.tuple.Pair;
@@ -24,9 +27,7 @@ import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.StringUtils;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.CloseableIteratorWrapper;
-import mil.nga.giat.geowave.core.store.DataStore;
 import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
-import mil.nga.giat.geowave.core.store.base.CastIterator;
 import mil.nga.giat.geowave.core.store.base.Writer;
 import mil.nga.giat.geowave.core.store.index.BaseSecondaryIndexDataStore;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
@@ -34,8 +35,6 @@ import mil.nga.giat.geowave.core.store.index.SecondaryIndex;
 import mil.nga.giat.geowave.core.store.index.SecondaryIndexType;
 import mil.nga.giat.geowave.core.store.index.SecondaryIndexUtils;
 import mil.nga.giat.geowave.core.store.query.DistributableQuery;
-import mil.nga.giat.geowave.core.store.query.PrefixIdQuery;
-import mil.nga.giat.geowave.core.store.query.QueryOptions;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
 import mil.nga.giat.geowave.datastore.accumulo.operations.config.AccumuloOptions;
 
@@ -45,7 +44,6 @@ public class AccumuloSecondaryIndexDataStore extends
 	private final static Logger LOGGER = Logger.getLogger(AccumuloSecondaryIndexDataStore.class);
 	private final AccumuloOperations accumuloOperations;
 	private final AccumuloOptions accumuloOptions;
-	private DataStore dataStore = null;
 
 	public AccumuloSecondaryIndexDataStore(
 			final AccumuloOperations accumuloOperations ) {
@@ -62,12 +60,6 @@ public class AccumuloSecondaryIndexDataStore extends
 		this.accumuloOptions = accumuloOptions;
 	}
 
-	@Override
-	public void setDataStore(
-			final DataStore dataStore ) {
-		this.dataStore = dataStore;
-	}
-
 	@SuppressWarnings("unchecked")
 	@Override
 	protected Writer<Mutation> getWriter(
@@ -96,6 +88,89 @@ public class AccumuloSecondaryIndexDataStore extends
 		return writer;
 	}
 
+	@Override
+	protected byte[] getRowId(
+			final Mutation mutation ) {
+		return mutation.getRow();
+	}
+
+	/**
+	 * Combine runs of puts to the same row into a single mutation. Runs that
+	 * include a delete are left as they are, since a delete and a put to the
+	 * same key within one mutation share a timestamp and the delete would mask
+	 * the put.
+	 */
+	@Override
+	protected List<Mutation> coalesce(
+			final List<Mutation> sortedMutations ) {
+		final List<Mutation> coalesced = new ArrayList<>(
+				sortedMutations.size());
+		int runStart = 0;
+		while (runStart < sortedMutations.size()) {
+			final byte[] row = sortedMutations.get(
+					runStart).getRow();
+			int runEnd = runStart + 1;
+			while ((runEnd < sortedMutations.size()) && Arrays.equals(
+					row,
+					sortedMutations.get(
+							runEnd).getRow())) {
+				runEnd++;
+			}
+			final List<Mutation> run = sortedMutations.subList(
+					runStart,
+					runEnd);
+			if ((run.size() == 1) || hasDelete(run)) {
+				coalesced.addAll(run);
+			}
+			else {
+				final Mutation merged = new Mutation(
+						row);
+				for (final Mutation m : run) {
+					for (final ColumnUpdate update : m.getUpdates()) {
+						final Text columnFamily = new Text(
+								update.getColumnFamily());
+						final Text columnQualifier = new Text(
+								update.getColumnQualifier());
+						final ColumnVisibility columnVisibility = new ColumnVisibility(
+								update.getColumnVisibility());
+						if (update.hasTimestamp()) {
+							merged.put(
+									columnFamily,
+									columnQualifier,
+									columnVisibility,
+									update.getTimestamp(),
+									new Value(
+											update.getValue()));
+						}
+						else {
+							merged.put(
+									columnFamily,
+									columnQualifier,
+									columnVisibility,
+									new Value(
+											update.getValue()));
+						}
+					}
+				}
+				coalesced.add(merged);
+			}
+			runStart = runEnd;
+		}
+		return coalesced;
+	}
+
+	private static boolean hasDelete(
+			final List<Mutation> mutations ) {
+		for (final Mutation m : mutations) {
+			for (final ColumnUpdate update : m.getUpdates()) {
+				if (update.isDeleted()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	@Override
 	protected Mutation buildJoinMutation(
 			final byte[] secondaryIndexRowId,
@@ -191,71 +266,87 @@ public class AccumuloSecondaryIndexDataStore extends
 			final PrimaryIndex primaryIndex,
 			final DistributableQuery query,
 			final String... authorizations ) {
-		final Scanner scanner = getScanner(
-				StringUtils.stringFromBinary(secondaryIndex.getId().getBytes()),
-				authorizations);
-
-		if (scanner != null) {
-			scanner.fetchColumnFamily(new Text(
-					SecondaryIndexUtils.constructColumnFamily(
-							adapter.getAdapterId(),
-							indexedAttributeFieldId)));
-			final Collection<Range> ranges = getScanRanges(query.getSecondaryIndexConstraints(secondaryIndex));
-			for (final Range range : ranges) {
-				scanner.setRange(range);
+		if (secondaryIndex.getSecondaryIndexType().equals(
+				SecondaryIndexType.JOIN)) {
+			return queryJoin(
+					secondaryIndex,
+					indexedAttributeFieldId,
+					adapter,
+					primaryIndex,
+					query,
+					authorizations);
+		}
+		final Text columnFamily = new Text(
+				SecondaryIndexUtils.constructColumnFamily(
+						adapter.getAdapterId(),
+						indexedAttributeFieldId));
+		// a scanner holds a single range, so each range is scanned separately
+		final List<CloseableIterator<T>> entries = new ArrayList<>();
+		for (final Range range : getScanRanges(query.getSecondaryIndexConstraints(secondaryIndex))) {
+			final Scanner scanner = getScanner(
+					StringUtils.stringFromBinary(secondaryIndex.getId().getBytes()),
+					authorizations);
+			if (scanner == null) {
+				break;
 			}
+			scanner.fetchColumnFamily(columnFamily);
+			scanner.setRange(range);
 
-			if (!secondaryIndex.getSecondaryIndexType().equals(
-					SecondaryIndexType.JOIN)) {
-				final IteratorSetting iteratorSettings = new IteratorSetting(
-						10,
-						"GEOWAVE_WHOLE_ROW_ITERATOR",
-						WholeRowIterator.class);
-				scanner.addScanIterator(iteratorSettings);
-				return new AccumuloSecondaryIndexEntryIteratorWrapper<T>(
-						scanner,
-						adapter,
-						primaryIndex);
-			}
-			else {
-				final List<CloseableIterator<Object>> allResults = new ArrayList<>();
-				try (final CloseableIterator<Pair<ByteArrayId, ByteArrayId>> joinEntryIterator = new AccumuloSecondaryIndexJoinEntryIteratorWrapper<T>(
-						scanner,
-						adapter)) {
-					while (joinEntryIterator.hasNext()) {
-						final Pair<ByteArrayId, ByteArrayId> entry = joinEntryIterator.next();
-						final ByteArrayId primaryIndexId = entry.getLeft();
-						final ByteArrayId primaryIndexRowId = entry.getRight();
-						final CloseableIterator<Object> intermediateResults = dataStore.query(
-								new QueryOptions(
-										adapter.getAdapterId(),
-										primaryIndexId),
-								new PrefixIdQuery(
-										primaryIndexRowId));
-						allResults.add(intermediateResults);
-						return new CloseableIteratorWrapper<T>(
-								new Closeable() {
-									@Override
-									public void close()
-											throws IOException {
-										for (CloseableIterator<Object> resultIter : allResults) {
-											resultIter.close();
-										}
-									}
-								},
-								Iterators.concat(new CastIterator<T>(
-										allResults.iterator())));
-					}
-				}
-				catch (final IOException e) {
-					LOGGER.error(
-							"Could not close iterator",
-							e);
-				}
+			final IteratorSetting iteratorSettings = new IteratorSetting(
+					10,
+					"GEOWAVE_WHOLE_ROW_ITERATOR",
+					WholeRowIterator.class);
+			scanner.addScanIterator(iteratorSettings);
+			entries.add(new AccumuloSecondaryIndexEntryIteratorWrapper<T>(
+					scanner,
+					adapter,
+					primaryIndex));
+		}
+		return concat(entries);
+	}
+
+	@Override
+	protected <T> CloseableIterator<Pair<ByteArrayId, ByteArrayId>> getJoinEntries(
+			final SecondaryIndex<T> secondaryIndex,
+			final ByteArrayId indexedAttributeFieldId,
+			final DataAdapter<T> adapter,
+			final DistributableQuery query,
+			final String... authorizations ) {
+		final Text columnFamily = new Text(
+				SecondaryIndexUtils.constructColumnFamily(
+						adapter.getAdapterId(),
+						indexedAttributeFieldId));
+		// a scanner holds a single range, so each range is scanned separately
+		final List<CloseableIterator<Pair<ByteArrayId, ByteArrayId>>> joinEntries = new ArrayList<>();
+		for (final Range range : getScanRanges(query.getSecondaryIndexConstraints(secondaryIndex))) {
+			final Scanner scanner = getScanner(
+					StringUtils.stringFromBinary(secondaryIndex.getId().getBytes()),
+					authorizations);
+			if (scanner == null) {
+				break;
 			}
+			scanner.fetchColumnFamily(columnFamily);
+			scanner.setRange(range);
+			joinEntries.add(new AccumuloSecondaryIndexJoinEntryIteratorWrapper<T>(
+					scanner,
+					adapter));
 		}
+		return concat(joinEntries);
+	}
 
-		return new CloseableIterator.Empty<T>();
+	private static <E> CloseableIterator<E> concat(
+			final List<CloseableIterator<E>> iterators ) {
+		return new CloseableIteratorWrapper<E>(
+				new Closeable() {
+					@Override
+					public void close()
+							throws IOException {
+						for (final CloseableIterator<E> it : iterators) {
+							it.close();
+						}
+					}
+				},
+				Iterators.concat(iterators.iterator()));
 	}
 
 	private Scanner getScanner(
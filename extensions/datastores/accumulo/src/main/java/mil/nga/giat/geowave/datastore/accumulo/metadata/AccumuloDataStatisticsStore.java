@@ -5,6 +5,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.IteratorSetting.Column;
 import org.apache.accumulo.core.client.Scanner;
@@ -25,6 +27,7 @@ import mil.nga.giat.geowave.datastore.accumulo.BasicOptionProvider;
 import mil.nga.giat.geowave.datastore.accumulo.IteratorConfig;
 import mil.nga.giat.geowave.datastore.accumulo.MergingCombiner;
 import mil.nga.giat.geowave.datastore.accumulo.MergingVisibilityCombiner;
+import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloUtils;
 import mil.nga.giat.geowave.datastore.accumulo.util.TransformerWriter;
 import mil.nga.giat.geowave.datastore.accumulo.util.VisibilityTransformer;
 
@@ -261,6 +264,32 @@ public class AccumuloDataStatisticsStore extends
 		}
 	}
 
+	/**
+	 * The statistics combiner is attached at every iterator scope, so a major
+	 * compaction of the metadata table rewrites the partial statistics entries
+	 * as a single merged entry per statistic and visibility.
+	 */
+	@Override
+	public void compactStatistics() {
+		try {
+			accumuloOperations.getConnector().tableOperations().compact(
+					AccumuloUtils.getQualifiedTableName(
+							accumuloOperations.getTableNameSpace(),
+							getTablename()),
+					null,
+					null,
+					// flush, but only request the compaction rather than
+					// waiting on it
+					true,
+					false);
+		}
+		catch (AccumuloSecurityException | TableNotFoundException | AccumuloException e) {
+			LOGGER.error(
+					"Unable to compact statistics in table: " + getTablename(),
+					e);
+		}
+	}
+
 	private Scanner createSortScanner(
 			final ByteArrayId adapterId,
 			final String... authorizations )
@@ -14,6 +14,18 @@ public class AccumuloOptions extends
 	@Parameter(names = "--useLocalityGroups", hidden = true, arity = 1)
 	protected boolean useLocalityGroups = true;
 
+	@Parameter(names = "--bulkImportDir", description = "A directory, on a file system shared with the tablet servers, to write sorted files to for bulk import instead of writing entries to the tablet servers.  The files are imported whenever an index writer is flushed or closed.")
+	protected String bulkImportDir = null;
+
+	@Parameter(names = "--autoSplits", description = "The number of tablets to spread each index table across, splitting new tables and rebalancing the splits after ingest using the row range statistics of the index.  0 to leave splitting to Accumulo.")
+	protected int autoSplits = 0;
+
+	@Parameter(names = "--adaptiveWrites", description = "Tune the memory and write threads of the index writers while ingesting, from the write throughput, latency and errors, rather than using fixed settings.  The writer metrics are exported over JMX.")
+	protected boolean adaptiveWrites = false;
+
+	@Parameter(names = "--serverSideDelete", description = "Delete the entries matching constraint and prefix deletes with iterators on the tablet servers, which also calculate the statistics of the deleted entries, rather than scanning the entries to the client.  Entries written into the deleted ranges while deleting are deleted without updating the statistics.")
+	protected boolean serverSideDelete = false;
+
 	public boolean isUseLocalityGroups() {
 		return useLocalityGroups;
 	}
@@ -22,4 +34,40 @@ public class AccumuloOptions extends
 			final boolean useLocalityGroups ) {
 		this.useLocalityGroups = useLocalityGroups;
 	}
+
+	public String getBulkImportDir() {
+		return bulkImportDir;
+	}
+
+	public void setBulkImportDir(
+			final String bulkImportDir ) {
+		this.bulkImportDir = bulkImportDir;
+	}
+
+	public int getAutoSplits() {
+		return autoSplits;
+	}
+
+	public void setAutoSplits(
+			final int autoSplits ) {
+		this.autoSplits = autoSplits;
+	}
+
+	public boolean isAdaptiveWrites() {
+		return adaptiveWrites;
+	}
+
+	public void setAdaptiveWrites(
+			final boolean adaptiveWrites ) {
+		this.adaptiveWrites = adaptiveWrites;
+	}
+
+	public boolean isServerSideDelete() {
+		return serverSideDelete;
+	}
+
+	public void setServerSideDelete(
+			final boolean serverSideDelete ) {
+		this.serverSideDelete = serverSideDelete;
+	}
 }
@@ -36,6 +36,7 @@ import mil.nga.giat.geowave.core.store.query.ConstraintsQuery;
 import mil.nga.giat.geowave.core.store.query.Query;
 import mil.nga.giat.geowave.core.store.query.aggregate.Aggregation;
 import mil.nga.giat.geowave.core.store.query.aggregate.CommonIndexAggregation;
+import mil.nga.giat.geowave.datastore.accumulo.util.IteratorOptionCache;
 
 /**
  * This class represents basic numeric contraints applied to an Accumulo Query
@@ -152,12 +153,12 @@ public class AccumuloConstraintsQuery extends
 					ByteArrayUtils.byteArrayToString((PersistenceUtils.toBinary(base.constraints))));
 			iteratorSettings.addOption(
 					AggregationIterator.INDEX_STRATEGY_OPTION_NAME,
-					ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(index.getIndexStrategy())));
+					IteratorOptionCache.getOption(index.getIndexStrategy()));
 			// the index model must be provided for the aggregation iterator to
 			// deserialize each entry
 			iteratorSettings.addOption(
 					QueryFilterIterator.MODEL,
-					ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(index.getIndexModel())));
+					IteratorOptionCache.getOption(index.getIndexModel()));
 			// don't bother setting max decomposition because it is just the
 			// default anyways
 		}
@@ -195,7 +196,7 @@ public class AccumuloConstraintsQuery extends
 				// it may already be added as an option if its an aggregation
 				iteratorSettings.addOption(
 						QueryFilterIterator.MODEL,
-						ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(index.getIndexModel())));
+						IteratorOptionCache.getOption(index.getIndexModel()));
 			}
 		}
 		else if ((iteratorSettings == null) && useWholeRowIterator()) {
@@ -227,7 +228,7 @@ public class AccumuloConstraintsQuery extends
 
 			iteratorSetting.addOption(
 					NumericIndexStrategyFilterIterator.INDEX_STRATEGY_KEY,
-					ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(index.getIndexStrategy())));
+					IteratorOptionCache.getOption(index.getIndexStrategy()));
 
 			iteratorSetting.addOption(
 					NumericIndexStrategyFilterIterator.COORDINATE_RANGE_KEY,
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 
+import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.ScannerBase;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.log4j.Logger;
@@ -24,6 +25,7 @@ import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
 import mil.nga.giat.geowave.core.store.query.FilteredIndexQuery;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
 import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloEntryIteratorWrapper;
+import mil.nga.giat.geowave.datastore.accumulo.util.PooledScannerClosableWrapper;
 import mil.nga.giat.geowave.datastore.accumulo.util.ScannerClosableWrapper;
 
 public abstract class AccumuloFilteredIndexQuery extends
@@ -96,11 +98,27 @@ public abstract class AccumuloFilteredIndexQuery extends
 		Iterator it = initIterator(
 				adapterStore,
 				scanner);
+		PooledScannerClosableWrapper pooledScanner = null;
+		if ((scanner instanceof BatchScanner) && !isAggregation()) {
+			// the scanner is reused by later queries if it is read completely,
+			// aggregations read and close the scanner in initIterator
+			pooledScanner = new PooledScannerClosableWrapper(
+					accumuloOperations,
+					(BatchScanner) scanner,
+					StringUtils.stringFromBinary(index.getId().getBytes()),
+					getAdditionalAuthorizations());
+			it = pooledScanner.track(it);
+		}
 		if ((limit != null) && (limit > 0)) {
 			it = Iterators.limit(
 					it,
 					limit);
 		}
+		if (pooledScanner != null) {
+			return new CloseableIteratorWrapper(
+					pooledScanner,
+					it);
+		}
 		return initCloseableIterator(
 				scanner,
 				it);
@@ -79,7 +79,7 @@ abstract public class AccumuloQuery
 			String... authorizations )
 			throws TableNotFoundException {
 		if (batchScanner) {
-			return accumuloOperations.createBatchScanner(
+			return accumuloOperations.createPooledBatchScanner(
 					tableName,
 					authorizations);
 		}
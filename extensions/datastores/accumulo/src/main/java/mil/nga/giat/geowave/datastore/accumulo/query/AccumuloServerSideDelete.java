@@ -0,0 +1,179 @@
+package mil.nga.giat.geowave.datastore.accumulo.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.apache.accumulo.core.client.BatchDeleter;
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.client.ScannerBase;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.Persistable;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.memory.MemoryDataStatisticsStore;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
+import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloUtils;
+
+/**
+ * Deletes the rows of an adapter in an index matching a constraints or prefix
+ * query with the filters of the query applied on the tablet servers, so that a
+ * delete does not stream the rows to the client.
+ *
+ * The statistics of the entries are calculated first, on the tablet servers,
+ * by scanning the rows with a {@link DeleteStatisticsIterator}, and the
+ * partial statistics of the scanned ranges are merged on the client. The rows
+ * are then deleted with a batch deleter using the same filters. Rows of
+ * entries stored in several rows are left for the client to delete, since the
+ * other rows of such an entry may be outside of the ranges of the query.
+ */
+public class AccumuloServerSideDelete
+{
+	private final static Logger LOGGER = Logger.getLogger(AccumuloServerSideDelete.class);
+
+	private final DataAdapter<?> adapter;
+	private final PrimaryIndex index;
+	private final Collection<Range> ranges;
+	private final AccumuloConstraintsQuery query;
+
+	/**
+	 * Delete the rows matching a constraints query
+	 *
+	 * @param query
+	 *            a query whose filters are all applied on the tablet servers
+	 *            (see {@link #isServerSide(AccumuloConstraintsQuery)})
+	 */
+	public AccumuloServerSideDelete(
+			final DataAdapter<?> adapter,
+			final PrimaryIndex index,
+			final AccumuloConstraintsQuery query ) {
+		this.adapter = adapter;
+		this.index = index;
+		this.query = query;
+		ranges = AccumuloUtils.byteArrayRangesToAccumuloRanges(query.getRanges());
+	}
+
+	/**
+	 * Delete the rows with a prefix
+	 */
+	public AccumuloServerSideDelete(
+			final DataAdapter<?> adapter,
+			final PrimaryIndex index,
+			final ByteArrayId rowPrefix ) {
+		this.adapter = adapter;
+		this.index = index;
+		query = null;
+		ranges = Collections.singletonList(Range.prefix(new Text(
+				rowPrefix.getBytes())));
+	}
+
+	/**
+	 * @return whether every filter of the query is applied on the tablet
+	 *         servers to each key on its own, which is not the case if some
+	 *         filters, such as de-duplication, can only be applied on the
+	 *         client, or if the fields of an entry may be stored in several
+	 *         keys of a row
+	 */
+	public static boolean isServerSide(
+			final AccumuloConstraintsQuery query ) {
+		return ((query.getClientFilters() == null) || query.getClientFilters().isEmpty())
+				&& !query.useWholeRowIterator() && !query.isAggregation();
+	}
+
+	/**
+	 * Calculate the statistics of the rows to delete on the tablet servers
+	 *
+	 * @param includeAdapterStats
+	 *            whether to calculate the statistics of the adapter as well as
+	 *            those of the index
+	 * @return the statistics of the entries to delete, to incorporate into the
+	 *         stored statistics once they are deleted
+	 */
+	public List<DataStatistics<?>> calculateStatistics(
+			final AccumuloOperations operations,
+			final boolean includeAdapterStats,
+			final String... authorizations )
+			throws TableNotFoundException,
+			IOException {
+		final BatchScanner scanner = operations.createBatchScanner(
+				getTableName(),
+				authorizations);
+		final MemoryDataStatisticsStore mergedStatistics = new MemoryDataStatisticsStore();
+		try {
+			scanner.setRanges(ranges);
+			addServerSideFilters(scanner);
+			scanner.addScanIterator(DeleteStatisticsIterator.getIteratorSetting(
+					adapter,
+					index,
+					includeAdapterStats));
+			int rangeCount = 0;
+			for (final Entry<Key, Value> entry : scanner) {
+				rangeCount++;
+				for (final Persistable statistics : PersistenceUtils.fromBinary(entry.getValue().get())) {
+					mergedStatistics.incorporateStatistics((DataStatistics<?>) statistics);
+				}
+			}
+			LOGGER.debug("Merged the statistics of " + rangeCount + " ranges of table '" + getTableName() + "'");
+		}
+		finally {
+			scanner.close();
+		}
+		final List<DataStatistics<?>> statistics = new ArrayList<DataStatistics<?>>();
+		try (CloseableIterator<DataStatistics<?>> it = mergedStatistics.getAllDataStatistics()) {
+			while (it.hasNext()) {
+				statistics.add(it.next());
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 * Delete the rows on the tablet servers
+	 */
+	public void delete(
+			final AccumuloOperations operations,
+			final String... authorizations )
+			throws TableNotFoundException,
+			MutationsRejectedException {
+		final BatchDeleter deleter = operations.createBatchDeleter(
+				getTableName(),
+				authorizations);
+		try {
+			deleter.setRanges(ranges);
+			addServerSideFilters(deleter);
+			deleter.delete();
+		}
+		finally {
+			deleter.close();
+		}
+	}
+
+	private void addServerSideFilters(
+			final ScannerBase scanner ) {
+		scanner.fetchColumnFamily(new Text(
+				adapter.getAdapterId().getBytes()));
+		scanner.addScanIterator(DuplicateRowFilterIterator.getIteratorSetting());
+		if (query != null) {
+			query.addScanIteratorSettings(scanner);
+		}
+	}
+
+	private String getTableName() {
+		return StringUtils.stringFromBinary(index.getId().getBytes());
+	}
+}
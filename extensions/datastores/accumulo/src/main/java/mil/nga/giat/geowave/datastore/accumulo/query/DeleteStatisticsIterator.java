@@ -0,0 +1,193 @@
+package mil.nga.giat.geowave.datastore.accumulo.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
+import org.apache.commons.lang3.tuple.Pair;
+
+import mil.nga.giat.geowave.core.index.ByteArrayUtils;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStoreStatisticsProvider;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StatsCompositionTool;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.entities.GeowaveRowId;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.memory.MemoryDataStatisticsStore;
+import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloUtils;
+
+/**
+ * Calculates the statistics of the entries a server-side delete is about to
+ * delete on the tablet servers. Each seek range is consumed and a single entry
+ * is returned, at the last key of the range, whose value is the list of
+ * partial statistics of the entries in the range, to be merged on the client.
+ * The entries are given to the statistics as deleted entries, so the merged
+ * statistics are incorporated into the stored statistics as decrements.
+ */
+public class DeleteStatisticsIterator extends
+		WrappingIterator
+{
+	public static final String DELETE_STATISTICS_ITERATOR_NAME = "GEOWAVE_DELETE_STATISTICS_ITERATOR";
+	public static final int DELETE_STATISTICS_ITERATOR_PRIORITY = 40;
+	public static final String ADAPTER_OPTION_NAME = "ADAPTER";
+	public static final String INDEX_OPTION_NAME = "INDEX";
+	public static final String INCLUDE_ADAPTER_STATS_OPTION_NAME = "INCLUDE_ADAPTER_STATS";
+
+	private DataAdapter<Object> adapter;
+	private PrimaryIndex index;
+	private boolean includeAdapterStats;
+	private Key topKey = null;
+	private Value topValue = null;
+
+	@Override
+	public void init(
+			final SortedKeyValueIterator<Key, Value> source,
+			final Map<String, String> options,
+			final IteratorEnvironment env )
+			throws IOException {
+		super.init(
+				source,
+				options,
+				env);
+		try {
+			adapter = PersistenceUtils.fromBinary(
+					ByteArrayUtils.byteArrayFromString(options.get(ADAPTER_OPTION_NAME)),
+					DataAdapter.class);
+			index = PersistenceUtils.fromBinary(
+					ByteArrayUtils.byteArrayFromString(options.get(INDEX_OPTION_NAME)),
+					PrimaryIndex.class);
+			includeAdapterStats = Boolean.parseBoolean(options.get(INCLUDE_ADAPTER_STATS_OPTION_NAME));
+		}
+		catch (final Exception e) {
+			throw new IllegalArgumentException(
+					e);
+		}
+	}
+
+	@Override
+	public void seek(
+			final Range range,
+			final Collection<ByteSequence> columnFamilies,
+			final boolean inclusive )
+			throws IOException {
+		super.seek(
+				range,
+				columnFamilies,
+				inclusive);
+		topKey = null;
+		topValue = null;
+		final MemoryDataStatisticsStore statisticsStore = new MemoryDataStatisticsStore();
+		Key lastKey = null;
+		try (StatsCompositionTool<Object> statsTool = new StatsCompositionTool<Object>(
+				new DataStoreStatisticsProvider<Object>(
+						adapter,
+						index,
+						includeAdapterStats),
+				statisticsStore)) {
+			final SortedKeyValueIterator<Key, Value> source = getSource();
+			while (source.hasTop()) {
+				final Key key = source.getTopKey();
+				final Pair<Object, DataStoreEntryInfo> entry = AccumuloUtils.decodeRow(
+						key,
+						source.getTopValue(),
+						false,
+						new GeowaveRowId(
+								key.getRow().copyBytes()),
+						adapter,
+						null,
+						null,
+						index,
+						null);
+				if (entry != null) {
+					statsTool.entryDeleted(
+							entry.getRight(),
+							entry.getLeft());
+				}
+				lastKey = new Key(
+						key);
+				source.next();
+			}
+		}
+		if (lastKey == null) {
+			return;
+		}
+		final List<DataStatistics<?>> statistics = new ArrayList<DataStatistics<?>>();
+		try (CloseableIterator<DataStatistics<?>> it = statisticsStore.getAllDataStatistics()) {
+			while (it.hasNext()) {
+				statistics.add(it.next());
+			}
+		}
+		// the statistics are returned at the last key consumed, so that a scan
+		// that is resumed after this entry does not count the range again
+		topKey = lastKey;
+		topValue = new Value(
+				PersistenceUtils.toBinary(statistics));
+	}
+
+	@Override
+	public boolean hasTop() {
+		return topKey != null;
+	}
+
+	@Override
+	public void next()
+			throws IOException {
+		topKey = null;
+		topValue = null;
+	}
+
+	@Override
+	public Key getTopKey() {
+		return topKey;
+	}
+
+	@Override
+	public Value getTopValue() {
+		return topValue;
+	}
+
+	@Override
+	public SortedKeyValueIterator<Key, Value> deepCopy(
+			final IteratorEnvironment env ) {
+		final DeleteStatisticsIterator iterator = new DeleteStatisticsIterator();
+		iterator.setSource(getSource().deepCopy(
+				env));
+		iterator.adapter = adapter;
+		iterator.index = index;
+		iterator.includeAdapterStats = includeAdapterStats;
+		return iterator;
+	}
+
+	public static IteratorSetting getIteratorSetting(
+			final DataAdapter<?> adapter,
+			final PrimaryIndex index,
+			final boolean includeAdapterStats ) {
+		final IteratorSetting iteratorSetting = new IteratorSetting(
+				DELETE_STATISTICS_ITERATOR_PRIORITY,
+				DELETE_STATISTICS_ITERATOR_NAME,
+				DeleteStatisticsIterator.class);
+		iteratorSetting.addOption(
+				ADAPTER_OPTION_NAME,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(adapter)));
+		iteratorSetting.addOption(
+				INDEX_OPTION_NAME,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(index)));
+		iteratorSetting.addOption(
+				INCLUDE_ADAPTER_STATS_OPTION_NAME,
+				Boolean.toString(includeAdapterStats));
+		return iteratorSetting;
+	}
+}
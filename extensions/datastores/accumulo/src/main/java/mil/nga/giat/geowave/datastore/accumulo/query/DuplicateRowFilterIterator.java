@@ -0,0 +1,35 @@
+package mil.nga.giat.geowave.datastore.accumulo.query;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Filter;
+
+import mil.nga.giat.geowave.core.store.entities.GeowaveRowId;
+
+/**
+ * Filters out the rows of entries stored in several rows, whose other rows may
+ * be outside of the ranges of a server-side delete, so that such entries are
+ * left for the client to delete as a whole.
+ */
+public class DuplicateRowFilterIterator extends
+		Filter
+{
+	public static final String DUPLICATE_ROW_FILTER_ITERATOR_NAME = "GEOWAVE_DUPLICATE_ROW_FILTER";
+	public static final int DUPLICATE_ROW_FILTER_ITERATOR_PRIORITY = 20;
+
+	@Override
+	public boolean accept(
+			final Key key,
+			final Value value ) {
+		return new GeowaveRowId(
+				key.getRow().copyBytes()).getNumberOfDuplicates() == 0;
+	}
+
+	public static IteratorSetting getIteratorSetting() {
+		return new IteratorSetting(
+				DUPLICATE_ROW_FILTER_ITERATOR_PRIORITY,
+				DUPLICATE_ROW_FILTER_ITERATOR_NAME,
+				DuplicateRowFilterIterator.class);
+	}
+}
@@ -0,0 +1,89 @@
+package mil.nga.giat.geowave.datastore.accumulo.split;
+
+import java.io.IOException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.hadoop.io.Text;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.util.StatisticsSplitManager;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
+import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloUtils;
+
+/**
+ * Splits the tablets of Accumulo index tables using the row range statistics
+ * of the index
+ */
+public class AccumuloSplitManager extends
+		StatisticsSplitManager
+{
+	private final AccumuloOperations operations;
+
+	public AccumuloSplitManager(
+			final AccumuloOperations operations,
+			final DataStatisticsStore statisticsStore,
+			final int numTablets,
+			final String... authorizations ) {
+		super(
+				statisticsStore,
+				numTablets,
+				authorizations);
+		this.operations = operations;
+	}
+
+	@Override
+	protected SortedSet<ByteArrayId> getSplits(
+			final PrimaryIndex index )
+			throws IOException {
+		final SortedSet<ByteArrayId> splits = new TreeSet<ByteArrayId>();
+		try {
+			for (final Text split : operations.getConnector().tableOperations().listSplits(
+					getQualifiedTableName(index))) {
+				splits.add(new ByteArrayId(
+						split.copyBytes()));
+			}
+		}
+		catch (AccumuloSecurityException | AccumuloException | TableNotFoundException e) {
+			throw new IOException(
+					"Unable to list the splits of index '" + index.getId().getString() + "'",
+					e);
+		}
+		return splits;
+	}
+
+	@Override
+	protected void addSplits(
+			final PrimaryIndex index,
+			final SortedSet<ByteArrayId> splits )
+			throws IOException {
+		final SortedSet<Text> partitionKeys = new TreeSet<Text>();
+		for (final ByteArrayId split : splits) {
+			partitionKeys.add(new Text(
+					split.getBytes()));
+		}
+		try {
+			operations.getConnector().tableOperations().addSplits(
+					getQualifiedTableName(index),
+					partitionKeys);
+		}
+		catch (AccumuloSecurityException | AccumuloException | TableNotFoundException e) {
+			throw new IOException(
+					"Unable to add splits to index '" + index.getId().getString() + "'",
+					e);
+		}
+	}
+
+	private String getQualifiedTableName(
+			final PrimaryIndex index ) {
+		return AccumuloUtils.getQualifiedTableName(
+				operations.getTableNameSpace(),
+				StringUtils.stringFromBinary(index.getId().getBytes()));
+	}
+}
@@ -0,0 +1,121 @@
+package mil.nga.giat.geowave.datastore.accumulo.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.data.Range;
+
+/**
+ * Keeps idle batch scanners, keyed by table and authorizations, so a query can
+ * reuse the query thread pool of a previous scanner rather than starting a new
+ * one.
+ *
+ * A scanner may only be released back to the pool after its results have been
+ * read completely, otherwise the reader threads of the previous scan may still
+ * be running. Released scanners come back as if new: their iterators and
+ * fetched columns are cleared, the timeout is reset to none, and the ranges
+ * are reset to the whole table, as they cannot be unset.
+ */
+public class BatchScannerPool
+{
+	public static final int DEFAULT_MAX_IDLE_SCANNERS = 32;
+	public static final int DEFAULT_MAX_IDLE_SCANNERS_PER_KEY = 4;
+
+	private final Map<String, Deque<BatchScanner>> idleScanners = new HashMap<String, Deque<BatchScanner>>();
+	private final int maxIdleScanners;
+	private final int maxIdleScannersPerKey;
+	private int idleCount = 0;
+
+	public BatchScannerPool() {
+		this(
+				DEFAULT_MAX_IDLE_SCANNERS,
+				DEFAULT_MAX_IDLE_SCANNERS_PER_KEY);
+	}
+
+	public BatchScannerPool(
+			final int maxIdleScanners,
+			final int maxIdleScannersPerKey ) {
+		this.maxIdleScanners = maxIdleScanners;
+		this.maxIdleScannersPerKey = maxIdleScannersPerKey;
+	}
+
+	public static String getKey(
+			final String qualifiedTableName,
+			final String... authorizations ) {
+		final StringBuilder key = new StringBuilder(
+				qualifiedTableName);
+		if (authorizations != null) {
+			final String[] sortedAuthorizations = authorizations.clone();
+			Arrays.sort(sortedAuthorizations);
+			for (final String authorization : sortedAuthorizations) {
+				key.append(
+						'\0').append(
+						authorization);
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * @return an idle scanner for the key, or null if there is none
+	 */
+	public synchronized BatchScanner borrow(
+			final String key ) {
+		final Deque<BatchScanner> scanners = idleScanners.get(key);
+		if ((scanners == null) || scanners.isEmpty()) {
+			return null;
+		}
+		idleCount--;
+		return scanners.pop();
+	}
+
+	/**
+	 * Return a completely read scanner to the pool, closing it instead if the
+	 * pool is full
+	 */
+	public void release(
+			final String key,
+			final BatchScanner scanner ) {
+		scanner.clearScanIterators();
+		scanner.clearColumns();
+		scanner.setTimeout(
+				Long.MAX_VALUE,
+				TimeUnit.MILLISECONDS);
+		scanner.setRanges(Collections.singleton(new Range()));
+		synchronized (this) {
+			if (idleCount < maxIdleScanners) {
+				Deque<BatchScanner> scanners = idleScanners.get(key);
+				if (scanners == null) {
+					scanners = new ArrayDeque<BatchScanner>();
+					idleScanners.put(
+							key,
+							scanners);
+				}
+				if (scanners.size() < maxIdleScannersPerKey) {
+					scanners.push(scanner);
+					idleCount++;
+					return;
+				}
+			}
+		}
+		scanner.close();
+	}
+
+	public synchronized void close() {
+		final Iterator<Deque<BatchScanner>> it = idleScanners.values().iterator();
+		while (it.hasNext()) {
+			for (final BatchScanner scanner : it.next()) {
+				scanner.close();
+			}
+			it.remove();
+		}
+		idleCount = 0;
+	}
+}
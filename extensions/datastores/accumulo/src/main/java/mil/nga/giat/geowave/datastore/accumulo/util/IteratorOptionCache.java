@@ -0,0 +1,53 @@
+package mil.nga.giat.geowave.datastore.accumulo.util;
+
+import java.util.concurrent.ExecutionException;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import mil.nga.giat.geowave.core.index.ByteArrayUtils;
+import mil.nga.giat.geowave.core.index.Persistable;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+
+/**
+ * Caches the iterator option encoding of long lived persistables, such as the
+ * index model and index strategy of an index, which otherwise are serialized
+ * again for every query. Entries are keyed by the identity of the persistable
+ * and are dropped once it is garbage collected, so the persistables must not be
+ * modified after they are first encoded.
+ */
+public class IteratorOptionCache
+{
+	private final static Logger LOGGER = Logger.getLogger(IteratorOptionCache.class);
+	private static final int MAX_ENTRIES = 1000;
+
+	private static final LoadingCache<Persistable, String> OPTIONS = CacheBuilder
+			.newBuilder()
+			.weakKeys()
+			.maximumSize(
+					MAX_ENTRIES)
+			.build(
+					new CacheLoader<Persistable, String>() {
+						@Override
+						public String load(
+								final Persistable persistable ) {
+							return ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(persistable));
+						}
+					});
+
+	public static String getOption(
+			final Persistable persistable ) {
+		try {
+			return OPTIONS.get(persistable);
+		}
+		catch (final ExecutionException e) {
+			LOGGER.warn(
+					"Unable to cache iterator option",
+					e);
+			return ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(persistable));
+		}
+	}
+}
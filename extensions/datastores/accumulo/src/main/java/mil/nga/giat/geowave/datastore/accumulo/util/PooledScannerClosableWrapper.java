@@ -0,0 +1,74 @@
+package mil.nga.giat.geowave.datastore.accumulo.util;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+import org.apache.accumulo.core.client.BatchScanner;
+
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
+
+/**
+ * Releases a pooled batch scanner when the results are closed. The scanner is
+ * only reused if the tracked iterator was read to the end.
+ */
+public class PooledScannerClosableWrapper implements
+		Closeable
+{
+	private final AccumuloOperations accumuloOperations;
+	private final BatchScanner scanner;
+	private final String tableName;
+	private final String[] authorizations;
+	private boolean exhausted = false;
+	private boolean closed = false;
+
+	public PooledScannerClosableWrapper(
+			final AccumuloOperations accumuloOperations,
+			final BatchScanner scanner,
+			final String tableName,
+			final String... authorizations ) {
+		this.accumuloOperations = accumuloOperations;
+		this.scanner = scanner;
+		this.tableName = tableName;
+		this.authorizations = authorizations;
+	}
+
+	/**
+	 * @return an iterator marking the scanner reusable once it has no more
+	 *         results
+	 */
+	public <T> Iterator<T> track(
+			final Iterator<T> iterator ) {
+		return new Iterator<T>() {
+			@Override
+			public boolean hasNext() {
+				final boolean hasNext = iterator.hasNext();
+				if (!hasNext) {
+					exhausted = true;
+				}
+				return hasNext;
+			}
+
+			@Override
+			public T next() {
+				return iterator.next();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+			}
+		};
+	}
+
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			accumuloOperations.releaseBatchScanner(
+					scanner,
+					exhausted,
+					tableName,
+					authorizations);
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package mil.nga.giat.geowave.datastore.accumulo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import mil.nga.giat.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import mil.nga.giat.geowave.core.geotime.store.query.SpatialQuery;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.data.visibility.DifferingFieldVisibilityEntryCount;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.query.EverythingQuery;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStoreStatsTest.TestGeometry;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStoreStatsTest.TestGeometryAdapter;
+import mil.nga.giat.geowave.datastore.accumulo.index.secondary.AccumuloSecondaryIndexDataStore;
+import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloAdapterIndexMappingStore;
+import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloAdapterStore;
+import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloDataStatisticsStore;
+import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloIndexStore;
+import mil.nga.giat.geowave.datastore.accumulo.operations.config.AccumuloOptions;
+import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloConstraintsQuery;
+import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloServerSideDelete;
+
+public class AccumuloServerSideDeleteTest
+{
+	private static final String[] AUTHORIZATIONS = new String[] {
+		"aaa"
+	};
+
+	private final AccumuloOptions accumuloOptions = new AccumuloOptions();
+	private final GeometryFactory factory = new GeometryFactory();
+	private final PrimaryIndex index = new SpatialDimensionalityTypeProvider().createPrimaryIndex();
+	private final TestGeometryAdapter adapter = new TestGeometryAdapter();
+
+	private AccumuloOperations accumuloOperations;
+	private AccumuloDataStatisticsStore statsStore;
+	private AccumuloDataStore mockDataStore;
+
+	@Before
+	public void setUp()
+			throws AccumuloException,
+			AccumuloSecurityException,
+			IOException {
+		final MockInstance mockInstance = new MockInstance();
+		final Connector mockConnector = mockInstance.getConnector(
+				"root",
+				new PasswordToken(
+						new byte[0]));
+		accumuloOperations = new BasicAccumuloOperations(
+				mockConnector);
+		statsStore = new AccumuloDataStatisticsStore(
+				accumuloOperations);
+
+		accumuloOptions.setCreateTable(true);
+		accumuloOptions.setUseAltIndex(false);
+		accumuloOptions.setPersistDataStatistics(true);
+		accumuloOptions.setServerSideDelete(true);
+		mockDataStore = new AccumuloDataStore(
+				new AccumuloIndexStore(
+						accumuloOperations),
+				new AccumuloAdapterStore(
+						accumuloOperations),
+				statsStore,
+				new AccumuloSecondaryIndexDataStore(
+						accumuloOperations,
+						new AccumuloOptions()),
+				new AccumuloAdapterIndexMappingStore(
+						accumuloOperations),
+				accumuloOperations,
+				accumuloOptions);
+
+		try (IndexWriter<TestGeometry> indexWriter = mockDataStore.createWriter(
+				adapter,
+				index)) {
+			writePoint(
+					indexWriter,
+					25,
+					"test_pt");
+			writePoint(
+					indexWriter,
+					26,
+					"test_pt_1");
+			writePoint(
+					indexWriter,
+					27,
+					"test_pt_2");
+			// outside of the deleted polygon
+			writePoint(
+					indexWriter,
+					35,
+					"test_pt_3");
+		}
+	}
+
+	@Test
+	public void testDeleteWithStatistics()
+			throws IOException {
+		assertEquals(
+				4,
+				getCountStatistic());
+
+		assertTrue(mockDataStore.delete(
+				new QueryOptions(
+						adapter,
+						index,
+						-1,
+						null,
+						AUTHORIZATIONS),
+				new SpatialQuery(
+						getPolygon())));
+
+		assertEquals(
+				1,
+				countEntries());
+		// the statistics of the entries deleted on the tablet servers are
+		// decremented
+		assertEquals(
+				1,
+				getCountStatistic());
+	}
+
+	@Test
+	public void testStatisticsCalculatedOnTabletServers()
+			throws TableNotFoundException,
+			IOException {
+		final List<ByteArrayId> adapterIds = Collections.singletonList(adapter.getAdapterId());
+		final AccumuloConstraintsQuery query = new AccumuloConstraintsQuery(
+				adapterIds,
+				index,
+				new SpatialQuery(
+						getPolygon()),
+				null,
+				null,
+				null,
+				null,
+				null,
+				null,
+				DifferingFieldVisibilityEntryCount.getVisibilityCounts(
+						index,
+						adapterIds,
+						statsStore,
+						AUTHORIZATIONS),
+				AUTHORIZATIONS);
+		assertTrue(AccumuloServerSideDelete.isServerSide(query));
+
+		final List<DataStatistics<?>> statistics = new AccumuloServerSideDelete(
+				adapter,
+				index,
+				query).calculateStatistics(
+				accumuloOperations,
+				true,
+				AUTHORIZATIONS);
+		CountDataStatistics<?> deletedCount = null;
+		for (final DataStatistics<?> stats : statistics) {
+			if (CountDataStatistics.STATS_TYPE.equals(stats.getStatisticsId())) {
+				deletedCount = (CountDataStatistics<?>) stats;
+			}
+		}
+		// the entries in the polygon are counted as deleted, but nothing is
+		// deleted until the rows are deleted
+		assertEquals(
+				-3,
+				deletedCount.getCount());
+		assertEquals(
+				4,
+				countEntries());
+	}
+
+	@Test
+	public void testDeleteWithLargeEntry()
+			throws IOException {
+		// a line across the polygon may be stored in several rows, some of
+		// which may be outside of the ranges of the polygon, and is deleted
+		// and counted once either way
+		try (IndexWriter<TestGeometry> indexWriter = mockDataStore.createWriter(
+				adapter,
+				index)) {
+			indexWriter.write(
+					new TestGeometry(
+							factory.createLineString(new Coordinate[] {
+								new Coordinate(
+										20,
+										32),
+								new Coordinate(
+										40,
+										32)
+							}),
+							"test_line"),
+					AccumuloDataStoreStatsTest.visWriterAAA);
+		}
+		assertEquals(
+				5,
+				getCountStatistic());
+
+		assertTrue(mockDataStore.delete(
+				new QueryOptions(
+						adapter,
+						index,
+						-1,
+						null,
+						AUTHORIZATIONS),
+				new SpatialQuery(
+						getPolygon())));
+
+		assertEquals(
+				1,
+				countEntries());
+		assertEquals(
+				1,
+				getCountStatistic());
+	}
+
+	private void writePoint(
+			final IndexWriter<TestGeometry> indexWriter,
+			final double x,
+			final String id )
+			throws IOException {
+		indexWriter.write(
+				new TestGeometry(
+						factory.createPoint(new Coordinate(
+								x,
+								32)),
+						id),
+				AccumuloDataStoreStatsTest.visWriterAAA);
+	}
+
+	private Geometry getPolygon() {
+		return factory.createPolygon(new Coordinate[] {
+			new Coordinate(
+					24,
+					33),
+			new Coordinate(
+					28,
+					33),
+			new Coordinate(
+					28,
+					31),
+			new Coordinate(
+					24,
+					31),
+			new Coordinate(
+					24,
+					33)
+		});
+	}
+
+	private int countEntries()
+			throws IOException {
+		int count = 0;
+		try (CloseableIterator<?> it = mockDataStore.query(
+				new QueryOptions(
+						adapter,
+						index,
+						-1,
+						null,
+						AUTHORIZATIONS),
+				new EverythingQuery())) {
+			while (it.hasNext()) {
+				it.next();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private long getCountStatistic() {
+		return ((CountDataStatistics<?>) statsStore.getDataStatistics(
+				adapter.getAdapterId(),
+				CountDataStatistics.STATS_TYPE,
+				AUTHORIZATIONS)).getCount();
+	}
+}
@@ -0,0 +1,227 @@
+package mil.nga.giat.geowave.datastore.accumulo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.security.SecurityErrorCode;
+import org.apache.accumulo.core.data.ConstraintViolationSummary;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.TabletId;
+import org.junit.Before;
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.store.base.AdaptiveWriteTuner;
+
+public class AdaptiveBatchWriterTest
+{
+	private final List<TestBatchWriter> batchWriters = new ArrayList<TestBatchWriter>();
+	private TestTuner tuner;
+	private AdaptiveBatchWriter writer;
+
+	@Before
+	public void setUp()
+			throws TableNotFoundException {
+		tuner = new TestTuner();
+		writer = new AdaptiveBatchWriter(
+				null,
+				"test_table",
+				1000,
+				tuner) {
+			@Override
+			protected BatchWriter createBatchWriter(
+					final BatchWriterConfig config ) {
+				final TestBatchWriter batchWriter = new TestBatchWriter();
+				batchWriters.add(batchWriter);
+				return batchWriter;
+			}
+		};
+	}
+
+	@Test
+	public void testRejectedWrite()
+			throws IOException {
+		batchWriters.get(0).rejectWrites = true;
+		try {
+			writer.write(newMutation("row1"));
+			fail("Expected the rejected mutation to be thrown");
+		}
+		catch (final RuntimeException e) {
+			assertTrue(e.getCause() instanceof MutationsRejectedException);
+		}
+		// the rejecting batch writer is replaced and later writes succeed
+		assertEquals(
+				2,
+				batchWriters.size());
+		assertTrue(batchWriters.get(0).closed);
+		writer.write(newMutation("row2"));
+		assertEquals(
+				1,
+				batchWriters.get(1).mutations.size());
+		// the rejection is seen by the write and again by the close
+		assertEquals(
+				2,
+				tuner.getTotalErrors());
+		writer.close();
+	}
+
+	@Test
+	public void testRejectedWhenReplaced()
+			throws IOException {
+		writer.write(newMutation("row1"));
+		// the mutations buffered by the replaced batch writer are rejected
+		// while it is closed
+		batchWriters.get(0).rejectClose = true;
+		tuner.reconfigure = true;
+		try {
+			writer.write(newMutation("row2"));
+			fail("Expected the mutations rejected on close to be thrown");
+		}
+		catch (final RuntimeException e) {
+			assertTrue(e.getCause() instanceof MutationsRejectedException);
+		}
+		tuner.reconfigure = false;
+		assertEquals(
+				2,
+				batchWriters.size());
+		assertTrue(batchWriters.get(0).closed);
+		writer.write(newMutation("row3"));
+		assertEquals(
+				1,
+				batchWriters.get(1).mutations.size());
+		writer.close();
+	}
+
+	@Test
+	public void testRejectedOnClose() {
+		writer.write(newMutation("row1"));
+		batchWriters.get(0).rejectClose = true;
+		try {
+			writer.close();
+			fail("Expected the mutations rejected on close to be thrown");
+		}
+		catch (final IOException e) {
+			assertTrue(e.getCause() instanceof MutationsRejectedException);
+		}
+	}
+
+	@Test
+	public void testReplacedOnce()
+			throws IOException {
+		final TestBatchWriter replaced = batchWriters.get(0);
+		replaced.rejectWrites = true;
+		try {
+			writer.write(newMutation("row1"));
+			fail("Expected the rejected mutation to be thrown");
+		}
+		catch (final RuntimeException e) {
+			assertSame(
+					replaced.rejection,
+					e.getCause());
+		}
+		writer.flush();
+		// a flush of the new batch writer does not replace it again
+		assertEquals(
+				2,
+				batchWriters.size());
+		writer.close();
+	}
+
+	private static Mutation newMutation(
+			final String row ) {
+		final Mutation mutation = new Mutation(
+				row);
+		mutation.put(
+				"cf",
+				"cq",
+				"value");
+		return mutation;
+	}
+
+	private static class TestTuner extends
+			AdaptiveWriteTuner
+	{
+		private boolean reconfigure = false;
+
+		private TestTuner() {
+			super(
+					"test_table",
+					1024L * 1024L,
+					4);
+		}
+
+		@Override
+		public boolean recordWrite(
+				final long bytes,
+				final long latencyNanos ) {
+			super.recordWrite(
+					bytes,
+					latencyNanos);
+			return reconfigure;
+		}
+	}
+
+	private static class TestBatchWriter implements
+			BatchWriter
+	{
+		private final List<Mutation> mutations = new ArrayList<Mutation>();
+		private final MutationsRejectedException rejection = new MutationsRejectedException(
+				null,
+				new ArrayList<ConstraintViolationSummary>(),
+				new HashMap<TabletId, Set<SecurityErrorCode>>(),
+				Collections.singletonList("tserver"),
+				0,
+				null);
+		private boolean rejectWrites = false;
+		private boolean rejectClose = false;
+		private boolean closed = false;
+
+		@Override
+		public void addMutation(
+				final Mutation m )
+				throws MutationsRejectedException {
+			if (rejectWrites) {
+				throw rejection;
+			}
+			mutations.add(m);
+		}
+
+		@Override
+		public void addMutations(
+				final Iterable<Mutation> iterable )
+				throws MutationsRejectedException {
+			for (final Mutation m : iterable) {
+				addMutation(m);
+			}
+		}
+
+		@Override
+		public void flush()
+				throws MutationsRejectedException {
+			if (rejectWrites) {
+				throw rejection;
+			}
+		}
+
+		@Override
+		public void close()
+				throws MutationsRejectedException {
+			closed = true;
+			if (rejectWrites || rejectClose) {
+				throw rejection;
+			}
+		}
+	}
+}
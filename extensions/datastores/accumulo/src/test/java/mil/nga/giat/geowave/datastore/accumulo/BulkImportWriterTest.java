@@ -0,0 +1,185 @@
+package mil.nga.giat.geowave.datastore.accumulo;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeSet;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableExistsException;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.hadoop.io.Text;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BulkImportWriterTest
+{
+	private static final String TABLE_NAME = "bulk_import_test";
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private Connector connector;
+	private Configuration conf;
+
+	@Before
+	public void setUp()
+			throws AccumuloException,
+			AccumuloSecurityException,
+			TableExistsException,
+			TableNotFoundException {
+		connector = new MockInstance().getConnector(
+				"root",
+				new PasswordToken(
+						new byte[0]));
+		if (connector.tableOperations().exists(
+				TABLE_NAME)) {
+			connector.tableOperations().delete(
+					TABLE_NAME);
+		}
+		connector.tableOperations().create(
+				TABLE_NAME);
+		connector.tableOperations().addSplits(
+				TABLE_NAME,
+				new TreeSet<Text>(
+						Arrays.asList(new Text(
+								"m"))));
+
+		// the writer uses the given configuration for its files; a raw local
+		// file system does not write checksum files into the import directory
+		conf = new Configuration();
+		conf.setClass(
+				"fs.file.impl",
+				RawLocalFileSystem.class,
+				FileSystem.class);
+		conf.setBoolean(
+				"fs.file.impl.disable.cache",
+				true);
+	}
+
+	@Test
+	public void testImportDirectory()
+			throws IOException,
+			TableNotFoundException {
+		final BulkImportWriter writer = new BulkImportWriter(
+				connector,
+				TABLE_NAME,
+				tempFolder.getRoot().getAbsolutePath(),
+				BulkImportWriter.DEFAULT_MAX_MEMORY,
+				conf);
+		// the rows on both sides of the split are imported from one file each
+		writer.write(Arrays.asList(
+				newMutation("z"),
+				newMutation("a"),
+				newMutation("n")));
+		assertEquals(
+				0,
+				getRows().size());
+
+		writer.flush();
+		assertEquals(
+				Arrays.asList(
+						"a",
+						"n",
+						"z"),
+				getRows());
+
+		writer.write(newMutation("b"));
+		writer.close();
+		assertEquals(
+				Arrays.asList(
+						"a",
+						"b",
+						"n",
+						"z"),
+				getRows());
+		// the work directory of the writer is removed on close
+		assertEquals(
+				0,
+				new File(
+						tempFolder.getRoot(),
+						TABLE_NAME).list().length);
+	}
+
+	@Test
+	public void testFlushWhenFull()
+			throws IOException,
+			TableNotFoundException {
+		final BulkImportWriter writer = new BulkImportWriter(
+				connector,
+				TABLE_NAME,
+				tempFolder.getRoot().getAbsolutePath(),
+				1,
+				conf);
+		writer.write(newMutation("a"));
+		assertEquals(
+				Arrays.asList("a"),
+				getRows());
+		writer.close();
+	}
+
+	@Test
+	public void testClusterConfiguration() {
+		// a configured default file system is kept
+		final Configuration clusterConf = new Configuration();
+		FileSystem.setDefaultUri(
+				clusterConf,
+				"hdfs://namenode:8020");
+		assertEquals(
+				"hdfs://namenode:8020",
+				FileSystem.getDefaultUri(
+						BulkImportWriter.getClusterConfiguration(
+								connector,
+								clusterConf)).toString());
+
+		// the mock instance has no volumes, so the local file system is kept
+		assertEquals(
+				"file",
+				FileSystem.getDefaultUri(
+						BulkImportWriter.getClusterConfiguration(
+								connector,
+								conf)).getScheme());
+	}
+
+	private static Mutation newMutation(
+			final String row ) {
+		final Mutation mutation = new Mutation(
+				row);
+		mutation.put(
+				"cf",
+				"cq",
+				"value");
+		return mutation;
+	}
+
+	private List<String> getRows()
+			throws TableNotFoundException {
+		final List<String> rows = new ArrayList<String>();
+		final Scanner scanner = connector.createScanner(
+				TABLE_NAME,
+				new Authorizations());
+		for (final Entry<Key, Value> entry : scanner) {
+			rows.add(entry.getKey().getRow().toString());
+		}
+		return rows;
+	}
+}
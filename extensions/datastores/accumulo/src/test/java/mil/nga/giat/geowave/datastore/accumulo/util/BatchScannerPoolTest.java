@@ -0,0 +1,132 @@
+package mil.nga.giat.geowave.datastore.accumulo.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.user.RegExFilter;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+public class BatchScannerPoolTest
+{
+	private static final String TABLE = "pool_test";
+
+	@Test
+	public void testReleasedScannerIsClean()
+			throws Exception {
+		final Connector connector = new MockInstance().getConnector(
+				"root",
+				new PasswordToken(
+						new byte[0]));
+		connector.tableOperations().create(
+				TABLE);
+		final BatchWriter writer = connector.createBatchWriter(
+				TABLE,
+				new BatchWriterConfig());
+		for (final String row : new String[] {
+			"r1",
+			"r2"
+		}) {
+			final Mutation m = new Mutation(
+					row);
+			m.put(
+					new Text(
+							"a"),
+					new Text(
+							"q"),
+					new Value(
+							new byte[0]));
+			m.put(
+					new Text(
+							"b"),
+					new Text(
+							"q"),
+					new Value(
+							new byte[0]));
+			writer.addMutation(m);
+		}
+		writer.close();
+
+		final BatchScannerPool pool = new BatchScannerPool();
+		final String key = BatchScannerPool.getKey(TABLE);
+		assertNull(pool.borrow(key));
+
+		final BatchScanner scanner = connector.createBatchScanner(
+				TABLE,
+				new Authorizations(),
+				2);
+		scanner.setRanges(Collections.singleton(new Range(
+				"r1")));
+		scanner.fetchColumnFamily(new Text(
+				"a"));
+		scanner.setTimeout(
+				5,
+				TimeUnit.SECONDS);
+		final IteratorSetting filter = new IteratorSetting(
+				10,
+				"rowFilter",
+				RegExFilter.class);
+		RegExFilter.setRegexs(
+				filter,
+				"r1",
+				null,
+				null,
+				null,
+				false);
+		scanner.addScanIterator(filter);
+		assertEquals(
+				1,
+				count(scanner.iterator()));
+		pool.release(
+				key,
+				scanner);
+
+		// the ranges, columns, iterators and timeout of the previous query
+		// are gone
+		final BatchScanner borrowed = pool.borrow(key);
+		assertSame(
+				scanner,
+				borrowed);
+		assertEquals(
+				Long.MAX_VALUE,
+				borrowed.getTimeout(TimeUnit.MILLISECONDS));
+		assertEquals(
+				4,
+				count(borrowed.iterator()));
+		assertNull(pool.borrow(key));
+
+		pool.release(
+				key,
+				borrowed);
+		pool.close();
+		assertNull(pool.borrow(key));
+	}
+
+	private static int count(
+			final Iterator<Entry<Key, Value>> it ) {
+		int count = 0;
+		while (it.hasNext()) {
+			it.next();
+			count++;
+		}
+		return count;
+	}
+}
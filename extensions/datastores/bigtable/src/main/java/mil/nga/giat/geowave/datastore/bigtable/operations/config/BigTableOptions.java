@@ -21,6 +21,10 @@ public class BigTableOptions extends
 
 	@Parameter(names = "--scanCacheSize")
 	protected int scanCacheSize = HConstants.DEFAULT_HBASE_CLIENT_SCANNER_CACHING;
+	@Parameter(names = "--scanThreads", description = "The number of range scans run concurrently by a query.  A value of 1 runs the scans sequentially.")
+	protected int scanThreads = HBaseOptions.DEFAULT_SCAN_THREADS;
+	@Parameter(names = "--maxRangeScans", description = "The maximum number of scans issued by a query, neighboring ranges are coalesced into a single scan beyond it.")
+	protected int maxRangeScans = HBaseOptions.DEFAULT_MAX_RANGE_SCANS;
 	@Parameter(names = "--projectId")
 	protected String projectId = DEFAULT_PROJECT_ID;
 	@Parameter(names = "--instanceId")
@@ -83,6 +87,16 @@ public class BigTableOptions extends
 			return BigTableOptions.this.scanCacheSize;
 		}
 
+		@Override
+		public int getScanThreads() {
+			return BigTableOptions.this.scanThreads;
+		}
+
+		@Override
+		public int getMaxRangeScans() {
+			return BigTableOptions.this.maxRangeScans;
+		}
+
 		@Override
 		public boolean isEnableCustomFilters() {
 			return false;
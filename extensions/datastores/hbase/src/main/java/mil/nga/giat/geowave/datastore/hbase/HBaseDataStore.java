@@ -31,24 +31,30 @@ import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.CloseableIteratorWrapper;
 import mil.nga.giat.geowave.core.store.DataStoreOperations;
 import mil.nga.giat.geowave.core.store.DataStoreOptions;
+import mil.nga.giat.geowave.core.store.DataStoreStatisticsProvider;
 import mil.nga.giat.geowave.core.store.IndexWriter;
 import mil.nga.giat.geowave.core.store.adapter.AdapterIndexMappingStore;
 import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
 import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DuplicateEntryCount;
 import mil.nga.giat.geowave.core.store.base.BaseDataStore;
 import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.base.ServerSideDeleteStatus;
 import mil.nga.giat.geowave.core.store.callback.IngestCallback;
 import mil.nga.giat.geowave.core.store.callback.ScanCallback;
 import mil.nga.giat.geowave.core.store.filter.DedupeFilter;
 import mil.nga.giat.geowave.core.store.index.IndexMetaDataSet;
 import mil.nga.giat.geowave.core.store.index.IndexStore;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.query.DataIdQuery;
 import mil.nga.giat.geowave.core.store.query.DistributableQuery;
+import mil.nga.giat.geowave.core.store.query.PrefixIdQuery;
 import mil.nga.giat.geowave.core.store.query.Query;
 import mil.nga.giat.geowave.core.store.query.QueryOptions;
+import mil.nga.giat.geowave.core.store.query.RowIdQuery;
 import mil.nga.giat.geowave.datastore.hbase.index.secondary.HBaseSecondaryIndexDataStore;
 import mil.nga.giat.geowave.datastore.hbase.io.HBaseWriter;
 import mil.nga.giat.geowave.datastore.hbase.mapreduce.GeoWaveHBaseRecordReader;
@@ -62,7 +68,10 @@ import mil.nga.giat.geowave.datastore.hbase.operations.config.HBaseOptions;
 import mil.nga.giat.geowave.datastore.hbase.query.HBaseConstraintsQuery;
 import mil.nga.giat.geowave.datastore.hbase.query.HBaseRowIdsQuery;
 import mil.nga.giat.geowave.datastore.hbase.query.HBaseRowPrefixQuery;
+import mil.nga.giat.geowave.datastore.hbase.query.HBaseServerSideDelete;
+import mil.nga.giat.geowave.datastore.hbase.query.HBaseStatisticsQuery;
 import mil.nga.giat.geowave.datastore.hbase.query.SingleEntryFilter;
+import mil.nga.giat.geowave.datastore.hbase.split.HBaseSplitManager;
 import mil.nga.giat.geowave.datastore.hbase.util.HBaseEntryIteratorWrapper;
 import mil.nga.giat.geowave.datastore.hbase.util.HBaseUtils;
 import mil.nga.giat.geowave.datastore.hbase.util.HBaseUtils.MultiScannerClosableWrapper;
@@ -81,6 +90,7 @@ public class HBaseDataStore extends
 	private final HBaseOptions options;
 
 	private final HBaseSplitsProvider splitsProvider = new HBaseSplitsProvider();
+	private HBaseSplitManager splitManager = null;
 
 	public HBaseDataStore(
 			final BasicHBaseOperations operations ) {
@@ -158,7 +168,39 @@ public class HBaseDataStore extends
 	@Override
 	protected void initOnIndexWriterCreate(
 			final DataAdapter adapter,
-			final PrimaryIndex index ) {}
+			final PrimaryIndex index ) {
+		final HBaseSplitManager splitManager = getSplitManager();
+		if ((splitManager == null) || !options.isCreateTable()) {
+			return;
+		}
+		final String indexName = StringUtils.stringFromBinary(index.getId().getBytes());
+		try {
+			if (!operations.tableExists(indexName)) {
+				// create the table ahead of the writer to pre-split it
+				operations.createTable(
+						new String[] {
+							adapter.getAdapterId().getString()
+						},
+						BasicHBaseOperations.getTableName(operations.getQualifiedTableName(indexName)),
+						splitManager.getPreSplits(index));
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to pre-split index '" + indexName + "'",
+					e);
+		}
+	}
+
+	private synchronized HBaseSplitManager getSplitManager() {
+		if ((splitManager == null) && (options.getAutoSplits() > 0)) {
+			splitManager = new HBaseSplitManager(
+					operations,
+					statisticsStore,
+					options.getAutoSplits());
+		}
+		return splitManager;
+	}
 
 	@Override
 	protected IndexWriter createIndexWriter(
@@ -168,13 +210,16 @@ public class HBaseDataStore extends
 			final DataStoreOptions baseOptions,
 			final IngestCallback callback,
 			final Closeable closable ) {
+		final HBaseSplitManager splitManager = getSplitManager();
 		return new HBaseIndexWriter(
 				adapter,
 				index,
 				operations,
 				options,
 				callback,
-				closable);
+				splitManager != null ? splitManager.getRebalancingClosable(
+						index,
+						closable) : closable);
 	}
 
 	@Override
@@ -517,6 +562,150 @@ public class HBaseDataStore extends
 
 	}
 
+	@Override
+	protected ServerSideDeleteStatus deleteOnServer(
+			final DataAdapter<Object> adapter,
+			final PrimaryIndex index,
+			final Query query,
+			final QueryOptions queryOptions,
+			final boolean statistics,
+			final boolean includeAdapterStats ) {
+		// row ID and data ID deletes touch few rows, so they are cheaper to
+		// delete from the client
+		if (!options.isServerSideDelete() || (query instanceof RowIdQuery) || (query instanceof DataIdQuery)) {
+			return ServerSideDeleteStatus.INCOMPLETE;
+		}
+		final Scan scan;
+		if (query instanceof PrefixIdQuery) {
+			scan = new Scan();
+			scan.setRowPrefixFilter(((PrefixIdQuery) query).getRowPrefix().getBytes());
+			scan.addFamily(adapter.getAdapterId().getBytes());
+		}
+		else {
+			final List<ByteArrayId> adapterIds = new ArrayList<ByteArrayId>();
+			adapterIds.add(adapter.getAdapterId());
+			final HBaseConstraintsQuery hbaseQuery = new HBaseConstraintsQuery(
+					adapterIds,
+					index,
+					query,
+					null,
+					null,
+					null,
+					IndexMetaDataSet.getIndexMetadata(
+							index,
+							adapterIds,
+							statisticsStore,
+							queryOptions.getAuthorizations()),
+					DuplicateEntryCount.getDuplicateCounts(
+							index,
+							adapterIds,
+							statisticsStore,
+							queryOptions.getAuthorizations()),
+					null,
+					queryOptions.getAuthorizations());
+			hbaseQuery.setOptions(options);
+			scan = hbaseQuery.getServerSideScan();
+			if (scan == null) {
+				return ServerSideDeleteStatus.INCOMPLETE;
+			}
+		}
+
+		final HBaseServerSideDelete serverSideDelete = new HBaseServerSideDelete(
+				adapter,
+				index,
+				scan);
+		ServerSideDeleteStatus status;
+		try {
+			serverSideDelete.delete(
+					operations,
+					options,
+					statistics,
+					includeAdapterStats,
+					queryOptions.getAuthorizations());
+			// the entries stored in several rows are deleted from the client
+			status = serverSideDelete.getDuplicateRows() > 0 ? ServerSideDeleteStatus.INCOMPLETE
+					: ServerSideDeleteStatus.COMPLETE;
+		}
+		catch (final IOException e) {
+			// the rows the regions did not delete are deleted from the client,
+			// but the rows the regions deleted before failing are already gone
+			LOGGER.warn(
+					"Unable to delete on the region servers, deleting from the client",
+					e);
+			status = serverSideDelete.isStatisticsKnown() ? ServerSideDeleteStatus.INCOMPLETE
+					: ServerSideDeleteStatus.STATISTICS_UNKNOWN;
+		}
+		if (statistics) {
+			for (final DataStatistics<?> stats : serverSideDelete.getDeletedStatistics()) {
+				statisticsStore.incorporateStatistics(stats);
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Recalculate statistics of an adapter in an index on the region servers,
+	 * replacing the stored statistics of every requested type, including the
+	 * types without any entries to calculate them from
+	 *
+	 * @param includeAdapterStats
+	 *            whether to calculate the statistics of the adapter as well as
+	 *            those of the index, which only needs to be done for one of
+	 *            the indices of the adapter
+	 * @param statisticsTypes
+	 *            the statistics types to calculate, or none to calculate every
+	 *            supported type
+	 */
+	@SuppressWarnings({
+		"rawtypes",
+		"unchecked"
+	})
+	public void recalculateStatistics(
+			final DataAdapter<?> adapter,
+			final PrimaryIndex index,
+			final boolean includeAdapterStats,
+			final String[] authorizations,
+			final ByteArrayId... statisticsTypes )
+			throws IOException {
+		// calculate before removing anything, so a failure keeps the stored
+		// statistics
+		final List<DataStatistics<?>> statistics = calculateStatistics(
+				adapter,
+				index,
+				includeAdapterStats,
+				authorizations,
+				statisticsTypes);
+		final DataStoreStatisticsProvider statisticsProvider = new DataStoreStatisticsProvider(
+				adapter,
+				index,
+				includeAdapterStats);
+		removeStatistics(
+				statisticsProvider,
+				((statisticsTypes != null) && (statisticsTypes.length > 0)) ? statisticsTypes : statisticsProvider
+						.getSupportedStatisticsTypes(),
+				authorizations);
+		for (final DataStatistics<?> stats : statistics) {
+			statisticsStore.incorporateStatistics(stats);
+		}
+	}
+
+	protected List<DataStatistics<?>> calculateStatistics(
+			final DataAdapter<?> adapter,
+			final PrimaryIndex index,
+			final boolean includeAdapterStats,
+			final String[] authorizations,
+			final ByteArrayId[] statisticsTypes )
+			throws IOException {
+		return new HBaseStatisticsQuery(
+				adapter,
+				index,
+				includeAdapterStats,
+				statisticsTypes,
+				authorizations).calculate(
+				operations,
+				options);
+	}
+
 	@Override
 	public List<InputSplit> getSplits(
 			final DistributableQuery query,
@@ -525,7 +714,8 @@ public class HBaseDataStore extends
 			final DataStatisticsStore statsStore,
 			final IndexStore indexStore,
 			final Integer minSplits,
-			final Integer maxSplits )
+			final Integer maxSplits,
+			final Long targetSplitSize )
 			throws IOException,
 			InterruptedException {
 		return splitsProvider.getSplits(
@@ -537,7 +727,8 @@ public class HBaseDataStore extends
 				indexStore,
 				indexMappingStore,
 				minSplits,
-				maxSplits);
+				maxSplits,
+				targetSplitSize);
 	}
 
 	@Override
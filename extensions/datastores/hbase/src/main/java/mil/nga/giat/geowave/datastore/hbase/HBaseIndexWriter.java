@@ -91,13 +91,24 @@ public class HBaseIndexWriter<T> extends
 			throws IOException {
 		if (writer == null) {
 			try {
-				writer = operations.createWriter(
-						StringUtils.stringFromBinary(index.getId().getBytes()),
-						new String[] {
-							adapter.getAdapterId().getString()
-						},
-						options.isCreateTable(),
-						index.getIndexStrategy().getNaturalSplits());
+				if (options.isAdaptiveWrites()) {
+					writer = operations.createAdaptiveWriter(
+							StringUtils.stringFromBinary(index.getId().getBytes()),
+							new String[] {
+								adapter.getAdapterId().getString()
+							},
+							options.isCreateTable(),
+							index.getIndexStrategy().getNaturalSplits());
+				}
+				else {
+					writer = operations.createWriter(
+							StringUtils.stringFromBinary(index.getId().getBytes()),
+							new String[] {
+								adapter.getAdapterId().getString()
+							},
+							options.isCreateTable(),
+							index.getIndexStrategy().getNaturalSplits());
+				}
 
 				if (writer == null) {
 					throw new IOException(
@@ -8,6 +8,7 @@ public class HBaseOperationProvider implements
 	private static final Class<?>[] OPERATIONS = new Class<?>[] {
 		HBaseSection.class,
 		CombineStatisticsCommand.class,
+		ServerSideRecalculateStatsCommand.class,
 	};
 
 	@Override
@@ -7,7 +7,7 @@ import mil.nga.giat.geowave.core.cli.api.DefaultOperation;
 import mil.nga.giat.geowave.core.cli.operations.GeowaveTopLevelSection;
 
 @GeowaveOperation(name = "hbase", parentOperation = GeowaveTopLevelSection.class)
-@Parameters(commandDescription = "Utility operations to combine statistics in hbase")
+@Parameters(commandDescription = "Utility operations to combine and calculate statistics in hbase")
 public class HBaseSection extends
 		DefaultOperation
 {
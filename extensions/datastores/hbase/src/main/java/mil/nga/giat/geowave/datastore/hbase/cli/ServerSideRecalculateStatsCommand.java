@@ -0,0 +1,123 @@
+package mil.nga.giat.geowave.datastore.hbase.cli;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+
+import mil.nga.giat.geowave.core.cli.annotations.GeowaveOperation;
+import mil.nga.giat.geowave.core.cli.api.Command;
+import mil.nga.giat.geowave.core.cli.api.OperationParams;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.adapter.AdapterIndexMappingStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.index.IndexStore;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.operations.remote.AbstractStatsCommand;
+import mil.nga.giat.geowave.core.store.operations.remote.options.DataStorePluginOptions;
+import mil.nga.giat.geowave.core.store.operations.remote.options.StatsCommandLineOptions;
+import mil.nga.giat.geowave.datastore.hbase.HBaseDataStore;
+
+@GeowaveOperation(name = "recalcstats", parentOperation = HBaseSection.class)
+@Parameters(commandDescription = "Calculate the statistics of an existing GeoWave dataset on the HBase region servers")
+public class ServerSideRecalculateStatsCommand extends
+		AbstractStatsCommand implements
+		Command
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(ServerSideRecalculateStatsCommand.class);
+
+	@Parameter(description = "<store name> [<adapter name>]")
+	private List<String> parameters = new ArrayList<String>();
+
+	@Parameter(names = "--statsType", description = "The statistics types to calculate, all supported types if none are given")
+	private List<String> statisticsTypes = new ArrayList<String>();
+
+	@Override
+	public void execute(
+			final OperationParams params )
+			throws Exception {
+		// Ensure we have all the required arguments
+		if (parameters.size() < 1) {
+			throw new ParameterException(
+					"Requires arguments: <store name> [<adapterId>]");
+		}
+
+		super.run(
+				params,
+				parameters);
+	}
+
+	@Override
+	protected boolean performStatsCommand(
+			final DataStorePluginOptions storeOptions,
+			final DataAdapter<?> adapter,
+			final StatsCommandLineOptions statsOptions )
+			throws IOException {
+		final DataStore dataStore = storeOptions.createDataStore();
+		if (!(dataStore instanceof HBaseDataStore)) {
+			LOGGER.error("Statistics can only be calculated on the region servers of an HBase data store");
+			return false;
+		}
+		final AdapterIndexMappingStore mappingStore = storeOptions.createAdapterIndexMappingStore();
+		final IndexStore indexStore = storeOptions.createIndexStore();
+		final String[] authorizations = getAuthorizations(statsOptions.getAuthorizations());
+		final ByteArrayId[] statisticsTypeIds = new ByteArrayId[statisticsTypes.size()];
+		for (int i = 0; i < statisticsTypeIds.length; i++) {
+			statisticsTypeIds[i] = new ByteArrayId(
+					statisticsTypes.get(i));
+		}
+
+		try {
+			boolean isFirstTime = true;
+			for (final PrimaryIndex index : mappingStore.getIndicesForAdapter(
+					adapter.getAdapterId()).getIndices(
+					indexStore)) {
+				((HBaseDataStore) dataStore).recalculateStatistics(
+						adapter,
+						index,
+						isFirstTime,
+						authorizations,
+						statisticsTypeIds);
+				isFirstTime = false;
+			}
+		}
+		catch (final Exception ex) {
+			LOGGER.error(
+					"Error while writing statistics.",
+					ex);
+			return false;
+		}
+
+		return true;
+	}
+
+	public List<String> getParameters() {
+		return parameters;
+	}
+
+	public void setParameters(
+			final String storeName,
+			final String adapterName ) {
+		parameters = new ArrayList<String>();
+		parameters.add(storeName);
+		if (adapterName != null) {
+			parameters.add(adapterName);
+		}
+	}
+
+	public List<String> getStatisticsTypes() {
+		return statisticsTypes;
+	}
+
+	public void setStatisticsTypes(
+			final List<String> statisticsTypes ) {
+		this.statisticsTypes = statisticsTypes;
+	}
+}
@@ -21,7 +21,6 @@ import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.StringUtils;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.CloseableIteratorWrapper;
-import mil.nga.giat.geowave.core.store.DataStore;
 import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
 import mil.nga.giat.geowave.core.store.base.CastIterator;
 import mil.nga.giat.geowave.core.store.base.Writer;
@@ -31,8 +30,6 @@ import mil.nga.giat.geowave.core.store.index.SecondaryIndex;
 import mil.nga.giat.geowave.core.store.index.SecondaryIndexType;
 import mil.nga.giat.geowave.core.store.index.SecondaryIndexUtils;
 import mil.nga.giat.geowave.core.store.query.DistributableQuery;
-import mil.nga.giat.geowave.core.store.query.QueryOptions;
-import mil.nga.giat.geowave.core.store.query.RowIdQuery;
 import mil.nga.giat.geowave.datastore.hbase.io.HBaseWriter;
 import mil.nga.giat.geowave.datastore.hbase.operations.BasicHBaseOperations;
 import mil.nga.giat.geowave.datastore.hbase.operations.config.HBaseOptions;
@@ -43,7 +40,6 @@ public class HBaseSecondaryIndexDataStore extends
 	private final static Logger LOGGER = Logger.getLogger(HBaseSecondaryIndexDataStore.class);
 	private final BasicHBaseOperations hbaseOperations;
 	private final HBaseOptions hbaseOptions;
-	private DataStore dataStore = null;
 
 	public HBaseSecondaryIndexDataStore(
 			final BasicHBaseOperations hbaseOperations ) {
@@ -60,12 +56,6 @@ public class HBaseSecondaryIndexDataStore extends
 		this.hbaseOptions = hbaseOptions;
 	}
 
-	@Override
-	public void setDataStore(
-			final DataStore dataStore ) {
-		this.dataStore = dataStore;
-	}
-
 	@Override
 	protected Writer<RowMutations> getWriter(
 			final ByteArrayId secondaryIndexId ) {
@@ -93,6 +83,12 @@ public class HBaseSecondaryIndexDataStore extends
 		return writer;
 	}
 
+	@Override
+	protected byte[] getRowId(
+			final RowMutations mutation ) {
+		return mutation.getRow();
+	}
+
 	@Override
 	protected RowMutations buildJoinMutation(
 			final byte[] secondaryIndexRowId,
@@ -202,10 +198,89 @@ public class HBaseSecondaryIndexDataStore extends
 			final PrimaryIndex primaryIndex,
 			final DistributableQuery query,
 			final String... authorizations ) {
-		final List<Scan> scans = new ArrayList<Scan>();
+		if (secondaryIndex.getSecondaryIndexType().equals(
+				SecondaryIndexType.JOIN)) {
+			return queryJoin(
+					secondaryIndex,
+					indexedAttributeFieldId,
+					adapter,
+					primaryIndex,
+					query,
+					authorizations);
+		}
+		final byte[] columnFamily = SecondaryIndexUtils.constructColumnFamily(
+				adapter.getAdapterId(),
+				indexedAttributeFieldId);
+		final List<ResultScanner> results = getScannedResults(
+				secondaryIndex,
+				columnFamily,
+				query,
+				authorizations);
+		if (!results.isEmpty()) {
+			final List<CloseableIterator<Object>> allResultsList = new ArrayList<>();
+			for (final ResultScanner resultsScan : results) {
+				allResultsList.add(new HBaseSecondaryIndexEntryIteratorWrapper<T>(
+						resultsScan,
+						columnFamily,
+						adapter,
+						primaryIndex));
+			}
+			return new CloseableIteratorWrapper<T>(
+					new Closeable() {
+						@Override
+						public void close()
+								throws IOException {
+							for (final CloseableIterator<Object> closeableIterator : allResultsList) {
+								closeableIterator.close();
+							}
+						}
+					},
+					Iterators.concat(new CastIterator<T>(
+							allResultsList.iterator())));
+		}
+		return new CloseableIterator.Empty<T>();
+	}
+
+	@Override
+	protected <T> CloseableIterator<Pair<ByteArrayId, ByteArrayId>> getJoinEntries(
+			final SecondaryIndex<T> secondaryIndex,
+			final ByteArrayId indexedAttributeFieldId,
+			final DataAdapter<T> adapter,
+			final DistributableQuery query,
+			final String... authorizations ) {
 		final byte[] columnFamily = SecondaryIndexUtils.constructColumnFamily(
 				adapter.getAdapterId(),
 				indexedAttributeFieldId);
+		final List<CloseableIterator<Pair<ByteArrayId, ByteArrayId>>> joinEntries = new ArrayList<>();
+		for (final ResultScanner resultsScan : getScannedResults(
+				secondaryIndex,
+				columnFamily,
+				query,
+				authorizations)) {
+			joinEntries.add(new HBaseSecondaryIndexJoinEntryIteratorWrapper<T>(
+					resultsScan,
+					columnFamily,
+					adapter));
+		}
+		return new CloseableIteratorWrapper<Pair<ByteArrayId, ByteArrayId>>(
+				new Closeable() {
+					@Override
+					public void close()
+							throws IOException {
+						for (final CloseableIterator<Pair<ByteArrayId, ByteArrayId>> it : joinEntries) {
+							it.close();
+						}
+					}
+				},
+				Iterators.concat(joinEntries.iterator()));
+	}
+
+	private List<ResultScanner> getScannedResults(
+			final SecondaryIndex<?> secondaryIndex,
+			final byte[] columnFamily,
+			final DistributableQuery query,
+			final String... authorizations ) {
+		final List<Scan> scans = new ArrayList<Scan>();
 		final List<ByteArrayRange> scanRanges = query.getSecondaryIndexConstraints(secondaryIndex);
 		for (final ByteArrayRange scanRange : scanRanges) {
 			final Scan scan = new Scan();
@@ -233,70 +308,7 @@ public class HBaseSecondaryIndexDataStore extends
 						e);
 			}
 		}
-		if (!results.isEmpty()) {
-			final List<CloseableIterator<Object>> allResultsList = new ArrayList<>();
-			for (final ResultScanner resultsScan : results) {
-				if (secondaryIndex.getSecondaryIndexType().equals(
-						SecondaryIndexType.JOIN)) {
-					final List<CloseableIterator<Object>> allResults = new ArrayList<>();
-					try (final CloseableIterator<Pair<ByteArrayId, ByteArrayId>> joinEntryIterator = new HBaseSecondaryIndexJoinEntryIteratorWrapper<T>(
-							resultsScan,
-							columnFamily,
-							adapter)) {
-						while (joinEntryIterator.hasNext()) {
-							final Pair<ByteArrayId, ByteArrayId> entry = joinEntryIterator.next();
-							final ByteArrayId primaryIndexId = entry.getLeft();
-							final ByteArrayId primaryIndexRowId = entry.getRight();
-							final CloseableIterator<Object> intermediateResults = dataStore.query(
-									new QueryOptions(
-											adapter.getAdapterId(),
-											primaryIndexId),
-									new RowIdQuery(
-											primaryIndexRowId));
-							allResults.add(intermediateResults);
-							final CloseableIterator<Object> intermediateResultsWrapper = new CloseableIteratorWrapper<Object>(
-									new Closeable() {
-										@Override
-										public void close()
-												throws IOException {
-											for (CloseableIterator<Object> resultIter : allResults) {
-												resultIter.close();
-											}
-										}
-									},
-									Iterators.concat(new CastIterator<Object>(
-											allResults.iterator())));
-							allResultsList.add(intermediateResultsWrapper);
-						}
-					}
-					catch (final IOException e) {
-						LOGGER.error(
-								"Could not close iterator",
-								e);
-					}
-				}
-				else {
-					allResultsList.add(new HBaseSecondaryIndexEntryIteratorWrapper<T>(
-							resultsScan,
-							columnFamily,
-							adapter,
-							primaryIndex));
-				}
-			}
-			return new CloseableIteratorWrapper<T>(
-					new Closeable() {
-						@Override
-						public void close()
-								throws IOException {
-							for (final CloseableIterator<Object> closeableIterator : allResultsList) {
-								closeableIterator.close();
-							}
-						}
-					},
-					Iterators.concat(new CastIterator<T>(
-							allResultsList.iterator())));
-		}
-		return new CloseableIterator.Empty<T>();
+		return results;
 	}
 
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 
 import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.base.AdaptiveWriteTuner;
 import mil.nga.giat.geowave.core.store.base.Writer;
 import mil.nga.giat.geowave.datastore.hbase.operations.BasicHBaseOperations;
 
@@ -15,6 +16,7 @@ import org.apache.hadoop.hbase.client.Admin;
 import org.apache.hadoop.hbase.client.BufferedMutator;
 import org.apache.hadoop.hbase.client.BufferedMutatorParams;
 import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.RetriesExhaustedWithDetailsException;
 import org.apache.hadoop.hbase.client.RowMutations;
@@ -41,12 +43,32 @@ public class HBaseWriter implements
 	private BufferedMutator mutator;
 
 	private final boolean schemaUpdateEnabled;
+	private final AdaptiveWriteTuner tuner;
 
 	public HBaseWriter(
 			final Admin admin,
 			final String tableName ) {
+		this(
+				admin,
+				tableName,
+				null);
+	}
+
+	/**
+	 * @param tuner
+	 *            if not null, tunes the write buffer size of the buffered
+	 *            mutator from the write throughput, latency and errors
+	 */
+	public HBaseWriter(
+			final Admin admin,
+			final String tableName,
+			final AdaptiveWriteTuner tuner ) {
 		this.admin = admin;
 		this.tableName = TableName.valueOf(tableName);
+		this.tuner = tuner;
+		if (tuner != null) {
+			tuner.register();
+		}
 
 		cfMap = new HashMap<String, Boolean>();
 
@@ -70,6 +92,9 @@ public class HBaseWriter implements
 		if (mutator == null) {
 			final BufferedMutatorParams params = new BufferedMutatorParams(
 					tableName);
+			if (tuner != null) {
+				params.writeBufferSize(tuner.getBufferSize());
+			}
 
 			params.listener(new ExceptionListener() {
 				@Override
@@ -80,6 +105,9 @@ public class HBaseWriter implements
 					LOGGER.error(
 							"Error in buffered mutator",
 							exception);
+					if (tuner != null) {
+						tuner.recordError();
+					}
 					// Get details
 					for (Throwable cause : exception.getCauses()) {
 						cause.printStackTrace();
@@ -97,8 +125,7 @@ public class HBaseWriter implements
 	public void write(
 			final RowMutations rowMutation ) {
 		try {
-			getBufferedMutator().mutate(
-					rowMutation.getMutations());
+			mutate(rowMutation.getMutations());
 		}
 		catch (final IOException e) {
 			LOGGER.error(
@@ -107,6 +134,30 @@ public class HBaseWriter implements
 		}
 	}
 
+	private void mutate(
+			final List<? extends Mutation> mutations )
+			throws IOException {
+		if (tuner == null) {
+			getBufferedMutator().mutate(
+					mutations);
+			return;
+		}
+		final BufferedMutator bufferedMutator = getBufferedMutator();
+		long bytes = 0;
+		for (final Mutation mutation : mutations) {
+			bytes += mutation.heapSize();
+		}
+		final long start = System.nanoTime();
+		bufferedMutator.mutate(mutations);
+		if (tuner.recordWrite(
+				bytes,
+				System.nanoTime() - start)) {
+			// the buffer size of a buffered mutator is fixed, so close it and
+			// open a new one with the new size on the next write
+			close(false);
+		}
+	}
+
 	@Override
 	public void write(
 			final Iterable<RowMutations> mutations ) {
@@ -117,6 +168,11 @@ public class HBaseWriter implements
 
 	@Override
 	public void close() {
+		close(true);
+	}
+
+	private void close(
+			final boolean unregister ) {
 		try {
 			if (mutator != null) {
 				mutator.close();
@@ -128,6 +184,9 @@ public class HBaseWriter implements
 					"Unable to close BufferedMutator",
 					e);
 		}
+		if (unregister && (tuner != null)) {
+			tuner.unregister();
+		}
 	}
 
 	public void write(
@@ -147,8 +206,7 @@ public class HBaseWriter implements
 			throws IOException {
 		addColumnFamilyIfNotExist(columnFamily);
 
-		getBufferedMutator().mutate(
-				puts);
+		mutate(puts);
 	}
 
 	private void addColumnFamilyIfNotExist(
@@ -281,7 +339,13 @@ public class HBaseWriter implements
 	public void flush() {
 		try {
 			if (mutator != null) {
+				final long start = System.nanoTime();
 				mutator.flush();
+				if ((tuner != null) && tuner.recordWrite(
+						0,
+						System.nanoTime() - start)) {
+					close(false);
+				}
 			}
 		}
 		catch (final IOException e) {
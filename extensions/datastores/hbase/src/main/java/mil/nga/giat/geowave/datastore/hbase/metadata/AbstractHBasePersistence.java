@@ -89,12 +89,9 @@ public abstract class AbstractHBasePersistence<T extends Persistable> extends
 		return null;
 	}
 
-	@SuppressWarnings("unchecked")
 	protected T entryToValue(
 			final Cell entry ) {
-		final T result = (T) PersistenceUtils.fromBinary(
-				CellUtil.cloneValue(entry),
-				Persistable.class);
+		final T result = fromValue(CellUtil.cloneValue(entry));
 		if (result != null) {
 			addObjectToCache(
 					getPrimaryId(result),
@@ -116,6 +113,25 @@ public abstract class AbstractHBasePersistence<T extends Persistable> extends
 		return scanner;
 	}
 
+	/**
+	 * @return the cell value an object is persisted as
+	 */
+	protected byte[] toValue(
+			final T object ) {
+		return PersistenceUtils.toBinary(object);
+	}
+
+	/**
+	 * @return the object persisted as a cell value
+	 */
+	@SuppressWarnings("unchecked")
+	protected T fromValue(
+			final byte[] value ) {
+		return (T) PersistenceUtils.fromBinary(
+				value,
+				Persistable.class);
+	}
+
 	protected Iterator<T> getNativeIteratorWrapper(
 			final Iterator<Result> resultIterator ) {
 		return new NativeIteratorWrapper(
@@ -207,7 +223,7 @@ public abstract class AbstractHBasePersistence<T extends Persistable> extends
 			row.addColumn(
 					toBytes(getColumnFamily()),
 					toBytes(getColumnQualifier(object)),
-					PersistenceUtils.toBinary(object));
+					toValue(object));
 			mutation.add(row);
 
 			writer.write(
@@ -1,13 +1,23 @@
 package mil.nga.giat.geowave.datastore.hbase.metadata;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang.NotImplementedException;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
@@ -24,6 +34,10 @@ public class HBaseDataStatisticsStore extends
 {
 
 	protected static final String STATISTICS_CF = "STATS";
+	// starts a value prefixed with the visibility of the statistics, which is
+	// never the start of a persisted object, whose class name length comes
+	// first
+	private static final int VISIBILITY_PREFIX = -1;
 	private final static Logger LOGGER = Logger.getLogger(HBaseDataStatisticsStore.class);
 
 	public HBaseDataStatisticsStore(
@@ -142,6 +156,157 @@ public class HBaseDataStatisticsStore extends
 
 	}
 
+	/**
+	 * Every incorporateStatistics call writes a new uniquely keyed row, which
+	 * are otherwise only merged at read time. This merges the rows of each
+	 * statistic and visibility into a copy, writes the merged statistic as a
+	 * new row, and then deletes exactly the rows that were read, so statistics
+	 * incorporated concurrently are preserved. HBase cannot replace the rows
+	 * atomically, so a failure between the write and the delete counts the
+	 * remaining rows twice until the statistic is recalculated, rather than
+	 * losing it. Only one process should compact a given store at a time.
+	 */
+	@Override
+	public void compactStatistics() {
+		try {
+			final ResultScanner rS = operations.getScannedResults(
+					getScanner(
+							null,
+							null),
+					getTablename());
+			try (Table table = operations.getTable(getTablename())) {
+				compactStatistics(
+						rS,
+						table);
+			}
+			finally {
+				rS.close();
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.error(
+					"Unable to compact statistics in table: " + getTablename(),
+					e);
+		}
+	}
+
+	/**
+	 * Merge the statistics rows read into one row per statistic and visibility
+	 */
+	protected void compactStatistics(
+			final Iterable<Result> results,
+			final Table table )
+			throws IOException {
+		final Map<Pair<ByteArrayId, ByteArrayId>, DataStatistics<?>> mergedStats = new LinkedHashMap<Pair<ByteArrayId, ByteArrayId>, DataStatistics<?>>();
+		final Map<Pair<ByteArrayId, ByteArrayId>, List<byte[]>> partialRows = new LinkedHashMap<Pair<ByteArrayId, ByteArrayId>, List<byte[]>>();
+		for (final Result result : results) {
+			// decoded without the cache, which must not see partials
+			final Cell cell = result.listCells().get(
+					0);
+			final DataStatistics<?> stats = fromValue(CellUtil.cloneValue(cell));
+			if (stats == null) {
+				continue;
+			}
+			stats.setDataAdapterId(new ByteArrayId(
+					CellUtil.cloneQualifier(cell)));
+			// statistics of different visibilities are never merged
+			final Pair<ByteArrayId, ByteArrayId> key = Pair.of(
+					getCombinedId(
+							getPrimaryId(stats),
+							getSecondaryId(stats)),
+					new ByteArrayId(
+							stats.getVisibility() == null ? new byte[0] : stats.getVisibility()));
+			final DataStatistics<?> merged = mergedStats.get(key);
+			if (merged == null) {
+				mergedStats.put(
+						key,
+						stats);
+				partialRows.put(
+						key,
+						new ArrayList<byte[]>());
+			}
+			else {
+				merged.merge(stats);
+			}
+			partialRows.get(
+					key).add(
+					result.getRow());
+		}
+
+		final byte[] columnFamily = toBytes(getColumnFamily());
+		for (final Map.Entry<Pair<ByteArrayId, ByteArrayId>, List<byte[]>> entry : partialRows.entrySet()) {
+			if (entry.getValue().size() < 2) {
+				continue;
+			}
+			final DataStatistics<?> merged = mergedStats.get(entry.getKey());
+			final byte[] columnQualifier = toBytes(getColumnQualifier(merged));
+			// the merged row is written first, so that a failure never loses
+			// the statistic
+			final Put put = new Put(
+					getRowId(merged).getBytes());
+			put.addColumn(
+					columnFamily,
+					columnQualifier,
+					toValue(merged));
+			table.put(put);
+			final List<Delete> deletes = new ArrayList<Delete>();
+			for (final byte[] row : entry.getValue()) {
+				deletes.add(new Delete(
+						row).addColumns(
+						columnFamily,
+						columnQualifier));
+			}
+			try {
+				table.delete(deletes);
+			}
+			catch (final IOException e) {
+				// the deletes that failed are left in the list
+				LOGGER.error(
+						"Unable to delete " + deletes.size() + " compacted rows of statistic '"
+								+ entry.getKey().getLeft().getString() + "', which are counted twice until recalculated",
+						e);
+			}
+		}
+	}
+
+	/**
+	 * The visibility of the statistics, if any, prefixes the persisted
+	 * statistics
+	 */
+	@Override
+	protected byte[] toValue(
+			final DataStatistics<?> object ) {
+		final byte[] value = super.toValue(object);
+		final byte[] visibility = object.getVisibility();
+		if ((visibility == null) || (visibility.length == 0)) {
+			return value;
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(8 + visibility.length + value.length);
+		buf.putInt(VISIBILITY_PREFIX);
+		buf.putInt(visibility.length);
+		buf.put(visibility);
+		buf.put(value);
+		return buf.array();
+	}
+
+	@Override
+	protected DataStatistics<?> fromValue(
+			final byte[] value ) {
+		final ByteBuffer buf = ByteBuffer.wrap(value);
+		if ((value.length < 8) || (buf.getInt() != VISIBILITY_PREFIX)) {
+			return super.fromValue(value);
+		}
+		final byte[] visibility = new byte[buf.getInt()];
+		buf.get(visibility);
+		final byte[] statsValue = new byte[buf.remaining()];
+		buf.get(statsValue);
+		final DataStatistics<?> stats = super.fromValue(statsValue);
+		if (stats != null) {
+			stats.setVisibility(visibility);
+		}
+		return stats;
+	}
+
 	/**
 	 * This function is used to change the scan object created in the superclass
 	 * to enable prefixing.
@@ -2,8 +2,17 @@ package mil.nga.giat.geowave.datastore.hbase.operations;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
@@ -23,6 +32,7 @@ import org.apache.log4j.Logger;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.store.DataStoreOperations;
+import mil.nga.giat.geowave.core.store.base.AdaptiveWriteTuner;
 import mil.nga.giat.geowave.datastore.hbase.io.HBaseWriter;
 import mil.nga.giat.geowave.datastore.hbase.operations.config.HBaseRequiredOptions;
 import mil.nga.giat.geowave.datastore.hbase.util.ConnectionPool;
@@ -35,10 +45,20 @@ public class BasicHBaseOperations implements
 	protected static final String DEFAULT_TABLE_NAMESPACE = "";
 	public static final Object ADMIN_MUTEX = new Object();
 	private static final long SLEEP_INTERVAL = 10000L;
+	private static final String WRITE_BUFFER_SIZE_KEY = "hbase.client.write.buffer";
+	private static final long DEFAULT_WRITE_BUFFER_SIZE = 2097152L; // 2 MB
+	// bounds the regions read concurrently by all the parallel scans of one
+	// operations instance
+	public static final int MAX_SCAN_THREADS = 64;
+	// bounds the threads of the shared pool a single parallel scan may hold,
+	// so that other queries are not starved of threads
+	public static final int MAX_SCAN_THREADS_PER_QUERY = 16;
+	private static final AtomicInteger SCAN_THREAD_COUNT = new AtomicInteger();
 
 	private final Connection conn;
 	private final String tableNamespace;
 	private final boolean schemaUpdateEnabled;
+	private ExecutorService scanExecutor = null;
 
 	public BasicHBaseOperations(
 			final Connection connection,
@@ -73,6 +93,36 @@ public class BasicHBaseOperations implements
 				options.getGeowaveNamespace());
 	}
 
+	/**
+	 * @return the pool of daemon threads reading the regions of parallel
+	 *         scans, shared by every query of these operations, whose idle
+	 *         threads time out
+	 */
+	public synchronized ExecutorService getScanExecutor() {
+		if (scanExecutor == null) {
+			final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+					MAX_SCAN_THREADS,
+					MAX_SCAN_THREADS,
+					60,
+					TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory() {
+						@Override
+						public Thread newThread(
+								final Runnable r ) {
+							final Thread thread = new Thread(
+									r,
+									"geowave-hbase-scan-" + SCAN_THREAD_COUNT.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			scanExecutor = executor;
+		}
+		return scanExecutor;
+	}
+
 	public Configuration getConfig() {
 		return conn.getConfiguration();
 	}
@@ -118,6 +168,44 @@ public class BasicHBaseOperations implements
 				qTableName);
 	}
 
+	/**
+	 * Create a writer whose write buffer size is tuned from the write
+	 * throughput, latency and errors, starting from the configured
+	 * hbase.client.write.buffer
+	 */
+	public HBaseWriter createAdaptiveWriter(
+			final String sTableName,
+			final String[] columnFamilies,
+			final boolean createTable,
+			final Set<ByteArrayId> splits )
+			throws IOException {
+		final String qTableName = getQualifiedTableName(sTableName);
+
+		if (createTable) {
+			createTable(
+					columnFamilies,
+					getTableName(qTableName),
+					splits);
+		}
+
+		// the buffered mutator shares the thread pool of the connection, so
+		// only the buffer size is tuned
+		return new HBaseWriter(
+				conn.getAdmin(),
+				qTableName,
+				new AdaptiveWriteTuner(
+						qTableName,
+						conn.getConfiguration().getLong(
+								WRITE_BUFFER_SIZE_KEY,
+								DEFAULT_WRITE_BUFFER_SIZE),
+						1,
+						AdaptiveWriteTuner.DEFAULT_MIN_BUFFER_SIZE,
+						AdaptiveWriteTuner.DEFAULT_MAX_BUFFER_SIZE,
+						1,
+						1,
+						AdaptiveWriteTuner.DEFAULT_WINDOW_MILLIS));
+	}
+
 	public void createTable(
 			final String[] columnFamilies,
 			final TableName name,
@@ -159,6 +247,51 @@ public class BasicHBaseOperations implements
 		}
 	}
 
+	/**
+	 * @return the start rows of the regions of the table, except the first
+	 */
+	public SortedSet<ByteArrayId> getSplits(
+			final String tableName )
+			throws IOException {
+		final SortedSet<ByteArrayId> splits = new TreeSet<ByteArrayId>();
+		try (RegionLocator locator = getRegionLocator(tableName)) {
+			for (final byte[] startKey : locator.getStartKeys()) {
+				if (startKey.length > 0) {
+					splits.add(new ByteArrayId(
+							startKey));
+				}
+			}
+		}
+		return splits;
+	}
+
+	/**
+	 * Request the regions of the table to be split at the given rows. Regions
+	 * are split asynchronously, so a region is split at most once, on the
+	 * first of its rows.
+	 */
+	public void addSplits(
+			final String tableName,
+			final SortedSet<ByteArrayId> splits )
+			throws IOException {
+		final TableName name = getTableName(getQualifiedTableName(tableName));
+		final Set<String> splitRegions = new HashSet<String>();
+		synchronized (ADMIN_MUTEX) {
+			try (RegionLocator locator = getRegionLocator(tableName)) {
+				final Admin admin = conn.getAdmin();
+				for (final ByteArrayId split : splits) {
+					final String region = locator.getRegionLocation(
+							split.getBytes()).getRegionInfo().getEncodedName();
+					if (splitRegions.add(region)) {
+						admin.split(
+								name,
+								split.getBytes());
+					}
+				}
+			}
+		}
+	}
+
 	public void addColumnFamiles(
 			final String[] columnFamilies,
 			final String tableName )
@@ -10,6 +10,8 @@ public class HBaseOptions extends
 		BaseDataStoreOptions
 {
 	public static final String COPROCESSOR_JAR_KEY = "coprocessorJar";
+	public static final int DEFAULT_SCAN_THREADS = 1;
+	public static final int DEFAULT_MAX_RANGE_SCANS = 64;
 
 	@Parameter(names = "--disableServer", description = "Disable all custom GeoWave server side processing, to include coprocessors and custom filters.  This will alleviate the requirement to have a GeoWave jar on HBase's region server classpath.")
 	protected boolean disableServiceSide = false;
@@ -17,6 +19,18 @@ public class HBaseOptions extends
 	@Parameter(names = "--scanCacheSize")
 	protected int scanCacheSize = HConstants.DEFAULT_HBASE_CLIENT_SCANNER_CACHING;
 
+	@Parameter(names = "--scanThreads", description = "The number of regions scanned concurrently by a query, at most 16.  Defaults to 1, which scans the regions sequentially with a single scanner.")
+	protected int scanThreads = DEFAULT_SCAN_THREADS;
+
+	@Parameter(names = "--autoSplits", description = "The number of regions to spread each index table across, splitting new tables and rebalancing the splits after ingest using the row range statistics of the index.  0 to leave splitting to HBase.")
+	protected int autoSplits = 0;
+
+	@Parameter(names = "--adaptiveWrites", description = "Tune the write buffer size of the index writers while ingesting, from the write throughput, latency and errors, rather than using a fixed size.  The writer metrics are exported over JMX.")
+	protected boolean adaptiveWrites = false;
+
+	@Parameter(names = "--serverSideDelete", description = "Delete the entries matching constraint and prefix deletes on the region servers, which also calculate the statistics of the deleted entries, rather than scanning the entries to the client.")
+	protected boolean serverSideDelete = false;
+
 	protected boolean disableCustomFilters = false;
 
 	protected boolean disableCoprocessors = false;
@@ -26,6 +40,10 @@ public class HBaseOptions extends
 
 	protected boolean bigTable = false;
 
+	// Bigtable only, the number of scans the ranges of a query are coalesced
+	// into
+	protected int maxRangeScans = DEFAULT_MAX_RANGE_SCANS;
+
 	@Parameter(names = {
 		"--" + COPROCESSOR_JAR_KEY
 	}, description = "Path (HDFS URL) to the jar containing coprocessor classes")
@@ -61,6 +79,51 @@ public class HBaseOptions extends
 		this.scanCacheSize = scanCacheSize;
 	}
 
+	public int getScanThreads() {
+		return scanThreads;
+	}
+
+	public void setScanThreads(
+			final int scanThreads ) {
+		this.scanThreads = scanThreads;
+	}
+
+	public int getAutoSplits() {
+		return autoSplits;
+	}
+
+	public void setAutoSplits(
+			final int autoSplits ) {
+		this.autoSplits = autoSplits;
+	}
+
+	public boolean isAdaptiveWrites() {
+		return adaptiveWrites;
+	}
+
+	public void setAdaptiveWrites(
+			final boolean adaptiveWrites ) {
+		this.adaptiveWrites = adaptiveWrites;
+	}
+
+	public boolean isServerSideDelete() {
+		return serverSideDelete && isEnableCoprocessors();
+	}
+
+	public void setServerSideDelete(
+			final boolean serverSideDelete ) {
+		this.serverSideDelete = serverSideDelete;
+	}
+
+	public int getMaxRangeScans() {
+		return maxRangeScans;
+	}
+
+	public void setMaxRangeScans(
+			final int maxRangeScans ) {
+		this.maxRangeScans = maxRangeScans;
+	}
+
 	public boolean isEnableCustomFilters() {
 		return !disableCustomFilters && !disableServiceSide;
 	}
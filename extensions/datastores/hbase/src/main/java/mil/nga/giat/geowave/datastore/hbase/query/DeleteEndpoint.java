@@ -0,0 +1,254 @@
+package mil.nga.giat.geowave.datastore.hbase.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.Coprocessor;
+import org.apache.hadoop.hbase.CoprocessorEnvironment;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HConstants.OperationStatusCode;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.coprocessor.CoprocessorException;
+import org.apache.hadoop.hbase.coprocessor.CoprocessorService;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.protobuf.ProtobufUtil;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos;
+import org.apache.hadoop.hbase.regionserver.OperationStatus;
+import org.apache.hadoop.hbase.regionserver.Region;
+import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.log4j.Logger;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.RpcCallback;
+import com.google.protobuf.RpcController;
+import com.google.protobuf.Service;
+
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStoreStatisticsProvider;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StatsCompositionTool;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.entities.GeowaveRowId;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.memory.MemoryDataStatisticsStore;
+import mil.nga.giat.geowave.datastore.hbase.query.protobuf.DeleteProtos;
+
+/**
+ * Deletes the rows of a region matching a scan, so that a delete does not
+ * stream the rows to the client.
+ *
+ * The entries of the deleted rows are given to the statistics of the adapter
+ * and index, and the statistics are returned as partial statistics for the
+ * client to merge across regions and incorporate into the stored statistics.
+ * Rows of entries stored in several rows are not deleted, since the other rows
+ * of such an entry may be outside of the scan or the region; their count is
+ * returned for the client to delete them. A failure returns the rows deleted
+ * and statistics gathered so far along with the error.
+ */
+public class DeleteEndpoint extends
+		DeleteProtos.DeleteService implements
+		Coprocessor,
+		CoprocessorService
+{
+	private static final Logger LOGGER = Logger.getLogger(DeleteEndpoint.class);
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private RegionCoprocessorEnvironment env;
+
+	@Override
+	public void start(
+			final CoprocessorEnvironment env )
+			throws IOException {
+		if (env instanceof RegionCoprocessorEnvironment) {
+			this.env = (RegionCoprocessorEnvironment) env;
+		}
+		else {
+			throw new CoprocessorException(
+					"Must be loaded on a table region!");
+		}
+	}
+
+	@Override
+	public void stop(
+			final CoprocessorEnvironment env )
+			throws IOException {
+		// nothing to do when coprocessor is shutting down
+	}
+
+	@Override
+	public Service getService() {
+		return this;
+	}
+
+
+	@SuppressWarnings({
+		"rawtypes",
+		"unchecked"
+	})
+	@Override
+	public void delete(
+			final RpcController controller,
+			final DeleteProtos.DeleteRequest request,
+			final RpcCallback<DeleteProtos.DeleteResponse> done ) {
+		long rowsDeleted = 0;
+		long duplicateRows = 0;
+		String error = null;
+		MemoryDataStatisticsStore statisticsStore = null;
+		StatsCompositionTool statsTool = null;
+		try {
+			final Scan scan = ProtobufUtil.toScan(ClientProtos.Scan.parseFrom(request.getScan()));
+			// every version is deleted
+			scan.setMaxVersions();
+			scan.setCacheBlocks(false);
+			final DataAdapter adapter = PersistenceUtils.fromBinary(
+					request.getAdapter().toByteArray(),
+					DataAdapter.class);
+			final PrimaryIndex index = PersistenceUtils.fromBinary(
+					request.getIndex().toByteArray(),
+					PrimaryIndex.class);
+			final int batchSize = request.hasBatchSize() && (request.getBatchSize() > 0) ? request.getBatchSize()
+					: DEFAULT_BATCH_SIZE;
+
+			if (request.getStatistics()) {
+				statisticsStore = new MemoryDataStatisticsStore();
+				statsTool = new StatsCompositionTool(
+						new DataStoreStatisticsProvider(
+								adapter,
+								index,
+								request.getIncludeAdapterStats()),
+						statisticsStore);
+			}
+
+			final Region region = env.getRegion();
+			try (RegionScanner scanner = region.getScanner(scan)) {
+				final List<Cell> cells = new ArrayList<Cell>();
+				final List<Mutation> deletes = new ArrayList<Mutation>();
+				final List<Pair<Object, DataStoreEntryInfo>> entries = new ArrayList<Pair<Object, DataStoreEntryInfo>>();
+				boolean hasNext;
+				do {
+					hasNext = scanner.next(cells);
+					if (!cells.isEmpty()) {
+						final Result row = Result.create(cells);
+						cells.clear();
+						// the other rows of an entry stored in several rows
+						// may be outside of the scan, so the entry is left for
+						// the client to delete as a whole
+						if (new GeowaveRowId(
+								row.getRow()).getNumberOfDuplicates() > 0) {
+							duplicateRows++;
+							continue;
+						}
+						entries.add(statsTool != null ? StatisticsEndpoint.decodeEntry(
+								adapter,
+								index,
+								row) : null);
+						deletes.add(new Delete(
+								row.getRow()));
+						if (deletes.size() >= batchSize) {
+							rowsDeleted += deleteRows(
+									region,
+									deletes,
+									entries,
+									statsTool);
+						}
+					}
+				}
+				while (hasNext);
+				if (!deletes.isEmpty()) {
+					rowsDeleted += deleteRows(
+							region,
+							deletes,
+							entries,
+							statsTool);
+				}
+			}
+		}
+		catch (final Exception e) {
+			LOGGER.error(
+					"Error during delete.",
+					e);
+			// the rows deleted before the failure are gone, so their
+			// statistics are returned with the error rather than failing the
+			// call, and the client deletes the remaining rows itself
+			error = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+		}
+
+		final DeleteProtos.DeleteResponse.Builder response = DeleteProtos.DeleteResponse.newBuilder().setRowsDeleted(
+				rowsDeleted).setDuplicateRows(
+				duplicateRows);
+		if (statsTool != null) {
+			// closing the tool flushes the statistics into the memory store
+			statsTool.close();
+			final List<DataStatistics<?>> statistics = new ArrayList<DataStatistics<?>>();
+			try (CloseableIterator<DataStatistics<?>> it = statisticsStore.getAllDataStatistics()) {
+				while (it.hasNext()) {
+					statistics.add(it.next());
+				}
+			}
+			catch (final IOException e) {
+				LOGGER.warn(
+						"Unable to read statistics of deleted rows",
+						e);
+			}
+			response.setStatistics(ByteString.copyFrom(PersistenceUtils.toBinary(statistics)));
+		}
+		if (error != null) {
+			response.setError(error);
+		}
+		done.run(response.build());
+	}
+
+	/**
+	 * Delete a batch of rows, giving the entries of the rows that were deleted
+	 * to the statistics
+	 *
+	 * @throws IOException
+	 *             if any row of the batch was not deleted
+	 */
+	@SuppressWarnings({
+		"rawtypes",
+		"unchecked"
+	})
+	private static long deleteRows(
+			final Region region,
+			final List<Mutation> deletes,
+			final List<Pair<Object, DataStoreEntryInfo>> entries,
+			final StatsCompositionTool statsTool )
+			throws IOException {
+		final OperationStatus[] statuses = region.batchMutate(
+				deletes.toArray(new Mutation[deletes.size()]),
+				HConstants.NO_NONCE,
+				HConstants.NO_NONCE);
+		long rowsDeleted = 0;
+		String failure = null;
+		for (int i = 0; i < statuses.length; i++) {
+			if (statuses[i].getOperationStatusCode() == OperationStatusCode.SUCCESS) {
+				rowsDeleted++;
+				final Pair<Object, DataStoreEntryInfo> entry = entries.get(i);
+				if ((statsTool != null) && (entry != null)) {
+					statsTool.entryDeleted(
+							entry.getRight(),
+							entry.getLeft());
+				}
+			}
+			else if (failure == null) {
+				failure = statuses[i].getExceptionMsg();
+			}
+		}
+		deletes.clear();
+		entries.clear();
+		if (failure != null) {
+			throw new IOException(
+					"Unable to delete row: " + failure);
+		}
+		return rowsDeleted;
+	}
+}
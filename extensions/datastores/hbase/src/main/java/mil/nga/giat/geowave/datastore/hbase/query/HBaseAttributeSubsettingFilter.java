@@ -0,0 +1,85 @@
+package mil.nga.giat.geowave.datastore.hbase.query;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.exceptions.DeserializationException;
+import org.apache.hadoop.hbase.filter.FilterBase;
+
+import mil.nga.giat.geowave.core.store.flatten.BitmaskUtils;
+
+/**
+ * Projects the cells of a scan onto a subset of fields on the region server,
+ * so that fields a query does not ask for are never sent to the client.
+ *
+ * The column qualifier of a cell is the bitmask of the fields in its value.
+ * Cells without any of the requested fields are skipped, and cells with some
+ * of them are rewritten to hold just those fields, the same as the client does
+ * when decoding a row with a field subset.
+ */
+public class HBaseAttributeSubsettingFilter extends
+		FilterBase
+{
+	private byte[] fieldSubsetBitmask;
+
+	public HBaseAttributeSubsettingFilter() {}
+
+	public HBaseAttributeSubsettingFilter(
+			final byte[] fieldSubsetBitmask ) {
+		this.fieldSubsetBitmask = fieldSubsetBitmask;
+	}
+
+	public static HBaseAttributeSubsettingFilter parseFrom(
+			final byte[] pbBytes )
+			throws DeserializationException {
+		return new HBaseAttributeSubsettingFilter(
+				pbBytes);
+	}
+
+	@Override
+	public byte[] toByteArray()
+			throws IOException {
+		return fieldSubsetBitmask;
+	}
+
+	@Override
+	public ReturnCode filterKeyValue(
+			final Cell cell )
+			throws IOException {
+		final byte[] newBitmask = BitmaskUtils.generateANDBitmask(
+				CellUtil.cloneQualifier(cell),
+				fieldSubsetBitmask);
+		if (BitmaskUtils.isAnyBitSet(newBitmask)) {
+			return ReturnCode.INCLUDE;
+		}
+		return ReturnCode.SKIP;
+	}
+
+	@Override
+	public Cell transformCell(
+			final Cell cell )
+			throws IOException {
+		final byte[] qualifier = CellUtil.cloneQualifier(cell);
+		final byte[] newBitmask = BitmaskUtils.generateANDBitmask(
+				qualifier,
+				fieldSubsetBitmask);
+		if (Arrays.equals(
+				qualifier,
+				newBitmask)) {
+			return cell;
+		}
+		return new KeyValue(
+				CellUtil.cloneRow(cell),
+				CellUtil.cloneFamily(cell),
+				newBitmask,
+				cell.getTimestamp(),
+				KeyValue.Type.codeToType(cell.getTypeByte()),
+				BitmaskUtils.constructNewValue(
+						CellUtil.cloneValue(cell),
+						qualifier,
+						newBitmask));
+	}
+}
@@ -123,6 +123,13 @@ public class HBaseConstraintsQuery extends
 		return base.getRanges();
 	}
 
+	@Override
+	protected boolean isRangeCoalescingAllowed() {
+		// without custom filters the constraints are checked on the client
+		return ((options == null) || !options.isEnableCustomFilters())
+				&& (!base.distributableFilters.isEmpty() || !base.getCoordinateRanges().isEmpty());
+	}
+
 	@Override
 	protected List<QueryFilter> getAllFiltersList() {
 		final List<QueryFilter> filters = super.getAllFiltersList();
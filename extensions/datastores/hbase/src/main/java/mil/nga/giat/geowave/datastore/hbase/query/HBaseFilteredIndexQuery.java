@@ -3,6 +3,7 @@ package mil.nga.giat.geowave.datastore.hbase.query;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -16,6 +17,7 @@ import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.filter.FilterList;
 import org.apache.hadoop.hbase.filter.MultiRowRangeFilter;
 import org.apache.hadoop.hbase.filter.MultiRowRangeFilter.RowRange;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.log4j.Logger;
 
 import com.google.common.collect.Iterators;
@@ -33,10 +35,13 @@ import mil.nga.giat.geowave.core.store.adapter.RowMergingDataAdapter;
 import mil.nga.giat.geowave.core.store.callback.ScanCallback;
 import mil.nga.giat.geowave.core.store.filter.DistributableQueryFilter;
 import mil.nga.giat.geowave.core.store.filter.QueryFilter;
+import mil.nga.giat.geowave.core.store.flatten.BitmaskUtils;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
 import mil.nga.giat.geowave.core.store.query.FilteredIndexQuery;
 import mil.nga.giat.geowave.datastore.hbase.operations.BasicHBaseOperations;
+import mil.nga.giat.geowave.datastore.hbase.operations.config.HBaseOptions;
 import mil.nga.giat.geowave.datastore.hbase.util.HBaseEntryIteratorWrapper;
+import mil.nga.giat.geowave.datastore.hbase.util.HBaseParallelRegionScanner;
 import mil.nga.giat.geowave.datastore.hbase.util.HBaseUtils;
 import mil.nga.giat.geowave.datastore.hbase.util.HBaseUtils.MultiScannerClosableWrapper;
 import mil.nga.giat.geowave.datastore.hbase.util.MergingEntryIterator;
@@ -50,6 +55,11 @@ public abstract class HBaseFilteredIndexQuery extends
 	protected List<QueryFilter> clientFilters;
 	private final static Logger LOGGER = Logger.getLogger(HBaseFilteredIndexQuery.class);
 	private boolean hasSkippingFilter = false;
+	// results buffered ahead of the consumer per region when scanning in
+	// parallel
+	private static final int PARALLEL_SCAN_PREFETCH_SIZE = 1000;
+	// the row ranges of the last multi-range scan
+	private List<RowRange> scanRowRanges = null;
 
 	public HBaseFilteredIndexQuery(
 			final List<ByteArrayId> adapterIds,
@@ -135,7 +145,37 @@ public abstract class HBaseFilteredIndexQuery extends
 		final List<ResultScanner> results = new ArrayList<ResultScanner>();
 
 		if (isBigtable()) {
-			final List<Scan> scanners = getScannerList(limit);
+			final List<Scan> scanners = coalesceScanners(
+					getScannerList(limit),
+					isRangeCoalescingAllowed() ? getMaxRangeScans() : Integer.MAX_VALUE);
+
+			final int scanThreads = getScanThreads();
+			if ((scanThreads > 1) && (scanners.size() > 1)) {
+				// the coalesced scans are sorted and disjoint, so reading them
+				// in order keeps the results in row order for row merging
+				final HBaseParallelRegionScanner parallelScanner = new HBaseParallelRegionScanner(
+						operations,
+						tableName,
+						scanners,
+						scanThreads,
+						PARALLEL_SCAN_PREFETCH_SIZE,
+						!getMergingAdapters(
+								adapterStore).isEmpty(),
+						authorizations);
+				Iterator it = initIterator(
+						adapterStore,
+						parallelScanner,
+						maxResolutionSubsamplingPerDimension,
+						decodePersistenceEncoding);
+				if ((limit != null) && (limit > 0)) {
+					it = Iterators.limit(
+							it,
+							limit);
+				}
+				return new CloseableIteratorWrapper(
+						parallelScanner,
+						it);
+			}
 
 			for (final Scan scanner : scanners) {
 				try {
@@ -188,32 +228,54 @@ public abstract class HBaseFilteredIndexQuery extends
 					}
 				}
 
-				// Add distributable filters if requested, this has to be last
-				// in the filter list for the dedupe filter to work correctly
-				final List<DistributableQueryFilter> distFilters = getDistributableFilters();
-				if ((distFilters != null) && !distFilters.isEmpty()) {
-					final HBaseDistributableFilter hbdFilter = new HBaseDistributableFilter();
-					hbdFilter.init(
-							distFilters,
-							index.getIndexModel());
-
-					filterList.addFilter(hbdFilter);
-				}
-				else {
-					final List<MultiDimensionalCoordinateRangesArray> coords = getCoordinateRanges();
-					if ((coords != null) && !coords.isEmpty()) {
-						final HBaseNumericIndexStrategyFilter numericIndexFilter = new HBaseNumericIndexStrategyFilter(
-								index.getIndexStrategy(),
-								coords.toArray(new MultiDimensionalCoordinateRangesArray[] {}));
-						filterList.addFilter(numericIndexFilter);
-					}
+				// Only send the requested fields back to the client
+				final byte[] fieldSubsetBitmask = getFieldSubsetBitmask(
+						index,
+						fieldIds);
+				if (fieldSubsetBitmask != null) {
+					filterList.addFilter(new HBaseAttributeSubsettingFilter(
+							fieldSubsetBitmask));
 				}
+
+				addDistributableFilters(filterList);
 			}
 
 			if (!filterList.getFilters().isEmpty()) {
 				multiScanner.setFilter(filterList);
 			}
 
+			final int scanThreads = getScanThreads();
+			if ((scanThreads > 1) && (scanRowRanges != null) && ((limit == null) || (limit <= 0))) {
+				try {
+					final List<Scan> regionScans = HBaseParallelRegionScanner.getRegionScans(
+							multiScanner,
+							scanRowRanges,
+							operations.getRegionLocator(tableName));
+					// row merging requires the results in row order
+					final HBaseParallelRegionScanner parallelScanner = new HBaseParallelRegionScanner(
+							operations,
+							tableName,
+							regionScans,
+							scanThreads,
+							PARALLEL_SCAN_PREFETCH_SIZE,
+							!getMergingAdapters(
+									adapterStore).isEmpty(),
+							authorizations);
+					return new CloseableIteratorWrapper(
+							parallelScanner,
+							initIterator(
+									adapterStore,
+									parallelScanner,
+									maxResolutionSubsamplingPerDimension,
+									decodePersistenceEncoding));
+				}
+				catch (final IOException e) {
+					LOGGER.warn(
+							"Could not locate the regions of table '" + tableName + "', scanning sequentially",
+							e);
+				}
+			}
+
 			try {
 				final ResultScanner rs = operations.getScannedResults(
 						multiScanner,
@@ -258,6 +320,75 @@ public abstract class HBaseFilteredIndexQuery extends
 		return new CloseableIterator.Empty();
 	}
 
+	/**
+	 * Add distributable filters if requested, this has to be last in the filter
+	 * list for the dedupe filter to work correctly
+	 */
+	private void addDistributableFilters(
+			final FilterList filterList ) {
+		final List<DistributableQueryFilter> distFilters = getDistributableFilters();
+		if ((distFilters != null) && !distFilters.isEmpty()) {
+			final HBaseDistributableFilter hbdFilter = new HBaseDistributableFilter();
+			hbdFilter.init(
+					distFilters,
+					index.getIndexModel());
+
+			filterList.addFilter(hbdFilter);
+		}
+		else {
+			final List<MultiDimensionalCoordinateRangesArray> coords = getCoordinateRanges();
+			if ((coords != null) && !coords.isEmpty()) {
+				final HBaseNumericIndexStrategyFilter numericIndexFilter = new HBaseNumericIndexStrategyFilter(
+						index.getIndexStrategy(),
+						coords.toArray(new MultiDimensionalCoordinateRangesArray[] {}));
+				filterList.addFilter(numericIndexFilter);
+			}
+		}
+	}
+
+	/**
+	 * @return the scan of this query with every filter applied on the region
+	 *         servers, or null if some filters, such as de-duplication, can
+	 *         only be applied on the client
+	 */
+	public Scan getServerSideScan() {
+		if (isBigtable() || !isEnableCustomFilters() || ((clientFilters != null) && !clientFilters.isEmpty())) {
+			return null;
+		}
+		final FilterList filterList = new FilterList();
+		final Scan scan = getMultiScanner(
+				filterList,
+				null,
+				null);
+		addDistributableFilters(filterList);
+		if (!filterList.getFilters().isEmpty()) {
+			scan.setFilter(filterList);
+		}
+		return scan;
+	}
+
+	/**
+	 * @return the bitmask of the requested fields to subset the cells with on
+	 *         the region servers, or null to return every field
+	 */
+	static byte[] getFieldSubsetBitmask(
+			final PrimaryIndex index,
+			final Pair<List<String>, DataAdapter<?>> fieldIds ) {
+		if ((fieldIds == null) || (fieldIds.getLeft() == null) || fieldIds.getLeft().isEmpty()
+				|| (fieldIds.getRight() == null)) {
+			return null;
+		}
+		final DataAdapter<?> adapter = fieldIds.getRight();
+		if ((adapter instanceof RowMergingDataAdapter) && (((RowMergingDataAdapter) adapter).getTransform() != null)) {
+			// merged rows are subset on the client once they are merged
+			return null;
+		}
+		return BitmaskUtils.generateFieldSubsetBitmask(
+				index.getIndexModel(),
+				fieldIds.getLeft(),
+				adapter);
+	}
+
 	private boolean isEnableCustomFilters() {
 		return (options != null && options.isEnableCustomFilters());
 	}
@@ -266,6 +397,20 @@ public abstract class HBaseFilteredIndexQuery extends
 		return (options != null && options.isBigTable());
 	}
 
+	private int getScanThreads() {
+		if (options != null) {
+			return options.getScanThreads();
+		}
+		return HBaseOptions.DEFAULT_SCAN_THREADS;
+	}
+
+	private int getMaxRangeScans() {
+		if (options != null) {
+			return options.getMaxRangeScans();
+		}
+		return HBaseOptions.DEFAULT_MAX_RANGE_SCANS;
+	}
+
 	// Bigtable does not support MultiRowRangeFilters. This method returns a
 	// single scan per range
 	protected List<Scan> getScannerList(
@@ -300,6 +445,113 @@ public abstract class HBaseFilteredIndexQuery extends
 		return scanners;
 	}
 
+	/**
+	 * Sort the scans by start row and merge overlapping or adjacent scans. If
+	 * more than the given number of scans remain, runs of neighboring scans
+	 * are merged into single scans spanning the gaps between them, so the
+	 * results may include rows outside of the original ranges.
+	 */
+	protected static List<Scan> coalesceScanners(
+			final List<Scan> scanners,
+			final int maxScanners ) {
+		if (scanners.size() <= 1) {
+			return scanners;
+		}
+		final List<Scan> sorted = new ArrayList<Scan>(
+				scanners);
+		Collections.sort(
+				sorted,
+				new Comparator<Scan>() {
+					@Override
+					public int compare(
+							final Scan scan1,
+							final Scan scan2 ) {
+						return Bytes.compareTo(
+								scan1.getStartRow(),
+								scan2.getStartRow());
+					}
+				});
+		final List<Scan> merged = new ArrayList<Scan>();
+		Scan current = sorted.get(0);
+		for (int i = 1; i < sorted.size(); i++) {
+			final Scan next = sorted.get(i);
+			if (isUnbounded(current.getStopRow()) || (Bytes.compareTo(
+					next.getStartRow(),
+					current.getStopRow()) <= 0)) {
+				current = span(
+						current,
+						next);
+			}
+			else {
+				merged.add(current);
+				current = next;
+			}
+		}
+		merged.add(current);
+		if (merged.size() <= Math.max(
+				1,
+				maxScanners)) {
+			return merged;
+		}
+		// merge evenly sized runs of neighboring scans
+		final int groups = Math.max(
+				1,
+				maxScanners);
+		final List<Scan> grouped = new ArrayList<Scan>(
+				groups);
+		for (int group = 0; group < groups; group++) {
+			final int first = (int) (((long) group * merged.size()) / groups);
+			final int last = (int) ((((long) group + 1) * merged.size()) / groups) - 1;
+			grouped.add(span(
+					merged.get(first),
+					merged.get(last)));
+		}
+		return grouped;
+	}
+
+	private static boolean isUnbounded(
+			final byte[] stopRow ) {
+		return (stopRow == null) || (stopRow.length == 0);
+	}
+
+	// a copy of the first scan, with its stop row extended to the later scan's
+	private static Scan span(
+			final Scan first,
+			final Scan last ) {
+		if (first == last) {
+			return first;
+		}
+		final Scan scan;
+		try {
+			scan = new Scan(
+					first);
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to copy scan, scanning the ranges separately",
+					e);
+			return first;
+		}
+		if (isUnbounded(first.getStopRow()) || isUnbounded(last.getStopRow())) {
+			scan.setStopRow(HConstants.EMPTY_END_ROW);
+		}
+		else if (Bytes.compareTo(
+				last.getStopRow(),
+				first.getStopRow()) > 0) {
+			scan.setStopRow(last.getStopRow());
+		}
+		return scan;
+	}
+
+	/**
+	 * Whether scans of ranges may be merged across the gaps between them,
+	 * which is only safe if the client side filters reject the rows in the
+	 * gaps.
+	 */
+	protected boolean isRangeCoalescingAllowed() {
+		return false;
+	}
+
 	// Default (not Bigtable) case - use a single multi-row-range filter
 	protected Scan getMultiScanner(
 			final FilterList filterList,
@@ -311,10 +563,12 @@ public abstract class HBaseFilteredIndexQuery extends
 		final List<ByteArrayRange> ranges = getRanges();
 
 		final MultiRowRangeFilter filter = getMultiRowRangeFilter(ranges);
+		scanRowRanges = null;
 		if (filter != null) {
+			final List<RowRange> rowRanges = filter.getRowRanges();
+			scanRowRanges = rowRanges;
 			filterList.addFilter(filter);
 
-			final List<RowRange> rowRanges = filter.getRowRanges();
 			multiScanner.setStartRow(rowRanges.get(
 					0).getStartRow());
 
@@ -455,16 +709,7 @@ public abstract class HBaseFilteredIndexQuery extends
 				: new mil.nga.giat.geowave.core.store.filter.FilterList<QueryFilter>(
 						filters);
 
-		final Map<ByteArrayId, RowMergingDataAdapter> mergingAdapters = new HashMap<ByteArrayId, RowMergingDataAdapter>();
-		for (final ByteArrayId adapterId : adapterIds) {
-			final DataAdapter adapter = adapterStore.getAdapter(adapterId);
-			if ((adapter instanceof RowMergingDataAdapter)
-					&& (((RowMergingDataAdapter) adapter).getTransform() != null)) {
-				mergingAdapters.put(
-						adapterId,
-						(RowMergingDataAdapter) adapter);
-			}
-		}
+		final Map<ByteArrayId, RowMergingDataAdapter> mergingAdapters = getMergingAdapters(adapterStore);
 
 		if (mergingAdapters.isEmpty()) {
 			return new HBaseEntryIteratorWrapper(
@@ -492,6 +737,21 @@ public abstract class HBaseFilteredIndexQuery extends
 		}
 	}
 
+	protected Map<ByteArrayId, RowMergingDataAdapter> getMergingAdapters(
+			final AdapterStore adapterStore ) {
+		final Map<ByteArrayId, RowMergingDataAdapter> mergingAdapters = new HashMap<ByteArrayId, RowMergingDataAdapter>();
+		for (final ByteArrayId adapterId : adapterIds) {
+			final DataAdapter adapter = adapterStore.getAdapter(adapterId);
+			if ((adapter instanceof RowMergingDataAdapter)
+					&& (((RowMergingDataAdapter) adapter).getTransform() != null)) {
+				mergingAdapters.put(
+						adapterId,
+						(RowMergingDataAdapter) adapter);
+			}
+		}
+		return mergingAdapters;
+	}
+
 	protected List<QueryFilter> getAllFiltersList() {
 		// This method is so that it can be overridden to also add distributed
 		// filter list
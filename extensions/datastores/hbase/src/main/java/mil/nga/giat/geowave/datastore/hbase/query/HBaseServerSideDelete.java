@@ -0,0 +1,205 @@
+package mil.nga.giat.geowave.datastore.hbase.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.client.coprocessor.Batch;
+import org.apache.hadoop.hbase.ipc.BlockingRpcCallback;
+import org.apache.hadoop.hbase.ipc.ServerRpcController;
+import org.apache.hadoop.hbase.protobuf.ProtobufUtil;
+import org.apache.hadoop.hbase.security.visibility.Authorizations;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.log4j.Logger;
+
+import com.google.protobuf.ByteString;
+
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.datastore.hbase.operations.BasicHBaseOperations;
+import mil.nga.giat.geowave.datastore.hbase.operations.config.HBaseOptions;
+import mil.nga.giat.geowave.datastore.hbase.query.protobuf.DeleteProtos;
+
+/**
+ * Deletes the rows of an index matching a scan with the delete endpoint of
+ * every region the scan overlaps, merging the statistics of the deleted
+ * entries returned by the regions on the client. Rows of entries stored in
+ * several rows are left for the client to delete.
+ */
+public class HBaseServerSideDelete
+{
+	private final static Logger LOGGER = Logger.getLogger(HBaseServerSideDelete.class);
+
+	private final DataAdapter<?> adapter;
+	private final PrimaryIndex index;
+	private final Scan scan;
+	private List<DataStatistics<?>> deletedStatistics = Collections.emptyList();
+	private long duplicateRows = 0;
+	private boolean statisticsKnown = true;
+
+	public HBaseServerSideDelete(
+			final DataAdapter<?> adapter,
+			final PrimaryIndex index,
+			final Scan scan ) {
+		this.adapter = adapter;
+		this.index = index;
+		this.scan = scan;
+	}
+
+	/**
+	 * @param statistics
+	 *            whether to calculate the statistics of the deleted entries
+	 * @param includeAdapterStats
+	 *            whether to calculate the statistics of the adapter as well as
+	 *            those of the index
+	 * @return the statistics of the deleted entries, to incorporate into the
+	 *         stored statistics
+	 * @throws IOException
+	 *             if any region fails, after keeping the statistics of the
+	 *             rows that were deleted (see {@link #getDeletedStatistics()})
+	 */
+	public List<DataStatistics<?>> delete(
+			final BasicHBaseOperations operations,
+			final HBaseOptions options,
+			final boolean statistics,
+			final boolean includeAdapterStats,
+			final String... authorizations )
+			throws IOException {
+		deletedStatistics = Collections.emptyList();
+		duplicateRows = 0;
+		statisticsKnown = true;
+		final String tableName = StringUtils.stringFromBinary(index.getId().getBytes());
+		if (!operations.tableExists(tableName)) {
+			return Collections.emptyList();
+		}
+		if (options.isVerifyCoprocessors()) {
+			operations.verifyCoprocessor(
+					tableName,
+					DeleteEndpoint.class.getName(),
+					options.getCoprocessorJar());
+		}
+
+		if ((authorizations != null) && (authorizations.length > 0)) {
+			scan.setAuthorizations(new Authorizations(
+					authorizations));
+		}
+		final DeleteProtos.DeleteRequest request = DeleteProtos.DeleteRequest.newBuilder().setScan(
+				ProtobufUtil.toScan(
+						scan).toByteString()).setAdapter(
+				ByteString.copyFrom(PersistenceUtils.toBinary(adapter))).setIndex(
+				ByteString.copyFrom(PersistenceUtils.toBinary(index))).setStatistics(
+				statistics).setIncludeAdapterStats(
+				includeAdapterStats).build();
+
+		// only the regions the scan overlaps are asked to delete
+		final byte[] startRow = scan.getStartRow().length > 0 ? scan.getStartRow() : null;
+		final byte[] stopRow = scan.getStopRow().length > 0 ? scan.getStopRow() : null;
+		// the results of the regions that deleted their rows are kept even if
+		// another region fails, since those rows are gone either way
+		final Map<byte[], DeleteProtos.DeleteResponse> results = new ConcurrentSkipListMap<byte[], DeleteProtos.DeleteResponse>(
+				Bytes.BYTES_COMPARATOR);
+		Throwable failure = null;
+		try (Table table = operations.getTable(tableName)) {
+			table.coprocessorService(
+					DeleteProtos.DeleteService.class,
+					startRow,
+					stopRow,
+					new Batch.Call<DeleteProtos.DeleteService, DeleteProtos.DeleteResponse>() {
+						@Override
+						public DeleteProtos.DeleteResponse call(
+								final DeleteProtos.DeleteService service )
+								throws IOException {
+							final ServerRpcController controller = new ServerRpcController();
+							final BlockingRpcCallback<DeleteProtos.DeleteResponse> rpcCallback = new BlockingRpcCallback<DeleteProtos.DeleteResponse>();
+							service.delete(
+									controller,
+									request,
+									rpcCallback);
+							if (controller.failedOnException()) {
+								throw controller.getFailedOn();
+							}
+							final DeleteProtos.DeleteResponse response = rpcCallback.get();
+							if (response == null) {
+								throw new IOException(
+										"No response returned by region");
+							}
+							return response;
+						}
+					},
+					new Batch.Callback<DeleteProtos.DeleteResponse>() {
+						@Override
+						public void update(
+								final byte[] region,
+								final byte[] row,
+								final DeleteProtos.DeleteResponse response ) {
+							results.put(
+									region,
+									response);
+						}
+					});
+		}
+		catch (final Throwable e) {
+			// a region that did not respond may have deleted rows before it
+			// failed, so the deleted entries are not known
+			failure = e;
+			statisticsKnown = false;
+		}
+
+		long rowsDeleted = 0;
+		final List<ByteString> statisticsValues = new ArrayList<ByteString>();
+		for (final DeleteProtos.DeleteResponse response : results.values()) {
+			rowsDeleted += response.getRowsDeleted();
+			duplicateRows += response.getDuplicateRows();
+			// a region that failed part way still returns the statistics of
+			// the rows it deleted
+			statisticsValues.add(response.hasStatistics() ? response.getStatistics() : null);
+			if (response.hasError() && (failure == null)) {
+				failure = new IOException(
+						response.getError());
+			}
+		}
+		LOGGER.debug("Deleted " + rowsDeleted + " rows from " + results.size() + " regions of table '" + tableName
+				+ "', leaving " + duplicateRows + " rows of entries stored in several rows");
+		deletedStatistics = HBaseStatisticsQuery.mergeStatistics(statisticsValues);
+		if (failure != null) {
+			throw new IOException(
+					"Unable to delete rows of adapter '" + adapter.getAdapterId().getString() + "' from index '"
+							+ tableName + "'",
+					failure);
+		}
+		return deletedStatistics;
+	}
+
+	/**
+	 * @return the statistics of the entries deleted by the last delete, which,
+	 *         if the delete failed, still need to be incorporated into the
+	 *         stored statistics
+	 */
+	public List<DataStatistics<?>> getDeletedStatistics() {
+		return deletedStatistics;
+	}
+
+	/**
+	 * @return the number of matching rows of entries stored in several rows,
+	 *         which the last delete left for the client to delete
+	 */
+	public long getDuplicateRows() {
+		return duplicateRows;
+	}
+
+	/**
+	 * @return whether every region returned the statistics of the rows it
+	 *         deleted in the last delete, even if it failed part way
+	 */
+	public boolean isStatisticsKnown() {
+		return statisticsKnown;
+	}
+}
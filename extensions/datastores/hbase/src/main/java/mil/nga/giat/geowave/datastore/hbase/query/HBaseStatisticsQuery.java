@@ -0,0 +1,166 @@
+package mil.nga.giat.geowave.datastore.hbase.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.client.coprocessor.Batch;
+import org.apache.hadoop.hbase.ipc.BlockingRpcCallback;
+import org.apache.hadoop.hbase.ipc.ServerRpcController;
+import org.apache.log4j.Logger;
+
+import com.google.protobuf.ByteString;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.Persistable;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.memory.MemoryDataStatisticsStore;
+import mil.nga.giat.geowave.datastore.hbase.operations.BasicHBaseOperations;
+import mil.nga.giat.geowave.datastore.hbase.operations.config.HBaseOptions;
+import mil.nga.giat.geowave.datastore.hbase.query.protobuf.StatisticsProtos;
+
+/**
+ * Calculates the statistics of an adapter in an index with the statistics
+ * endpoint of every region, merging the partial statistics of the regions on
+ * the client.
+ */
+public class HBaseStatisticsQuery
+{
+	private final static Logger LOGGER = Logger.getLogger(HBaseStatisticsQuery.class);
+
+	private final DataAdapter<?> adapter;
+	private final PrimaryIndex index;
+	private final boolean includeAdapterStats;
+	private final ByteArrayId[] statisticsTypes;
+	private final String[] authorizations;
+
+	/**
+	 * @param includeAdapterStats
+	 *            whether to calculate the statistics of the adapter as well as
+	 *            those of the index
+	 * @param statisticsTypes
+	 *            the statistics types to calculate, or none to calculate every
+	 *            supported type
+	 */
+	public HBaseStatisticsQuery(
+			final DataAdapter<?> adapter,
+			final PrimaryIndex index,
+			final boolean includeAdapterStats,
+			final ByteArrayId[] statisticsTypes,
+			final String... authorizations ) {
+		this.adapter = adapter;
+		this.index = index;
+		this.includeAdapterStats = includeAdapterStats;
+		this.statisticsTypes = statisticsTypes;
+		this.authorizations = authorizations;
+	}
+
+	public List<DataStatistics<?>> calculate(
+			final BasicHBaseOperations operations,
+			final HBaseOptions options )
+			throws IOException {
+		final String tableName = StringUtils.stringFromBinary(index.getId().getBytes());
+		if (!operations.tableExists(tableName)) {
+			return Collections.emptyList();
+		}
+		if (options.isVerifyCoprocessors()) {
+			operations.verifyCoprocessor(
+					tableName,
+					StatisticsEndpoint.class.getName(),
+					options.getCoprocessorJar());
+		}
+
+		final StatisticsProtos.StatisticsRequest.Builder requestBuilder = StatisticsProtos.StatisticsRequest
+				.newBuilder();
+		requestBuilder.setAdapter(ByteString.copyFrom(PersistenceUtils.toBinary(adapter)));
+		requestBuilder.setIndex(ByteString.copyFrom(PersistenceUtils.toBinary(index)));
+		if (statisticsTypes != null) {
+			for (final ByteArrayId statisticsType : statisticsTypes) {
+				requestBuilder.addStatisticsTypes(ByteString.copyFrom(statisticsType.getBytes()));
+			}
+		}
+		requestBuilder.setIncludeAdapterStats(includeAdapterStats);
+		if (authorizations != null) {
+			requestBuilder.addAllAuthorizations(Arrays.asList(authorizations));
+		}
+		requestBuilder.setCacheSize(options.getScanCacheSize());
+		final StatisticsProtos.StatisticsRequest request = requestBuilder.build();
+
+		final Map<byte[], ByteString> results;
+		try (Table table = operations.getTable(tableName)) {
+			results = table.coprocessorService(
+					StatisticsProtos.StatisticsService.class,
+					null,
+					null,
+					new Batch.Call<StatisticsProtos.StatisticsService, ByteString>() {
+						@Override
+						public ByteString call(
+								final StatisticsProtos.StatisticsService service )
+								throws IOException {
+							final ServerRpcController controller = new ServerRpcController();
+							final BlockingRpcCallback<StatisticsProtos.StatisticsResponse> rpcCallback = new BlockingRpcCallback<StatisticsProtos.StatisticsResponse>();
+							service.calculate(
+									controller,
+									request,
+									rpcCallback);
+							if (controller.failedOnException()) {
+								throw controller.getFailedOn();
+							}
+							final StatisticsProtos.StatisticsResponse response = rpcCallback.get();
+							// a region without statistics would undercount the
+							// statistics that replace the stored ones
+							if ((response == null) || !response.hasValue()) {
+								throw new IOException(
+										"No statistics returned by region");
+							}
+							return response.getValue();
+						}
+					});
+		}
+		catch (final Throwable e) {
+			throw new IOException(
+					"Unable to calculate statistics of adapter '" + adapter.getAdapterId().getString()
+							+ "' in index '" + tableName + "'",
+					e);
+		}
+
+		return mergeStatistics(results.values());
+	}
+
+	/**
+	 * @return the partial statistics of the regions merged by statistics ID
+	 *         and visibility
+	 */
+	static List<DataStatistics<?>> mergeStatistics(
+			final Iterable<ByteString> values )
+			throws IOException {
+		final MemoryDataStatisticsStore mergedStatistics = new MemoryDataStatisticsStore();
+		int regionCount = 0;
+		for (final ByteString value : values) {
+			regionCount++;
+			if ((value == null) || value.isEmpty()) {
+				LOGGER.debug("Empty response for region " + regionCount);
+				continue;
+			}
+			for (final Persistable statistics : PersistenceUtils.fromBinary(value.toByteArray())) {
+				mergedStatistics.incorporateStatistics((DataStatistics<?>) statistics);
+			}
+		}
+		final List<DataStatistics<?>> statistics = new ArrayList<DataStatistics<?>>();
+		try (CloseableIterator<DataStatistics<?>> it = mergedStatistics.getAllDataStatistics()) {
+			while (it.hasNext()) {
+				statistics.add(it.next());
+			}
+		}
+		return statistics;
+	}
+}
@@ -0,0 +1,321 @@
+package mil.nga.giat.geowave.datastore.hbase.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.Coprocessor;
+import org.apache.hadoop.hbase.CoprocessorEnvironment;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.coprocessor.CoprocessorException;
+import org.apache.hadoop.hbase.coprocessor.CoprocessorService;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.protobuf.ResponseConverter;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.security.visibility.Authorizations;
+import org.apache.log4j.Logger;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.RpcCallback;
+import com.google.protobuf.RpcController;
+import com.google.protobuf.Service;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStoreStatisticsProvider;
+import mil.nga.giat.geowave.core.store.EntryVisibilityHandler;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.IndexedAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StatisticsProvider;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StatsCompositionTool;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.entities.GeowaveRowId;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.memory.MemoryDataStatisticsStore;
+import mil.nga.giat.geowave.core.store.util.DataStoreUtils;
+import mil.nga.giat.geowave.datastore.hbase.query.protobuf.StatisticsProtos;
+import mil.nga.giat.geowave.datastore.hbase.util.HBaseUtils;
+
+/**
+ * Calculates statistics of an adapter in an index from the rows of a region,
+ * returning them as partial statistics for the client to merge across regions.
+ *
+ * Each entry is given to the statistics the same way it is at ingest. An entry
+ * stored in several rows is given once, at the row of its first insertion ID,
+ * along with all of its rows.
+ */
+public class StatisticsEndpoint extends
+		StatisticsProtos.StatisticsService implements
+		Coprocessor,
+		CoprocessorService
+{
+	private static final Logger LOGGER = Logger.getLogger(StatisticsEndpoint.class);
+
+	private RegionCoprocessorEnvironment env;
+
+	@Override
+	public void start(
+			final CoprocessorEnvironment env )
+			throws IOException {
+		if (env instanceof RegionCoprocessorEnvironment) {
+			this.env = (RegionCoprocessorEnvironment) env;
+		}
+		else {
+			throw new CoprocessorException(
+					"Must be loaded on a table region!");
+		}
+	}
+
+	@Override
+	public void stop(
+			final CoprocessorEnvironment env )
+			throws IOException {
+		// nothing to do when coprocessor is shutting down
+	}
+
+	@Override
+	public Service getService() {
+		return this;
+	}
+
+	@Override
+	public void calculate(
+			final RpcController controller,
+			final StatisticsProtos.StatisticsRequest request,
+			final RpcCallback<StatisticsProtos.StatisticsResponse> done ) {
+		final ByteString value;
+		try {
+			final DataAdapter<?> adapter = PersistenceUtils.fromBinary(
+					request.getAdapter().toByteArray(),
+					DataAdapter.class);
+			final PrimaryIndex index = PersistenceUtils.fromBinary(
+					request.getIndex().toByteArray(),
+					PrimaryIndex.class);
+			final ByteArrayId[] statisticsTypes = new ByteArrayId[request.getStatisticsTypesCount()];
+			for (int i = 0; i < statisticsTypes.length; i++) {
+				statisticsTypes[i] = new ByteArrayId(
+						request.getStatisticsTypes(
+								i).toByteArray());
+			}
+
+			final List<DataStatistics<?>> statistics = calculateStatistics(
+					adapter,
+					index,
+					statisticsTypes,
+					request.getIncludeAdapterStats(),
+					request.getAuthorizationsList().toArray(
+							new String[] {}),
+					request.getCacheSize());
+			value = ByteString.copyFrom(PersistenceUtils.toBinary(statistics));
+		}
+		catch (final Exception e) {
+			LOGGER.error(
+					"Error during statistics calculation.",
+					e);
+
+			// partial statistics of a region would replace the stored
+			// statistics, so any failure fails the whole calculation
+			ResponseConverter.setControllerException(
+					controller,
+					e instanceof IOException ? (IOException) e : new IOException(
+							e));
+			done.run(null);
+			return;
+		}
+
+		done.run(StatisticsProtos.StatisticsResponse.newBuilder().setValue(
+				value).build());
+	}
+
+	@SuppressWarnings({
+		"rawtypes",
+		"unchecked"
+	})
+	private List<DataStatistics<?>> calculateStatistics(
+			final DataAdapter adapter,
+			final PrimaryIndex index,
+			final ByteArrayId[] statisticsTypes,
+			final boolean includeAdapterStats,
+			final String[] authorizations,
+			final int scanCacheSize )
+			throws IOException {
+		StatisticsProvider provider = new DataStoreStatisticsProvider(
+				adapter,
+				index,
+				includeAdapterStats);
+		if (statisticsTypes.length > 0) {
+			provider = new StatisticsTypesProvider(
+					provider,
+					statisticsTypes);
+		}
+		final MemoryDataStatisticsStore statisticsStore = new MemoryDataStatisticsStore();
+
+		final Scan scan = new Scan();
+		scan.setMaxVersions(1);
+		// a full scan of the region would only evict the blocks of queries
+		scan.setCacheBlocks(false);
+		if ((scanCacheSize > 0) && (scanCacheSize != HConstants.DEFAULT_HBASE_CLIENT_SCANNER_CACHING)) {
+			scan.setCaching(scanCacheSize);
+		}
+		if (authorizations.length > 0) {
+			scan.setAuthorizations(new Authorizations(
+					authorizations));
+		}
+		scan.addFamily(adapter.getAdapterId().getBytes());
+
+		// closing the tool flushes the statistics into the memory store
+		try (StatsCompositionTool statsTool = new StatsCompositionTool(
+				provider,
+				statisticsStore);
+				InternalScanner scanner = env.getRegion().getScanner(
+						scan)) {
+			final List<Cell> cells = new ArrayList<Cell>();
+			boolean hasNext;
+			do {
+				hasNext = scanner.next(cells);
+				if (!cells.isEmpty()) {
+					ingestRow(
+							statsTool,
+							adapter,
+							index,
+							Result.create(cells));
+					cells.clear();
+				}
+			}
+			while (hasNext);
+		}
+
+		final List<DataStatistics<?>> statistics = new ArrayList<DataStatistics<?>>();
+		try (CloseableIterator<DataStatistics<?>> it = statisticsStore.getAllDataStatistics()) {
+			while (it.hasNext()) {
+				statistics.add(it.next());
+			}
+		}
+		return statistics;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void ingestRow(
+			final StatsCompositionTool statsTool,
+			final DataAdapter<?> adapter,
+			final PrimaryIndex index,
+			final Result row ) {
+		final Pair<Object, DataStoreEntryInfo> entry = decodeEntry(
+				adapter,
+				index,
+				row);
+		if (entry != null) {
+			statsTool.entryIngested(
+					entry.getRight(),
+					entry.getLeft());
+		}
+	}
+
+	/**
+	 * Decode the entry of a row for the statistics. An entry stored in several
+	 * rows is only returned at the row of its first insertion ID, along with
+	 * all of its rows, so that it is counted once across every region.
+	 *
+	 * @return the entry and its entry info, or null if the entry is not
+	 *         counted at this row
+	 */
+	@SuppressWarnings({
+		"rawtypes",
+		"unchecked"
+	})
+	static Pair<Object, DataStoreEntryInfo> decodeEntry(
+			final DataAdapter adapter,
+			final PrimaryIndex index,
+			final Result row ) {
+		final GeowaveRowId rowId = new GeowaveRowId(
+				row.getRow());
+		final Pair<Object, DataStoreEntryInfo> encoded = HBaseUtils.decodeRow(
+				row,
+				rowId,
+				adapter,
+				null,
+				null,
+				index,
+				null,
+				null,
+				false);
+		if (encoded == null) {
+			return null;
+		}
+		final IndexedAdapterPersistenceEncoding encoding = (IndexedAdapterPersistenceEncoding) encoded.getLeft();
+		DataStoreEntryInfo entryInfo = encoded.getRight();
+		if (rowId.getNumberOfDuplicates() > 0) {
+			final List<ByteArrayId> insertionIds = encoding.getInsertionIds(index);
+			final ByteArrayId insertionId = new ByteArrayId(
+					rowId.getInsertionId());
+			// if the entry no longer maps to this row, fall back to the row
+			if (insertionIds.contains(insertionId)) {
+				if (!Collections.min(
+						insertionIds).equals(
+						insertionId)) {
+					// the entry is counted at its first row
+					return null;
+				}
+				final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>(
+						insertionIds.size());
+				DataStoreUtils.addToRowIds(
+						rowIds,
+						insertionIds,
+						rowId.getDataId(),
+						rowId.getAdapterId(),
+						true);
+				entryInfo = new DataStoreEntryInfo(
+						rowId.getDataId(),
+						insertionIds,
+						rowIds,
+						entryInfo.getFieldInfo());
+			}
+		}
+		return Pair.of(
+				adapter.decode(
+						encoding,
+						index),
+				entryInfo);
+	}
+
+	/**
+	 * Restricts a statistics provider to the requested statistics types
+	 */
+	private static class StatisticsTypesProvider<T> implements
+			StatisticsProvider<T>
+	{
+		private final StatisticsProvider<T> provider;
+		private final ByteArrayId[] statisticsTypes;
+
+		public StatisticsTypesProvider(
+				final StatisticsProvider<T> provider,
+				final ByteArrayId[] statisticsTypes ) {
+			this.provider = provider;
+			this.statisticsTypes = statisticsTypes;
+		}
+
+		@Override
+		public ByteArrayId[] getSupportedStatisticsTypes() {
+			return statisticsTypes;
+		}
+
+		@Override
+		public DataStatistics<T> createDataStatistics(
+				final ByteArrayId statisticsId ) {
+			return provider.createDataStatistics(statisticsId);
+		}
+
+		@Override
+		public EntryVisibilityHandler<T> getVisibilityHandler(
+				final ByteArrayId statisticsId ) {
+			return provider.getVisibilityHandler(statisticsId);
+		}
+	}
+}
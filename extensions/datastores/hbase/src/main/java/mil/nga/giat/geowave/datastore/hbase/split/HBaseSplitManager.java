@@ -0,0 +1,51 @@
+package mil.nga.giat.geowave.datastore.hbase.split;
+
+import java.io.IOException;
+import java.util.SortedSet;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.util.StatisticsSplitManager;
+import mil.nga.giat.geowave.datastore.hbase.operations.BasicHBaseOperations;
+
+/**
+ * Splits the regions of HBase index tables using the row range statistics of
+ * the index. A region is split at most once per rebalance, so a region that
+ * needs several splits is split further on the following rebalances.
+ */
+public class HBaseSplitManager extends
+		StatisticsSplitManager
+{
+	private final BasicHBaseOperations operations;
+
+	public HBaseSplitManager(
+			final BasicHBaseOperations operations,
+			final DataStatisticsStore statisticsStore,
+			final int numRegions,
+			final String... authorizations ) {
+		super(
+				statisticsStore,
+				numRegions,
+				authorizations);
+		this.operations = operations;
+	}
+
+	@Override
+	protected SortedSet<ByteArrayId> getSplits(
+			final PrimaryIndex index )
+			throws IOException {
+		return operations.getSplits(StringUtils.stringFromBinary(index.getId().getBytes()));
+	}
+
+	@Override
+	protected void addSplits(
+			final PrimaryIndex index,
+			final SortedSet<ByteArrayId> splits )
+			throws IOException {
+		operations.addSplits(
+				StringUtils.stringFromBinary(index.getId().getBytes()),
+				splits);
+	}
+}
@@ -0,0 +1,425 @@
+package mil.nga.giat.geowave.datastore.hbase.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.MultiRowRangeFilter.RowRange;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.apache.log4j.Logger;
+
+import mil.nga.giat.geowave.datastore.hbase.operations.BasicHBaseOperations;
+
+/**
+ * Reads the regions of a table covered by a set of row ranges concurrently,
+ * similar to an Accumulo BatchScanner.
+ *
+ * The row ranges are binned by region and the region scans are read by at
+ * most the given number of tasks, and at most
+ * {@link BasicHBaseOperations#MAX_SCAN_THREADS_PER_QUERY}, on the scan pool
+ * shared by the queries of the operations. Each scan prefetches results into a
+ * bounded queue ahead of the consumer. A task waiting for room in the queue
+ * gives up its thread once the scanner is closed, so a consumer that stops
+ * reading must close the scanner. Results are either returned as soon as any region produces
+ * them, or, when ordered, region by region, which preserves row order because
+ * regions do not overlap. A region that fails fails the iteration rather than
+ * silently ending early.
+ *
+ * Any list of sorted, disjoint scans may be read the same way, such as the
+ * per-range scans used for Bigtable.
+ */
+public class HBaseParallelRegionScanner implements
+		Iterator<Result>,
+		Closeable
+{
+	private final static Logger LOGGER = Logger.getLogger(HBaseParallelRegionScanner.class);
+	// marks the end of the results of one region scan
+	private static final Result END_OF_REGION = new Result();
+	// how often a task waiting on a full queue checks whether it was closed
+	private static final long QUEUE_TIMEOUT_MILLIS = 100;
+
+	private final BasicHBaseOperations operations;
+	private final String tableName;
+	private final String[] authorizations;
+	private final List<Scan> regionScans;
+	private final boolean ordered;
+	private final List<BlockingQueue<Result>> queues;
+	private final List<ResultScanner> scanners = new ArrayList<ResultScanner>();
+	private final List<Future<?>> futures = new ArrayList<Future<?>>();
+	// the next region to be claimed by a task
+	private final AtomicInteger nextRegion = new AtomicInteger();
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+	// the tasks reading regions, guarded by the scanners
+	private int runningTasks = 0;
+	private volatile boolean closed = false;
+	// the region being read when ordered, otherwise the number of regions read
+	private int current = 0;
+	private Result next = null;
+
+	public HBaseParallelRegionScanner(
+			final BasicHBaseOperations operations,
+			final String tableName,
+			final List<Scan> regionScans,
+			final int threads,
+			final int prefetchSize,
+			final boolean ordered,
+			final String... authorizations ) {
+		this(
+				operations,
+				operations.getScanExecutor(),
+				tableName,
+				regionScans,
+				threads,
+				prefetchSize,
+				ordered,
+				authorizations);
+	}
+
+	protected HBaseParallelRegionScanner(
+			final BasicHBaseOperations operations,
+			final ExecutorService executor,
+			final String tableName,
+			final List<Scan> regionScans,
+			final int threads,
+			final int prefetchSize,
+			final boolean ordered,
+			final String... authorizations ) {
+		this.operations = operations;
+		this.tableName = tableName;
+		this.regionScans = regionScans;
+		this.ordered = ordered;
+		this.authorizations = authorizations;
+		queues = new ArrayList<BlockingQueue<Result>>(
+				regionScans.size());
+		final BlockingQueue<Result> sharedQueue = ordered ? null : new ArrayBlockingQueue<Result>(
+				Math.max(
+						1,
+						prefetchSize));
+		for (int i = 0; i < regionScans.size(); i++) {
+			queues.add(ordered ? new ArrayBlockingQueue<Result>(
+					Math.max(
+							1,
+							prefetchSize)) : sharedQueue);
+		}
+		final int tasks = Math.max(
+				1,
+				Math.min(
+						Math.min(
+								threads,
+								BasicHBaseOperations.MAX_SCAN_THREADS_PER_QUERY),
+						regionScans.size()));
+		// regions are claimed in order, so when ordered the region being read
+		// has always been claimed
+		for (int i = 0; i < tasks; i++) {
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					synchronized (scanners) {
+						if (closed) {
+							return;
+						}
+						runningTasks++;
+					}
+					try {
+						int region;
+						while (!closed && ((region = nextRegion.getAndIncrement()) < regionScans.size())) {
+							scanRegion(region);
+						}
+					}
+					finally {
+						synchronized (scanners) {
+							runningTasks--;
+							scanners.notifyAll();
+						}
+					}
+				}
+			}));
+		}
+	}
+
+	/**
+	 * Bin row ranges by the regions of a table, creating a copy of the scan for
+	 * each region that holds any of the ranges, bounded by the region and the
+	 * ranges within it.
+	 *
+	 * @param scan
+	 *            the scan to copy, already filtered to the row ranges
+	 * @param rowRanges
+	 *            sorted, non-overlapping row ranges
+	 */
+	public static List<Scan> getRegionScans(
+			final Scan scan,
+			final List<RowRange> rowRanges,
+			final RegionLocator regionLocator )
+			throws IOException {
+		final Pair<byte[][], byte[][]> startEndKeys = regionLocator.getStartEndKeys();
+		return getRegionScans(
+				scan,
+				rowRanges,
+				startEndKeys.getFirst(),
+				startEndKeys.getSecond());
+	}
+
+	public static List<Scan> getRegionScans(
+			final Scan scan,
+			final List<RowRange> rowRanges,
+			final byte[][] regionStartKeys,
+			final byte[][] regionEndKeys )
+			throws IOException {
+		final List<Scan> regionScans = new ArrayList<Scan>();
+		int firstRange = 0;
+		for (int region = 0; region < regionStartKeys.length; region++) {
+			final byte[] regionStart = regionStartKeys[region];
+			final byte[] regionEnd = regionEndKeys[region];
+			// skip ranges ending before the region
+			while ((firstRange < rowRanges.size()) && !isEmpty(getExclusiveStopRow(rowRanges.get(firstRange)))
+					&& (Bytes.compareTo(
+							getExclusiveStopRow(rowRanges.get(firstRange)),
+							regionStart) <= 0)) {
+				firstRange++;
+			}
+			if (firstRange >= rowRanges.size()) {
+				break;
+			}
+			int lastRange = firstRange - 1;
+			while (((lastRange + 1) < rowRanges.size()) && (isEmpty(regionEnd) || (Bytes.compareTo(
+					rowRanges.get(
+							lastRange + 1).getStartRow(),
+					regionEnd) < 0))) {
+				lastRange++;
+			}
+			if (lastRange < firstRange) {
+				continue;
+			}
+			final byte[] rangeStart = rowRanges.get(
+					firstRange).getStartRow();
+			final byte[] rangeStop = getExclusiveStopRow(rowRanges.get(lastRange));
+			final Scan regionScan = new Scan(
+					scan);
+			regionScan.setStartRow(Bytes.compareTo(
+					rangeStart,
+					regionStart) > 0 ? rangeStart : regionStart);
+			regionScan.setStopRow(isEmpty(rangeStop) || (!isEmpty(regionEnd) && (Bytes.compareTo(
+					regionEnd,
+					rangeStop) < 0)) ? regionEnd : rangeStop);
+			regionScans.add(regionScan);
+			// the last range may continue into the next region
+			firstRange = lastRange;
+		}
+		return regionScans;
+	}
+
+	private static boolean isEmpty(
+			final byte[] row ) {
+		return (row == null) || (row.length == 0);
+	}
+
+	private static byte[] getExclusiveStopRow(
+			final RowRange range ) {
+		final byte[] stopRow = range.getStopRow();
+		if (range.isStopRowInclusive() && !isEmpty(stopRow)) {
+			// the smallest row following the stop row
+			final byte[] exclusive = new byte[stopRow.length + 1];
+			System.arraycopy(
+					stopRow,
+					0,
+					exclusive,
+					0,
+					stopRow.length);
+			return exclusive;
+		}
+		return stopRow == null ? HConstants.EMPTY_BYTE_ARRAY : stopRow;
+	}
+
+	/**
+	 * Open the scanner of a region scan
+	 */
+	protected ResultScanner getScanner(
+			final Scan scan )
+			throws IOException {
+		return operations.getScannedResults(
+				scan,
+				tableName,
+				authorizations);
+	}
+
+	private void scanRegion(
+			final int region ) {
+		final BlockingQueue<Result> queue = queues.get(region);
+		try {
+			if (closed) {
+				return;
+			}
+			final ResultScanner scanner = getScanner(regionScans.get(region));
+			if (scanner == null) {
+				return;
+			}
+			synchronized (scanners) {
+				// close may have already closed the scanners it knows about
+				if (closed) {
+					scanner.close();
+					return;
+				}
+				scanners.add(scanner);
+			}
+			for (final Result result : scanner) {
+				if (closed) {
+					return;
+				}
+				if (!put(
+						queue,
+						result)) {
+					return;
+				}
+			}
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (final Exception e) {
+			if (!closed) {
+				LOGGER.warn(
+						"Could not get the results from region scanner",
+						e);
+				failure.compareAndSet(
+						null,
+						e);
+			}
+		}
+		finally {
+			try {
+				put(
+						queue,
+						END_OF_REGION);
+			}
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Wait for room in the queue unless the scanner is closed, in which case
+	 * the result is dropped
+	 *
+	 * @return whether the result was queued
+	 */
+	private boolean put(
+			final BlockingQueue<Result> queue,
+			final Result result )
+			throws InterruptedException {
+		while (!closed) {
+			if (queue.offer(
+					result,
+					QUEUE_TIMEOUT_MILLIS,
+					TimeUnit.MILLISECONDS)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next != null) {
+			return true;
+		}
+		try {
+			while (!closed && (current < regionScans.size())) {
+				final Result result = queues.get(
+						ordered ? current : 0).poll(
+						QUEUE_TIMEOUT_MILLIS,
+						TimeUnit.MILLISECONDS);
+				if (result == null) {
+					// check whether the scanner was closed meanwhile
+					continue;
+				}
+				if (result == END_OF_REGION) {
+					// a failed region ends with this marker too
+					checkFailure();
+					current++;
+				}
+				else {
+					next = result;
+					return true;
+				}
+			}
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.warn(
+					"Interrupted while waiting for region scan results",
+					e);
+		}
+		return false;
+	}
+
+	private void checkFailure() {
+		final Throwable e = failure.get();
+		if (e != null) {
+			throw new RuntimeException(
+					"Unable to scan a region of table '" + tableName + "'",
+					e);
+		}
+	}
+
+	@Override
+	public Result next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final Result result = next;
+		next = null;
+		return result;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		for (final Future<?> future : futures) {
+			future.cancel(true);
+		}
+		synchronized (scanners) {
+			// tasks that have not started yet never read a region
+			final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+			long remaining;
+			while ((runningTasks > 0) && ((remaining = deadline - System.currentTimeMillis()) > 0)) {
+				try {
+					scanners.wait(remaining);
+				}
+				catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			for (final ResultScanner scanner : scanners) {
+				scanner.close();
+			}
+			scanners.clear();
+		}
+		for (final BlockingQueue<Result> queue : queues) {
+			queue.clear();
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package mil.nga.giat.geowave.datastore.hbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DuplicateEntryCount;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.memory.MemoryAdapterIndexMappingStore;
+import mil.nga.giat.geowave.core.store.memory.MemoryAdapterStore;
+import mil.nga.giat.geowave.core.store.memory.MemoryDataStatisticsStore;
+import mil.nga.giat.geowave.core.store.memory.MemoryIndexStore;
+import mil.nga.giat.geowave.datastore.hbase.index.secondary.HBaseSecondaryIndexDataStore;
+import mil.nga.giat.geowave.datastore.hbase.operations.config.HBaseOptions;
+import mil.nga.giat.geowave.datastore.hbase.query.StatisticsEndpointTest.TestGeometry;
+import mil.nga.giat.geowave.datastore.hbase.query.StatisticsEndpointTest.TestGeometryAdapter;
+
+public class HBaseRecalculateStatisticsTest
+{
+	private static final String[] AUTHORIZATIONS = new String[0];
+
+	private final PrimaryIndex index = new SpatialDimensionalityTypeProvider().createPrimaryIndex();
+	private final TestGeometryAdapter adapter = new TestGeometryAdapter();
+	private final MemoryDataStatisticsStore statisticsStore = new MemoryDataStatisticsStore();
+	// the statistics calculated by the region servers
+	private final List<DataStatistics<?>> calculatedStatistics = new ArrayList<DataStatistics<?>>();
+	private boolean failCalculation = false;
+	private HBaseDataStore dataStore;
+
+	@Before
+	public void setUp() {
+		dataStore = new HBaseDataStore(
+				new MemoryIndexStore(),
+				new MemoryAdapterStore(),
+				statisticsStore,
+				new MemoryAdapterIndexMappingStore(),
+				new HBaseSecondaryIndexDataStore(
+						null),
+				null,
+				new HBaseOptions()) {
+			@Override
+			protected List<DataStatistics<?>> calculateStatistics(
+					final DataAdapter<?> adapter,
+					final PrimaryIndex index,
+					final boolean includeAdapterStats,
+					final String[] authorizations,
+					final ByteArrayId[] statisticsTypes )
+					throws IOException {
+				if (failCalculation) {
+					throw new IOException(
+							"test failure");
+				}
+				return calculatedStatistics;
+			}
+		};
+		statisticsStore.incorporateStatistics(newCount(4));
+		statisticsStore.incorporateStatistics(new DuplicateEntryCount<TestGeometry>(
+				adapter.getAdapterId(),
+				index.getId()));
+	}
+
+	@Test
+	public void testStatisticsWithoutEntriesRemoved()
+			throws IOException {
+		// every entry has been deleted, so nothing is calculated
+		dataStore.recalculateStatistics(
+				adapter,
+				index,
+				true,
+				AUTHORIZATIONS);
+
+		assertNull(getCount());
+		assertNull(getDuplicateCount());
+	}
+
+	@Test
+	public void testRequestedTypesReplaced()
+			throws IOException {
+		calculatedStatistics.add(newCount(2));
+		dataStore.recalculateStatistics(
+				adapter,
+				index,
+				true,
+				AUTHORIZATIONS,
+				CountDataStatistics.STATS_TYPE);
+
+		// replaced rather than merged into the stored statistics
+		assertEquals(
+				2,
+				getCount().getCount());
+		// the types that were not requested are kept
+		assertNotNull(getDuplicateCount());
+	}
+
+	@Test
+	public void testFailedCalculationKeepsStatistics() {
+		failCalculation = true;
+		try {
+			dataStore.recalculateStatistics(
+					adapter,
+					index,
+					true,
+					AUTHORIZATIONS);
+			fail("Expected the failed calculation to be thrown");
+		}
+		catch (final IOException e) {
+			// expected
+		}
+		assertEquals(
+				4,
+				getCount().getCount());
+		assertNotNull(getDuplicateCount());
+	}
+
+	private CountDataStatistics<?> getCount() {
+		return (CountDataStatistics<?>) statisticsStore.getDataStatistics(
+				adapter.getAdapterId(),
+				CountDataStatistics.STATS_TYPE,
+				AUTHORIZATIONS);
+	}
+
+	private DataStatistics<?> getDuplicateCount() {
+		return statisticsStore.getDataStatistics(
+				adapter.getAdapterId(),
+				DuplicateEntryCount.composeId(index.getId()),
+				AUTHORIZATIONS);
+	}
+
+	private CountDataStatistics<TestGeometry> newCount(
+			final int count ) {
+		final CountDataStatistics<TestGeometry> stats = new CountDataStatistics<TestGeometry>(
+				adapter.getAdapterId());
+		for (int i = 0; i < count; i++) {
+			stats.entryIngested(
+					null,
+					null);
+		}
+		return stats;
+	}
+}
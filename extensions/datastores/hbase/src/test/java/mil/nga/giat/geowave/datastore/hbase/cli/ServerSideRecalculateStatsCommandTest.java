@@ -0,0 +1,159 @@
+package mil.nga.giat.geowave.datastore.hbase.cli;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import mil.nga.giat.geowave.core.geotime.ingest.SpatialTemporalDimensionalityTypeProvider;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.AdapterToIndexMapping;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.adapter.AdapterIndexMappingStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.core.store.index.IndexStore;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.memory.MemoryAdapterIndexMappingStore;
+import mil.nga.giat.geowave.core.store.memory.MemoryAdapterStore;
+import mil.nga.giat.geowave.core.store.memory.MemoryDataStatisticsStore;
+import mil.nga.giat.geowave.core.store.memory.MemoryDataStore;
+import mil.nga.giat.geowave.core.store.memory.MemoryIndexStore;
+import mil.nga.giat.geowave.core.store.operations.remote.options.DataStorePluginOptions;
+import mil.nga.giat.geowave.core.store.operations.remote.options.StatsCommandLineOptions;
+import mil.nga.giat.geowave.datastore.hbase.HBaseDataStore;
+import mil.nga.giat.geowave.datastore.hbase.index.secondary.HBaseSecondaryIndexDataStore;
+import mil.nga.giat.geowave.datastore.hbase.operations.config.HBaseOptions;
+import mil.nga.giat.geowave.datastore.hbase.query.StatisticsEndpointTest.TestGeometryAdapter;
+
+public class ServerSideRecalculateStatsCommandTest
+{
+	private final PrimaryIndex spatialIndex = new SpatialDimensionalityTypeProvider().createPrimaryIndex();
+	private final PrimaryIndex spatialTemporalIndex = new SpatialTemporalDimensionalityTypeProvider()
+			.createPrimaryIndex();
+	private final TestGeometryAdapter adapter = new TestGeometryAdapter();
+	private final MemoryIndexStore indexStore = new MemoryIndexStore();
+	private final MemoryAdapterIndexMappingStore mappingStore = new MemoryAdapterIndexMappingStore();
+	// the recalculations as "<index>:<includeAdapterStats>"
+	private final List<String> recalculations = new ArrayList<String>();
+	private final List<ByteArrayId[]> recalculatedTypes = new ArrayList<ByteArrayId[]>();
+	private final StatsCommandLineOptions statsOptions = new StatsCommandLineOptions();
+	private DataStore dataStore;
+
+	@Before
+	public void setUp()
+			throws Exception {
+		indexStore.addIndex(spatialIndex);
+		indexStore.addIndex(spatialTemporalIndex);
+		mappingStore.addAdapterIndexMapping(new AdapterToIndexMapping(
+				adapter.getAdapterId(),
+				new PrimaryIndex[] {
+					spatialIndex,
+					spatialTemporalIndex
+				}));
+		dataStore = new HBaseDataStore(
+				indexStore,
+				new MemoryAdapterStore(),
+				new MemoryDataStatisticsStore(),
+				mappingStore,
+				new HBaseSecondaryIndexDataStore(
+						null),
+				null,
+				new HBaseOptions()) {
+			@Override
+			public void recalculateStatistics(
+					final DataAdapter<?> adapter,
+					final PrimaryIndex index,
+					final boolean includeAdapterStats,
+					final String[] authorizations,
+					final ByteArrayId... statisticsTypes )
+					throws IOException {
+				recalculations.add(index.getId().getString() + ":" + includeAdapterStats);
+				recalculatedTypes.add(statisticsTypes);
+			}
+		};
+	}
+
+	@Test
+	public void testRecalculateEveryIndex()
+			throws IOException {
+		final ServerSideRecalculateStatsCommand command = new ServerSideRecalculateStatsCommand();
+		command.setStatisticsTypes(Arrays.asList(CountDataStatistics.STATS_TYPE.getString()));
+		assertTrue(command.performStatsCommand(
+				new TestStoreOptions(),
+				adapter,
+				statsOptions));
+
+		// the statistics of the adapter are only calculated with the first
+		// index
+		assertEquals(
+				Arrays.asList(
+						spatialIndex.getId().getString() + ":true",
+						spatialTemporalIndex.getId().getString() + ":false"),
+				recalculations);
+		for (final ByteArrayId[] statisticsTypes : recalculatedTypes) {
+			assertArrayEquals(
+					new ByteArrayId[] {
+						CountDataStatistics.STATS_TYPE
+					},
+					statisticsTypes);
+		}
+	}
+
+	@Test
+	public void testRecalculateEveryType()
+			throws IOException {
+		assertTrue(new ServerSideRecalculateStatsCommand().performStatsCommand(
+				new TestStoreOptions(),
+				adapter,
+				statsOptions));
+		assertEquals(
+				2,
+				recalculatedTypes.size());
+		// no requested types calculates every supported type
+		for (final ByteArrayId[] statisticsTypes : recalculatedTypes) {
+			assertEquals(
+					0,
+					statisticsTypes.length);
+		}
+	}
+
+	@Test
+	public void testRequiresHBaseDataStore()
+			throws IOException {
+		dataStore = new MemoryDataStore();
+		assertFalse(new ServerSideRecalculateStatsCommand().performStatsCommand(
+				new TestStoreOptions(),
+				adapter,
+				statsOptions));
+		assertTrue(recalculations.isEmpty());
+	}
+
+	private class TestStoreOptions extends
+			DataStorePluginOptions
+	{
+		@Override
+		public DataStore createDataStore() {
+			return dataStore;
+		}
+
+		@Override
+		public IndexStore createIndexStore() {
+			return indexStore;
+		}
+
+		@Override
+		public AdapterIndexMappingStore createAdapterIndexMappingStore() {
+			return mappingStore;
+		}
+	}
+}
@@ -0,0 +1,250 @@
+package mil.nga.giat.geowave.datastore.hbase.metadata;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Before;
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+
+public class HBaseDataStatisticsStoreTest
+{
+	private static final byte[] COLUMN_FAMILY = Bytes.toBytes(HBaseDataStatisticsStore.STATISTICS_CF);
+	private static final ByteArrayId ADAPTER_ID = new ByteArrayId(
+			"adapter");
+	private static final ByteArrayId OTHER_ADAPTER_ID = new ByteArrayId(
+			"other_adapter");
+
+	private final HBaseDataStatisticsStore statisticsStore = new HBaseDataStatisticsStore(
+			null);
+	// the puts and deletes in the order the table received them
+	private final List<Object> mutations = new ArrayList<Object>();
+	private final List<Result> results = new ArrayList<Result>();
+	private Table table;
+	private int nextRow = 0;
+
+	@Before
+	public void setUp() {
+		table = (Table) Proxy.newProxyInstance(
+				getClass().getClassLoader(),
+				new Class[] {
+					Table.class
+				},
+				new InvocationHandler() {
+					@Override
+					public Object invoke(
+							final Object proxy,
+							final Method method,
+							final Object[] args ) {
+						if ("put".equals(method.getName()) && (args[0] instanceof Put)) {
+							mutations.add(args[0]);
+						}
+						else if ("delete".equals(method.getName()) && (args[0] instanceof List)) {
+							mutations.addAll((List<?>) args[0]);
+						}
+						return null;
+					}
+				});
+	}
+
+	@Test
+	public void testCompactionWritesBeforeDeleting()
+			throws IOException {
+		addPartial(
+				ADAPTER_ID,
+				1,
+				null);
+		addPartial(
+				ADAPTER_ID,
+				2,
+				null);
+		addPartial(
+				ADAPTER_ID,
+				3,
+				null);
+		// a statistic with a single row is left alone
+		addPartial(
+				OTHER_ADAPTER_ID,
+				4,
+				null);
+
+		statisticsStore.compactStatistics(
+				results,
+				table);
+
+		assertEquals(
+				4,
+				mutations.size());
+		// the merged row is written before any partial row is deleted
+		final CountDataStatistics<?> merged = getWritten(mutations.get(0));
+		assertEquals(
+				6,
+				merged.getCount());
+		assertEquals(
+				ADAPTER_ID,
+				merged.getDataAdapterId());
+		for (int i = 0; i < 3; i++) {
+			assertArrayEquals(
+					results.get(
+							i).getRow(),
+					((Delete) mutations.get(i + 1)).getRow());
+		}
+	}
+
+	@Test
+	public void testCompactionByVisibility()
+			throws IOException {
+		addPartial(
+				ADAPTER_ID,
+				1,
+				"A");
+		addPartial(
+				ADAPTER_ID,
+				2,
+				"B");
+		addPartial(
+				ADAPTER_ID,
+				3,
+				"A");
+		addPartial(
+				ADAPTER_ID,
+				4,
+				"B");
+		addPartial(
+				ADAPTER_ID,
+				5,
+				null);
+
+		statisticsStore.compactStatistics(
+				results,
+				table);
+
+		// each visibility is merged on its own, the single row without a
+		// visibility is left alone
+		final Map<String, Long> mergedCounts = new HashMap<String, Long>();
+		final List<byte[]> deletedRows = new ArrayList<byte[]>();
+		for (final Object mutation : mutations) {
+			if (mutation instanceof Put) {
+				final CountDataStatistics<?> merged = getWritten(mutation);
+				mergedCounts.put(
+						StringUtils.stringFromBinary(merged.getVisibility()),
+						merged.getCount());
+			}
+			else {
+				deletedRows.add(((Delete) mutation).getRow());
+			}
+		}
+		assertEquals(
+				2,
+				mergedCounts.size());
+		assertEquals(
+				Long.valueOf(4),
+				mergedCounts.get("A"));
+		assertEquals(
+				Long.valueOf(6),
+				mergedCounts.get("B"));
+		assertEquals(
+				4,
+				deletedRows.size());
+		for (final byte[] row : deletedRows) {
+			assertFalse(Arrays.equals(
+					row,
+					results.get(
+							4).getRow()));
+		}
+	}
+
+	@Test
+	public void testVisibilityValue() {
+		final CountDataStatistics<Object> stats = newCount(
+				ADAPTER_ID,
+				3,
+				"A&B");
+		final DataStatistics<?> decoded = statisticsStore.fromValue(statisticsStore.toValue(stats));
+		assertEquals(
+				3,
+				((CountDataStatistics<?>) decoded).getCount());
+		assertEquals(
+				"A&B",
+				StringUtils.stringFromBinary(decoded.getVisibility()));
+
+		// statistics without a visibility are persisted as before
+		final CountDataStatistics<Object> noVisibility = newCount(
+				ADAPTER_ID,
+				3,
+				null);
+		assertArrayEquals(
+				PersistenceUtils.toBinary(noVisibility),
+				statisticsStore.toValue(noVisibility));
+		assertNull(statisticsStore.fromValue(
+				PersistenceUtils.toBinary(noVisibility)).getVisibility());
+	}
+
+	private void addPartial(
+			final ByteArrayId adapterId,
+			final int count,
+			final String visibility ) {
+		final CountDataStatistics<Object> stats = newCount(
+				adapterId,
+				count,
+				visibility);
+		results.add(Result.create(Arrays.<Cell> asList(new KeyValue(
+				Bytes.toBytes("row" + (nextRow++)),
+				COLUMN_FAMILY,
+				adapterId.getBytes(),
+				statisticsStore.toValue(stats)))));
+	}
+
+	private static CountDataStatistics<Object> newCount(
+			final ByteArrayId adapterId,
+			final int count,
+			final String visibility ) {
+		final CountDataStatistics<Object> stats = new CountDataStatistics<Object>(
+				adapterId);
+		for (int i = 0; i < count; i++) {
+			stats.entryIngested(
+					null,
+					null);
+		}
+		if (visibility != null) {
+			stats.setVisibility(StringUtils.stringToBinary(visibility));
+		}
+		return stats;
+	}
+
+	private CountDataStatistics<?> getWritten(
+			final Object mutation ) {
+		final Cell cell = ((Put) mutation).getFamilyCellMap().get(
+				COLUMN_FAMILY).get(
+				0);
+		final DataStatistics<?> stats = statisticsStore.fromValue(CellUtil.cloneValue(cell));
+		stats.setDataAdapterId(new ByteArrayId(
+				CellUtil.cloneQualifier(cell)));
+		return (CountDataStatistics<?>) stats;
+	}
+}
@@ -0,0 +1,255 @@
+package mil.nga.giat.geowave.datastore.hbase.query;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.filter.Filter.ReturnCode;
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.RowMergingDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.RowMergingDataAdapter.RowTransform;
+import mil.nga.giat.geowave.core.store.flatten.BitmaskUtils;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.datastore.hbase.query.StatisticsEndpointTest.TestGeometryAdapter;
+
+public class HBaseAttributeSubsettingFilterTest
+{
+	private static final byte[] ROW = StringUtils.stringToBinary("row");
+	private static final byte[] FAMILY = StringUtils.stringToBinary("family");
+
+	// fields 0 and 2 are requested
+	private final HBaseAttributeSubsettingFilter filter = new HBaseAttributeSubsettingFilter(
+			toBitmask(Arrays.asList(
+					0,
+					2)));
+
+	@Test
+	public void testRequestedFieldsReturned()
+			throws IOException {
+		final Cell cell = newCell(
+				Arrays.asList(
+						0,
+						1,
+						2),
+				"zero",
+				"one",
+				"two");
+		assertEquals(
+				ReturnCode.INCLUDE,
+				filter.filterKeyValue(cell));
+
+		// the field that is not requested is removed from the value
+		final Cell subset = filter.transformCell(cell);
+		assertArrayEquals(
+				toBitmask(Arrays.asList(
+						0,
+						2)),
+				CellUtil.cloneQualifier(subset));
+		assertArrayEquals(
+				toValue(
+						"zero",
+						"two"),
+				CellUtil.cloneValue(subset));
+		assertArrayEquals(
+				ROW,
+				CellUtil.cloneRow(subset));
+	}
+
+	@Test
+	public void testSingleRequestedField()
+			throws IOException {
+		final Cell cell = newCell(
+				Arrays.asList(
+						1,
+						2),
+				"one",
+				"two");
+		final Cell subset = filter.transformCell(cell);
+		// a single field is stored without a length
+		assertArrayEquals(
+				StringUtils.stringToBinary("two"),
+				CellUtil.cloneValue(subset));
+	}
+
+	@Test
+	public void testCellWithOnlyRequestedFieldsUnchanged()
+			throws IOException {
+		final Cell cell = newCell(
+				Arrays.asList(
+						0,
+						2),
+				"zero",
+				"two");
+		assertEquals(
+				ReturnCode.INCLUDE,
+				filter.filterKeyValue(cell));
+		assertSame(
+				cell,
+				filter.transformCell(cell));
+	}
+
+	@Test
+	public void testCellWithoutRequestedFieldsSkipped()
+			throws IOException {
+		assertEquals(
+				ReturnCode.SKIP,
+				filter.filterKeyValue(newCell(
+						Arrays.asList(
+								1,
+								3),
+						"one",
+						"three")));
+	}
+
+	@Test
+	public void testSerialization()
+			throws Exception {
+		final HBaseAttributeSubsettingFilter deserialized = HBaseAttributeSubsettingFilter.parseFrom(filter
+				.toByteArray());
+		final Cell cell = newCell(
+				Arrays.asList(
+						0,
+						1),
+				"zero",
+				"one");
+		assertArrayEquals(
+				StringUtils.stringToBinary("zero"),
+				CellUtil.cloneValue(deserialized.transformCell(cell)));
+	}
+
+	@Test
+	public void testFieldSubsetBitmask() {
+		final PrimaryIndex index = new SpatialDimensionalityTypeProvider().createPrimaryIndex();
+		final TestGeometryAdapter adapter = new TestGeometryAdapter();
+		final byte[] bitmask = HBaseFilteredIndexQuery.getFieldSubsetBitmask(
+				index,
+				new ImmutablePair<List<String>, DataAdapter<?>>(
+						Arrays.asList("myId"),
+						adapter));
+
+		// the requested field and the dimension fields are kept
+		final List<Integer> positions = BitmaskUtils.getFieldPositions(bitmask);
+		assertTrue(positions.contains(adapter.getPositionOfOrderedField(
+				index.getIndexModel(),
+				new ByteArrayId(
+						"myId"))));
+		assertTrue(positions.contains(adapter.getPositionOfOrderedField(
+				index.getIndexModel(),
+				index.getIndexModel().getDimensions()[0].getFieldId())));
+		assertFalse(positions.contains(adapter.getPositionOfOrderedField(
+				index.getIndexModel(),
+				new ByteArrayId(
+						"myGeo"))));
+
+		// without a field subset every field is returned
+		assertNull(HBaseFilteredIndexQuery.getFieldSubsetBitmask(
+				index,
+				new ImmutablePair<List<String>, DataAdapter<?>>(
+						Collections.<String> emptyList(),
+						adapter)));
+		assertNull(HBaseFilteredIndexQuery.getFieldSubsetBitmask(
+				index,
+				null));
+	}
+
+	@Test
+	public void testMergingAdapterNotSubset() {
+		final RowTransform<?> transform = (RowTransform<?>) Proxy.newProxyInstance(
+				getClass().getClassLoader(),
+				new Class[] {
+					RowTransform.class
+				},
+				new NullInvocationHandler());
+		final DataAdapter<?> adapter = (DataAdapter<?>) Proxy.newProxyInstance(
+				getClass().getClassLoader(),
+				new Class[] {
+					RowMergingDataAdapter.class
+				},
+				new InvocationHandler() {
+					@Override
+					public Object invoke(
+							final Object proxy,
+							final Method method,
+							final Object[] args ) {
+						if ("getTransform".equals(method.getName())) {
+							return transform;
+						}
+						return null;
+					}
+				});
+
+		// rows are subset on the client once they are merged
+		final Pair<List<String>, DataAdapter<?>> fieldIds = new ImmutablePair<List<String>, DataAdapter<?>>(
+				Arrays.asList("myId"),
+				adapter);
+		assertNull(HBaseFilteredIndexQuery.getFieldSubsetBitmask(
+				new SpatialDimensionalityTypeProvider().createPrimaryIndex(),
+				fieldIds));
+	}
+
+	private static Cell newCell(
+			final List<Integer> fieldPositions,
+			final String... fieldValues ) {
+		return new KeyValue(
+				ROW,
+				FAMILY,
+				toBitmask(fieldPositions),
+				fieldValues.length > 1 ? toValue(fieldValues) : StringUtils.stringToBinary(fieldValues[0]));
+	}
+
+	private static byte[] toBitmask(
+			final List<Integer> fieldPositions ) {
+		return BitmaskUtils.generateCompositeBitmask(new TreeSet<Integer>(
+				fieldPositions));
+	}
+
+	private static byte[] toValue(
+			final String... fieldValues ) {
+		int size = 0;
+		for (final String fieldValue : fieldValues) {
+			size += 4 + StringUtils.stringToBinary(fieldValue).length;
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(size);
+		for (final String fieldValue : fieldValues) {
+			final byte[] bytes = StringUtils.stringToBinary(fieldValue);
+			buf.putInt(bytes.length);
+			buf.put(bytes);
+		}
+		return buf.array();
+	}
+
+	private static class NullInvocationHandler implements
+			InvocationHandler
+	{
+		@Override
+		public Object invoke(
+				final Object proxy,
+				final Method method,
+				final Object[] args ) {
+			return null;
+		}
+	}
+}
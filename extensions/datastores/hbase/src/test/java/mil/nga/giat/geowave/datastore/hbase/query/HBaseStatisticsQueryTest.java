@@ -0,0 +1,90 @@
+package mil.nga.giat.geowave.datastore.hbase.query;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.protobuf.ByteString;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+
+public class HBaseStatisticsQueryTest
+{
+	private static final ByteArrayId ADAPTER_ID = new ByteArrayId(
+			"adapter");
+	private static final ByteArrayId OTHER_STATS_ID = new ByteArrayId(
+			"OTHER_COUNT");
+
+	@Test
+	public void testMergeStatistics()
+			throws IOException {
+		final List<DataStatistics<?>> statistics = HBaseStatisticsQuery.mergeStatistics(Arrays.asList(
+				toValue(
+						newCount(
+								CountDataStatistics.STATS_TYPE,
+								2),
+						newCount(
+								OTHER_STATS_ID,
+								1)),
+				// a region without any entries of the adapter
+				ByteString.EMPTY,
+				toValue(newCount(
+						CountDataStatistics.STATS_TYPE,
+						3))));
+
+		final Map<ByteArrayId, Long> counts = new HashMap<ByteArrayId, Long>();
+		for (final DataStatistics<?> stats : statistics) {
+			counts.put(
+					stats.getStatisticsId(),
+					((CountDataStatistics<?>) stats).getCount());
+		}
+		assertEquals(
+				2,
+				counts.size());
+		assertEquals(
+				Long.valueOf(5),
+				counts.get(CountDataStatistics.STATS_TYPE));
+		assertEquals(
+				Long.valueOf(1),
+				counts.get(OTHER_STATS_ID));
+	}
+
+	@Test
+	public void testMergeNoStatistics()
+			throws IOException {
+		assertEquals(
+				0,
+				HBaseStatisticsQuery.mergeStatistics(
+						Arrays.asList(
+								ByteString.EMPTY,
+								ByteString.EMPTY)).size());
+	}
+
+	private static ByteString toValue(
+			final DataStatistics<?>... statistics ) {
+		return ByteString.copyFrom(PersistenceUtils.toBinary(Arrays.asList(statistics)));
+	}
+
+	private static CountDataStatistics<Object> newCount(
+			final ByteArrayId statisticsId,
+			final int count ) {
+		final CountDataStatistics<Object> stats = new CountDataStatistics<Object>(
+				ADAPTER_ID,
+				statisticsId);
+		for (int i = 0; i < count; i++) {
+			stats.entryIngested(
+					null,
+					null);
+		}
+		return stats;
+	}
+}
@@ -0,0 +1,420 @@
+package mil.nga.giat.geowave.datastore.hbase.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.core.geotime.store.dimension.GeometryWrapper;
+import mil.nga.giat.geowave.core.geotime.store.dimension.LatitudeField;
+import mil.nga.giat.geowave.core.geotime.store.dimension.LongitudeField;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.SFCFactory.SFCType;
+import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexFactory;
+import mil.nga.giat.geowave.core.store.EntryVisibilityHandler;
+import mil.nga.giat.geowave.core.store.adapter.AbstractDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.NativeFieldHandler;
+import mil.nga.giat.geowave.core.store.adapter.NativeFieldHandler.RowBuilder;
+import mil.nga.giat.geowave.core.store.adapter.PersistentIndexFieldHandler;
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.FieldTypeStatisticVisibility;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StatisticsProvider;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.base.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.data.field.FieldReader;
+import mil.nga.giat.geowave.core.store.data.field.FieldUtils;
+import mil.nga.giat.geowave.core.store.data.field.FieldWriter;
+import mil.nga.giat.geowave.core.store.dimension.NumericDimensionField;
+import mil.nga.giat.geowave.core.store.entities.GeowaveRowId;
+import mil.nga.giat.geowave.core.store.index.BasicIndexModel;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.core.store.index.CustomIdIndex;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.util.DataStoreUtils;
+
+public class StatisticsEndpointTest
+{
+	// a single tier, so that an entry across cells is stored in several rows
+	private static final PrimaryIndex INDEX = new CustomIdIndex(
+			TieredSFCIndexFactory.createSingleTierStrategy(
+					new NumericDimensionDefinition[] {
+						new LongitudeDefinition(),
+						new LatitudeDefinition(
+								true)
+					},
+					new int[] {
+						8,
+						8
+					},
+					SFCType.HILBERT),
+			new BasicIndexModel(
+					new NumericDimensionField[] {
+						new LongitudeField(),
+						new LatitudeField(
+								true)
+					}),
+			new ByteArrayId(
+					"test_index"));
+
+	private final GeometryFactory factory = new GeometryFactory();
+	private final TestGeometryAdapter adapter = new TestGeometryAdapter();
+
+	@Test
+	public void testDecodeEntry() {
+		final List<Result> rows = toRows(new TestGeometry(
+				factory.createPoint(new Coordinate(
+						25,
+						32)),
+				"test_pt"));
+		assertEquals(
+				1,
+				rows.size());
+
+		final Pair<Object, DataStoreEntryInfo> entry = StatisticsEndpoint.decodeEntry(
+				adapter,
+				INDEX,
+				rows.get(0));
+		assertNotNull(entry);
+		assertEquals(
+				"test_pt",
+				((TestGeometry) entry.getLeft()).id);
+		assertEquals(
+				1,
+				entry.getRight().getRowIds().size());
+	}
+
+	@Test
+	public void testDecodeEntryInSeveralRows() {
+		// the envelope crosses the center of the index, so is in four cells
+		final TestGeometry geometry = new TestGeometry(
+				factory.toGeometry(new Envelope(
+						-0.5,
+						0.5,
+						-0.5,
+						0.5)),
+				"test_poly");
+		final DataStoreEntryInfo ingestInfo = getIngestInfo(geometry);
+		final List<Result> rows = toRows(geometry);
+		assertTrue(rows.size() > 1);
+
+		// the entry is only decoded at the row of its first insertion ID, with
+		// every row of the entry
+		Pair<Object, DataStoreEntryInfo> decoded = null;
+		for (final Result row : rows) {
+			final Pair<Object, DataStoreEntryInfo> entry = StatisticsEndpoint.decodeEntry(
+					adapter,
+					INDEX,
+					row);
+			if (entry != null) {
+				assertTrue(decoded == null);
+				assertEquals(
+						Collections.min(ingestInfo.getInsertionIds()),
+						new ByteArrayId(
+								new GeowaveRowId(
+										row.getRow()).getInsertionId()));
+				decoded = entry;
+			}
+		}
+		assertNotNull(decoded);
+		assertEquals(
+				"test_poly",
+				((TestGeometry) decoded.getLeft()).id);
+		assertEquals(
+				new HashSet<ByteArrayId>(
+						ingestInfo.getRowIds()),
+				new HashSet<ByteArrayId>(
+						decoded.getRight().getRowIds()));
+	}
+
+	@SuppressWarnings("unchecked")
+	private DataStoreEntryInfo getIngestInfo(
+			final TestGeometry entry ) {
+		return DataStoreUtils.getIngestInfo(
+				adapter,
+				INDEX,
+				entry,
+				DataStoreUtils.UNCONSTRAINED_VISIBILITY);
+	}
+
+	/**
+	 * @return the rows of the entry, as they are written to HBase
+	 */
+	private List<Result> toRows(
+			final TestGeometry entry ) {
+		final DataStoreEntryInfo ingestInfo = getIngestInfo(entry);
+		final List<FieldInfo<?>> fields = DataStoreUtils.composeFlattenedFields(
+				ingestInfo.getFieldInfo(),
+				INDEX.getIndexModel(),
+				adapter);
+		final List<Result> rows = new ArrayList<Result>();
+		for (final ByteArrayId rowId : ingestInfo.getRowIds()) {
+			final List<Cell> cells = new ArrayList<Cell>();
+			for (final FieldInfo<?> field : fields) {
+				cells.add(new KeyValue(
+						rowId.getBytes(),
+						adapter.getAdapterId().getBytes(),
+						field.getDataValue().getId().getBytes(),
+						field.getWrittenValue()));
+			}
+			rows.add(Result.create(cells));
+		}
+		return rows;
+	}
+
+	public static class TestGeometry
+	{
+		private final Geometry geom;
+		private final String id;
+
+		public TestGeometry(
+				final Geometry geom,
+				final String id ) {
+			this.geom = geom;
+			this.id = id;
+		}
+	}
+
+	public static class TestGeometryAdapter extends
+			AbstractDataAdapter<TestGeometry> implements
+			StatisticsProvider<TestGeometry>
+	{
+		private static final ByteArrayId GEOM = new ByteArrayId(
+				"myGeo");
+		private static final ByteArrayId ID = new ByteArrayId(
+				"myId");
+		private final static ByteArrayId[] SUPPORTED_STATS_IDS = new ByteArrayId[] {
+			CountDataStatistics.STATS_TYPE
+		};
+
+		private static final PersistentIndexFieldHandler<TestGeometry, ? extends CommonIndexValue, Object> GEOM_FIELD_HANDLER = new PersistentIndexFieldHandler<TestGeometry, CommonIndexValue, Object>() {
+
+			@Override
+			public ByteArrayId[] getNativeFieldIds() {
+				return new ByteArrayId[] {
+					GEOM
+				};
+			}
+
+			@Override
+			public CommonIndexValue toIndexValue(
+					final TestGeometry row ) {
+				return new GeometryWrapper(
+						row.geom,
+						new byte[0]);
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public PersistentValue<Object>[] toNativeValues(
+					final CommonIndexValue indexValue ) {
+				return new PersistentValue[] {
+					new PersistentValue<Object>(
+							GEOM,
+							((GeometryWrapper) indexValue).getGeometry())
+				};
+			}
+
+			@Override
+			public byte[] toBinary() {
+				return new byte[0];
+			}
+
+			@Override
+			public void fromBinary(
+					final byte[] bytes ) {
+
+			}
+		};
+
+		private final static EntryVisibilityHandler<TestGeometry> GEOMETRY_VISIBILITY_HANDLER = new FieldTypeStatisticVisibility<TestGeometry>(
+				GeometryWrapper.class);
+		private static final NativeFieldHandler<TestGeometry, Object> ID_FIELD_HANDLER = new NativeFieldHandler<TestGeometry, Object>() {
+
+			@Override
+			public ByteArrayId getFieldId() {
+				return ID;
+			}
+
+			@Override
+			public Object getFieldValue(
+					final TestGeometry row ) {
+				return row.id;
+			}
+
+		};
+
+		private static final List<NativeFieldHandler<TestGeometry, Object>> NATIVE_FIELD_HANDLER_LIST = new ArrayList<NativeFieldHandler<TestGeometry, Object>>();
+		private static final List<PersistentIndexFieldHandler<TestGeometry, ? extends CommonIndexValue, Object>> COMMON_FIELD_HANDLER_LIST = new ArrayList<PersistentIndexFieldHandler<TestGeometry, ? extends CommonIndexValue, Object>>();
+
+		static {
+			COMMON_FIELD_HANDLER_LIST.add(GEOM_FIELD_HANDLER);
+			NATIVE_FIELD_HANDLER_LIST.add(ID_FIELD_HANDLER);
+		}
+
+		public TestGeometryAdapter() {
+			super(
+					COMMON_FIELD_HANDLER_LIST,
+					NATIVE_FIELD_HANDLER_LIST);
+		}
+
+		@Override
+		public ByteArrayId getAdapterId() {
+			return new ByteArrayId(
+					"test");
+		}
+
+		@Override
+		public boolean isSupported(
+				final TestGeometry entry ) {
+			return true;
+		}
+
+		@Override
+		public ByteArrayId getDataId(
+				final TestGeometry entry ) {
+			return new ByteArrayId(
+					entry.id);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public FieldReader getReader(
+				final ByteArrayId fieldId ) {
+			if (fieldId.equals(GEOM)) {
+				return FieldUtils.getDefaultReaderForClass(Geometry.class);
+			}
+			else if (fieldId.equals(ID)) {
+				return FieldUtils.getDefaultReaderForClass(String.class);
+			}
+			return null;
+		}
+
+		@Override
+		public FieldWriter getWriter(
+				final ByteArrayId fieldId ) {
+			if (fieldId.equals(GEOM)) {
+				return FieldUtils.getDefaultWriterForClass(Geometry.class);
+			}
+			else if (fieldId.equals(ID)) {
+				return FieldUtils.getDefaultWriterForClass(String.class);
+			}
+			return null;
+		}
+
+		@Override
+		public DataStatistics<TestGeometry> createDataStatistics(
+				final ByteArrayId statisticsId ) {
+			if (CountDataStatistics.STATS_TYPE.equals(statisticsId)) {
+				return new CountDataStatistics<TestGeometry>(
+						getAdapterId());
+			}
+			return null;
+		}
+
+		@Override
+		public EntryVisibilityHandler<TestGeometry> getVisibilityHandler(
+				final ByteArrayId statisticsId ) {
+			return GEOMETRY_VISIBILITY_HANDLER;
+		}
+
+		@Override
+		protected RowBuilder newBuilder() {
+			return new RowBuilder<TestGeometry, Object>() {
+				private String id;
+				private Geometry geom;
+
+				@Override
+				public void setField(
+						final PersistentValue<Object> fieldValue ) {
+					if (fieldValue.getId().equals(
+							GEOM)) {
+						geom = (Geometry) fieldValue.getValue();
+					}
+					else if (fieldValue.getId().equals(
+							ID)) {
+						id = (String) fieldValue.getValue();
+					}
+				}
+
+				@Override
+				public TestGeometry buildRow(
+						final ByteArrayId dataId ) {
+					return new TestGeometry(
+							geom,
+							id);
+				}
+			};
+		}
+
+		@Override
+		public ByteArrayId[] getSupportedStatisticsTypes() {
+			return SUPPORTED_STATS_IDS;
+		}
+
+		@Override
+		public int getPositionOfOrderedField(
+				final CommonIndexModel model,
+				final ByteArrayId fieldId ) {
+			int i = 0;
+			for (final NumericDimensionField<? extends CommonIndexValue> dimensionField : model.getDimensions()) {
+				if (fieldId.equals(dimensionField.getFieldId())) {
+					return i;
+				}
+				i++;
+			}
+			if (fieldId.equals(GEOM)) {
+				return i;
+			}
+			else if (fieldId.equals(ID)) {
+				return i + 1;
+			}
+			return -1;
+		}
+
+		@Override
+		public ByteArrayId getFieldIdForPosition(
+				final CommonIndexModel model,
+				final int position ) {
+			if (position < model.getDimensions().length) {
+				int i = 0;
+				for (final NumericDimensionField<? extends CommonIndexValue> dimensionField : model.getDimensions()) {
+					if (i == position) {
+						return dimensionField.getFieldId();
+					}
+					i++;
+				}
+			}
+			else {
+				final int numDimensions = model.getDimensions().length;
+				if (position == numDimensions) {
+					return GEOM;
+				}
+				else if (position == (numDimensions + 1)) {
+					return ID;
+				}
+			}
+			return null;
+		}
+	}
+}
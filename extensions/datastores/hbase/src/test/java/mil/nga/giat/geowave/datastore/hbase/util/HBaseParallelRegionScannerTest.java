@@ -0,0 +1,282 @@
+package mil.nga.giat.geowave.datastore.hbase.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.AbstractClientScanner;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.MultiRowRangeFilter.RowRange;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+import mil.nga.giat.geowave.datastore.hbase.operations.BasicHBaseOperations;
+
+public class HBaseParallelRegionScannerTest
+{
+	private static final byte[][] REGION_STARTS = new byte[][] {
+		HConstants.EMPTY_START_ROW,
+		Bytes.toBytes("b"),
+		Bytes.toBytes("d"),
+		Bytes.toBytes("f")
+	};
+	private static final byte[][] REGION_ENDS = new byte[][] {
+		Bytes.toBytes("b"),
+		Bytes.toBytes("d"),
+		Bytes.toBytes("f"),
+		HConstants.EMPTY_END_ROW
+	};
+
+	private static class ListScanner extends
+			AbstractClientScanner
+	{
+		private final Iterator<Result> results;
+
+		private ListScanner(
+				final List<Result> results ) {
+			this.results = results.iterator();
+		}
+
+		@Override
+		public Result next() {
+			return results.hasNext() ? results.next() : null;
+		}
+
+		@Override
+		public void close() {}
+
+		public boolean renewLease() {
+			return false;
+		}
+	}
+
+	@Test
+	public void testRegionScans()
+			throws IOException {
+		final List<RowRange> ranges = Arrays.asList(
+				new RowRange(
+						Bytes.toBytes("a"),
+						true,
+						Bytes.toBytes("a5"),
+						false),
+				new RowRange(
+						Bytes.toBytes("c"),
+						true,
+						Bytes.toBytes("e"),
+						true));
+		final List<Scan> scans = HBaseParallelRegionScanner.getRegionScans(
+				new Scan(),
+				ranges,
+				REGION_STARTS,
+				REGION_ENDS);
+
+		// the second range spans two regions, the last region holds no range
+		assertEquals(
+				3,
+				scans.size());
+		assertScan(
+				scans.get(0),
+				Bytes.toBytes("a"),
+				Bytes.toBytes("a5"));
+		assertScan(
+				scans.get(1),
+				Bytes.toBytes("c"),
+				Bytes.toBytes("d"));
+		// an inclusive stop row is scanned up to the row following it
+		assertScan(
+				scans.get(2),
+				Bytes.toBytes("d"),
+				new byte[] {
+					'e',
+					0
+				});
+	}
+
+	private static void assertScan(
+			final Scan scan,
+			final byte[] startRow,
+			final byte[] stopRow ) {
+		assertArrayEquals(
+				startRow,
+				scan.getStartRow());
+		assertArrayEquals(
+				stopRow,
+				scan.getStopRow());
+	}
+
+	@Test
+	public void testOrderedResults()
+			throws IOException {
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try (HBaseParallelRegionScanner scanner = createScanner(
+				executor,
+				-1)) {
+			final List<String> rows = new ArrayList<String>();
+			while (scanner.hasNext()) {
+				rows.add(Bytes.toString(scanner.next().getRow()));
+			}
+			assertEquals(
+					Arrays.asList(
+							"r0",
+							"r1",
+							"r2"),
+					rows);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testRegionFailure()
+			throws IOException {
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try (HBaseParallelRegionScanner scanner = createScanner(
+				executor,
+				1)) {
+			assertEquals(
+					"r0",
+					Bytes.toString(scanner.next().getRow()));
+			// the failed region fails the iteration rather than ending it
+			scanner.hasNext();
+			fail("Expected the region failure to be thrown");
+		}
+		catch (final RuntimeException e) {
+			assertEquals(
+					IOException.class,
+					e.getCause().getClass());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testTasksPerQuery()
+			throws IOException {
+		final ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(2);
+		try (HBaseParallelRegionScanner scanner = createScanner(
+				executor,
+				40,
+				40,
+				10,
+				1,
+				-1)) {
+			// a query never holds more than its share of the shared pool
+			assertEquals(
+					BasicHBaseOperations.MAX_SCAN_THREADS_PER_QUERY,
+					executor.getTaskCount());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testCloseReleasesThreads()
+			throws Exception {
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final HBaseParallelRegionScanner scanner = createScanner(
+					executor,
+					1,
+					1,
+					1,
+					100,
+					-1);
+			assertEquals(
+					"r0",
+					Bytes.toString(scanner.next().getRow()));
+			// the task waiting on the full queue gives up the only thread of
+			// the pool once the consumer closes the scanner
+			scanner.close();
+			assertEquals(
+					Boolean.TRUE,
+					executor.submit(
+							new Callable<Boolean>() {
+								@Override
+								public Boolean call() {
+									return Boolean.TRUE;
+								}
+							}).get(
+							10,
+							TimeUnit.SECONDS));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static HBaseParallelRegionScanner createScanner(
+			final ExecutorService executor,
+			final int failedRegion ) {
+		return createScanner(
+				executor,
+				3,
+				2,
+				10,
+				1,
+				failedRegion);
+	}
+
+	private static HBaseParallelRegionScanner createScanner(
+			final ExecutorService executor,
+			final int regions,
+			final int threads,
+			final int prefetchSize,
+			final int resultsPerRegion,
+			final int failedRegion ) {
+		final List<Scan> scans = new ArrayList<Scan>();
+		for (int i = 0; i < regions; i++) {
+			scans.add(new Scan(
+					Bytes.toBytes("r" + i)));
+		}
+		return new HBaseParallelRegionScanner(
+				null,
+				executor,
+				"table",
+				scans,
+				threads,
+				prefetchSize,
+				true) {
+			@Override
+			protected ResultScanner getScanner(
+					final Scan scan )
+					throws IOException {
+				final int region = Integer.parseInt(Bytes.toString(
+						scan.getStartRow()).substring(
+						1));
+				if (region == failedRegion) {
+					throw new IOException(
+							"Region unavailable");
+				}
+				final List<Result> results = new ArrayList<Result>();
+				for (int i = 0; i < resultsPerRegion; i++) {
+					results.add(Result.create(Arrays.<Cell> asList(new KeyValue(
+							scan.getStartRow(),
+							Bytes.toBytes("f"),
+							Bytes.toBytes("q" + i),
+							Bytes.toBytes("v")))));
+				}
+				return new ListScanner(
+						results);
+			}
+		};
+	}
+}